@@ -0,0 +1,14 @@
+package CustomException;
+
+/**
+ * Exception thrown when durable order storage cannot be read or written.
+ */
+public class PersistenceException extends RuntimeException {
+   public PersistenceException(String message) {
+      super(message);
+   }
+
+   public PersistenceException(String message, Throwable cause) {
+      super(message, cause);
+   }
+}
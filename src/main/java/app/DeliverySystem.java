@@ -2,32 +2,44 @@ package app;
 
 import model.Driver;
 import model.Order;
+import model.OrderStatus;
 import model.Rating;
+import services.OrderRepository;
+import services.impl.InMemoryOrderRepository;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 public class DeliverySystem {
-   private final Map<Long, String> orderStatuses = new HashMap<>();
+   private final OrderRepository orders;
+
+   public DeliverySystem() {
+      this(new InMemoryOrderRepository());
+   }
+
+   public DeliverySystem(final OrderRepository orders) {
+      this.orders = orders;
+   }
 
    public void submitOrder(final Order order) {
       System.out.println("Order submitted: " + order.getOrderId());
-      this.orderStatuses.put(order.getOrderId(), "Pending");
+      this.orders.save(order);
    }
 
    public void assignOrderToDriver(final Order order, final Driver driver) {
       System.out.println("Order " + order.getOrderId() + " assigned to driver " + driver.getName());
-      this.orderStatuses.put(order.getOrderId(), "In Progress");
+      this.orders.save(order);
+      order.setDriver(driver);
+      order.transitionTo(OrderStatus.IN_PROGRESS);
    }
 
    public void completeDelivery(final Long orderId, final Long driverId) {
       System.out.println("Delivery completed for order " + orderId + " by driver " + driverId);
-      this.orderStatuses.put(orderId, "Delivered");
+      this.orders.findById(orderId).ifPresent(order -> order.transitionTo(OrderStatus.DELIVERED));
    }
 
    public String getOrderStatus(final Long orderId) {
-      return this.orderStatuses.getOrDefault(orderId, "Order Not Found");
+      return this.orders.findById(orderId).map(order -> DeliverySystem.describe(order.getStatus()))
+            .orElse("Order Not Found");
    }
 
    public void rateDriver(Driver driver, int ratingValue) {
@@ -39,4 +51,13 @@ public class DeliverySystem {
    public List<Rating> getDriverRatings(Driver driver) {
       return driver.getRatings();
    }
+
+   private static String describe(final OrderStatus status) {
+      return switch (status) {
+         case PENDING -> "Pending";
+         case IN_PROGRESS -> "In Progress";
+         case DELIVERED -> "Delivered";
+         default -> status.name();
+      };
+   }
 }
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
 
+import dispatch.DispatchEngine;
 import managers.DriverManager;
 import managers.MenuManager;
 import managers.OrderManager;
@@ -41,6 +42,10 @@ public class DeliverySystemCLI {
         this.menuManager = new MenuManager();
         this.orderManager = new OrderManager();
         this.driverManager = new DriverManager();
+        // Orders are only dispatched automatically when a batch interval is configured
+        if (System.getProperty(DispatchEngine.INTERVAL_PROPERTY) != null) {
+            this.driverManager.startBatchDispatch(this.orderManager.getOrderService());
+        }
 
         this.initializeMenu();
     }
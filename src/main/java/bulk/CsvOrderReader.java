@@ -0,0 +1,195 @@
+package bulk;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+import CustomException.ValidationException;
+import model.ConcreteMenuItem;
+import model.MenuItem;
+import model.Order;
+
+/**
+ * Reads the CSV written by {@link CsvOrderWriter}. Columns are matched by
+ * their header names, so they may come in any order and extra columns are
+ * ignored.
+ *
+ * <p>Consecutive rows with the same order ID form one order; rows without an
+ * order ID are each an order of their own. A malformed row is reported with
+ * its row number, and the whole order it belongs to is skipped. Line breaks
+ * inside quoted fields are read back as {@code \n}.
+ */
+class CsvOrderReader implements OrderReader {
+   private final BufferedReader in;
+   private final LongSupplier newIds;
+   private final int[] columns;
+   private final StringBuilder field;
+   private String[] lookahead;
+   private long rowNumber;
+
+   CsvOrderReader(BufferedReader in, LongSupplier newIds) throws IOException {
+      this.in = in;
+      this.newIds = newIds;
+      this.field = new StringBuilder();
+      this.columns = new int[CsvOrderWriter.COLUMNS.size()];
+      final String[] header = this.readRow();
+      if (header == null) {
+         return;
+      }
+      final List<String> names = List.of(header);
+      for (int i = 0; i < this.columns.length; i++) {
+         final String column = CsvOrderWriter.COLUMNS.get(i);
+         this.columns[i] = names.indexOf(column);
+         if (this.columns[i] < 0) {
+            throw new ValidationException("CSV header has no " + column + " column");
+         }
+      }
+   }
+
+   @Override
+   public Order next() throws IOException {
+      final String[] first;
+      try {
+         first = this.lookahead != null ? this.lookahead : this.readRow();
+      } catch (ValidationException e) {
+         throw CsvOrderReader.atRow(this.rowNumber, e);
+      }
+      this.lookahead = null;
+      if (first == null) {
+         return null;
+      }
+      final long firstRow = this.rowNumber;
+      final String orderKey = this.column(first, 0);
+      final List<MenuItem> items = new ArrayList<>();
+      try {
+         this.addItem(first, items);
+         String[] row;
+         while ((row = this.readRow()) != null && orderKey != null && orderKey.equals(this.column(row, 0))) {
+            this.addItem(row, items);
+         }
+         this.lookahead = row;
+         return OrderFields.order(orderKey != null ? this.parseLong(orderKey) : this.newIds.getAsLong(),
+               this.optionalLong(first, 1), this.column(first, 2), items, this.column(first, 3),
+               this.column(first, 4), OrderFields.parseStatus(this.column(first, 5)),
+               OrderFields.parseTime(this.column(first, 6)));
+      } catch (ValidationException e) {
+         this.skipRestOfOrder(orderKey);
+         throw CsvOrderReader.atRow(firstRow, e);
+      }
+   }
+
+   /**
+    * Skips the remaining rows of an order that failed, so that none of it is imported.
+    */
+   private void skipRestOfOrder(String orderKey) throws IOException {
+      try {
+         String[] row = this.lookahead;
+         while (row != null && orderKey != null && orderKey.equals(this.column(row, 0))) {
+            row = this.readRow();
+         }
+         this.lookahead = row;
+      } catch (ValidationException e) {
+         // The next call reports the rows after this one
+         this.lookahead = null;
+      }
+   }
+
+   private static ValidationException atRow(long row, ValidationException e) {
+      return new ValidationException("Row " + row + ": " + e.getMessage());
+   }
+
+   private void addItem(String[] row, List<MenuItem> items) {
+      final String name = this.column(row, 8);
+      final String unitPriceCents = this.column(row, 12);
+      if (name == null && unitPriceCents == null) {
+         return;
+      }
+      if (unitPriceCents == null) {
+         throw new ValidationException("order line without itemUnitPriceCents");
+      }
+      final Long quantity = this.optionalLong(row, 11);
+      if (quantity != null && (quantity < 0 || quantity > Integer.MAX_VALUE)) {
+         throw new ValidationException("invalid quantity " + quantity);
+      }
+      items.add(ConcreteMenuItem.ofCents(this.optionalLong(row, 7), name, this.column(row, 9),
+            this.parseLong(unitPriceCents), OrderFields.parseSize(this.column(row, 10)),
+            quantity == null ? 1 : quantity.intValue()));
+   }
+
+   private String column(String[] row, int column) {
+      final int index = this.columns[column];
+      return index < row.length ? row[index] : null;
+   }
+
+   private Long optionalLong(String[] row, int column) {
+      final String value = this.column(row, column);
+      return value == null ? null : this.parseLong(value);
+   }
+
+   private long parseLong(String value) {
+      try {
+         return Long.parseLong(value);
+      } catch (NumberFormatException e) {
+         throw new ValidationException("expected an integer but found " + value);
+      }
+   }
+
+   /**
+    * @return the next row's fields, null for unquoted empty ones, or null at the end of the stream
+    */
+   private String[] readRow() throws IOException {
+      String line;
+      do {
+         line = this.in.readLine();
+         if (line == null) {
+            return null;
+         }
+         this.rowNumber++;
+      } while (line.isEmpty());
+      final List<String> fields = new ArrayList<>(this.columns.length);
+      int position = 0;
+      while (true) {
+         if (position < line.length() && line.charAt(position) == '"') {
+            this.field.setLength(0);
+            position++;
+            while (true) {
+               if (position >= line.length()) {
+                  // A quoted field continues on the next line
+                  final String continuation = this.in.readLine();
+                  if (continuation == null) {
+                     throw new ValidationException("unterminated quoted field");
+                  }
+                  this.field.append('\n');
+                  line = continuation;
+                  position = 0;
+                  continue;
+               }
+               final char c = line.charAt(position++);
+               if (c != '"') {
+                  this.field.append(c);
+               } else if (position < line.length() && line.charAt(position) == '"') {
+                  this.field.append('"');
+                  position++;
+               } else {
+                  break;
+               }
+            }
+            fields.add(this.field.toString());
+         } else {
+            final int end = line.indexOf(',', position);
+            final String value = line.substring(position, end < 0 ? line.length() : end);
+            fields.add(value.isEmpty() ? null : value);
+            position = end < 0 ? line.length() : end;
+         }
+         if (position >= line.length()) {
+            return fields.toArray(new String[0]);
+         }
+         if (line.charAt(position) != ',') {
+            throw new ValidationException("unexpected character after quoted field");
+         }
+         position++;
+      }
+   }
+}
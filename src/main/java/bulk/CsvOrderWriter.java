@@ -0,0 +1,98 @@
+package bulk;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+import model.MenuItem;
+import model.Order;
+import model.Size;
+
+/**
+ * Writes orders as RFC 4180 CSV with a header row and one row per order
+ * line; the order's own fields are repeated on each of its rows. An order
+ * without lines is written as one row with empty line columns.
+ *
+ * <p>A null field is written empty and an empty string as {@code ""}, so
+ * the two stay distinct.
+ */
+class CsvOrderWriter implements OrderWriter {
+   static final List<String> COLUMNS = List.of("orderId", "customerId", "customerEmail", "deliveryAddress",
+         "postalCode", "status", "estimatedDeliveryTime", "itemId", "itemName", "itemDescription", "itemSize",
+         "itemQuantity", "itemUnitPriceCents");
+
+   private final Writer out;
+
+   CsvOrderWriter(Writer out) throws IOException {
+      this.out = out;
+      this.out.write(String.join(",", CsvOrderWriter.COLUMNS));
+      this.out.write("\r\n");
+   }
+
+   @Override
+   public void write(Order order) throws IOException {
+      final List<MenuItem> items = order.getItems();
+      if (items.isEmpty()) {
+         this.writeOrderFields(order);
+         this.out.write(",,,,,,\r\n");
+         return;
+      }
+      for (MenuItem item : items) {
+         this.writeOrderFields(order);
+         final Size size = OrderFields.size(item);
+         this.out.write(',');
+         this.field(item.getId() == null ? null : item.getId().toString());
+         this.out.write(',');
+         this.field(item.getName());
+         this.out.write(',');
+         this.field(OrderFields.description(item));
+         this.out.write(',');
+         this.field(size == null ? null : size.name());
+         this.out.write(',');
+         this.out.write(Integer.toString(OrderFields.quantity(item)));
+         this.out.write(',');
+         this.out.write(Long.toString(OrderFields.unitPriceCents(item)));
+         this.out.write("\r\n");
+      }
+   }
+
+   private void writeOrderFields(Order order) throws IOException {
+      this.field(order.getId() == null ? null : order.getId().toString());
+      this.out.write(',');
+      this.field(order.getCustomerId() == null ? null : order.getCustomerId().toString());
+      this.out.write(',');
+      this.field(order.getCustomerEmail());
+      this.out.write(',');
+      this.field(order.getDeliveryAddress());
+      this.out.write(',');
+      this.field(order.getPostalCode());
+      this.out.write(',');
+      this.field(order.getStatus().name());
+      this.out.write(',');
+      this.field(OrderFields.format(order.getEstimatedDeliveryTime()));
+   }
+
+   private void field(String value) throws IOException {
+      if (value == null) {
+         return;
+      }
+      boolean quote = value.isEmpty();
+      for (int i = 0; i < value.length() && !quote; i++) {
+         final char c = value.charAt(i);
+         quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+      }
+      if (!quote) {
+         this.out.write(value);
+         return;
+      }
+      this.out.write('"');
+      for (int i = 0; i < value.length(); i++) {
+         final char c = value.charAt(i);
+         if (c == '"') {
+            this.out.write('"');
+         }
+         this.out.write(c);
+      }
+      this.out.write('"');
+   }
+}
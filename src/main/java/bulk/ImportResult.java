@@ -0,0 +1,42 @@
+package bulk;
+
+import java.time.Duration;
+
+/**
+ * The outcome of an {@link OrderImporter} run.
+ */
+public final class ImportResult {
+   private final long imported;
+   private final long rejected;
+   private final Duration elapsed;
+
+   ImportResult(long imported, long rejected, Duration elapsed) {
+      this.imported = imported;
+      this.rejected = rejected;
+      this.elapsed = elapsed;
+   }
+
+   /**
+    * @return how many orders were stored
+    */
+   public long getImported() {
+      return this.imported;
+   }
+
+   /**
+    * @return how many records were skipped because they were malformed or failed validation
+    */
+   public long getRejected() {
+      return this.rejected;
+   }
+
+   public Duration getElapsed() {
+      return this.elapsed;
+   }
+
+   @Override
+   public String toString() {
+      return String.format("%d orders imported, %d rejected in %d ms", this.imported, this.rejected,
+            this.elapsed.toMillis());
+   }
+}
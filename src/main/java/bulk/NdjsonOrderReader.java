@@ -0,0 +1,299 @@
+package bulk;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+import CustomException.ValidationException;
+import model.ConcreteMenuItem;
+import model.MenuItem;
+import model.Order;
+
+/**
+ * Reads the records written by {@link NdjsonOrderWriter}, one line at a time.
+ *
+ * <p>The parser is a small hand-written one for this record shape: fields may
+ * come in any order, unknown fields are skipped, blank lines are ignored, and
+ * numbers must be integers. A line that does not parse is reported with its
+ * line number and skipped.
+ */
+class NdjsonOrderReader implements OrderReader {
+   private final BufferedReader in;
+   private final LongSupplier newIds;
+   private final StringBuilder escaped;
+   private String line;
+   private int position;
+   private long lineNumber;
+
+   NdjsonOrderReader(BufferedReader in, LongSupplier newIds) {
+      this.in = in;
+      this.newIds = newIds;
+      this.escaped = new StringBuilder();
+   }
+
+   @Override
+   public Order next() throws IOException {
+      while ((this.line = this.in.readLine()) != null) {
+         this.lineNumber++;
+         if (this.line.isBlank()) {
+            continue;
+         }
+         this.position = 0;
+         try {
+            return this.readOrder();
+         } catch (ValidationException e) {
+            throw new ValidationException("Line " + this.lineNumber + ": " + e.getMessage());
+         }
+      }
+      return null;
+   }
+
+   private Order readOrder() {
+      Long orderId = null;
+      Long customerId = null;
+      String email = null;
+      String address = null;
+      String postalCode = null;
+      String status = null;
+      String estimatedDeliveryTime = null;
+      List<MenuItem> items = List.of();
+
+      this.expect('{');
+      if (!this.consume('}')) {
+         do {
+            final String key = this.readKey();
+            switch (key) {
+               case "id" -> orderId = this.readLong();
+               case "customerId" -> customerId = this.readLong();
+               case "customerEmail" -> email = this.readString();
+               case "deliveryAddress" -> address = this.readString();
+               case "postalCode" -> postalCode = this.readString();
+               case "status" -> status = this.readString();
+               case "estimatedDeliveryTime" -> estimatedDeliveryTime = this.readString();
+               case "items" -> items = this.readItems();
+               default -> this.skipValue();
+            }
+         } while (this.consume(','));
+         this.expect('}');
+      }
+      this.skipWhitespace();
+      if (this.position != this.line.length()) {
+         throw this.malformed("unexpected characters after the order");
+      }
+
+      return OrderFields.order(orderId != null ? orderId : this.newIds.getAsLong(), customerId, email, items,
+            address, postalCode, OrderFields.parseStatus(status), OrderFields.parseTime(estimatedDeliveryTime));
+   }
+
+   private List<MenuItem> readItems() {
+      if (this.consumeLiteral("null")) {
+         return List.of();
+      }
+      final List<MenuItem> items = new ArrayList<>();
+      this.expect('[');
+      if (!this.consume(']')) {
+         do {
+            items.add(this.readItem());
+         } while (this.consume(','));
+         this.expect(']');
+      }
+      return items;
+   }
+
+   private MenuItem readItem() {
+      Long itemId = null;
+      String name = null;
+      String description = null;
+      String size = null;
+      Long quantity = null;
+      Long unitPriceCents = null;
+
+      this.expect('{');
+      if (!this.consume('}')) {
+         do {
+            final String key = this.readKey();
+            switch (key) {
+               case "id" -> itemId = this.readLong();
+               case "name" -> name = this.readString();
+               case "description" -> description = this.readString();
+               case "size" -> size = this.readString();
+               case "quantity" -> quantity = this.readLong();
+               case "unitPriceCents" -> unitPriceCents = this.readLong();
+               default -> this.skipValue();
+            }
+         } while (this.consume(','));
+         this.expect('}');
+      }
+      if (unitPriceCents == null) {
+         throw this.malformed("order line without unitPriceCents");
+      }
+      if (quantity != null && (quantity < 0 || quantity > Integer.MAX_VALUE)) {
+         throw this.malformed("invalid quantity " + quantity);
+      }
+      return ConcreteMenuItem.ofCents(itemId, name, description, unitPriceCents,
+            OrderFields.parseSize(size), quantity == null ? 1 : quantity.intValue());
+   }
+
+   private String readKey() {
+      final String key = this.readString();
+      if (key == null) {
+         throw this.malformed("expected a field name");
+      }
+      this.expect(':');
+      return key;
+   }
+
+   private Long readLong() {
+      this.skipWhitespace();
+      if (this.consumeLiteral("null")) {
+         return null;
+      }
+      final int start = this.position;
+      if (this.position < this.line.length() && this.line.charAt(this.position) == '-') {
+         this.position++;
+      }
+      while (this.position < this.line.length() && Character.isDigit(this.line.charAt(this.position))) {
+         this.position++;
+      }
+      try {
+         return Long.parseLong(this.line, start, this.position, 10);
+      } catch (NumberFormatException e) {
+         this.position = start;
+         throw this.malformed("expected an integer");
+      }
+   }
+
+   private String readString() {
+      this.skipWhitespace();
+      if (this.consumeLiteral("null")) {
+         return null;
+      }
+      this.expect('"');
+      final int start = this.position;
+      // Most strings have no escapes and can be cut straight out of the line
+      while (this.position < this.line.length()) {
+         final char c = this.line.charAt(this.position);
+         if (c == '"') {
+            return this.line.substring(start, this.position++);
+         }
+         if (c == '\\') {
+            break;
+         }
+         this.position++;
+      }
+
+      this.escaped.setLength(0);
+      this.escaped.append(this.line, start, this.position);
+      while (this.position < this.line.length()) {
+         final char c = this.line.charAt(this.position++);
+         if (c == '"') {
+            return this.escaped.toString();
+         }
+         if (c != '\\') {
+            this.escaped.append(c);
+            continue;
+         }
+         if (this.position >= this.line.length()) {
+            break;
+         }
+         final char escape = this.line.charAt(this.position++);
+         switch (escape) {
+            case '"', '\\', '/' -> this.escaped.append(escape);
+            case 'b' -> this.escaped.append('\b');
+            case 'f' -> this.escaped.append('\f');
+            case 'n' -> this.escaped.append('\n');
+            case 'r' -> this.escaped.append('\r');
+            case 't' -> this.escaped.append('\t');
+            case 'u' -> {
+               if (this.position + 4 > this.line.length()) {
+                  throw this.malformed("truncated unicode escape");
+               }
+               try {
+                  this.escaped.append((char) Integer.parseInt(this.line, this.position, this.position + 4, 16));
+               } catch (NumberFormatException e) {
+                  throw this.malformed("invalid unicode escape");
+               }
+               this.position += 4;
+            }
+            default -> throw this.malformed("invalid escape \\" + escape);
+         }
+      }
+      throw this.malformed("unterminated string");
+   }
+
+   private void skipValue() {
+      this.skipWhitespace();
+      if (this.position >= this.line.length()) {
+         throw this.malformed("expected a value");
+      }
+      switch (this.line.charAt(this.position)) {
+         case '"' -> this.readString();
+         case '{' -> {
+            this.position++;
+            if (!this.consume('}')) {
+               do {
+                  this.readKey();
+                  this.skipValue();
+               } while (this.consume(','));
+               this.expect('}');
+            }
+         }
+         case '[' -> {
+            this.position++;
+            if (!this.consume(']')) {
+               do {
+                  this.skipValue();
+               } while (this.consume(','));
+               this.expect(']');
+            }
+         }
+         default -> {
+            if (!this.consumeLiteral("true") && !this.consumeLiteral("false") && !this.consumeLiteral("null")) {
+               final int start = this.position;
+               while (this.position < this.line.length()
+                     && "+-.eE0123456789".indexOf(this.line.charAt(this.position)) >= 0) {
+                  this.position++;
+               }
+               if (this.position == start) {
+                  throw this.malformed("expected a value");
+               }
+            }
+         }
+      }
+   }
+
+   private void expect(char c) {
+      if (!this.consume(c)) {
+         throw this.malformed("expected '" + c + "'");
+      }
+   }
+
+   private boolean consume(char c) {
+      this.skipWhitespace();
+      if (this.position < this.line.length() && this.line.charAt(this.position) == c) {
+         this.position++;
+         return true;
+      }
+      return false;
+   }
+
+   private boolean consumeLiteral(String literal) {
+      if (this.line.startsWith(literal, this.position)) {
+         this.position += literal.length();
+         return true;
+      }
+      return false;
+   }
+
+   private void skipWhitespace() {
+      while (this.position < this.line.length() && Character.isWhitespace(this.line.charAt(this.position))) {
+         this.position++;
+      }
+   }
+
+   private ValidationException malformed(String problem) {
+      return new ValidationException(problem + " at column " + (this.position + 1));
+   }
+}
@@ -0,0 +1,102 @@
+package bulk;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import model.MenuItem;
+import model.Order;
+import model.Size;
+
+/**
+ * Writes each order as one JSON object per line, e.g.
+ * <pre>{@code
+ * {"id":1,"customerId":7,"customerEmail":"a@example.com","deliveryAddress":"1 Main St","postalCode":"94107",
+ *  "status":"PENDING","estimatedDeliveryTime":null,"totalCents":299,
+ *  "items":[{"id":1,"name":"Fries","description":null,"size":"LARGE","quantity":1,"unitPriceCents":299}]}
+ * }</pre>
+ * ({@code totalCents} is informational and ignored on import.)
+ */
+class NdjsonOrderWriter implements OrderWriter {
+   private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+   private final Writer out;
+
+   NdjsonOrderWriter(Writer out) {
+      this.out = out;
+   }
+
+   @Override
+   public void write(Order order) throws IOException {
+      this.out.write("{\"id\":");
+      this.number(order.getId());
+      this.out.write(",\"customerId\":");
+      this.number(order.getCustomerId());
+      this.out.write(",\"customerEmail\":");
+      this.string(order.getCustomerEmail());
+      this.out.write(",\"deliveryAddress\":");
+      this.string(order.getDeliveryAddress());
+      this.out.write(",\"postalCode\":");
+      this.string(order.getPostalCode());
+      this.out.write(",\"status\":");
+      this.string(order.getStatus().name());
+      this.out.write(",\"estimatedDeliveryTime\":");
+      this.string(OrderFields.format(order.getEstimatedDeliveryTime()));
+      this.out.write(",\"totalCents\":");
+      this.out.write(Long.toString(order.getTotalCents()));
+      this.out.write(",\"items\":[");
+      boolean first = true;
+      for (MenuItem item : order.getItems()) {
+         if (!first) {
+            this.out.write(',');
+         }
+         first = false;
+         final Size size = OrderFields.size(item);
+         this.out.write("{\"id\":");
+         this.number(item.getId());
+         this.out.write(",\"name\":");
+         this.string(item.getName());
+         this.out.write(",\"description\":");
+         this.string(OrderFields.description(item));
+         this.out.write(",\"size\":");
+         this.string(size == null ? null : size.name());
+         this.out.write(",\"quantity\":");
+         this.out.write(Integer.toString(OrderFields.quantity(item)));
+         this.out.write(",\"unitPriceCents\":");
+         this.out.write(Long.toString(OrderFields.unitPriceCents(item)));
+         this.out.write('}');
+      }
+      this.out.write("]}\n");
+   }
+
+   private void number(Long value) throws IOException {
+      this.out.write(value == null ? "null" : value.toString());
+   }
+
+   private void string(String value) throws IOException {
+      if (value == null) {
+         this.out.write("null");
+         return;
+      }
+      this.out.write('"');
+      for (int i = 0; i < value.length(); i++) {
+         final char c = value.charAt(i);
+         switch (c) {
+            case '"' -> this.out.write("\\\"");
+            case '\\' -> this.out.write("\\\\");
+            case '\n' -> this.out.write("\\n");
+            case '\r' -> this.out.write("\\r");
+            case '\t' -> this.out.write("\\t");
+            default -> {
+               if (c < 0x20) {
+                  this.out.write("\\u00");
+                  this.out.write(NdjsonOrderWriter.HEX[c >> 4]);
+                  this.out.write(NdjsonOrderWriter.HEX[c & 0xF]);
+               } else {
+                  this.out.write(c);
+               }
+            }
+         }
+      }
+      this.out.write('"');
+   }
+}
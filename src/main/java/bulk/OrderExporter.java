@@ -0,0 +1,70 @@
+package bulk;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import model.Order;
+
+/**
+ * Streams orders out as NDJSON or CSV, e.g. the day's orders for accounting.
+ *
+ * <p>Orders are written one at a time as the stream yields them, so an export
+ * of {@link services.OrderRepository#stream()} never holds more than one
+ * order's record in memory. Each order is written under its monitor, so its
+ * record is consistent even while the order keeps changing.
+ */
+public final class OrderExporter {
+   private static final Logger logger = Logger.getLogger(OrderExporter.class.getName());
+   private static final int WRITE_BUFFER_CHARS = 1 << 16;
+
+   private OrderExporter() {
+   }
+
+   /**
+    * Writes the orders to a UTF-8 file whose format is given by its extension,
+    * see {@link OrderFormat#forFile}, replacing any existing file.
+    *
+    * @return how many orders were written
+    */
+   public static long exportTo(Path file, Stream<Order> orders) throws IOException {
+      final long started = System.nanoTime();
+      final long count;
+      try (Writer out = new BufferedWriter(
+            new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8),
+            OrderExporter.WRITE_BUFFER_CHARS)) {
+         count = OrderExporter.export(orders, out, OrderFormat.forFile(file));
+      }
+      OrderExporter.logger.info(() -> String.format("Exported %d orders to %s in %d ms", count, file,
+            (System.nanoTime() - started) / 1_000_000));
+      return count;
+   }
+
+   /**
+    * Writes the orders to {@code out}, which should be buffered. The stream
+    * is flushed but not closed.
+    *
+    * @return how many orders were written
+    */
+   public static long export(Stream<Order> orders, Writer out, OrderFormat format) throws IOException {
+      final OrderWriter writer = format.writer(out);
+      long count = 0;
+      final Iterator<Order> iterator = orders.iterator();
+      while (iterator.hasNext()) {
+         final Order order = iterator.next();
+         synchronized (order) {
+            writer.write(order);
+         }
+         count++;
+      }
+      out.flush();
+      return count;
+   }
+}
@@ -0,0 +1,74 @@
+package bulk;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+import CustomException.ValidationException;
+import model.ConcreteMenuItem;
+import model.MenuItem;
+import model.Order;
+import model.OrderStatus;
+import model.Size;
+
+/**
+ * Field conversions shared by the bulk formats. Menu items that are not
+ * {@link ConcreteMenuItem}s are written as a single unit at their line price,
+ * as in the binary codec.
+ */
+final class OrderFields {
+   private OrderFields() {
+   }
+
+   static String description(MenuItem item) {
+      return item instanceof ConcreteMenuItem concrete ? concrete.getDescription() : null;
+   }
+
+   static Size size(MenuItem item) {
+      return item instanceof ConcreteMenuItem concrete ? concrete.getSize() : null;
+   }
+
+   static int quantity(MenuItem item) {
+      return item instanceof ConcreteMenuItem concrete ? concrete.getQuantity() : 1;
+   }
+
+   static long unitPriceCents(MenuItem item) {
+      return item instanceof ConcreteMenuItem concrete ? concrete.getUnitPriceCents() : item.getPriceCents();
+   }
+
+   static String format(LocalDateTime time) {
+      return time == null ? null : time.toString();
+   }
+
+   static LocalDateTime parseTime(String value) {
+      try {
+         return value == null ? null : LocalDateTime.parse(value);
+      } catch (DateTimeParseException e) {
+         throw new ValidationException("Invalid date-time: " + value);
+      }
+   }
+
+   static OrderStatus parseStatus(String value) {
+      try {
+         return value == null ? OrderStatus.PENDING : OrderStatus.valueOf(value);
+      } catch (IllegalArgumentException e) {
+         throw new ValidationException("Unknown order status: " + value);
+      }
+   }
+
+   static Size parseSize(String value) {
+      try {
+         return value == null ? null : Size.valueOf(value);
+      } catch (IllegalArgumentException e) {
+         throw new ValidationException("Unknown size: " + value);
+      }
+   }
+
+   static Order order(Long orderId, Long customerId, String email, List<MenuItem> items,
+         String address, String postalCode, OrderStatus status, LocalDateTime estimatedDeliveryTime) {
+      final Order order = new Order(orderId, customerId, email, items, address, postalCode);
+      order.restoreStatus(status);
+      order.setEstimatedDeliveryTime(estimatedDeliveryTime);
+      return order;
+   }
+}
@@ -0,0 +1,71 @@
+package bulk;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.function.LongSupplier;
+
+/**
+ * Text formats for bulk order import and export.
+ *
+ * <p>Both carry the same fields: the order ID, customer ID and email,
+ * delivery address, postal code, status, estimated delivery time and the
+ * order lines with their unit prices in cents. The driver is a live
+ * relationship and is not exported.
+ */
+public enum OrderFormat {
+   /** One JSON object per line, with the order lines in an {@code items} array. */
+   NDJSON {
+      @Override
+      public OrderReader reader(BufferedReader in, LongSupplier newIds) {
+         return new NdjsonOrderReader(in, newIds);
+      }
+
+      @Override
+      public OrderWriter writer(Writer out) {
+         return new NdjsonOrderWriter(out);
+      }
+   },
+   /** RFC 4180 CSV with a header row and one row per order line. */
+   CSV {
+      @Override
+      public OrderReader reader(BufferedReader in, LongSupplier newIds) throws IOException {
+         return new CsvOrderReader(in, newIds);
+      }
+
+      @Override
+      public OrderWriter writer(Writer out) throws IOException {
+         return new CsvOrderWriter(out);
+      }
+   };
+
+   /**
+    * @param in     the stream to read
+    * @param newIds supplies IDs for records that carry none
+    * @return a reader over the stream
+    */
+   public abstract OrderReader reader(BufferedReader in, LongSupplier newIds) throws IOException;
+
+   /**
+    * @param out the stream to write; the writer buffers nothing of its own
+    * @return a writer onto the stream
+    */
+   public abstract OrderWriter writer(Writer out) throws IOException;
+
+   /**
+    * @return the format named by a file's extension: {@code .ndjson},
+    *         {@code .jsonl} or {@code .csv}
+    */
+   public static OrderFormat forFile(Path file) {
+      final String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+      if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+         return OrderFormat.NDJSON;
+      }
+      if (name.endsWith(".csv")) {
+         return OrderFormat.CSV;
+      }
+      throw new IllegalArgumentException("Unknown order file format: " + file);
+   }
+}
@@ -0,0 +1,199 @@
+package bulk;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.logging.Logger;
+
+import CustomException.ValidationException;
+import model.Order;
+import services.OrderRepository;
+import util.IdGenerator;
+import util.IdGenerator.IdBlock;
+import validation.OrderValidator;
+
+/**
+ * Streams orders from an NDJSON or CSV source into an {@link OrderRepository},
+ * e.g. to backfill orders from a partner system.
+ *
+ * <p>The calling thread parses records into chunks of {@code batchSize}
+ * orders. Worker threads validate each chunk with {@link OrderValidator} and
+ * store the valid orders with one {@link OrderRepository#saveAll} call. At
+ * most two chunks per worker are in flight at once; parsing waits for a
+ * worker to catch up beyond that, so memory stays bounded however large the
+ * source is. Records that are malformed or fail validation are counted and
+ * skipped, and records without an order ID get a fresh one.
+ *
+ * <p>Imported orders go straight into the repository, bypassing the order
+ * queue and admission control.
+ */
+public class OrderImporter {
+   public static final int DEFAULT_BATCH_SIZE = 1_000;
+
+   private static final Logger logger = Logger.getLogger(OrderImporter.class.getName());
+   private static final int READ_BUFFER_CHARS = 1 << 16;
+
+   private final OrderRepository repository;
+   private final OrderValidator validator;
+   private final int batchSize;
+   private final int workers;
+
+   public OrderImporter(OrderRepository repository) {
+      this(repository, new OrderValidator(), OrderImporter.DEFAULT_BATCH_SIZE,
+            Runtime.getRuntime().availableProcessors());
+   }
+
+   /**
+    * @param repository receives the imported orders
+    * @param validator  checks each order before it is stored
+    * @param batchSize  how many orders each worker validates and stores at once
+    * @param workers    how many threads validate and store chunks
+    */
+   public OrderImporter(OrderRepository repository, OrderValidator validator, int batchSize, int workers) {
+      if (batchSize <= 0 || workers <= 0) {
+         throw new IllegalArgumentException("Batch size and worker count must be positive");
+      }
+      this.repository = repository;
+      this.validator = validator;
+      this.batchSize = batchSize;
+      this.workers = workers;
+   }
+
+   /**
+    * Imports a UTF-8 file whose format is given by its extension, see
+    * {@link OrderFormat#forFile}.
+    */
+   public ImportResult importFrom(Path file) throws IOException {
+      try (BufferedReader in = new BufferedReader(
+            new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8),
+            OrderImporter.READ_BUFFER_CHARS)) {
+         final ImportResult result = this.importFrom(in, OrderFormat.forFile(file));
+         OrderImporter.logger.info(() -> "Imported " + file + ": " + result);
+         return result;
+      }
+   }
+
+   /**
+    * Imports every record of {@code in}, returning once all valid orders are
+    * stored. The stream is not closed.
+    *
+    * @throws IOException if the stream cannot be read, or the import is interrupted
+    */
+   public ImportResult importFrom(BufferedReader in, OrderFormat format) throws IOException {
+      final long started = System.nanoTime();
+      final LongAdder imported = new LongAdder();
+      final LongAdder rejected = new LongAdder();
+      final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+      final int maxInFlight = this.workers * 2;
+      final Semaphore inFlight = new Semaphore(maxInFlight);
+      final ExecutorService executor = this.newExecutor();
+      try {
+         final OrderReader reader = format.reader(in, new IdSource(IdGenerator.getDefault(), this.batchSize));
+         List<Order> chunk = new ArrayList<>(this.batchSize);
+         while (failure.get() == null) {
+            final Order order;
+            try {
+               order = reader.next();
+            } catch (ValidationException e) {
+               rejected.increment();
+               OrderImporter.logger.fine(() -> "Skipped order record: " + e.getMessage());
+               continue;
+            }
+            if (order != null) {
+               chunk.add(order);
+            }
+            if (chunk.size() == this.batchSize || (order == null && !chunk.isEmpty())) {
+               inFlight.acquire();
+               final List<Order> batch = chunk;
+               executor.execute(() -> {
+                  try {
+                     this.store(batch, imported, rejected);
+                  } catch (RuntimeException e) {
+                     failure.compareAndSet(null, e);
+                  } finally {
+                     inFlight.release();
+                  }
+               });
+               chunk = new ArrayList<>(this.batchSize);
+            }
+            if (order == null) {
+               break;
+            }
+         }
+         // Wait for the chunks still being stored
+         inFlight.acquire(maxInFlight);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new InterruptedIOException("Order import interrupted");
+      } finally {
+         executor.shutdownNow();
+      }
+
+      if (failure.get() != null) {
+         throw failure.get();
+      }
+      return new ImportResult(imported.sum(), rejected.sum(), Duration.ofNanos(System.nanoTime() - started));
+   }
+
+   private void store(List<Order> batch, LongAdder imported, LongAdder rejected) {
+      final List<Order> valid = new ArrayList<>(batch.size());
+      for (Order order : batch) {
+         try {
+            this.validator.validateOrder(order);
+            valid.add(order);
+         } catch (ValidationException e) {
+            rejected.increment();
+            OrderImporter.logger.fine(() -> "Rejected order " + order.getId() + ": " + e.getMessage());
+         }
+      }
+      this.repository.saveAll(valid);
+      imported.add(valid.size());
+   }
+
+   private ExecutorService newExecutor() {
+      final AtomicInteger threads = new AtomicInteger();
+      return Executors.newFixedThreadPool(this.workers, runnable -> {
+         final Thread thread = new Thread(runnable, "order-import-" + threads.incrementAndGet());
+         thread.setDaemon(true);
+         return thread;
+      });
+   }
+
+   /**
+    * Hands out IDs from blocks reserved up front, so that records without an
+    * ID cost one CAS per block rather than one per order. Used only by the
+    * parsing thread.
+    */
+   private static final class IdSource implements LongSupplier {
+      private final IdGenerator generator;
+      private final int blockSize;
+      private IdBlock block;
+
+      IdSource(IdGenerator generator, int blockSize) {
+         this.generator = generator;
+         this.blockSize = blockSize;
+      }
+
+      @Override
+      public long getAsLong() {
+         if (this.block == null || !this.block.hasNext()) {
+            this.block = this.generator.reserve(this.blockSize);
+         }
+         return this.block.nextId();
+      }
+   }
+}
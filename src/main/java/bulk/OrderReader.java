@@ -0,0 +1,22 @@
+package bulk;
+
+import java.io.IOException;
+
+import CustomException.ValidationException;
+import model.Order;
+
+/**
+ * Reads orders one at a time from a text stream, holding only the record
+ * being parsed in memory.
+ */
+public interface OrderReader {
+   /**
+    * Parses the next order. A malformed record is skipped by throwing, and the
+    * following call resumes with the record after it.
+    *
+    * @return the next order, or null at the end of the stream
+    * @throws ValidationException if the next record is malformed
+    * @throws IOException         if the stream cannot be read
+    */
+   Order next() throws IOException;
+}
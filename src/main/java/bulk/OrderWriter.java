@@ -0,0 +1,16 @@
+package bulk;
+
+import java.io.IOException;
+
+import model.Order;
+
+/**
+ * Writes orders one at a time to a text stream.
+ */
+public interface OrderWriter {
+   /**
+    * Writes one order. The caller should hold the order's monitor so that the
+    * record reflects a single state of the order.
+    */
+   void write(Order order) throws IOException;
+}
@@ -0,0 +1,360 @@
+package dispatch;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * A minimum-cost assignment of rows (orders) to columns (drivers) over a
+ * sparse set of candidate edges, where each row may also stay unassigned at
+ * a cost of its own.
+ *
+ * <p>{@link #solve} uses shortest augmenting paths with column potentials
+ * (the Jonker-Volgenant form of the Hungarian algorithm): rows are added one
+ * at a time, each by a Dijkstra search over reduced costs that stops at the
+ * first free column, so a row usually touches only its own neighbourhood.
+ * Every row's unassigned option is modelled as a private column, so a
+ * complete assignment always exists. With k candidates per row, each row
+ * costs O(k n log n) in the worst case and far less in practice.
+ *
+ * <p>Rows are solved in the order they were added. If the time budget runs
+ * out, the rows solved so far keep their assignment, which is optimal among
+ * themselves, and the rest are matched greedily to their cheapest free
+ * column.
+ *
+ * <p>A problem is not thread-safe.
+ */
+public class AssignmentProblem {
+   /** The column of a row that stays unassigned. */
+   public static final int UNASSIGNED = -1;
+
+   private static final int INITIAL_ROWS = 16;
+   private static final int INITIAL_EDGES = 64;
+
+   // Candidate edges in compressed rows: row r's are at [rowStart[r], rowStart[r + 1])
+   private int[] rowStart;
+   private double[] unassignedCost;
+   private int[] edgeColumn;
+   private double[] edgeCost;
+   private int rows;
+   private int edges;
+   private int columns;
+
+   public AssignmentProblem() {
+      this.rowStart = new int[AssignmentProblem.INITIAL_ROWS + 1];
+      this.unassignedCost = new double[AssignmentProblem.INITIAL_ROWS];
+      this.edgeColumn = new int[AssignmentProblem.INITIAL_EDGES];
+      this.edgeCost = new double[AssignmentProblem.INITIAL_EDGES];
+   }
+
+   /**
+    * Starts a row; the following {@link #addEdge} calls add its candidates.
+    *
+    * @param unassignedCost the cost of leaving the row unassigned
+    * @return the row's index
+    */
+   public int addRow(double unassignedCost) {
+      if (Double.isNaN(unassignedCost) || Double.isInfinite(unassignedCost)) {
+         throw new IllegalArgumentException("Unassigned cost must be finite");
+      }
+      if (this.rows == this.unassignedCost.length) {
+         this.unassignedCost = Arrays.copyOf(this.unassignedCost, this.rows * 2);
+         this.rowStart = Arrays.copyOf(this.rowStart, this.rows * 2 + 1);
+      }
+      this.unassignedCost[this.rows] = unassignedCost;
+      this.rowStart[this.rows + 1] = this.edges;
+      return this.rows++;
+   }
+
+   /**
+    * Adds a candidate column to the last row added.
+    *
+    * @param column the column, from 0
+    * @param cost   the cost of assigning the row to the column
+    */
+   public void addEdge(int column, double cost) {
+      if (this.rows == 0) {
+         throw new IllegalStateException("Add a row before its edges");
+      }
+      if (column < 0 || Double.isNaN(cost) || Double.isInfinite(cost)) {
+         throw new IllegalArgumentException("Invalid edge to column " + column + " at cost " + cost);
+      }
+      if (this.edges == this.edgeColumn.length) {
+         this.edgeColumn = Arrays.copyOf(this.edgeColumn, this.edges * 2);
+         this.edgeCost = Arrays.copyOf(this.edgeCost, this.edges * 2);
+      }
+      this.edgeColumn[this.edges] = column;
+      this.edgeCost[this.edges] = cost;
+      this.edges++;
+      this.rowStart[this.rows] = this.edges;
+      this.columns = Math.max(this.columns, column + 1);
+   }
+
+   public int getRows() {
+      return this.rows;
+   }
+
+   public int getColumns() {
+      return this.columns;
+   }
+
+   /**
+    * @param budget how long to search for the optimum before finishing greedily
+    * @return the assignment
+    */
+   public Solution solve(Duration budget) {
+      return new Solver(System.nanoTime() + budget.toNanos()).run();
+   }
+
+   /**
+    * An assignment of every row to a distinct column or to
+    * {@link #UNASSIGNED}.
+    */
+   public static final class Solution {
+      private final int[] columnOfRow;
+      private final double cost;
+      private final int optimalRows;
+
+      Solution(int[] columnOfRow, double cost, int optimalRows) {
+         this.columnOfRow = columnOfRow;
+         this.cost = cost;
+         this.optimalRows = optimalRows;
+      }
+
+      /**
+       * @return the row's column, or {@link #UNASSIGNED}
+       */
+      public int columnOf(int row) {
+         return this.columnOfRow[row];
+      }
+
+      /**
+       * @return the total cost, counting unassigned rows at their own cost
+       */
+      public double getCost() {
+         return this.cost;
+      }
+
+      /**
+       * @return whether every row was solved before the budget ran out, so
+       *         that the assignment is optimal
+       */
+      public boolean isOptimal() {
+         return this.optimalRows == this.columnOfRow.length;
+      }
+
+      /**
+       * @return how many rows, in the order they were added, were solved
+       *         optimally before the rest were matched greedily
+       */
+      public int getOptimalRows() {
+         return this.optimalRows;
+      }
+   }
+
+   private final class Solver {
+      private final long deadlineNanos;
+      // Real columns first, then one private unassigned column per row
+      private final int totalColumns;
+      private final double[] potential;
+      private final int[] rowOfColumn;
+      private final int[] columnOfRow;
+      private final double[] assignedCost;
+      // Search state, valid for a column only while its stamp is the current search
+      private final double[] distance;
+      private final int[] predecessor;
+      private final double[] predecessorCost;
+      private final int[] reached;
+      private final int[] finalized;
+      private final int[] heap;
+      private final int[] heapIndex;
+      private final int[] scanned;
+      private int search;
+      private int heapSize;
+
+      Solver(long deadlineNanos) {
+         final AssignmentProblem problem = AssignmentProblem.this;
+         this.deadlineNanos = deadlineNanos;
+         this.totalColumns = problem.columns + problem.rows;
+         this.potential = new double[this.totalColumns];
+         this.rowOfColumn = new int[this.totalColumns];
+         this.columnOfRow = new int[problem.rows];
+         this.assignedCost = new double[problem.rows];
+         this.distance = new double[this.totalColumns];
+         this.predecessor = new int[this.totalColumns];
+         this.predecessorCost = new double[this.totalColumns];
+         this.reached = new int[this.totalColumns];
+         this.finalized = new int[this.totalColumns];
+         this.heap = new int[this.totalColumns];
+         this.heapIndex = new int[this.totalColumns];
+         this.scanned = new int[this.totalColumns];
+         Arrays.fill(this.rowOfColumn, AssignmentProblem.UNASSIGNED);
+         Arrays.fill(this.columnOfRow, AssignmentProblem.UNASSIGNED);
+      }
+
+      Solution run() {
+         final AssignmentProblem problem = AssignmentProblem.this;
+         int row = 0;
+         while (row < problem.rows && System.nanoTime() - this.deadlineNanos < 0) {
+            this.augment(row++);
+         }
+         final int optimalRows = row;
+         for (; row < problem.rows; row++) {
+            this.assignGreedily(row);
+         }
+
+         final int[] result = new int[problem.rows];
+         double cost = 0;
+         for (int r = 0; r < problem.rows; r++) {
+            final int column = this.columnOfRow[r];
+            result[r] = column < problem.columns ? column : AssignmentProblem.UNASSIGNED;
+            cost += this.assignedCost[r];
+         }
+         return new Solution(result, cost, optimalRows);
+      }
+
+      /**
+       * Adds a row to the assignment along the cheapest augmenting path.
+       */
+      private void augment(int start) {
+         this.search++;
+         this.heapSize = 0;
+         int finalizedCount = 0;
+         this.relax(start, 0);
+
+         int free;
+         double shortest;
+         while (true) {
+            // Never empty: the start row's own unassigned column is always reachable
+            final int column = this.pop();
+            this.finalized[finalizedCount++] = column;
+            this.scanned[column] = this.search;
+            final int row = this.rowOfColumn[column];
+            if (row == AssignmentProblem.UNASSIGNED) {
+               free = column;
+               shortest = this.distance[column];
+               break;
+            }
+            // The row's matched column has zero reduced cost, which fixes its own potential
+            this.relax(row, this.distance[column] - (this.assignedCost[row] - this.potential[column]));
+         }
+
+         // Keeps every reduced cost non-negative and those on the new matching zero
+         for (int i = 0; i < finalizedCount; i++) {
+            final int column = this.finalized[i];
+            this.potential[column] += this.distance[column] - shortest;
+         }
+         for (int i = 0; i < this.heapSize; i++) {
+            this.heapIndex[this.heap[i]] = -1;
+         }
+
+         int column = free;
+         while (true) {
+            final int row = this.predecessor[column];
+            final int previous = this.columnOfRow[row];
+            this.columnOfRow[row] = column;
+            this.rowOfColumn[column] = row;
+            this.assignedCost[row] = this.predecessorCost[column];
+            if (row == start) {
+               break;
+            }
+            column = previous;
+         }
+      }
+
+      private void relax(int row, double rowDistance) {
+         final AssignmentProblem problem = AssignmentProblem.this;
+         for (int edge = problem.rowStart[row]; edge < problem.rowStart[row + 1]; edge++) {
+            this.offer(problem.edgeColumn[edge], problem.edgeCost[edge], row, rowDistance);
+         }
+         this.offer(problem.columns + row, problem.unassignedCost[row], row, rowDistance);
+      }
+
+      private void offer(int column, double cost, int row, double rowDistance) {
+         if (this.scanned[column] == this.search) {
+            return;
+         }
+         final double candidate = rowDistance + cost - this.potential[column];
+         if (this.reached[column] != this.search) {
+            this.reached[column] = this.search;
+            this.distance[column] = candidate;
+            this.heapIndex[column] = this.heapSize;
+            this.heap[this.heapSize++] = column;
+         } else if (candidate < this.distance[column]) {
+            this.distance[column] = candidate;
+         } else {
+            return;
+         }
+         this.predecessor[column] = row;
+         this.predecessorCost[column] = cost;
+         this.siftUp(this.heapIndex[column]);
+      }
+
+      private void assignGreedily(int row) {
+         final AssignmentProblem problem = AssignmentProblem.this;
+         int best = problem.columns + row;
+         double bestCost = problem.unassignedCost[row];
+         for (int edge = problem.rowStart[row]; edge < problem.rowStart[row + 1]; edge++) {
+            final int column = problem.edgeColumn[edge];
+            if (problem.edgeCost[edge] < bestCost && this.rowOfColumn[column] == AssignmentProblem.UNASSIGNED) {
+               best = column;
+               bestCost = problem.edgeCost[edge];
+            }
+         }
+         this.columnOfRow[row] = best;
+         this.rowOfColumn[best] = row;
+         this.assignedCost[row] = bestCost;
+      }
+
+      private int pop() {
+         final int top = this.heap[0];
+         this.heapIndex[top] = -1;
+         final int last = this.heap[--this.heapSize];
+         if (this.heapSize > 0) {
+            this.heap[0] = last;
+            this.heapIndex[last] = 0;
+            this.siftDown(0);
+         }
+         return top;
+      }
+
+      private void siftUp(int index) {
+         final int column = this.heap[index];
+         final double key = this.distance[column];
+         while (index > 0) {
+            final int parent = (index - 1) >>> 1;
+            final int parentColumn = this.heap[parent];
+            if (this.distance[parentColumn] <= key) {
+               break;
+            }
+            this.heap[index] = parentColumn;
+            this.heapIndex[parentColumn] = index;
+            index = parent;
+         }
+         this.heap[index] = column;
+         this.heapIndex[column] = index;
+      }
+
+      private void siftDown(int index) {
+         final int column = this.heap[index];
+         final double key = this.distance[column];
+         while (true) {
+            int child = 2 * index + 1;
+            if (child >= this.heapSize) {
+               break;
+            }
+            if (child + 1 < this.heapSize && this.distance[this.heap[child + 1]] < this.distance[this.heap[child]]) {
+               child++;
+            }
+            final int childColumn = this.heap[child];
+            if (this.distance[childColumn] >= key) {
+               break;
+            }
+            this.heap[index] = childColumn;
+            this.heapIndex[childColumn] = index;
+            index = child;
+         }
+         this.heap[index] = column;
+         this.heapIndex[column] = index;
+      }
+   }
+}
@@ -0,0 +1,251 @@
+package dispatch;
+
+import java.io.Closeable;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import model.Driver;
+import model.Location;
+import model.Order;
+import model.OrderStatus;
+import model.Stop;
+import services.DriverService;
+import services.OrderService;
+import util.PeriodicTasks;
+
+/**
+ * Assigns waiting orders to idle drivers in batches, minimising the total
+ * time drivers spend getting to their pickups.
+ *
+ * <p>Each round collects the orders that are waiting for a driver and have a
+ * pickup location, and for each of them its nearest available drivers from
+ * {@link DriverService#findNearestAvailable}. The resulting sparse
+ * order-driver matrix, costed by a {@link TravelTimeEstimator}, is solved as
+ * an {@link AssignmentProblem} within the round's time budget, oldest orders
+ * first, so a round that runs out of time still gives the oldest orders their
+ * optimal drivers and matches the rest greedily. The assignments are then
+ * committed one by one through {@link DriverService#assignDriverToOrder},
+ * whose atomic accept skips any driver or order taken by someone else since
+ * the round started; such orders wait for the next round.
+ *
+ * <p>Orders left without a driver are then offered to the drivers already
+ * carrying orders whose route passes within {@value #POOL_RADIUS_KM} km of
+ * their pickup, and pooled by a {@link RoutePlanner} into the route they
+ * delay least, where that breaks no promised delivery time. Only drivers
+ * with a {@link Driver#getCapacity() capacity} above one can take pooled
+ * orders.
+ */
+public class DispatchEngine implements Closeable {
+   public static final String INTERVAL_PROPERTY = "dispatch.batch.interval.ms";
+   public static final String BUDGET_PROPERTY = "dispatch.batch.budget.ms";
+   public static final int DEFAULT_CANDIDATES = 32;
+   public static final Duration DEFAULT_BUDGET = Duration.ofMillis(500);
+   /** Orders with no driver closer than this are left for a later round. */
+   public static final double DEFAULT_UNASSIGNED_SECONDS = 3600;
+   /** How close to an order's pickup a busy driver's route must pass for the order to be pooled into it. */
+   public static final double POOL_RADIUS_KM = 1.0;
+
+   private static final Logger logger = Logger.getLogger(DispatchEngine.class.getName());
+   private static final OrderStatus[] WAITING_STATUSES = { OrderStatus.PENDING, OrderStatus.SUBMITTED };
+
+   private final OrderService orderService;
+   private final DriverService driverService;
+   private final TravelTimeEstimator travelTime;
+   private final int candidates;
+   private final Duration budget;
+   private final RoutePlanner routePlanner;
+   private ScheduledExecutorService dispatcher;
+
+   /**
+    * @param orderService  where waiting orders are found
+    * @param driverService where available drivers are found and assigned
+    * @param travelTime    the cost of sending a driver to a pickup
+    * @param candidates    how many of the nearest drivers to consider per order
+    * @param budget        how long a round may search for the optimum before finishing greedily
+    */
+   public DispatchEngine(OrderService orderService, DriverService driverService, TravelTimeEstimator travelTime,
+         int candidates, Duration budget) {
+      this(orderService, driverService, travelTime, candidates, budget,
+            new RoutePlanner(travelTime, RoutePlanner.DEFAULT_STOP_TIME, Clock.systemDefaultZone()));
+   }
+
+   /**
+    * @param routePlanner pools orders left without a driver into busy drivers' routes
+    */
+   public DispatchEngine(OrderService orderService, DriverService driverService, TravelTimeEstimator travelTime,
+         int candidates, Duration budget, RoutePlanner routePlanner) {
+      if (candidates <= 0) {
+         throw new IllegalArgumentException("Candidates per order must be positive");
+      }
+      this.orderService = orderService;
+      this.driverService = driverService;
+      this.travelTime = travelTime;
+      this.candidates = candidates;
+      this.budget = budget;
+      this.routePlanner = routePlanner;
+   }
+
+   /**
+    * Creates and starts an engine that runs a round every
+    * {@value #INTERVAL_PROPERTY} milliseconds, 5000 by default, each with a
+    * budget of {@value #BUDGET_PROPERTY} milliseconds.
+    *
+    * @return the running engine
+    */
+   public static DispatchEngine fromSystemProperties(OrderService orderService, DriverService driverService) {
+      final DispatchEngine engine = new DispatchEngine(orderService, driverService, TravelTimeEstimator.CITY,
+            DispatchEngine.DEFAULT_CANDIDATES,
+            Duration.ofMillis(Long.getLong(DispatchEngine.BUDGET_PROPERTY, DispatchEngine.DEFAULT_BUDGET.toMillis())));
+      engine.start(Duration.ofMillis(Long.getLong(DispatchEngine.INTERVAL_PROPERTY, 5_000L)));
+      return engine;
+   }
+
+   /**
+    * Starts a daemon thread that runs a round every {@code interval}.
+    *
+    * @param interval the delay between the end of one round and the start of the next
+    */
+   public synchronized void start(Duration interval) {
+      if (this.dispatcher != null) {
+         return;
+      }
+      this.dispatcher = PeriodicTasks.newDaemonScheduler("batch-dispatcher");
+      this.dispatcher.scheduleWithFixedDelay(
+            PeriodicTasks.logFailures(this::dispatch, DispatchEngine.logger, "Batch dispatch failed"),
+            interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+   }
+
+   /**
+    * Runs one round: matches the waiting orders to available drivers and
+    * assigns them.
+    *
+    * @return how many orders were assigned a driver or pooled into a route
+    */
+   public synchronized int dispatch() {
+      final long started = System.nanoTime();
+      final List<Order> orders = new ArrayList<>();
+      for (OrderStatus status : DispatchEngine.WAITING_STATUSES) {
+         for (Order order : this.orderService.getOrdersByStatus(status)) {
+            final Location pickup = order.getPickupLocation();
+            if (order.getDriver() == null && pickup != null && pickup.hasCoordinates()) {
+               orders.add(order);
+            }
+         }
+      }
+      if (orders.isEmpty()) {
+         return 0;
+      }
+      // IDs grow with creation time, and the oldest orders are solved first
+      orders.sort(Comparator.comparing(Order::getId));
+
+      final AssignmentProblem problem = new AssignmentProblem();
+      final Map<Driver, Integer> columns = new HashMap<>();
+      final List<Driver> drivers = new ArrayList<>();
+      for (Order order : orders) {
+         problem.addRow(DispatchEngine.DEFAULT_UNASSIGNED_SECONDS);
+         final Location pickup = order.getPickupLocation();
+         for (Driver driver : this.driverService.findNearestAvailable(pickup, this.candidates)) {
+            final Location location = driver.getCurrentLocation();
+            final double seconds = location == null ? Double.NaN : this.travelTime.secondsBetween(location, pickup);
+            if (Double.isNaN(seconds)) {
+               continue;
+            }
+            final Integer column = columns.computeIfAbsent(driver, key -> {
+               drivers.add(key);
+               return drivers.size() - 1;
+            });
+            problem.addEdge(column, seconds);
+         }
+      }
+
+      final Duration remaining = this.budget.minusNanos(System.nanoTime() - started);
+      final AssignmentProblem.Solution solution = problem.solve(remaining.isNegative() ? Duration.ZERO : remaining);
+      int assigned = 0;
+      int lost = 0;
+      final List<Order> unassigned = new ArrayList<>();
+      for (int row = 0; row < orders.size(); row++) {
+         final int column = solution.columnOf(row);
+         if (column == AssignmentProblem.UNASSIGNED) {
+            unassigned.add(orders.get(row));
+         } else if (this.driverService.assignDriverToOrder(drivers.get(column), orders.get(row))) {
+            assigned++;
+         } else {
+            lost++;
+         }
+      }
+      final int pooled = this.pool(unassigned);
+
+      final int matched = assigned;
+      final int conflicts = lost;
+      DispatchEngine.logger.info(() -> String.format(
+            "Dispatched %d of %d orders to %d candidate drivers and pooled %d in %d ms "
+                  + "(%s, %d lost to other dispatchers)",
+            matched, orders.size(), drivers.size(), pooled, (System.nanoTime() - started) / 1_000_000,
+            solution.isOptimal() ? "optimal" : solution.getOptimalRows() + " rows optimal, rest greedy",
+            conflicts));
+      return assigned + pooled;
+   }
+
+   /**
+    * Pools each order into the route of a nearby driver already carrying orders.
+    *
+    * @return how many orders were pooled
+    */
+   private int pool(List<Order> orders) {
+      if (orders.isEmpty()) {
+         return 0;
+      }
+      final List<Driver> busy = new ArrayList<>();
+      for (Driver driver : this.driverService.getAllDrivers()) {
+         if (!driver.getCurrentOrders().isEmpty() && driver.getCapacity() > 1) {
+            busy.add(driver);
+         }
+      }
+      int pooled = 0;
+      for (Order order : orders) {
+         final List<Driver> nearby = new ArrayList<>();
+         for (Driver driver : busy) {
+            if (DispatchEngine.passesNear(driver, order.getPickupLocation())) {
+               nearby.add(driver);
+            }
+         }
+         if (!nearby.isEmpty() && this.routePlanner.pool(order, nearby) != null) {
+            pooled++;
+         }
+      }
+      return pooled;
+   }
+
+   private static boolean passesNear(Driver driver, Location pickup) {
+      final Location location = driver.getCurrentLocation();
+      if (location != null && location.distanceKmTo(pickup) <= DispatchEngine.POOL_RADIUS_KM) {
+         return true;
+      }
+      for (Stop stop : driver.getRoute()) {
+         final Location stopLocation = stop.getLocation();
+         if (stopLocation != null && stopLocation.distanceKmTo(pickup) <= DispatchEngine.POOL_RADIUS_KM) {
+            return true;
+         }
+      }
+      return false;
+   }
+
+   /**
+    * Stops the dispatcher thread, after any round in progress.
+    */
+   @Override
+   public synchronized void close() {
+      if (this.dispatcher != null) {
+         this.dispatcher.shutdownNow();
+         this.dispatcher = null;
+      }
+   }
+}
@@ -0,0 +1,218 @@
+package dispatch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import model.Driver;
+import model.Location;
+
+/**
+ * Concurrent uniform-grid index of the available drivers, for finding the
+ * drivers nearest to a pickup.
+ *
+ * <p>The map is cut into square cells of {@code cellKm} along the meridian
+ * (cells narrow towards the poles). Each cell holds the available drivers
+ * inside it, and a lookup visits rings of cells of growing radius around the
+ * target until no unvisited cell can be closer than the k-th driver found,
+ * so it costs time proportional to the drivers near the target rather than
+ * to every driver online.
+ *
+ * <p>{@link #update} must be called whenever a driver moves or changes
+ * availability, under the driver's monitor, which a {@link model.DriverListener}
+ * does. Lookups are weakly consistent: they never block updates, and a driver
+ * that changes during a lookup may or may not be returned.
+ */
+public class DriverGrid {
+   public static final double DEFAULT_CELL_KM = 0.25;
+   /** How far {@link #findNearestAvailable(Location, int)} looks before giving up. */
+   public static final double DEFAULT_MAX_DISTANCE_KM = 50.0;
+
+   private static final double KM_PER_DEGREE = 111.195;
+   // Keeps the ring bound positive near the poles, where cells get arbitrarily narrow
+   private static final double MIN_COS_LATITUDE = 0.01;
+
+   private final double cellDegrees;
+   private final int rows;
+   private final int columns;
+   private final Map<Long, Set<Driver>> cells;
+   private final Map<Driver, Long> cellOfDriver;
+
+   public DriverGrid() {
+      this(DriverGrid.DEFAULT_CELL_KM);
+   }
+
+   /**
+    * @param cellKm the height of a cell; a few drivers per cell in the
+    *               busiest areas keeps lookups fastest
+    */
+   public DriverGrid(double cellKm) {
+      if (!(cellKm > 0)) {
+         throw new IllegalArgumentException("Cell size must be positive");
+      }
+      this.cellDegrees = cellKm / DriverGrid.KM_PER_DEGREE;
+      this.rows = (int) Math.ceil(180 / this.cellDegrees);
+      this.columns = (int) Math.ceil(360 / this.cellDegrees);
+      this.cells = new ConcurrentHashMap<>();
+      this.cellOfDriver = new ConcurrentHashMap<>();
+   }
+
+   /**
+    * Indexes the driver under its current location if it is available and
+    * has coordinates, and drops it from the index otherwise.
+    */
+   public void update(Driver driver) {
+      final Location location = driver.getCurrentLocation();
+      if (!driver.isAvailable() || location == null || !location.hasCoordinates()) {
+         this.remove(driver);
+         return;
+      }
+      final long cell = this.cellOf(this.row(location.getLatitude()), this.column(location.getLongitude()));
+      final Long previous = this.cellOfDriver.put(driver, cell);
+      if (previous == null || previous != cell) {
+         // Added inside compute so a racing removeFromCell cannot drop the set as it is joined
+         this.cells.compute(cell, (key, drivers) -> {
+            final Set<Driver> cellDrivers = drivers != null ? drivers : ConcurrentHashMap.newKeySet();
+            cellDrivers.add(driver);
+            return cellDrivers;
+         });
+         if (previous != null) {
+            this.removeFromCell(previous, driver);
+         }
+      }
+   }
+
+   public void remove(Driver driver) {
+      final Long previous = this.cellOfDriver.remove(driver);
+      if (previous != null) {
+         this.removeFromCell(previous, driver);
+      }
+   }
+
+   /**
+    * @return how many drivers are indexed
+    */
+   public int size() {
+      return this.cellOfDriver.size();
+   }
+
+   /**
+    * Finds up to {@code k} available drivers within
+    * {@value #DEFAULT_MAX_DISTANCE_KM} km of {@code location}.
+    *
+    * @return the drivers, nearest first
+    */
+   public List<Driver> findNearestAvailable(Location location, int k) {
+      return this.findNearestAvailable(location, k, DriverGrid.DEFAULT_MAX_DISTANCE_KM);
+   }
+
+   /**
+    * @param location      where the drivers are needed
+    * @param k             the most drivers to return
+    * @param maxDistanceKm how far from {@code location} to look
+    * @return up to {@code k} available drivers within {@code maxDistanceKm}, nearest first
+    */
+   public List<Driver> findNearestAvailable(Location location, int k, double maxDistanceKm) {
+      if (k <= 0 || !location.hasCoordinates() || this.cellOfDriver.isEmpty()) {
+         return List.of();
+      }
+      final int row = this.row(location.getLatitude());
+      final int column = this.column(location.getLongitude());
+      final double cosLatitude = Math.cos(Math.toRadians(Math.abs(location.getLatitude())));
+      // Farther rings would wrap around the globe and visit cells twice
+      final int maxRing = Math.max(this.rows, this.columns) / 2;
+      // A max-heap of the best k so far, so the worst of them is evicted first
+      final PriorityQueue<Candidate> best = new PriorityQueue<>(k + 1,
+            Comparator.comparingDouble(Candidate::distanceKm).reversed());
+      final int indexed = this.cellOfDriver.size();
+      int seen = 0;
+
+      for (int ring = 0; ring <= maxRing; ring++) {
+         for (int dy = -ring; dy <= ring; dy++) {
+            final int cellRow = row + dy;
+            if (cellRow < 0 || cellRow >= this.rows) {
+               continue;
+            }
+            // Inner rows of the ring only have their two end cells
+            final int step = Math.abs(dy) == ring ? 1 : Math.max(1, 2 * ring);
+            for (int dx = -ring; dx <= ring; dx += step) {
+               final Set<Driver> drivers = this.cells.get(this.cellOf(cellRow,
+                     Math.floorMod(column + dx, this.columns)));
+               if (drivers != null) {
+                  seen += DriverGrid.collect(drivers, location, k, maxDistanceKm, best);
+               }
+            }
+         }
+         // Every unvisited cell is at least this far away; near the poles,
+         // east-west cell widths shrink, so take the narrowest in reach
+         final double latitudeReach = Math.min(90, Math.abs(location.getLatitude()) + (ring + 1) * this.cellDegrees);
+         final double narrowest = Math.max(DriverGrid.MIN_COS_LATITUDE,
+               Math.min(cosLatitude, Math.cos(Math.toRadians(latitudeReach))));
+         final double unvisitedKm = ring * this.cellDegrees * DriverGrid.KM_PER_DEGREE * narrowest;
+         if (unvisitedKm > maxDistanceKm
+               || (best.size() == k && best.peek().distanceKm() <= unvisitedKm)
+               || seen >= indexed) {
+            break;
+         }
+      }
+
+      final List<Driver> nearest = new ArrayList<>(best.size());
+      while (!best.isEmpty()) {
+         nearest.add(best.poll().driver());
+      }
+      Collections.reverse(nearest);
+      return nearest;
+   }
+
+   private static int collect(Set<Driver> drivers, Location target, int k, double maxDistanceKm,
+         PriorityQueue<Candidate> best) {
+      int seen = 0;
+      for (Driver driver : drivers) {
+         seen++;
+         final Location location = driver.getCurrentLocation();
+         // The driver may have been taken or moved since it was indexed here
+         if (!driver.isAvailable() || location == null || !location.hasCoordinates()) {
+            continue;
+         }
+         final double distance = target.distanceKmTo(location);
+         if (distance > maxDistanceKm) {
+            continue;
+         }
+         if (best.size() < k) {
+            best.add(new Candidate(driver, distance));
+         } else if (distance < best.peek().distanceKm()) {
+            best.poll();
+            best.add(new Candidate(driver, distance));
+         }
+      }
+      return seen;
+   }
+
+   private void removeFromCell(long cell, Driver driver) {
+      // Dropping emptied cells keeps the map from growing with every cell a driver ever passed through
+      this.cells.computeIfPresent(cell, (key, drivers) -> {
+         drivers.remove(driver);
+         return drivers.isEmpty() ? null : drivers;
+      });
+   }
+
+   private int row(double latitude) {
+      return Math.min(this.rows - 1, (int) ((latitude + 90) / this.cellDegrees));
+   }
+
+   private int column(double longitude) {
+      return Math.floorMod((int) ((longitude + 180) / this.cellDegrees), this.columns);
+   }
+
+   private long cellOf(int row, int column) {
+      return (long) row * this.columns + column;
+   }
+
+   private record Candidate(Driver driver, double distanceKm) {
+   }
+}
@@ -0,0 +1,256 @@
+package dispatch;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import model.Driver;
+
+/**
+ * Dense table of driver slots with an atomic bitset of the drivers free to
+ * be claimed, so that dispatchers can reserve a driver without scanning the
+ * driver list or taking a lock.
+ *
+ * <p>Each registered driver owns one slot. A slot's bit in the taken set is
+ * clear while its driver is available and unclaimed, and set while it is
+ * claimed, unavailable or empty. {@link #claimAny} sets one clear bit with a
+ * single compare-and-set on its 64-bit word, so concurrent dispatchers always
+ * reserve different drivers; {@link #release} clears it again with one atomic
+ * AND.
+ *
+ * <p>A claim is a reservation: the driver stays {@link Driver#isAvailable()
+ * available} until it accepts an order, whose {@link model.DriverListener}
+ * callback reaches {@link #update}. A driver only becomes claimable again once
+ * it reports that it is available after having been unavailable, so moves
+ * while claimed do not free it. {@link Driver#acceptOrder} remains the final
+ * check, so a driver picked by hand rather than claimed is never assigned
+ * twice either.
+ */
+public class DriverSlotTable {
+   public static final int DEFAULT_CAPACITY = 1 << 16;
+
+   private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+   private static final int WORD_SHIFT = 6;
+   private static final long ALL_TAKEN = -1L;
+
+   private final AtomicReferenceArray<Driver> drivers;
+   // Bit set: the slot may not be claimed
+   private final long[] taken;
+   // Bit set: the slot's driver was available at its last update
+   private final long[] online;
+   private final Map<Driver, Integer> slots;
+   private final Deque<Integer> freeSlots;
+   private int nextSlot;
+   // Words past this one have never held a driver, so claims need not scan them
+   private volatile int usedWords;
+
+   public DriverSlotTable() {
+      this(DriverSlotTable.DEFAULT_CAPACITY);
+   }
+
+   /**
+    * @param capacity the most drivers the table can hold at once
+    */
+   public DriverSlotTable(int capacity) {
+      if (capacity <= 0) {
+         throw new IllegalArgumentException("Capacity must be positive");
+      }
+      final int words = (capacity + Long.SIZE - 1) >>> DriverSlotTable.WORD_SHIFT;
+      this.drivers = new AtomicReferenceArray<>(words << DriverSlotTable.WORD_SHIFT);
+      this.taken = new long[words];
+      this.online = new long[words];
+      for (int word = 0; word < words; word++) {
+         DriverSlotTable.WORDS.setVolatile(this.taken, word, DriverSlotTable.ALL_TAKEN);
+      }
+      this.slots = new ConcurrentHashMap<>();
+      this.freeSlots = new ArrayDeque<>();
+   }
+
+   /**
+    * Gives the driver a slot, claimable if the driver is available. Call under
+    * the driver's monitor, like {@link #update}.
+    *
+    * @return the driver's slot
+    * @throws IllegalStateException if every slot is in use
+    */
+   public int register(Driver driver) {
+      final int slot;
+      synchronized (this) {
+         final Integer existing = this.slots.get(driver);
+         if (existing != null) {
+            return existing;
+         }
+         if (!this.freeSlots.isEmpty()) {
+            slot = this.freeSlots.pop();
+         } else if (this.nextSlot < this.drivers.length()) {
+            slot = this.nextSlot++;
+         } else {
+            throw new IllegalStateException("Driver slot table is full at " + this.drivers.length() + " drivers");
+         }
+         this.drivers.set(slot, driver);
+         this.slots.put(driver, slot);
+         this.usedWords = Math.max(this.usedWords, (slot >>> DriverSlotTable.WORD_SHIFT) + 1);
+      }
+      this.update(driver);
+      return slot;
+   }
+
+   /**
+    * Frees the driver's slot. A claim on the driver still in progress is
+    * abandoned.
+    *
+    * @return whether the driver was registered
+    */
+   public boolean unregister(Driver driver) {
+      synchronized (this) {
+         final Integer slot = this.slots.remove(driver);
+         if (slot == null) {
+            return false;
+         }
+         final long mask = DriverSlotTable.mask(slot);
+         DriverSlotTable.WORDS.getAndBitwiseOr(this.taken, slot >>> DriverSlotTable.WORD_SHIFT, mask);
+         DriverSlotTable.WORDS.getAndBitwiseAnd(this.online, slot >>> DriverSlotTable.WORD_SHIFT, ~mask);
+         this.drivers.set(slot, null);
+         this.freeSlots.push(slot);
+         return true;
+      }
+   }
+
+   /**
+    * Reserves any driver that is available and not claimed. Each caller
+    * starts at a random word, so concurrent dispatchers rarely contend for
+    * the same one.
+    *
+    * @return the reserved driver, or null if none is free
+    */
+   public Driver claimAny() {
+      final int words = this.usedWords;
+      if (words == 0) {
+         return null;
+      }
+      int word = ThreadLocalRandom.current().nextInt(words);
+      for (int scanned = 0; scanned < words; scanned++) {
+         long bits = (long) DriverSlotTable.WORDS.getVolatile(this.taken, word);
+         while (bits != DriverSlotTable.ALL_TAKEN) {
+            final long free = Long.lowestOneBit(~bits);
+            if (DriverSlotTable.WORDS.compareAndSet(this.taken, word, bits, bits | free)) {
+               final Driver driver = this.drivers.get((word << DriverSlotTable.WORD_SHIFT)
+                     + Long.numberOfTrailingZeros(free));
+               if (driver != null) {
+                  return driver;
+               }
+               // Unregistered after its bit was read; the bit stays set until the slot is reused
+            }
+            bits = (long) DriverSlotTable.WORDS.getVolatile(this.taken, word);
+         }
+         if (++word == words) {
+            word = 0;
+         }
+      }
+      return null;
+   }
+
+   /**
+    * Reserves a particular driver, e.g. the nearest one.
+    *
+    * @return whether the driver was free and is now reserved by the caller
+    */
+   public boolean claim(Driver driver) {
+      final Integer slot = this.slots.get(driver);
+      if (slot == null) {
+         return false;
+      }
+      final long mask = DriverSlotTable.mask(slot);
+      final long before = (long) DriverSlotTable.WORDS.getAndBitwiseOr(this.taken,
+            slot >>> DriverSlotTable.WORD_SHIFT, mask);
+      return (before & mask) == 0;
+   }
+
+   /**
+    * Gives up a reservation that did not lead to an assignment, making the
+    * driver claimable again if it is still available.
+    */
+   public void release(Driver driver) {
+      synchronized (driver) {
+         final Integer slot = this.slots.get(driver);
+         if (slot != null && driver.isAvailable()) {
+            DriverSlotTable.WORDS.getAndBitwiseAnd(this.taken, slot >>> DriverSlotTable.WORD_SHIFT,
+                  ~DriverSlotTable.mask(slot));
+         }
+      }
+   }
+
+   /**
+    * Brings the driver's bits in line with its availability. Must be called
+    * under the driver's monitor whenever the driver changes, which a
+    * {@link model.DriverListener} does.
+    */
+   public void update(Driver driver) {
+      final Integer slot = this.slots.get(driver);
+      if (slot == null) {
+         return;
+      }
+      final int word = slot >>> DriverSlotTable.WORD_SHIFT;
+      final long mask = DriverSlotTable.mask(slot);
+      if (driver.isAvailable()) {
+         final long before = (long) DriverSlotTable.WORDS.getAndBitwiseOr(this.online, word, mask);
+         // Only a driver coming back from unavailable is freed; an available one may be claimed
+         if ((before & mask) == 0) {
+            DriverSlotTable.WORDS.getAndBitwiseAnd(this.taken, word, ~mask);
+         }
+      } else {
+         DriverSlotTable.WORDS.getAndBitwiseOr(this.taken, word, mask);
+         DriverSlotTable.WORDS.getAndBitwiseAnd(this.online, word, ~mask);
+      }
+   }
+
+   /**
+    * @return a driver that is free to claim, without reserving it, or null
+    */
+   public Driver peekAny() {
+      final int words = this.usedWords;
+      for (int word = 0; word < words; word++) {
+         final long bits = (long) DriverSlotTable.WORDS.getVolatile(this.taken, word);
+         if (bits != DriverSlotTable.ALL_TAKEN) {
+            final Driver driver = this.drivers.get((word << DriverSlotTable.WORD_SHIFT)
+                  + Long.numberOfTrailingZeros(~bits));
+            if (driver != null) {
+               return driver;
+            }
+         }
+      }
+      return null;
+   }
+
+   /**
+    * @return the drivers free to claim, without reserving them
+    */
+   public List<Driver> free() {
+      final List<Driver> free = new ArrayList<>();
+      final int words = this.usedWords;
+      for (int word = 0; word < words; word++) {
+         long clear = ~(long) DriverSlotTable.WORDS.getVolatile(this.taken, word);
+         while (clear != 0) {
+            final Driver driver = this.drivers.get((word << DriverSlotTable.WORD_SHIFT)
+                  + Long.numberOfTrailingZeros(clear));
+            if (driver != null) {
+               free.add(driver);
+            }
+            clear &= clear - 1;
+         }
+      }
+      return free;
+   }
+
+   private static long mask(int slot) {
+      // Shifts use the low six bits of the slot, which is its position in the word
+      return 1L << slot;
+   }
+}
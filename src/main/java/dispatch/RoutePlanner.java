@@ -0,0 +1,364 @@
+package dispatch;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import model.Driver;
+import model.Location;
+import model.Order;
+import model.Stop;
+
+/**
+ * Plans how a new order joins the route of a driver already carrying
+ * orders, so that one driver can take several orders from the same
+ * restaurant to nearby addresses.
+ *
+ * <p>A route is timed from the driver's current location and the current
+ * time, travelling between stops as estimated by a {@link TravelTimeEstimator}
+ * and spending a fixed stop time at each. It is feasible if every order is
+ * picked up before it is dropped off, the driver never has more than its
+ * {@link Driver#getCapacity() capacity} on board, and no order arrives after
+ * its promised {@link Order#getEstimatedDeliveryTime() delivery time}, or,
+ * for an order already running late, after its current arrival. Its cost is
+ * the sum of the drop-off times, so the best plan is the one that adds the
+ * least delay across every order on the route, the new one included.
+ *
+ * <p>The new order's pickup and dropoff are first inserted at the cheapest
+ * feasible pair of positions, trying every pair, and the route is then
+ * improved by local search, moving one stop at a time to another position
+ * while that lowers the cost. Routes hold a few stops each, so a plan takes
+ * microseconds.
+ */
+public class RoutePlanner {
+   public static final Duration DEFAULT_STOP_TIME = Duration.ofMinutes(2);
+
+   // Bounds the local search; each improvement strictly lowers the cost, so it ends anyway
+   private static final int MAX_IMPROVEMENTS = 100;
+   private static final double MIN_IMPROVEMENT_SECONDS = 1e-6;
+
+   private final TravelTimeEstimator travelTime;
+   private final double stopSeconds;
+   private final Clock clock;
+
+   /**
+    * @param travelTime how long the driver takes between stops
+    * @param stopTime   how long each pickup and dropoff takes
+    * @param clock      the source of the current time, against which promises are checked
+    */
+   public RoutePlanner(TravelTimeEstimator travelTime, Duration stopTime, Clock clock) {
+      this.travelTime = travelTime;
+      this.stopSeconds = stopTime.toMillis() / 1000.0;
+      this.clock = clock;
+   }
+
+   /**
+    * A route for a driver with a new order inserted.
+    */
+   public static final class Plan {
+      private final Driver driver;
+      private final List<Stop> route;
+      private final double addedDelaySeconds;
+
+      Plan(Driver driver, List<Stop> route, double addedDelaySeconds) {
+         this.driver = driver;
+         this.route = route;
+         this.addedDelaySeconds = addedDelaySeconds;
+      }
+
+      public Driver getDriver() {
+         return this.driver;
+      }
+
+      /**
+       * @return the stops to visit, for {@link Driver#poolOrder}
+       */
+      public List<Stop> getRoute() {
+         return this.route;
+      }
+
+      /**
+       * @return how much later, summed over its orders, the route completes
+       *         than without the new order, counting the new order's own
+       *         delivery time
+       */
+      public double getAddedDelaySeconds() {
+         return this.addedDelaySeconds;
+      }
+   }
+
+   /**
+    * Plans the order into the driver's current route.
+    *
+    * @return the plan that adds the least delay, or null if the driver is not
+    *         carrying orders, a location is unknown, or no plan keeps every
+    *         promise within the driver's capacity
+    */
+   public Plan plan(Driver driver, Order order) {
+      final List<Stop> current = driver.getRoute();
+      final List<Order> carried = driver.getCurrentOrders();
+      final Location start = driver.getCurrentLocation();
+      if (carried.isEmpty() || carried.contains(order) || start == null || !start.hasCoordinates()) {
+         return null;
+      }
+      final List<Stop> stops = new ArrayList<>(current);
+      stops.add(Stop.pickup(order));
+      stops.add(Stop.dropoff(order));
+      final RouteTimes times = this.timesFor(driver, start, stops);
+      if (times == null) {
+         return null;
+      }
+
+      final int existing = current.size();
+      final int[] sequence = new int[existing];
+      for (int i = 0; i < existing; i++) {
+         sequence[i] = i;
+      }
+      final double baseline = times.relaxPromises(sequence);
+
+      // Insertion: the pickup goes before stop i, the dropoff before stop j of the current route
+      int[] best = null;
+      double bestCost = Double.POSITIVE_INFINITY;
+      for (int i = 0; i <= existing; i++) {
+         for (int j = i; j <= existing; j++) {
+            final int[] candidate = RoutePlanner.insert(sequence, i, j);
+            final double cost = times.cost(candidate);
+            if (cost < bestCost) {
+               best = candidate;
+               bestCost = cost;
+            }
+         }
+      }
+      if (best == null) {
+         return null;
+      }
+
+      // Local search: move single stops while that lowers the cost
+      for (int improvements = 0; improvements < RoutePlanner.MAX_IMPROVEMENTS; improvements++) {
+         final int[] improved = times.bestMove(best, bestCost);
+         if (improved == null) {
+            break;
+         }
+         best = improved;
+         bestCost = times.cost(improved);
+      }
+
+      final List<Stop> route = new ArrayList<>(best.length);
+      for (int stop : best) {
+         route.add(stops.get(stop));
+      }
+      return new Plan(driver, route, bestCost - baseline);
+   }
+
+   /**
+    * Pools the order into the route of whichever candidate it delays least.
+    * A candidate whose route changes between planning and pooling is skipped.
+    *
+    * @param candidates drivers carrying orders near the order's pickup
+    * @return the driver that took the order, or null if none could
+    */
+   public Driver pool(Order order, Collection<Driver> candidates) {
+      final List<Plan> plans = new ArrayList<>();
+      for (Driver driver : candidates) {
+         final Plan plan = this.plan(driver, order);
+         if (plan != null) {
+            plans.add(plan);
+         }
+      }
+      plans.sort(Comparator.comparingDouble(Plan::getAddedDelaySeconds));
+      for (Plan plan : plans) {
+         if (plan.getDriver().poolOrder(order, plan.getRoute())) {
+            return plan.getDriver();
+         }
+      }
+      return null;
+   }
+
+   private RouteTimes timesFor(Driver driver, Location start, List<Stop> stops) {
+      final int count = stops.size();
+      final Location[] locations = new Location[count + 1];
+      locations[count] = start;
+      final double[] deadlines = new double[count];
+      final int[] pickupOf = new int[count];
+      final boolean[] pickups = new boolean[count];
+      final Map<Order, Integer> pickupIndex = new IdentityHashMap<>();
+      final long nowMillis = this.clock.millis();
+      for (int i = 0; i < count; i++) {
+         final Stop stop = stops.get(i);
+         final Location location = stop.getLocation();
+         if (location == null || !location.hasCoordinates()) {
+            return null;
+         }
+         locations[i] = location;
+         pickups[i] = stop.getKind() == Stop.Kind.PICKUP;
+         if (pickups[i]) {
+            pickupIndex.put(stop.getOrder(), i);
+         }
+         final LocalDateTime promised = stop.getOrder().getEstimatedDeliveryTime();
+         deadlines[i] = pickups[i] || promised == null ? Double.POSITIVE_INFINITY
+               : (promised.atZone(this.clock.getZone()).toInstant().toEpochMilli() - nowMillis) / 1000.0;
+      }
+      for (int i = 0; i < count; i++) {
+         pickupOf[i] = pickups[i] ? -1 : pickupIndex.getOrDefault(stops.get(i).getOrder(), -1);
+      }
+      final double[][] seconds = new double[count + 1][count];
+      for (int from = 0; from <= count; from++) {
+         for (int to = 0; to < count; to++) {
+            seconds[from][to] = from == to ? 0 : this.travelTime.secondsBetween(locations[from], locations[to]);
+         }
+      }
+      final int onBoard = driver.getCurrentOrders().size() - (pickupIndex.size() - 1);
+      return new RouteTimes(seconds, deadlines, pickupOf, pickups, onBoard, driver.getCapacity(),
+            this.stopSeconds);
+   }
+
+   /**
+    * @return the sequence with the new order's pickup, the stop after the
+    *         sequence's last, inserted before position {@code pickupAt} and
+    *         its dropoff before position {@code dropoffAt}
+    */
+   private static int[] insert(int[] sequence, int pickupAt, int dropoffAt) {
+      final int length = sequence.length;
+      final int[] result = new int[length + 2];
+      int out = 0;
+      for (int i = 0; i <= length; i++) {
+         if (i == pickupAt) {
+            result[out++] = length;
+         }
+         if (i == dropoffAt) {
+            result[out++] = length + 1;
+         }
+         if (i < length) {
+            result[out++] = sequence[i];
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Travel times and constraints of one route's stops, indexed by their
+    * position in the planned stop list, with the driver's start last.
+    */
+   private static final class RouteTimes {
+      private final double[][] seconds;
+      private final double[] deadlines;
+      private final int[] pickupOf;
+      private final boolean[] pickups;
+      private final int onBoard;
+      private final int capacity;
+      private final double stopSeconds;
+      private final boolean[] visited;
+
+      RouteTimes(double[][] seconds, double[] deadlines, int[] pickupOf, boolean[] pickups, int onBoard,
+            int capacity, double stopSeconds) {
+         this.seconds = seconds;
+         this.deadlines = deadlines;
+         this.pickupOf = pickupOf;
+         this.pickups = pickups;
+         this.onBoard = onBoard;
+         this.capacity = capacity;
+         this.stopSeconds = stopSeconds;
+         this.visited = new boolean[deadlines.length];
+      }
+
+      /**
+       * Lets the current route's late orders keep their current arrival as
+       * their deadline, so only making them later still is ruled out.
+       *
+       * @return the current route's cost
+       */
+      double relaxPromises(int[] sequence) {
+         double time = 0;
+         double cost = 0;
+         int at = this.deadlines.length;
+         for (int stop : sequence) {
+            final double arrival = time + this.seconds[at][stop];
+            if (!this.pickups[stop]) {
+               this.deadlines[stop] = Math.max(this.deadlines[stop], arrival);
+               cost += arrival;
+            }
+            time = arrival + this.stopSeconds;
+            at = stop;
+         }
+         return cost;
+      }
+
+      /**
+       * @return the sum of drop-off times, or infinity if the route is infeasible
+       */
+      double cost(int[] sequence) {
+         Arrays.fill(this.visited, false);
+         double time = 0;
+         double cost = 0;
+         int load = this.onBoard;
+         int at = this.deadlines.length;
+         for (int stop : sequence) {
+            final double arrival = time + this.seconds[at][stop];
+            if (this.pickups[stop]) {
+               if (++load > this.capacity) {
+                  return Double.POSITIVE_INFINITY;
+               }
+            } else {
+               final int pickup = this.pickupOf[stop];
+               if ((pickup >= 0 && !this.visited[pickup]) || arrival > this.deadlines[stop]) {
+                  return Double.POSITIVE_INFINITY;
+               }
+               load--;
+               cost += arrival;
+            }
+            this.visited[stop] = true;
+            time = arrival + this.stopSeconds;
+            at = stop;
+         }
+         return cost;
+      }
+
+      /**
+       * @return the cheapest route that moves one stop of {@code sequence}
+       *         elsewhere, or null if none is cheaper than {@code cost}
+       */
+      int[] bestMove(int[] sequence, double cost) {
+         int[] best = null;
+         double bestCost = cost - RoutePlanner.MIN_IMPROVEMENT_SECONDS;
+         final int[] candidate = new int[sequence.length];
+         for (int from = 0; from < sequence.length; from++) {
+            for (int to = 0; to < sequence.length; to++) {
+               if (to == from) {
+                  continue;
+               }
+               RouteTimes.move(sequence, from, to, candidate);
+               final double moved = this.cost(candidate);
+               if (moved < bestCost) {
+                  best = candidate.clone();
+                  bestCost = moved;
+               }
+            }
+         }
+         return best;
+      }
+
+      private static void move(int[] sequence, int from, int to, int[] result) {
+         final int stop = sequence[from];
+         int out = 0;
+         for (int i = 0; i < sequence.length; i++) {
+            if (i == from) {
+               continue;
+            }
+            if (out == to) {
+               result[out++] = stop;
+            }
+            result[out++] = sequence[i];
+         }
+         if (out == to) {
+            result[out] = stop;
+         }
+      }
+   }
+}
@@ -0,0 +1,31 @@
+package dispatch;
+
+import model.Location;
+
+/**
+ * Estimates how long a driver takes to get from one place to another, the
+ * cost that dispatch minimises.
+ */
+@FunctionalInterface
+public interface TravelTimeEstimator {
+   /** Scooters and bikes in city traffic, with streets a third longer than the straight line. */
+   TravelTimeEstimator CITY = TravelTimeEstimator.straightLine(25, 1.3);
+
+   /**
+    * @return the travel time in seconds, or NaN if either location has no coordinates
+    */
+   double secondsBetween(Location from, Location to);
+
+   /**
+    * @param speedKmh     the average speed
+    * @param detourFactor how much longer the road distance is than the great-circle distance
+    * @return an estimator that assumes a constant speed along a stretched straight line
+    */
+   static TravelTimeEstimator straightLine(double speedKmh, double detourFactor) {
+      if (!(speedKmh > 0) || !(detourFactor >= 1)) {
+         throw new IllegalArgumentException("Speed must be positive and the detour factor at least 1");
+      }
+      final double secondsPerKm = 3600 * detourFactor / speedKmh;
+      return (from, to) -> from.distanceKmTo(to) * secondsPerKm;
+   }
+}
@@ -6,10 +6,12 @@ import java.util.Scanner;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import dispatch.DispatchEngine;
 import model.Driver;
 import model.Order;
 import model.OrderStatus;
 import services.DriverService;
+import services.OrderService;
 import services.impl.DriverServiceImpl;
 import validation.ConsoleInputHandler;
 import validation.InputValidatorImpl;
@@ -30,6 +32,18 @@ public class DriverManager {
                         "Invalid choice"));
     }
 
+    /**
+     * Starts assigning waiting orders that have a pickup location to drivers
+     * automatically, in batches configured by the {@link DispatchEngine}
+     * system properties.
+     *
+     * @param orderService where waiting orders are found
+     * @return the running engine
+     */
+    public DispatchEngine startBatchDispatch(final OrderService orderService) {
+        return DispatchEngine.fromSystemProperties(orderService, this.driverService);
+    }
+
     public void listAvailableDrivers() {
         final List<Driver> availableDrivers = this.driverService.getAvailableDrivers();
         if (availableDrivers.isEmpty()) {
@@ -69,8 +83,11 @@ public class DriverManager {
         }
 
         final Driver selectedDriver = availableDrivers.get(driverChoice - 1);
-        this.driverService.assignDriverToOrder(selectedDriver, order);
-        order.setStatus(OrderStatus.CONFIRMED);
+        // Accepting claims the order itself, so a failed assignment leaves it where it was
+        if (!this.driverService.assignDriverToOrder(selectedDriver, order)) {
+            System.out.println("Driver " + selectedDriver.getName() + " could not take order " + order.getId() + ".");
+            return Optional.empty();
+        }
 
         DriverManager.logger.info(() -> String.format("Driver %s assigned to order %d",
                 selectedDriver.getName(), order.getId()));
@@ -114,10 +131,13 @@ public class DriverManager {
         }
 
         System.out.println("\n--- Pending Orders ---");
+        // The statuses as shown, so the order is only taken if nobody moved it since
+        final OrderStatus[] shown = new OrderStatus[pendingOrders.size()];
         for (int i = 0; i < pendingOrders.size(); i++) {
             final Order order = pendingOrders.get(i);
+            shown[i] = order.getStatus();
             System.out.printf("%d. Order ID: %d - Status: %s\n",
-                    i + 1, order.getId(), order.getStatus());
+                    i + 1, order.getId(), shown[i]);
         }
 
         final Integer orderChoice = this.menuChoiceHandler.handleInput(
@@ -130,12 +150,23 @@ public class DriverManager {
         }
 
         final Order selectedOrder = pendingOrders.get(orderChoice - 1);
-        final Optional<Driver> driver = this.driverService.findAvailableDriver();
+        final OrderStatus selectedStatus = shown[orderChoice - 1];
+        // Reserved so that no other dispatcher can hand the same driver a second order
+        final Optional<Driver> driver = this.driverService.claimAvailableDriver();
 
         driver.ifPresentOrElse(
                 selectedDriver -> {
-                    this.driverService.assignDriverToOrder(selectedDriver, selectedOrder);
-                    selectedOrder.setStatus(OrderStatus.IN_PROGRESS);
+                    // Another dispatcher may have taken the order while this one was choosing
+                    if (selectedOrder.getStatus() != selectedStatus) {
+                        this.driverService.releaseDriver(selectedDriver);
+                        System.out.println("Order " + selectedOrder.getId() + " has already been taken.");
+                        return;
+                    }
+                    // Accepting moves the order straight to IN_PROGRESS, and only one driver can do that
+                    if (!this.driverService.assignClaimedDriverToOrder(selectedDriver, selectedOrder)) {
+                        System.out.println("Order " + selectedOrder.getId() + " has already been taken.");
+                        return;
+                    }
                     System.out.println("Order assigned to driver " + selectedDriver.getName() +
                             " and is now in progress.");
                     DriverManager.logger.info(() -> String.format("Order %d assigned to driver %s",
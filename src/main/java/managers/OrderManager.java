@@ -1,20 +1,41 @@
 package managers;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
+import bulk.ImportResult;
+import bulk.OrderExporter;
+import bulk.OrderImporter;
+import io.micrometer.core.instrument.Metrics;
 import model.MenuItem;
+import model.Money;
 import model.Order;
 import model.OrderStatus;
 import notification.BasicNotificationService;
 import observer.CustomerNotifier;
 import observer.DriverNotifier;
-import queue.OrderQueue;
+import persistence.OrderArchive;
+import persistence.OrderJournal;
+import queue.AdmissionController;
+import queue.AdmissionDecision;
+import queue.InstrumentedOrderQueue;
+import queue.QueueOperations;
+import queue.QueueType;
+import scheduler.ScheduledOrderService;
+import services.OrderRepository;
 import services.OrderService;
+import services.impl.InMemoryOrderRepository;
+import services.impl.JournaledOrderRepository;
 import services.impl.OrderServiceImpl;
+import services.impl.TieredOrderRepository;
 import tracker.OrderTracker;
+import util.PrometheusEndpoint;
 import validation.ConsoleInputHandler;
 import validation.InputValidatorImpl;
 import validation.PositiveLongValidator;
@@ -23,20 +44,45 @@ public class OrderManager {
     private static final Logger logger = Logger.getLogger(OrderManager.class.getName());
     private static final int MAX_QUEUE_SIZE = 10;
 
+    private final OrderRepository orderRepository;
     private final OrderService orderService;
-    private final OrderQueue orderQueue;
+    private final QueueOperations<Order> orderQueue;
+    private final AdmissionController admissionController;
+    private final ScheduledOrderService scheduledOrders;
     private final ConsoleInputHandler<Long> orderIdHandler;
     private final OrderTracker orderTracker; // Added OrderTracker
 
     public OrderManager() {
-        this.orderService = new OrderServiceImpl();
-        this.orderQueue = new OrderQueue(OrderManager.MAX_QUEUE_SIZE);
+        // Orders are journaled, and finished ones archived, only when the respective directory is configured
+        OrderRepository orderRepository = System.getProperty(OrderJournal.DIRECTORY_PROPERTY) == null
+                ? new InMemoryOrderRepository()
+                : JournaledOrderRepository.fromSystemProperties();
+        if (System.getProperty(OrderArchive.DIRECTORY_PROPERTY) != null) {
+            orderRepository = TieredOrderRepository.fromSystemProperties(orderRepository);
+        }
+        this.orderRepository = orderRepository;
+        this.orderService = new OrderServiceImpl(orderRepository);
+        // The global registry feeds a Prometheus registry, scraped at /actuator/prometheus when a port is configured
+        PrometheusEndpoint.fromSystemProperties();
+        final InstrumentedOrderQueue orderQueue = new InstrumentedOrderQueue(
+                QueueType.fromSystemProperty().create(OrderManager.MAX_QUEUE_SIZE), Metrics.globalRegistry);
+        this.orderQueue = orderQueue;
+        // For a sharded queue the capacity, and so the limit, is per zone
+        this.admissionController = AdmissionController.fromSystemProperties(this.orderQueue,
+                OrderManager.MAX_QUEUE_SIZE);
+        this.admissionController.bindTo(Metrics.globalRegistry);
+        // Every order the kitchen takes tells the controller how long orders are waiting
+        this.admissionController.listenTo(orderQueue);
+        // Pre-orders are accepted, and their snapshot written, only when the snapshot file is configured
+        this.scheduledOrders = System.getProperty(ScheduledOrderService.SNAPSHOT_PROPERTY) == null
+                ? null
+                : ScheduledOrderService.fromSystemProperties(this.orderQueue);
         this.orderIdHandler = new ConsoleInputHandler<>(
                 new InputValidatorImpl<>(
                         new PositiveLongValidator(),
                         "Order ID",
                         "Invalid Order ID"));
-        this.orderTracker = new OrderTracker(); // Initialize OrderTracker
+        this.orderTracker = new OrderTracker(orderRepository); // Initialize OrderTracker
     }
 
     public Order createOrder(final List<MenuItem> orderItems) throws CustomException.QueueFullException {
@@ -47,11 +93,20 @@ public class OrderManager {
 
         try {
             final Order newOrder = this.orderService.createOrder(orderItems);
-            this.orderQueue.enqueue(newOrder);
+            final AdmissionDecision decision = this.admissionController.tryAdmit(newOrder);
+            if (!decision.isAdmitted()) {
+                final long retrySeconds = Math.max(1, (decision.getRetryAfter().toMillis() + 999) / 1000);
+                System.out.println("Sorry, we are very busy right now. Please try again in " + retrySeconds
+                        + " seconds.");
+                OrderManager.logger.warning("Order " + newOrder.getOrderId() + " " + decision);
+                newOrder.transitionTo(OrderStatus.CANCELLED);
+                this.orderService.save(newOrder);
+                return null;
+            }
             this.orderService.displayOrderDetails(newOrder);
             System.out.println("Order placed successfully!");
             System.out.println("Order ID: " + newOrder.getOrderId());
-            System.out.println("Total Amount: $" + newOrder.getTotalAmount());
+            System.out.println("Total Amount: $" + Money.format(newOrder.getTotalCents()));
             this.orderTracker.attach(new CustomerNotifier(new BasicNotificationService())); // Attach observer
             this.orderTracker.attach(new DriverNotifier(new BasicNotificationService())); // Attach another observer
             this.orderTracker.notifyObservers(newOrder); // Notify observers
@@ -64,6 +119,62 @@ public class OrderManager {
         }
     }
 
+    /**
+     * Hands the kitchen the oldest admitted order, waiting up to
+     * {@code timeout} for one to arrive. How long the order waited in the
+     * queue feeds back into the admission limit.
+     *
+     * @return the next order, or null if none arrived in time
+     */
+    public Order takeNextOrder(final Duration timeout) throws InterruptedException {
+        return this.orderQueue.take(timeout.toMillis(), TimeUnit.MILLISECONDS).orElse(null);
+    }
+
+    /**
+     * Places an order now for delivery at a later time. The order is held
+     * until its kitchen start time and then released into the order queue.
+     *
+     * @return the scheduled order, or null if it was not placed
+     */
+    public Order scheduleOrder(final List<MenuItem> orderItems, final LocalDateTime deliverAt) {
+        if (this.scheduledOrders == null) {
+            System.out.println("Scheduled orders are not available.");
+            return null;
+        }
+        if (orderItems.isEmpty()) {
+            System.out.println("No items selected. Order cancelled.");
+            return null;
+        }
+
+        final Order newOrder = this.orderService.createOrder(orderItems);
+        this.scheduledOrders.scheduleForDelivery(newOrder, deliverAt);
+        System.out.println("Order scheduled for delivery at " + deliverAt);
+        System.out.println("Order ID: " + newOrder.getOrderId());
+        OrderManager.logger.info("Order " + newOrder.getOrderId() + " scheduled for " + deliverAt);
+        return newOrder;
+    }
+
+    /**
+     * Backfills orders from an NDJSON or CSV file straight into the order
+     * store, without queueing them for the kitchen.
+     *
+     * @param file a {@code .ndjson}, {@code .jsonl} or {@code .csv} file
+     * @return how many orders were imported and rejected
+     */
+    public ImportResult importOrders(final Path file) throws IOException {
+        return new OrderImporter(this.orderRepository).importFrom(file);
+    }
+
+    /**
+     * Streams every stored order to an NDJSON or CSV file.
+     *
+     * @param file a {@code .ndjson}, {@code .jsonl} or {@code .csv} file
+     * @return how many orders were exported
+     */
+    public long exportOrders(final Path file) throws IOException {
+        return OrderExporter.exportTo(file, this.orderRepository.stream());
+    }
+
     public void checkOrderStatus(final Scanner scanner) {
         try {
             final Long orderId = this.orderIdHandler.handleInput(scanner, "Enter Order ID to check status: ");
@@ -91,6 +202,18 @@ public class OrderManager {
         return this.orderService;
     }
 
+    public AdmissionController getAdmissionController() {
+        return this.admissionController;
+    }
+
+    /**
+     * @return the pre-order scheduler, or null if the
+     *         {@value ScheduledOrderService#SNAPSHOT_PROPERTY} property is not set
+     */
+    public ScheduledOrderService getScheduledOrders() {
+        return this.scheduledOrders;
+    }
+
     public void processOrderPlacement(final Scanner scanner, final MenuManager menuManager,
             final ConsoleInputHandler<Integer> positiveIntegerHandler,
             final ConsoleInputHandler<String> emailHandler,
@@ -123,13 +246,15 @@ public class OrderManager {
     }
 
     public List<Order> getPendingOrders() {
-        return this.orderService.getAllOrders().stream()
-                .filter(order -> order.getStatus() == OrderStatus.SUBMITTED)
-                .collect(Collectors.toList());
+        return this.orderService.getOrdersByStatus(OrderStatus.SUBMITTED);
     }
 
     public void updateOrderStatus(final Order order, final OrderStatus status) {
-        order.setStatus(status);
+        final OrderStatus current = order.getStatus();
+        if (!current.canTransitionTo(status) || !order.compareAndTransition(current, status)) {
+            System.out.println("Cannot change order status from " + order.getStatus() + " to " + status + ".");
+            return;
+        }
         orderService.save(order);
         orderTracker.updateOrderStatus(order.getOrderId(), status, order.getDriver());
         System.out.println("Order status updated to: " + status);
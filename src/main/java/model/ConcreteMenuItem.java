@@ -4,28 +4,49 @@ public class ConcreteMenuItem implements MenuItem {
     private final Long id;
     private final String name;
     private final String description;
-    private final double price;
+    private final long unitPriceCents;
     private final Size size;
     private final int quantity;
 
+    /**
+     * @param price the unit price in dollars, rounded to the nearest cent
+     */
     public ConcreteMenuItem(final Long id, final String name, final String description,
             final double price, final Size size, final int quantity) {
+        this(id, name, description, Money.ofDollars(price), size, quantity);
+    }
+
+    // Private so that an int price can never silently resolve to cents instead of dollars
+    private ConcreteMenuItem(final Long id, final String name, final String description,
+            final long unitPriceCents, final Size size, final int quantity) {
         this.id = id;
         this.name = name;
         this.description = description;
-        this.price = price;
+        this.unitPriceCents = unitPriceCents;
         this.size = size;
         this.quantity = quantity;
     }
 
+    /**
+     * Creates an item whose unit price is already in cents, e.g. when restoring it from storage.
+     */
+    public static ConcreteMenuItem ofCents(final Long id, final String name, final String description,
+            final long unitPriceCents, final Size size, final int quantity) {
+        return new ConcreteMenuItem(id, name, description, unitPriceCents, size, quantity);
+    }
+
     @Override
     public String getName() {
         return this.name;
     }
 
     @Override
-    public double getPrice() {
-        return this.price * this.quantity;
+    public long getPriceCents() {
+        return this.unitPriceCents * this.quantity;
+    }
+
+    public long getUnitPriceCents() {
+        return this.unitPriceCents;
     }
 
     public Size getSize() {
@@ -43,4 +64,4 @@ public class ConcreteMenuItem implements MenuItem {
     public String getDescription() {
         return this.description;
     }
-}
\ No newline at end of file
+}
@@ -1,15 +1,15 @@
 package model;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import rating.Rating;
+import util.SnapshotList;
 
 /**
  * Represents a customer in the system.
  */
 public class Customer extends Person {
-   private final List<Order> orderHistory;
+   private final SnapshotList<Order> orderHistory;
 
    /**
     * Constructs a Customer with the specified details.
@@ -21,7 +21,7 @@ public class Customer extends Person {
     */
    public Customer(final Long id, final String name, final String email, final String address) {
       super(id, name, email, address);
-      this.orderHistory = new ArrayList<>();
+      this.orderHistory = new SnapshotList<>();
    }
 
    /**
@@ -63,9 +63,9 @@ public class Customer extends Person {
    /**
     * Returns the order history of the customer.
     *
-    * @return a list of past orders
+    * @return a list of past orders; an immutable snapshot shared between callers
     */
    public List<Order> getOrderHistory() {
-      return new ArrayList<>(this.orderHistory);
+      return this.orderHistory.get();
    }
 }
@@ -1,10 +1,14 @@
 package model;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Queue;
+import java.util.Set;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -13,16 +17,22 @@ public class Driver {
    private static final int MAX_RATINGS = 10;
    private static final int MIN_RATING = 1;
    private static final int MAX_RATING = 5;
+   /** How many orders a driver carries at once unless set otherwise. */
+   public static final int DEFAULT_CAPACITY = 1;
 
    private final Long id;
    private final String name;
    private final String vehicleType;
    private final String licensePlate;
    private String vehicle;
-   private boolean available;
+   private volatile boolean available;
    private final Queue<Rating> ratings = new ArrayDeque<>(Driver.MAX_RATINGS);
-   private Order currentOrder;
-   private Location currentLocation;
+   // Immutable snapshots, replaced under the monitor so readers need no lock
+   private volatile List<Order> currentOrders = List.of();
+   private volatile List<Stop> route = List.of();
+   private volatile int capacity = Driver.DEFAULT_CAPACITY;
+   private volatile Location currentLocation;
+   private DriverListener listener;
 
    public Driver(final Long id, final String name, final String vehicleType, final String licensePlate) {
       this.id = Objects.requireNonNull(id, "Driver ID cannot be null");
@@ -57,53 +67,264 @@ public class Driver {
       return this.available;
    }
 
-   public void setAvailable(final boolean available) {
+   public synchronized void setAvailable(final boolean available) {
+      if (this.available == available) {
+         return;
+      }
       this.available = available;
+      if (this.listener != null) {
+         this.listener.driverChanged(this);
+      }
    }
 
+   /**
+    * @return the first of the orders the driver is carrying, or empty
+    */
    public Optional<Order> getCurrentOrder() {
-      return Optional.ofNullable(this.currentOrder);
+      final List<Order> orders = this.currentOrders;
+      return orders.isEmpty() ? Optional.empty() : Optional.of(orders.get(0));
+   }
+
+   /**
+    * @return the orders the driver is carrying, in the order they were taken
+    */
+   public List<Order> getCurrentOrders() {
+      return this.currentOrders;
+   }
+
+   /**
+    * @return the stops still ahead of the driver, in the order they will be visited
+    */
+   public List<Stop> getRoute() {
+      return this.route;
+   }
+
+   /**
+    * @return the most orders the driver can have on board at once
+    */
+   public int getCapacity() {
+      return this.capacity;
+   }
+
+   public synchronized void setCapacity(final int capacity) {
+      if (capacity <= 0) {
+         throw new IllegalArgumentException("Capacity must be positive");
+      }
+      this.capacity = capacity;
    }
 
    public Location getCurrentLocation() {
       return this.currentLocation;
    }
 
-   public void setCurrentLocation(final Location location) {
+   public synchronized void setCurrentLocation(final Location location) {
       this.currentLocation = location;
+      if (this.listener != null) {
+         this.listener.driverChanged(this);
+      }
+   }
+
+   /**
+    * Sets the single listener told when this driver moves, changes
+    * availability, or takes or delivers an order, or null to detach it.
+    */
+   public synchronized void setListener(final DriverListener listener) {
+      this.listener = listener;
+   }
+
+   public synchronized DriverListener getListener() {
+      return this.listener;
    }
 
    // Order Management
-   public void acceptOrder(final Order order) {
+
+   /**
+    * Takes the order if this driver is available and the order can move to
+    * {@link OrderStatus#IN_PROGRESS}. The check and the assignment are one
+    * atomic step, so an available driver is never handed two orders however
+    * many dispatchers try to assign it at once; further orders join its route
+    * only through {@link #poolOrder}.
+    *
+    * @return whether the driver took the order
+    */
+   public synchronized boolean acceptOrder(final Order order) {
       if (order == null) {
          Driver.logger.warning("Cannot accept null order");
-         return;
+         return false;
       }
 
       if (!this.available) {
          Driver.logger.warning("Driver is not available to accept order");
-         return;
+         return false;
+      }
+
+      // Claim the order first so two drivers racing for it cannot both take it
+      if (!order.transitionTo(OrderStatus.IN_PROGRESS)) {
+         Driver.logger.warning(() -> String.format("Order %d is already %s", order.getId(), order.getStatus()));
+         return false;
       }
 
-      this.currentOrder = order;
-      this.available = false;
+      this.currentOrders = List.of(order);
+      this.route = List.of(Stop.pickup(order), Stop.dropoff(order));
+      this.setAvailable(false);
       order.setDriver(this);
-      order.setStatus(OrderStatus.IN_PROGRESS);
+      if (this.listener != null) {
+         this.listener.orderAccepted(this, order);
+      }
       Driver.logger.info(() -> String.format("Driver %s accepted order %d", this.name, order.getId()));
+      return true;
    }
 
-   public void completeDelivery(final Order order) {
-      if (order == null || this.currentOrder == null || !this.currentOrder.getId().equals(order.getId())) {
+   /**
+    * Adds an order to the route of this driver while it is carrying other
+    * orders, along a route planned for it. The plan is only taken if it
+    * still fits: it must hold exactly the current stops and the new order's
+    * pickup and dropoff, visit every pickup before its dropoff, and never
+    * have more than {@link #getCapacity()} orders on board.
+    *
+    * @param order        the order to add
+    * @param plannedRoute the current stops, possibly reordered, with the order's pickup and dropoff
+    * @return whether the driver took the order; false if the route changed
+    *         since it was planned or the order was already taken
+    */
+   public synchronized boolean poolOrder(final Order order, final List<Stop> plannedRoute) {
+      if (order == null || plannedRoute == null) {
+         Driver.logger.warning("Cannot pool null order or route");
+         return false;
+      }
+
+      if (this.currentOrders.isEmpty() || this.currentOrders.contains(order)) {
+         Driver.logger.warning("Driver has no route to add the order to");
+         return false;
+      }
+
+      if (!this.fitsRoute(order, plannedRoute)) {
+         Driver.logger.warning(() -> String.format("Route planned for order %d no longer fits driver %s",
+               order.getId(), this.name));
+         return false;
+      }
+
+      if (!order.transitionTo(OrderStatus.IN_PROGRESS)) {
+         Driver.logger.warning(() -> String.format("Order %d is already %s", order.getId(), order.getStatus()));
+         return false;
+      }
+
+      final List<Order> orders = new ArrayList<>(this.currentOrders);
+      orders.add(order);
+      this.currentOrders = List.copyOf(orders);
+      this.route = List.copyOf(plannedRoute);
+      order.setDriver(this);
+      if (this.listener != null) {
+         this.listener.orderAccepted(this, order);
+      }
+      Driver.logger.info(() -> String.format("Driver %s pooled order %d into a route of %d stops", this.name,
+            order.getId(), plannedRoute.size()));
+      return true;
+   }
+
+   /**
+    * Records that the driver collected the order, which is now out for
+    * delivery.
+    *
+    * @return whether the order's pickup was on the route
+    */
+   public synchronized boolean completePickup(final Order order) {
+      final List<Stop> remaining = new ArrayList<>(this.route);
+      if (order == null
+            || !remaining.removeIf(stop -> stop.getOrder() == order && stop.getKind() == Stop.Kind.PICKUP)) {
+         Driver.logger.warning("Cannot complete pickup for an order not on the route");
+         return false;
+      }
+
+      if (!order.transitionTo(OrderStatus.OUT_FOR_DELIVERY)) {
+         Driver.logger.warning(() -> String.format("Order %d cannot be collected while %s", order.getId(),
+               order.getStatus()));
+         return false;
+      }
+
+      this.route = List.copyOf(remaining);
+      return true;
+   }
+
+   public synchronized void completeDelivery(final Order order) {
+      final Order carried = order == null ? null : this.findCurrentOrder(order.getId());
+      if (carried == null) {
          Driver.logger.warning("Cannot complete delivery for unassigned or different order");
          return;
       }
 
-      this.currentOrder = null;
-      this.available = true;
-      order.setStatus(OrderStatus.DELIVERED);
+      if (!order.transitionTo(OrderStatus.DELIVERED)) {
+         Driver.logger.warning(() -> String.format("Order %d cannot be delivered while %s", order.getId(),
+               order.getStatus()));
+         return;
+      }
+
+      final List<Order> orders = new ArrayList<>(this.currentOrders);
+      orders.remove(carried);
+      final List<Stop> remaining = new ArrayList<>(this.route);
+      remaining.removeIf(stop -> stop.getOrder() == carried);
+      this.currentOrders = List.copyOf(orders);
+      this.route = List.copyOf(remaining);
+      if (orders.isEmpty()) {
+         this.setAvailable(true);
+      }
+      if (this.listener != null) {
+         this.listener.orderDelivered(this, order);
+      }
       Driver.logger.info(() -> String.format("Driver %s completed delivery of order %d", this.name, order.getId()));
    }
 
+   private Order findCurrentOrder(final Long orderId) {
+      for (final Order carried : this.currentOrders) {
+         if (carried.getId().equals(orderId)) {
+            return carried;
+         }
+      }
+      return null;
+   }
+
+   private boolean fitsRoute(final Order order, final List<Stop> plannedRoute) {
+      final List<Stop> current = this.route;
+      if (plannedRoute.size() != current.size() + 2) {
+         return false;
+      }
+      final Set<Stop> unplanned = Collections.newSetFromMap(new IdentityHashMap<>());
+      unplanned.addAll(current);
+      final Set<Order> awaitingPickup = Collections.newSetFromMap(new IdentityHashMap<>());
+      awaitingPickup.add(order);
+      for (final Stop stop : current) {
+         if (stop.getKind() == Stop.Kind.PICKUP) {
+            awaitingPickup.add(stop.getOrder());
+         }
+      }
+      // Orders whose pickup is no longer ahead are already on board
+      int load = this.currentOrders.size() - (awaitingPickup.size() - 1);
+      int newStops = 0;
+      for (final Stop stop : plannedRoute) {
+         if (stop.getOrder() == order) {
+            newStops++;
+         } else if (!unplanned.remove(stop)) {
+            return false;
+         }
+         if (stop.getKind() == Stop.Kind.PICKUP) {
+            // A second pickup of the same order is not in the set any more
+            if (!awaitingPickup.remove(stop.getOrder())) {
+               return false;
+            }
+            load++;
+         } else {
+            if (awaitingPickup.contains(stop.getOrder())) {
+               return false;
+            }
+            load--;
+         }
+         if (load > this.capacity) {
+            return false;
+         }
+      }
+      return newStops == 2 && unplanned.isEmpty() && awaitingPickup.isEmpty();
+   }
+
    // Rating Management
    public void updateRating(final int rating) {
       if (rating < Driver.MIN_RATING || rating > Driver.MAX_RATING) {
@@ -0,0 +1,32 @@
+package model;
+
+/**
+ * Notified when a {@link Driver} moves or becomes available or unavailable,
+ * and optionally when it takes or delivers an order, typically by the service
+ * that indexes drivers.
+ *
+ * <p>Every callback is made while the driver's monitor is held, so changes to
+ * one driver are reported one at a time and in the order they happened.
+ */
+@FunctionalInterface
+public interface DriverListener {
+    /**
+     * @param driver the driver that changed; {@link Driver#isAvailable()} and
+     *               {@link Driver#getCurrentLocation()} return its new state
+     */
+    void driverChanged(Driver driver);
+
+    /**
+     * @param driver the driver that took the order
+     * @param order  the order, now assigned to the driver
+     */
+    default void orderAccepted(Driver driver, Order order) {
+    }
+
+    /**
+     * @param driver the driver that delivered the order
+     * @param order  the order, no longer carried by the driver
+     */
+    default void orderDelivered(Driver driver, Order order) {
+    }
+}
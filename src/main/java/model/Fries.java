@@ -4,7 +4,7 @@ public class Fries implements MenuItem {
     private final Long id;
     private final String name;
     private final String description;
-    private final double price;
+    private final long unitPriceCents;
     private final Size size;
     private final int quantity;
 
@@ -13,7 +13,7 @@ public class Fries implements MenuItem {
         this.id = id;
         this.name = name;
         this.description = description;
-        this.price = price;
+        this.unitPriceCents = Money.ofDollars(price);
         this.size = size;
         this.quantity = quantity;
     }
@@ -24,8 +24,8 @@ public class Fries implements MenuItem {
     }
 
     @Override
-    public double getPrice() {
-        return this.price * this.quantity;
+    public long getPriceCents() {
+        return this.unitPriceCents * this.quantity;
     }
 
     public Size getSize() {
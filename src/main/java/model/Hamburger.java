@@ -12,8 +12,8 @@ public class Hamburger extends ConcreteMenuItem {
     }
 
     @Override
-    public double getPrice() {
-        return super.getPrice();
+    public long getPriceCents() {
+        return super.getPriceCents();
     }
 
     @Override
@@ -1,12 +1,32 @@
 package model;
 
 public class Location {
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+
     private final String address;
     private final String postalCode;
+    private final double latitude;
+    private final double longitude;
 
+    /**
+     * Creates a location known only by its address, without coordinates.
+     */
     public Location(final String address, final String postalCode) {
+        this(address, postalCode, Double.NaN, Double.NaN);
+    }
+
+    /**
+     * @param latitude  degrees north, from -90 to 90
+     * @param longitude degrees east, from -180 to 180
+     */
+    public Location(final String address, final String postalCode, final double latitude, final double longitude) {
+        if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            throw new IllegalArgumentException("Coordinates out of range: " + latitude + ", " + longitude);
+        }
         this.address = address;
         this.postalCode = postalCode;
+        this.latitude = latitude;
+        this.longitude = longitude;
     }
 
     public String getAddress() {
@@ -16,4 +36,35 @@ public class Location {
     public String getPostalCode() {
         return this.postalCode;
     }
-}
\ No newline at end of file
+
+    /**
+     * @return degrees north, or NaN if the location has no coordinates
+     */
+    public double getLatitude() {
+        return this.latitude;
+    }
+
+    /**
+     * @return degrees east, or NaN if the location has no coordinates
+     */
+    public double getLongitude() {
+        return this.longitude;
+    }
+
+    public boolean hasCoordinates() {
+        return !Double.isNaN(this.latitude) && !Double.isNaN(this.longitude);
+    }
+
+    /**
+     * @return the great-circle distance to {@code other} in kilometres, or NaN
+     *         if either location has no coordinates
+     */
+    public double distanceKmTo(final Location other) {
+        final double lat1 = Math.toRadians(this.latitude);
+        final double lat2 = Math.toRadians(other.latitude);
+        final double sinLat = Math.sin((lat2 - lat1) / 2);
+        final double sinLon = Math.sin(Math.toRadians(other.longitude - this.longitude) / 2);
+        final double a = sinLat * sinLat + Math.cos(lat1) * Math.cos(lat2) * sinLon * sinLon;
+        return 2 * Location.EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
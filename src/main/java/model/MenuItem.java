@@ -5,6 +5,16 @@ public interface MenuItem {
 
     String getName();
 
-    double getPrice();
+    /**
+     * @return the price of the order line in cents, i.e. the unit price times the quantity
+     */
+    long getPriceCents();
+
+    /**
+     * @return {@link #getPriceCents()} in dollars, for display
+     */
+    default double getPrice() {
+        return Money.toDollars(this.getPriceCents());
+    }
     // Add other necessary methods if any
 }
@@ -0,0 +1,37 @@
+package model;
+
+/**
+ * Amounts of money as a primitive {@code long} number of cents.
+ *
+ * <p>Prices, order totals and payments are kept in cents so that summing and
+ * comparing them is exact integer arithmetic; dollars as {@code double} are
+ * only a display and input format, converted once at the boundary.
+ */
+public final class Money {
+    public static final long CENTS_PER_DOLLAR = 100;
+
+    private Money() {
+    }
+
+    /**
+     * @param dollars an amount in dollars, e.g. {@code 2.99}
+     * @return the amount rounded to the nearest cent
+     */
+    public static long ofDollars(final double dollars) {
+        return Math.round(dollars * Money.CENTS_PER_DOLLAR);
+    }
+
+    public static double toDollars(final long cents) {
+        return (double) cents / Money.CENTS_PER_DOLLAR;
+    }
+
+    /**
+     * @param cents an amount in cents
+     * @return the amount in dollars with two decimals, e.g. {@code "-12.05"}
+     */
+    public static String format(final long cents) {
+        final long absolute = Math.abs(cents);
+        final long fraction = absolute % Money.CENTS_PER_DOLLAR;
+        return (cents < 0 ? "-" : "") + absolute / Money.CENTS_PER_DOLLAR + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+}
@@ -1,37 +1,64 @@
 package model;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import util.IdGenerator;
+import util.SnapshotList;
 
 public class Order {
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+    // The status state packs the status ordinal into the low bits, a flag
+    // saying whether a listener is attached above it and a version counting
+    // status changes in the rest
+    private static final long STATUS_MASK = 0x7F;
+    private static final long LISTENED = 0x80;
+    private static final long VERSION_UNIT = 0x100;
+
     private final Long customerId;
     private final String customerEmail;
-    private final List<MenuItem> items;
+    private final SnapshotList<MenuItem> items;
     private final String deliveryAddress;
     private final String postalCode;
     private final Long orderId;
-    private double totalAmount;
-    private OrderStatus status;
-    private LocalDateTime estimatedDeliveryTime;
-    private Driver driver;
+    // Kept up to date as lines are added and removed rather than re-summed on every read
+    private volatile long totalCents;
+    private final AtomicLong statusState;
+    private volatile LocalDateTime estimatedDeliveryTime;
+    private volatile Driver driver;
+    private volatile Location pickupLocation;
+    private volatile Location deliveryLocation;
+    private volatile long enqueuedAtNanos;
+    private volatile OrderStatusListener statusListener;
 
     public Order(final Long customerId, final String customerEmail, final List<MenuItem> items,
             final String deliveryAddress, final String postalCode) {
+        this(IdGenerator.getDefault().nextId(), customerId, customerEmail, items, deliveryAddress, postalCode);
+    }
+
+    /**
+     * Creates an order with a known ID, e.g. when restoring it from storage.
+     */
+    public Order(final Long orderId, final Long customerId, final String customerEmail, final List<MenuItem> items,
+            final String deliveryAddress, final String postalCode) {
         this.customerId = customerId;
         this.customerEmail = customerEmail;
-        this.items = items != null ? new ArrayList<>(items) : new ArrayList<>();
+        this.items = items != null ? new SnapshotList<>(items) : new SnapshotList<>();
         this.deliveryAddress = deliveryAddress;
         this.postalCode = postalCode;
-        this.orderId = System.currentTimeMillis(); // Simple ID generation
-        this.totalAmount = calculateTotalAmount();
-        this.status = OrderStatus.PENDING;
+        this.orderId = orderId;
+        this.totalCents = Order.sumCents(this.items.get());
+        this.statusState = new AtomicLong(OrderStatus.PENDING.ordinal());
     }
 
-    private double calculateTotalAmount() {
-        return this.items.stream()
-                .mapToDouble(MenuItem::getPrice)
-                .sum();
+    private static long sumCents(final List<MenuItem> items) {
+        long cents = 0;
+        for (final MenuItem item : items) {
+            cents += item.getPriceCents();
+        }
+        return cents;
     }
 
     public Long getId() {
@@ -50,8 +77,50 @@ public class Order {
         return this.customerEmail;
     }
 
+    /**
+     * @return the order lines as an immutable snapshot, shared rather than
+     *         copied; later changes to the order do not affect it
+     */
     public List<MenuItem> getItems() {
-        return new ArrayList<>(this.items);
+        return this.items.get();
+    }
+
+    /**
+     * Adds an order line and its price to the total.
+     */
+    public synchronized void addItem(final MenuItem item) {
+        this.items.add(item);
+        this.totalCents += item.getPriceCents();
+        if (this.statusListener != null) {
+            this.statusListener.itemsChanged(this);
+        }
+    }
+
+    /**
+     * Removes the first occurrence of an order line and its price from the total.
+     *
+     * @return whether the order contained the line
+     */
+    public synchronized boolean removeItem(final MenuItem item) {
+        if (!this.items.remove(item)) {
+            return false;
+        }
+        this.totalCents -= item.getPriceCents();
+        if (this.statusListener != null) {
+            this.statusListener.itemsChanged(this);
+        }
+        return true;
+    }
+
+    /**
+     * Replaces every order line, e.g. when restoring them from storage.
+     */
+    public synchronized void setItems(final List<MenuItem> items) {
+        this.items.set(items);
+        this.totalCents = Order.sumCents(this.items.get());
+        if (this.statusListener != null) {
+            this.statusListener.itemsChanged(this);
+        }
     }
 
     public String getDeliveryAddress() {
@@ -62,31 +131,203 @@ public class Order {
         return this.postalCode;
     }
 
+    public long getTotalCents() {
+        return this.totalCents;
+    }
+
+    /**
+     * @return {@link #getTotalCents()} in dollars, for display
+     */
     public double getTotalAmount() {
-        return this.totalAmount;
+        return Money.toDollars(this.totalCents);
     }
 
     public OrderStatus getStatus() {
-        return this.status;
+        return Order.statusOf(this.statusState.get());
+    }
+
+    /**
+     * @return how many times the status has changed since the order was
+     *         created or loaded; callers can compare two readings to tell
+     *         whether the order moved in between, even if it came back to the
+     *         same status
+     */
+    public long getStatusVersion() {
+        return this.statusState.get() / Order.VERSION_UNIT;
+    }
+
+    /**
+     * Puts the order back in a status it was stored in, without checking the
+     * transition table, and, if it differs, reports the change to the status
+     * listener before returning. Only for rebuilding orders from a snapshot,
+     * journal or import; every live status change goes through
+     * {@link #compareAndTransition} or {@link #transitionTo}.
+     */
+    public synchronized void restoreStatus(final OrderStatus status) {
+        Objects.requireNonNull(status, "status");
+        long current;
+        do {
+            current = this.statusState.get();
+            if (Order.statusOf(current) == status) {
+                return;
+            }
+        } while (!this.statusState.compareAndSet(current, Order.next(current, status)));
+        if (this.statusListener != null) {
+            this.statusListener.statusChanged(this, Order.statusOf(current), status);
+        }
+    }
+
+    /**
+     * Atomically moves the order from {@code expected} to {@code next}, the
+     * way a dispatcher claims it. Of several threads racing to make the same
+     * transition exactly one succeeds; the others get false without taking
+     * the order's monitor.
+     *
+     * <p>While a listener is attached the winning thread makes the change and
+     * reports it under the order's monitor, so the listener still sees
+     * transitions one at a time and in order. Without a listener the change
+     * is a single compare-and-set.
+     *
+     * @return whether the order was in {@code expected} and is now in {@code next}
+     * @throws IllegalArgumentException if {@code expected} may never move to {@code next}
+     */
+    public boolean compareAndTransition(final OrderStatus expected, final OrderStatus next) {
+        if (expected == null || !expected.canTransitionTo(next)) {
+            throw new IllegalArgumentException("Illegal order status transition " + expected + " -> " + next);
+        }
+        while (true) {
+            final long current = this.statusState.get();
+            if (Order.statusOf(current) != expected) {
+                return false;
+            }
+            if ((current & Order.LISTENED) != 0) {
+                return this.transitionAndNotify(expected, next);
+            }
+            // Fails if a listener was attached since the read, so no change goes unreported
+            if (this.statusState.compareAndSet(current, Order.next(current, next))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Moves the order from whatever status it is in to {@code next}, if the
+     * transition table allows it.
+     *
+     * @return whether this call made the transition; false if the current
+     *         status may not move to {@code next}, including when another
+     *         thread already moved the order there
+     */
+    public boolean transitionTo(final OrderStatus next) {
+        while (true) {
+            final OrderStatus current = this.getStatus();
+            if (!current.canTransitionTo(next)) {
+                return false;
+            }
+            if (this.compareAndTransition(current, next)) {
+                return true;
+            }
+        }
     }
 
-    public void setStatus(OrderStatus status) {
-        this.status = status;
+    private synchronized boolean transitionAndNotify(final OrderStatus expected, final OrderStatus next) {
+        long current;
+        do {
+            current = this.statusState.get();
+            if (Order.statusOf(current) != expected) {
+                return false;
+            }
+        } while (!this.statusState.compareAndSet(current, Order.next(current, next)));
+        if (this.statusListener != null) {
+            this.statusListener.statusChanged(this, expected, next);
+        }
+        return true;
+    }
+
+    private static OrderStatus statusOf(final long state) {
+        return Order.STATUSES[(int) (state & Order.STATUS_MASK)];
+    }
+
+    private static long next(final long state, final OrderStatus status) {
+        return (state & ~Order.STATUS_MASK) + Order.VERSION_UNIT + status.ordinal();
+    }
+
+    /**
+     * Sets the single listener told about status, driver, ETA and item changes,
+     * typically the repository that indexes this order, or null to detach it.
+     */
+    public synchronized void setStatusListener(OrderStatusListener statusListener) {
+        this.statusListener = statusListener;
+        // Flag the state so lock-free transitions racing with this call fail
+        // their compare-and-set and retry under the monitor
+        long current;
+        do {
+            current = this.statusState.get();
+        } while (!this.statusState.compareAndSet(current,
+                statusListener != null ? current | Order.LISTENED : current & ~Order.LISTENED));
+    }
+
+    public synchronized OrderStatusListener getStatusListener() {
+        return this.statusListener;
     }
 
     public LocalDateTime getEstimatedDeliveryTime() {
         return this.estimatedDeliveryTime;
     }
 
-    public void setEstimatedDeliveryTime(LocalDateTime estimatedDeliveryTime) {
+    public synchronized void setEstimatedDeliveryTime(LocalDateTime estimatedDeliveryTime) {
+        final LocalDateTime previous = this.estimatedDeliveryTime;
         this.estimatedDeliveryTime = estimatedDeliveryTime;
+        if (this.statusListener != null && !Objects.equals(previous, estimatedDeliveryTime)) {
+            this.statusListener.estimatedDeliveryTimeChanged(this, estimatedDeliveryTime);
+        }
     }
 
     public Driver getDriver() {
         return this.driver;
     }
 
-    public void setDriver(Driver driver) {
+    public synchronized void setDriver(Driver driver) {
+        final Driver previous = this.driver;
         this.driver = driver;
+        if (this.statusListener != null && previous != driver) {
+            this.statusListener.driverAssigned(this, driver);
+        }
+    }
+
+    /**
+     * @return where a driver collects the order, e.g. the restaurant, or null
+     *         if it is not known
+     */
+    public Location getPickupLocation() {
+        return this.pickupLocation;
+    }
+
+    public void setPickupLocation(Location pickupLocation) {
+        this.pickupLocation = pickupLocation;
+    }
+
+    /**
+     * @return where the order is handed over, with coordinates, or null if
+     *         only the delivery address is known
+     */
+    public Location getDeliveryLocation() {
+        return this.deliveryLocation;
+    }
+
+    public void setDeliveryLocation(Location deliveryLocation) {
+        this.deliveryLocation = deliveryLocation;
+    }
+
+    /**
+     * @return the {@link System#nanoTime()} at which the order was admitted
+     *         to the queue, or 0 if it was not admitted in this process
+     */
+    public long getEnqueuedAtNanos() {
+        return this.enqueuedAtNanos;
+    }
+
+    public void setEnqueuedAtNanos(long enqueuedAtNanos) {
+        this.enqueuedAtNanos = enqueuedAtNanos;
     }
 }
\ No newline at end of file
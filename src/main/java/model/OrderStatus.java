@@ -1,5 +1,10 @@
 package model;
 
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
 public enum OrderStatus {
     PENDING,
     SUBMITTED,
@@ -7,5 +12,32 @@ public enum OrderStatus {
     IN_PROGRESS,
     OUT_FOR_DELIVERY,
     DELIVERED,
-    CANCELLED
+    CANCELLED;
+
+    // The statuses each status may move to; an order only ever moves forward
+    private static final Map<OrderStatus, Set<OrderStatus>> TRANSITIONS = new EnumMap<>(OrderStatus.class);
+
+    static {
+        OrderStatus.TRANSITIONS.put(PENDING, EnumSet.of(SUBMITTED, CONFIRMED, IN_PROGRESS, CANCELLED));
+        OrderStatus.TRANSITIONS.put(SUBMITTED, EnumSet.of(CONFIRMED, IN_PROGRESS, CANCELLED));
+        OrderStatus.TRANSITIONS.put(CONFIRMED, EnumSet.of(IN_PROGRESS, CANCELLED));
+        OrderStatus.TRANSITIONS.put(IN_PROGRESS, EnumSet.of(OUT_FOR_DELIVERY, DELIVERED, CANCELLED));
+        OrderStatus.TRANSITIONS.put(OUT_FOR_DELIVERY, EnumSet.of(DELIVERED, CANCELLED));
+        OrderStatus.TRANSITIONS.put(DELIVERED, EnumSet.noneOf(OrderStatus.class));
+        OrderStatus.TRANSITIONS.put(CANCELLED, EnumSet.noneOf(OrderStatus.class));
+    }
+
+    /**
+     * @return whether an order in this status may move to {@code next}
+     */
+    public boolean canTransitionTo(final OrderStatus next) {
+        return next != null && OrderStatus.TRANSITIONS.get(this).contains(next);
+    }
+
+    /**
+     * @return whether no further transition is allowed
+     */
+    public boolean isTerminal() {
+        return OrderStatus.TRANSITIONS.get(this).isEmpty();
+    }
 }
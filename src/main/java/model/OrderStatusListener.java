@@ -0,0 +1,41 @@
+package model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Notified when an {@link Order} changes status, and optionally when its
+ * driver, estimated delivery time or order lines change.
+ *
+ * <p>Every callback is made while the order's monitor is held, so changes to
+ * one order are reported one at a time and in the order they happened.
+ */
+@FunctionalInterface
+public interface OrderStatusListener {
+    /**
+     * @param order    the order that changed
+     * @param previous the status before the change
+     * @param current  the status after the change
+     */
+    void statusChanged(Order order, OrderStatus previous, OrderStatus current);
+
+    /**
+     * @param order  the order that changed
+     * @param driver the newly assigned driver, or null if it was unassigned
+     */
+    default void driverAssigned(Order order, Driver driver) {
+    }
+
+    /**
+     * @param order                 the order that changed
+     * @param estimatedDeliveryTime the new estimate, or null if it was cleared
+     */
+    default void estimatedDeliveryTimeChanged(Order order, LocalDateTime estimatedDeliveryTime) {
+    }
+
+    /**
+     * @param order the order whose lines were added, removed or replaced;
+     *              {@link Order#getItems()} returns the lines after the change
+     */
+    default void itemsChanged(Order order) {
+    }
+}
@@ -0,0 +1,47 @@
+package model;
+
+/**
+ * One stop on a driver's route: collecting an order or handing it over.
+ */
+public final class Stop {
+    public enum Kind {
+        PICKUP,
+        DROPOFF
+    }
+
+    private final Order order;
+    private final Kind kind;
+
+    private Stop(final Order order, final Kind kind) {
+        this.order = order;
+        this.kind = kind;
+    }
+
+    public static Stop pickup(final Order order) {
+        return new Stop(order, Kind.PICKUP);
+    }
+
+    public static Stop dropoff(final Order order) {
+        return new Stop(order, Kind.DROPOFF);
+    }
+
+    public Order getOrder() {
+        return this.order;
+    }
+
+    public Kind getKind() {
+        return this.kind;
+    }
+
+    /**
+     * @return the order's pickup or delivery location, or null if it is not known
+     */
+    public Location getLocation() {
+        return this.kind == Kind.PICKUP ? this.order.getPickupLocation() : this.order.getDeliveryLocation();
+    }
+
+    @Override
+    public String toString() {
+        return this.kind + " " + this.order.getId();
+    }
+}
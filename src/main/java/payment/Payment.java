@@ -2,19 +2,24 @@ package payment;
 
 import java.time.LocalDateTime;
 
+import model.Money;
+
 public class Payment {
    private Long paymentId;
    private Long orderId;
    private String paymentMethod;
-   private double amount;
+   private long amountCents;
    private LocalDateTime paymentTime;
    private boolean isProcessed;
    private boolean isRefunded;
 
-   public Payment(Long orderId, String paymentMethod, double amount) {
+   /**
+    * @param amountCents the amount to charge in cents, e.g. {@link model.Order#getTotalCents()}
+    */
+   public Payment(Long orderId, String paymentMethod, long amountCents) {
       this.orderId = orderId;
       this.paymentMethod = paymentMethod;
-      this.amount = amount;
+      this.amountCents = amountCents;
       this.isProcessed = false;
       this.isRefunded = false;
    }
@@ -51,8 +56,15 @@ public class Payment {
       return paymentMethod;
    }
 
+   public long getAmountCents() {
+      return amountCents;
+   }
+
+   /**
+    * @return {@link #getAmountCents()} in dollars, for display
+    */
    public double getAmount() {
-      return amount;
+      return Money.toDollars(amountCents);
    }
 
    public LocalDateTime getPaymentTime() {
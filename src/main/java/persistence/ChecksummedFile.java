@@ -0,0 +1,74 @@
+package persistence;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Files whose body is followed by a CRC32C of it, replaced atomically.
+ *
+ * <p>A new version is written and forced to a temporary file beside the old
+ * one and then renamed over it, so a crash mid-write leaves the previous
+ * version intact, and a torn or corrupted file fails {@link #isIntact}.
+ */
+final class ChecksummedFile {
+   static final int TRAILER_BYTES = 4;
+
+   /**
+    * Writes the body of a file.
+    */
+   @FunctionalInterface
+   interface Body {
+      void writeTo(DataOutputStream out) throws IOException;
+   }
+
+   private ChecksummedFile() {
+   }
+
+   /**
+    * Atomically replaces {@code file} with {@code body} and its checksum,
+    * creating its directory if needed.
+    *
+    * @param file the file to replace
+    * @param body writes everything but the checksum
+    */
+   static void write(Path file, Body body) throws IOException {
+      final Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+      if (file.getParent() != null) {
+         Files.createDirectories(file.getParent());
+      }
+      final CRC32C checksum = new CRC32C();
+      try (FileOutputStream stream = new FileOutputStream(temp.toFile())) {
+         final DataOutputStream out = new DataOutputStream(
+               new BufferedOutputStream(new CheckedOutputStream(stream, checksum), 64 * 1024));
+         body.writeTo(out);
+         out.flush();
+         // The trailer is written past the checksumming stream so it does not cover itself
+         new DataOutputStream(stream).writeInt((int) checksum.getValue());
+         stream.getChannel().force(true);
+      }
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+   }
+
+   /**
+    * @param contents a whole file written by {@link #write}, from position
+    *                 zero to its limit; its position is left unchanged
+    * @return whether the file holds a trailer matching its body
+    */
+   static boolean isIntact(ByteBuffer contents) {
+      final int bodyEnd = contents.limit() - ChecksummedFile.TRAILER_BYTES;
+      if (bodyEnd < 0) {
+         return false;
+      }
+      final CRC32C checksum = new CRC32C();
+      checksum.update(contents.slice(0, bodyEnd));
+      return (int) checksum.getValue() == contents.getInt(bodyEnd);
+   }
+}
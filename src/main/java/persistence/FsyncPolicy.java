@@ -0,0 +1,13 @@
+package persistence;
+
+/**
+ * How a {@link SegmentedLog} trades append latency for durability.
+ */
+public enum FsyncPolicy {
+   /** Every commit forces its own record to disk before returning. */
+   SYNC,
+   /** Commits wait for the next periodic flush, which forces every record appended since the last one. */
+   GROUP_COMMIT,
+   /** Commits return immediately; records reach disk on the next periodic flush. */
+   ASYNC
+}
@@ -0,0 +1,555 @@
+package persistence;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import CustomException.PersistenceException;
+import model.Order;
+import util.MergedIterator;
+
+/**
+ * Cold tier of finished orders, stored in immutable segment files.
+ *
+ * <p>Each call to {@link #archive} writes one segment: the orders sorted by
+ * ID and packed into Deflate-compressed blocks of about
+ * {@value #BLOCK_BYTES} bytes, followed by a sparse index holding the first
+ * order ID of every block. A lookup binary-searches the index and inflates
+ * only the one block that can hold the order. A segment's index is read on
+ * first use and then kept; inflated blocks are kept in a small LRU cache.
+ * {@link #scan} walks an ID range block by block, merging the segments.
+ *
+ * <p>The segment layout is {@code [magic][version]}, the blocks, the index
+ * entries {@code [firstId][offset][compressedLength][rawLength][crc32c]},
+ * and the trailer {@code [indexOffset][blockCount][minId][maxId][orderCount][magic]}.
+ * Inside a block each order is {@code [length][order][driver]}.
+ */
+public class OrderArchive implements Closeable {
+   public static final String DIRECTORY_PROPERTY = "order.archive.dir";
+   public static final int DEFAULT_CACHED_BLOCKS = 256;
+
+   private static final Logger logger = Logger.getLogger(OrderArchive.class.getName());
+   private static final int MAGIC = 0x4F415243;
+   private static final int VERSION = 1;
+   private static final int BLOCK_BYTES = 64 * 1024;
+   private static final int INDEX_ENTRY_BYTES = 28;
+   private static final int TRAILER_BYTES = 36;
+   private static final String SEGMENT_PREFIX = "archive-";
+   private static final String SEGMENT_SUFFIX = ".seg";
+
+   private final Path directory;
+   private final List<Segment> segments;
+   private final Map<Long, ByteBuffer> blockCache;
+   private long nextSegmentNumber;
+
+   /**
+    * Opens the archive in {@code directory}. Segment files are only read when
+    * a lookup first needs them.
+    *
+    * @param directory    where segment files live
+    * @param cachedBlocks how many inflated blocks to keep in memory
+    */
+   public OrderArchive(Path directory, int cachedBlocks) {
+      this.directory = directory;
+      this.segments = new CopyOnWriteArrayList<>();
+      this.blockCache = new LinkedHashMap<>(16, 0.75f, true) {
+         @Override
+         protected boolean removeEldestEntry(Map.Entry<Long, ByteBuffer> eldest) {
+            return this.size() > cachedBlocks;
+         }
+      };
+
+      try {
+         Files.createDirectories(directory);
+         try (Stream<Path> files = Files.list(directory)) {
+            files.map(Path::getFileName)
+                  .map(Path::toString)
+                  .filter(name -> name.startsWith(OrderArchive.SEGMENT_PREFIX)
+                        && name.endsWith(OrderArchive.SEGMENT_SUFFIX))
+                  .map(name -> new Segment(directory.resolve(name), Long.parseLong(name.substring(
+                        OrderArchive.SEGMENT_PREFIX.length(), name.length() - OrderArchive.SEGMENT_SUFFIX.length()))))
+                  .sorted(Comparator.comparingLong(segment -> segment.number))
+                  .forEach(this.segments::add);
+         }
+      } catch (IOException e) {
+         throw new PersistenceException("Cannot open order archive " + directory, e);
+      }
+      this.nextSegmentNumber = this.segments.isEmpty() ? 1 : this.segments.get(this.segments.size() - 1).number + 1;
+   }
+
+   /**
+    * Opens the archive in the directory named by the {@value #DIRECTORY_PROPERTY}
+    * system property, defaulting to {@code build/order-archive}.
+    *
+    * @return the opened archive
+    */
+   public static OrderArchive fromSystemProperties() {
+      return new OrderArchive(Path.of(System.getProperty(OrderArchive.DIRECTORY_PROPERTY, "build/order-archive")),
+            OrderArchive.DEFAULT_CACHED_BLOCKS);
+   }
+
+   /**
+    * Writes the orders to a new segment. Each order is encoded under its own
+    * monitor. The segment is complete on disk before this method returns.
+    *
+    * @param orders the orders to archive
+    */
+   public synchronized void archive(Collection<? extends Order> orders) {
+      if (orders.isEmpty()) {
+         return;
+      }
+      final List<Order> sorted = new ArrayList<>(orders);
+      sorted.sort(Comparator.comparing(Order::getId));
+
+      final long number = this.nextSegmentNumber;
+      final Path file = this.directory.resolve(String.format("%s%016d%s",
+            OrderArchive.SEGMENT_PREFIX, number, OrderArchive.SEGMENT_SUFFIX));
+      final Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+      try (FileOutputStream stream = new FileOutputStream(temp.toFile())) {
+         final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 64 * 1024));
+         out.writeInt(OrderArchive.MAGIC);
+         out.writeInt(OrderArchive.VERSION);
+         new SegmentWriter(out).write(sorted);
+         out.flush();
+         stream.getChannel().force(true);
+      } catch (IOException e) {
+         throw new PersistenceException("Cannot write archive segment " + file, e);
+      }
+      try {
+         Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+      } catch (IOException e) {
+         throw new PersistenceException("Cannot publish archive segment " + file, e);
+      }
+      this.segments.add(new Segment(file, number));
+      this.nextSegmentNumber = number + 1;
+   }
+
+   /**
+    * Looks up an archived order. Segments are searched newest first, so an
+    * order archived more than once is found in its latest state.
+    *
+    * @param orderId the ID of the order
+    * @return a copy of the archived order, or empty if it was never archived
+    */
+   public Optional<Order> find(long orderId) {
+      for (int i = this.segments.size() - 1; i >= 0; i--) {
+         final Segment segment = this.segments.get(i);
+         segment.load();
+         if (orderId < segment.minId || orderId > segment.maxId) {
+            continue;
+         }
+         final int block = segment.blockFor(orderId);
+         final Optional<Order> order = OrderArchive.findInBlock(this.block(segment, block), orderId);
+         if (order.isPresent()) {
+            return order;
+         }
+      }
+      return Optional.empty();
+   }
+
+   /**
+    * Iterates lazily, in ascending ID order, over the archived orders whose
+    * IDs fall in a range. Only segments overlapping the range are read, one
+    * block at a time, and an order archived more than once is returned in
+    * its latest state. Scanned blocks bypass the block cache so that a long
+    * scan does not evict the blocks that lookups keep hitting.
+    *
+    * @param fromId the smallest ID to return
+    * @param toId   the first ID past the range
+    * @return copies of the archived orders in range
+    */
+   public Iterator<Order> scan(long fromId, long toId) {
+      final List<Iterator<Order>> scans = new ArrayList<>();
+      // Newest first, so the latest copy of an order shadows older ones
+      for (int i = this.segments.size() - 1; i >= 0 && fromId < toId; i--) {
+         final Segment segment = this.segments.get(i);
+         segment.load();
+         if (segment.maxId >= fromId && segment.minId < toId) {
+            scans.add(new SegmentScan(segment, fromId, toId));
+         }
+      }
+      return new MergedIterator<>(scans, Order::getId);
+   }
+
+   public int getSegmentCount() {
+      return this.segments.size();
+   }
+
+   @Override
+   public void close() {
+      for (Segment segment : this.segments) {
+         segment.close();
+      }
+      synchronized (this.blockCache) {
+         this.blockCache.clear();
+      }
+   }
+
+   private ByteBuffer block(Segment segment, int block) {
+      final long key = segment.number << 32 | block;
+      synchronized (this.blockCache) {
+         final ByteBuffer cached = this.blockCache.get(key);
+         if (cached != null) {
+            return cached.duplicate();
+         }
+      }
+      // Inflate outside the lock; two readers racing for one block both inflate it, which is harmless
+      final ByteBuffer inflated = segment.inflate(block);
+      synchronized (this.blockCache) {
+         this.blockCache.put(key, inflated);
+      }
+      return inflated.duplicate();
+   }
+
+   private static Optional<Order> findInBlock(ByteBuffer block, long orderId) {
+      int position = 0;
+      while (position < block.limit()) {
+         final int length = block.getInt(position);
+         // Every record starts with its order ID, and records are sorted by it
+         final long id = block.getLong(position + 4);
+         if (id == orderId) {
+            return Optional.of(OrderArchive.decode(block, position, length));
+         }
+         if (id > orderId) {
+            break;
+         }
+         position += 4 + length;
+      }
+      return Optional.empty();
+   }
+
+   private static Order decode(ByteBuffer block, int position, int length) {
+      final ByteBuffer record = block.slice(position + 4, length);
+      final Order order = OrderCodec.read(record);
+      order.setDriver(OrderCodec.readDriver(record, null));
+      return order;
+   }
+
+   /**
+    * Reads one segment's orders in an ID range, inflating a block only when
+    * the scan reaches it.
+    */
+   private static final class SegmentScan implements Iterator<Order> {
+      private final Segment segment;
+      private final long fromId;
+      private final long toId;
+      private int nextBlock;
+      private ByteBuffer block;
+      private int position;
+      private Order next;
+      private boolean done;
+
+      SegmentScan(Segment segment, long fromId, long toId) {
+         this.segment = segment;
+         this.fromId = fromId;
+         this.toId = toId;
+         this.nextBlock = segment.blockFor(fromId);
+      }
+
+      @Override
+      public boolean hasNext() {
+         if (this.next == null && !this.done) {
+            this.next = this.advance();
+            this.done = this.next == null;
+         }
+         return this.next != null;
+      }
+
+      @Override
+      public Order next() {
+         if (!this.hasNext()) {
+            throw new NoSuchElementException();
+         }
+         final Order order = this.next;
+         this.next = null;
+         return order;
+      }
+
+      private Order advance() {
+         while (true) {
+            if (this.block == null || this.position >= this.block.limit()) {
+               if (this.nextBlock >= this.segment.firstIds.length
+                     || this.segment.firstIds[this.nextBlock] >= this.toId) {
+                  return null;
+               }
+               this.block = this.segment.inflate(this.nextBlock++);
+               this.position = 0;
+            }
+            final int start = this.position;
+            final int length = this.block.getInt(start);
+            final long id = this.block.getLong(start + 4);
+            this.position += 4 + length;
+            if (id >= this.toId) {
+               return null;
+            }
+            if (id >= this.fromId) {
+               return OrderArchive.decode(this.block, start, length);
+            }
+         }
+      }
+   }
+
+   /**
+    * Packs sorted orders into compressed blocks and writes the index behind them.
+    */
+   private static final class SegmentWriter {
+      private final DataOutputStream out;
+      private final Deflater deflater;
+      private final DataOutputStream index;
+      private final ByteArrayOutputStream indexBytes;
+      private ByteBuffer raw;
+      private ByteBuffer record;
+      private byte[] compressed;
+      private long offset;
+      private long blockFirstId;
+      private int blockCount;
+
+      SegmentWriter(DataOutputStream out) {
+         this.out = out;
+         this.deflater = new Deflater();
+         this.indexBytes = new ByteArrayOutputStream();
+         this.index = new DataOutputStream(this.indexBytes);
+         this.raw = ByteBuffer.allocate(OrderArchive.BLOCK_BYTES);
+         this.record = ByteBuffer.allocate(512);
+         this.compressed = new byte[OrderArchive.BLOCK_BYTES];
+         this.offset = 8;
+      }
+
+      void write(List<Order> sorted) throws IOException {
+         try {
+            for (Order order : sorted) {
+               synchronized (order) {
+                  this.encode(order);
+               }
+               if (this.raw.position() > 0 && this.raw.position() + this.record.remaining() > OrderArchive.BLOCK_BYTES) {
+                  this.flushBlock();
+               }
+               if (this.raw.position() == 0) {
+                  this.blockFirstId = order.getId();
+                  if (this.record.remaining() > this.raw.capacity()) {
+                     this.raw = ByteBuffer.allocate(this.record.remaining());
+                  }
+               }
+               this.raw.put(this.record);
+            }
+            this.flushBlock();
+
+            final long indexOffset = this.offset;
+            this.indexBytes.writeTo(this.out);
+            this.out.writeLong(indexOffset);
+            this.out.writeInt(this.blockCount);
+            this.out.writeLong(sorted.get(0).getId());
+            this.out.writeLong(sorted.get(sorted.size() - 1).getId());
+            this.out.writeInt(sorted.size());
+            this.out.writeInt(OrderArchive.MAGIC);
+         } finally {
+            this.deflater.end();
+         }
+      }
+
+      private void encode(Order order) {
+         while (true) {
+            try {
+               this.record.clear();
+               this.record.putInt(0);
+               OrderCodec.write(order, this.record);
+               OrderCodec.writeDriver(order.getDriver(), this.record);
+               this.record.putInt(0, this.record.position() - 4);
+               this.record.flip();
+               return;
+            } catch (BufferOverflowException e) {
+               this.record = ByteBuffer.allocate(this.record.capacity() * 2);
+            }
+         }
+      }
+
+      private void flushBlock() throws IOException {
+         final int rawLength = this.raw.position();
+         if (rawLength == 0) {
+            return;
+         }
+         this.deflater.reset();
+         this.deflater.setInput(this.raw.array(), 0, rawLength);
+         this.deflater.finish();
+         int length = 0;
+         while (!this.deflater.finished()) {
+            if (length == this.compressed.length) {
+               this.compressed = Arrays.copyOf(this.compressed, this.compressed.length * 2);
+            }
+            length += this.deflater.deflate(this.compressed, length, this.compressed.length - length);
+         }
+         final CRC32C checksum = new CRC32C();
+         checksum.update(this.compressed, 0, length);
+
+         this.out.write(this.compressed, 0, length);
+         this.index.writeLong(this.blockFirstId);
+         this.index.writeLong(this.offset);
+         this.index.writeInt(length);
+         this.index.writeInt(rawLength);
+         this.index.writeInt((int) checksum.getValue());
+         this.offset += length;
+         this.blockCount++;
+         this.raw.clear();
+      }
+   }
+
+   /**
+    * One immutable segment file. Its index is loaded on first use.
+    */
+   private static final class Segment {
+      private final Path file;
+      private final long number;
+      private volatile boolean loaded;
+      private FileChannel channel;
+      private long minId;
+      private long maxId;
+      private long[] firstIds;
+      private long[] offsets;
+      private int[] compressedLengths;
+      private int[] rawLengths;
+      private int[] checksums;
+
+      Segment(Path file, long number) {
+         this.file = file;
+         this.number = number;
+      }
+
+      void load() {
+         if (this.loaded) {
+            return;
+         }
+         synchronized (this) {
+            if (this.loaded) {
+               return;
+            }
+            try {
+               this.channel = FileChannel.open(this.file, StandardOpenOption.READ);
+               final long size = this.channel.size();
+               if (size < 8 + OrderArchive.TRAILER_BYTES
+                     || this.read(size - 4, 4).getInt() != OrderArchive.MAGIC) {
+                  throw new PersistenceException("Not an order archive segment: " + this.file);
+               }
+               final ByteBuffer trailer = this.read(size - OrderArchive.TRAILER_BYTES, OrderArchive.TRAILER_BYTES);
+               final long indexOffset = trailer.getLong();
+               final int blockCount = trailer.getInt();
+               this.minId = trailer.getLong();
+               this.maxId = trailer.getLong();
+
+               final ByteBuffer index = this.read(indexOffset, blockCount * OrderArchive.INDEX_ENTRY_BYTES);
+               this.firstIds = new long[blockCount];
+               this.offsets = new long[blockCount];
+               this.compressedLengths = new int[blockCount];
+               this.rawLengths = new int[blockCount];
+               this.checksums = new int[blockCount];
+               for (int i = 0; i < blockCount; i++) {
+                  this.firstIds[i] = index.getLong();
+                  this.offsets[i] = index.getLong();
+                  this.compressedLengths[i] = index.getInt();
+                  this.rawLengths[i] = index.getInt();
+                  this.checksums[i] = index.getInt();
+               }
+            } catch (IOException e) {
+               throw new PersistenceException("Cannot read archive segment " + this.file, e);
+            }
+            this.loaded = true;
+         }
+      }
+
+      /**
+       * @return the last block whose first ID is at most {@code orderId}
+       */
+      int blockFor(long orderId) {
+         int low = 0;
+         int high = this.firstIds.length - 1;
+         while (low < high) {
+            final int middle = (low + high + 1) >>> 1;
+            if (this.firstIds[middle] <= orderId) {
+               low = middle;
+            } else {
+               high = middle - 1;
+            }
+         }
+         return low;
+      }
+
+      ByteBuffer inflate(int block) {
+         final ByteBuffer compressed;
+         try {
+            compressed = this.read(this.offsets[block], this.compressedLengths[block]);
+         } catch (IOException e) {
+            throw new PersistenceException("Cannot read archive segment " + this.file, e);
+         }
+         final CRC32C checksum = new CRC32C();
+         checksum.update(compressed.duplicate());
+         if ((int) checksum.getValue() != this.checksums[block]) {
+            throw new PersistenceException("Archive block checksum mismatch in " + this.file);
+         }
+
+         final Inflater inflater = new Inflater();
+         try {
+            inflater.setInput(compressed);
+            final byte[] raw = new byte[this.rawLengths[block]];
+            int length = 0;
+            while (length < raw.length && !inflater.finished()) {
+               length += inflater.inflate(raw, length, raw.length - length);
+            }
+            return ByteBuffer.wrap(raw, 0, length).slice();
+         } catch (DataFormatException e) {
+            throw new PersistenceException("Corrupt archive block in " + this.file, e);
+         } finally {
+            inflater.end();
+         }
+      }
+
+      synchronized void close() {
+         if (this.channel == null) {
+            return;
+         }
+         try {
+            this.channel.close();
+         } catch (IOException e) {
+            OrderArchive.logger.log(Level.WARNING, "Error closing archive segment " + this.file, e);
+         }
+         this.channel = null;
+         this.loaded = false;
+      }
+
+      private ByteBuffer read(long position, int length) throws IOException {
+         final ByteBuffer buffer = ByteBuffer.allocate(length);
+         while (buffer.hasRemaining()) {
+            if (this.channel.read(buffer, position + buffer.position()) < 0) {
+               throw new PersistenceException("Truncated archive segment " + this.file);
+            }
+         }
+         return buffer.flip();
+      }
+   }
+}
@@ -0,0 +1,231 @@
+package persistence;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import model.ConcreteMenuItem;
+import model.Driver;
+import model.MenuItem;
+import model.Order;
+import model.OrderStatus;
+import model.Size;
+
+/**
+ * Compact binary encoding of {@link Order}s for the on-disk logs.
+ *
+ * <p>Menu items are restored as {@link ConcreteMenuItem}s, with unit prices
+ * stored in cents; the assigned driver is a live relationship and is not
+ * persisted. An instance reuses one scratch buffer for encoding and is
+ * therefore not thread-safe.
+ */
+public class OrderCodec {
+   static final long NO_VALUE = Long.MIN_VALUE;
+   static final OrderStatus[] STATUSES = OrderStatus.values();
+   private static final Size[] SIZES = Size.values();
+
+   private ByteBuffer scratch = ByteBuffer.allocate(512);
+
+   /**
+    * Encodes an order into the codec's scratch buffer.
+    *
+    * @param order the order to encode
+    * @return a buffer positioned at the start of the encoding; valid until the next call
+    */
+   public ByteBuffer encode(Order order) {
+      while (true) {
+         try {
+            this.scratch.clear();
+            OrderCodec.write(order, this.scratch);
+            this.scratch.flip();
+            return this.scratch;
+         } catch (BufferOverflowException e) {
+            this.scratch = ByteBuffer.allocate(this.scratch.capacity() * 2);
+         }
+      }
+   }
+
+   public static void write(Order order, ByteBuffer out) {
+      out.putLong(order.getId());
+      out.putLong(order.getCustomerId() == null ? OrderCodec.NO_VALUE : order.getCustomerId());
+      OrderCodec.putString(out, order.getCustomerEmail());
+      OrderCodec.putString(out, order.getDeliveryAddress());
+      OrderCodec.putString(out, order.getPostalCode());
+      out.put((byte) order.getStatus().ordinal());
+      out.putLong(OrderCodec.toEpochMillis(order.getEstimatedDeliveryTime()));
+
+      OrderCodec.writeItems(order.getItems(), out);
+   }
+
+   public static Order read(ByteBuffer in) {
+      return OrderCodec.read(in, null);
+   }
+
+   /**
+    * Decodes an order, sharing one instance of each repeated string through
+    * {@code strings}. Bulk recoveries use this because customers' addresses
+    * and menu item names recur across many orders.
+    *
+    * @param in      the encoded order
+    * @param strings canonical instances of the strings decoded so far, or null not to share them
+    * @return the decoded order
+    */
+   static Order read(ByteBuffer in, StringTable strings) {
+      final long orderId = in.getLong();
+      final long customerId = in.getLong();
+      final String email = OrderCodec.getString(in, strings);
+      final String address = OrderCodec.getString(in, strings);
+      final String postalCode = OrderCodec.getString(in, strings);
+      final OrderStatus status = OrderCodec.STATUSES[in.get()];
+      final long estimatedDelivery = in.getLong();
+
+      final List<MenuItem> items = OrderCodec.readItems(in, strings);
+
+      final Order order = new Order(orderId, customerId == OrderCodec.NO_VALUE ? null : customerId,
+            email, items, address, postalCode);
+      order.restoreStatus(status);
+      order.setEstimatedDeliveryTime(OrderCodec.fromEpochMillis(estimatedDelivery));
+      return order;
+   }
+
+   /**
+    * Writes order lines with their unit prices in cents.
+    */
+   static void writeItems(List<MenuItem> items, ByteBuffer out) {
+      out.putInt(items.size());
+      for (MenuItem item : items) {
+         out.putLong(item.getId() == null ? OrderCodec.NO_VALUE : item.getId());
+         OrderCodec.putString(out, item.getName());
+         if (item instanceof ConcreteMenuItem concrete) {
+            OrderCodec.putString(out, concrete.getDescription());
+            out.put(concrete.getSize() == null ? -1 : (byte) concrete.getSize().ordinal());
+            out.putInt(concrete.getQuantity());
+            out.putLong(concrete.getUnitPriceCents());
+         } else {
+            OrderCodec.putString(out, null);
+            out.put((byte) -1);
+            out.putInt(1);
+            out.putLong(item.getPriceCents());
+         }
+      }
+   }
+
+   /**
+    * Reads order lines written by {@link #writeItems}.
+    *
+    * @param strings canonical instances of the strings decoded so far, or null not to share them
+    */
+   static List<MenuItem> readItems(ByteBuffer in, StringTable strings) {
+      final int itemCount = in.getInt();
+      final List<MenuItem> items = new ArrayList<>(itemCount);
+      for (int i = 0; i < itemCount; i++) {
+         final long itemId = in.getLong();
+         final String name = OrderCodec.getString(in, strings);
+         final String description = OrderCodec.getString(in, strings);
+         final byte size = in.get();
+         final int quantity = in.getInt();
+         final long unitPriceCents = in.getLong();
+         items.add(ConcreteMenuItem.ofCents(itemId == OrderCodec.NO_VALUE ? null : itemId, name, description,
+               unitPriceCents, size < 0 ? null : OrderCodec.SIZES[size], quantity));
+      }
+      return items;
+   }
+
+   /**
+    * Writes a driver's identity, or a marker for no driver.
+    */
+   static void writeDriver(Driver driver, ByteBuffer out) {
+      if (driver == null) {
+         out.putLong(OrderCodec.NO_VALUE);
+         return;
+      }
+      out.putLong(driver.getId());
+      OrderCodec.putString(out, driver.getName());
+      OrderCodec.putString(out, driver.getVehicleType());
+      OrderCodec.putString(out, driver.getLicensePlate());
+   }
+
+   /**
+    * Reads a driver written by {@link #writeDriver}.
+    *
+    * @param drivers drivers restored so far by ID, so that orders sharing a driver share the
+    *                instance, or null to always restore a new one
+    * @return the driver, or null if none was written
+    */
+   static Driver readDriver(ByteBuffer in, Map<Long, Driver> drivers) {
+      final long driverId = in.getLong();
+      if (driverId == OrderCodec.NO_VALUE) {
+         return null;
+      }
+      final Driver known = drivers == null ? null : drivers.get(driverId);
+      if (known != null) {
+         OrderCodec.skipString(in);
+         OrderCodec.skipString(in);
+         OrderCodec.skipString(in);
+         return known;
+      }
+      final String name = OrderCodec.getString(in);
+      final String vehicleType = OrderCodec.getString(in);
+      final String licensePlate = OrderCodec.getString(in);
+      if (drivers == null) {
+         return new Driver(driverId, name, vehicleType, licensePlate);
+      }
+      return drivers.computeIfAbsent(driverId, id -> new Driver(id, name, vehicleType, licensePlate));
+   }
+
+   static void putString(ByteBuffer out, String value) {
+      if (value == null) {
+         out.putInt(-1);
+         return;
+      }
+      final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      out.putInt(bytes.length);
+      out.put(bytes);
+   }
+
+   static String getString(ByteBuffer in, StringTable strings) {
+      if (strings == null) {
+         return OrderCodec.getString(in);
+      }
+      final int length = in.getInt();
+      return length < 0 ? null : strings.read(in, length);
+   }
+
+   private static void skipString(ByteBuffer in) {
+      final int length = in.getInt();
+      if (length > 0) {
+         in.position(in.position() + length);
+      }
+   }
+
+   static String getString(ByteBuffer in) {
+      final int length = in.getInt();
+      if (length < 0) {
+         return null;
+      }
+      final String value;
+      if (in.hasArray()) {
+         value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+         in.position(in.position() + length);
+      } else {
+         final byte[] bytes = new byte[length];
+         in.get(bytes);
+         value = new String(bytes, StandardCharsets.UTF_8);
+      }
+      return value;
+   }
+
+   static long toEpochMillis(LocalDateTime time) {
+      return time == null ? OrderCodec.NO_VALUE : time.toInstant(ZoneOffset.UTC).toEpochMilli();
+   }
+
+   static LocalDateTime fromEpochMillis(long millis) {
+      return millis == OrderCodec.NO_VALUE ? null : LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000L),
+            (int) Math.floorMod(millis, 1000L) * 1_000_000, ZoneOffset.UTC);
+   }
+}
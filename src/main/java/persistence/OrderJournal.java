@@ -0,0 +1,335 @@
+package persistence;
+
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+import CustomException.PersistenceException;
+import model.Driver;
+import model.Order;
+import model.OrderStatus;
+import model.OrderStatusListener;
+
+/**
+ * Journal of order lifecycle events with compacted snapshots.
+ *
+ * <p>Every change to an order (created, status changed, driver assigned, ETA
+ * set, order lines changed, removed) is appended to a {@link SegmentedLog} as {@code [type][orderId][data]}.
+ * {@link #snapshot} writes each live order as the fewest events that recreate
+ * it, tagged with the journal sequence it covers, and then releases the
+ * journal segments before that sequence. {@link #recover} loads the snapshot
+ * and replays only the tail of the journal after it.
+ *
+ * <p>Replaying an event sets a field to the value it was given, so an event
+ * already reflected in the snapshot can be replayed again harmlessly. That is
+ * what allows snapshots to be written while orders keep changing.
+ *
+ * <p>The snapshot layout is {@code [magic][version][sequence][orderCount]},
+ * then {@code [length][event]} records, then a CRC32C of everything before it.
+ */
+public class OrderJournal implements OrderStatusListener, Closeable {
+   public static final String DIRECTORY_PROPERTY = "order.journal.dir";
+   public static final String FSYNC_PROPERTY = "order.journal.fsync";
+   public static final String FLUSH_INTERVAL_PROPERTY = "order.journal.flush.interval.ms";
+
+   private static final Logger logger = Logger.getLogger(OrderJournal.class.getName());
+   private static final byte CREATED = 1;
+   private static final byte STATUS_CHANGED = 2;
+   private static final byte DRIVER_ASSIGNED = 3;
+   private static final byte ETA_CHANGED = 4;
+   private static final byte REMOVED = 5;
+   private static final byte ITEMS_CHANGED = 6;
+   private static final int SNAPSHOT_MAGIC = 0x4F4A534E;
+   private static final int SNAPSHOT_VERSION = 1;
+   private static final int SNAPSHOT_HEADER_BYTES = 20;
+   private static final String SNAPSHOT_FILE = "orders.snapshot";
+   private static final ThreadLocal<ByteBuffer> SCRATCH = ThreadLocal.withInitial(() -> ByteBuffer.allocate(512));
+
+   @FunctionalInterface
+   private interface EventData {
+      void write(ByteBuffer out);
+   }
+
+   private final Path directory;
+   private final Path snapshotFile;
+   private final SegmentedLog log;
+   private final Object snapshotLock;
+   private volatile long snapshotSequence;
+
+   public OrderJournal(Path directory, FsyncPolicy fsyncPolicy, Duration flushInterval) {
+      this.directory = directory;
+      this.snapshotFile = directory.resolve(OrderJournal.SNAPSHOT_FILE);
+      this.log = new SegmentedLog(directory, SegmentedLog.DEFAULT_SEGMENT_BYTES, fsyncPolicy, flushInterval);
+      this.snapshotLock = new Object();
+      this.snapshotSequence = this.log.getConsumerOffset();
+   }
+
+   /**
+    * Opens the journal in the directory named by the {@value #DIRECTORY_PROPERTY}
+    * system property, defaulting to {@code build/order-journal}, with the
+    * {@value #FSYNC_PROPERTY} and {@value #FLUSH_INTERVAL_PROPERTY} policy,
+    * defaulting to group commit every 5 ms.
+    *
+    * @return the opened journal
+    */
+   public static OrderJournal fromSystemProperties() {
+      final Path directory = Path.of(System.getProperty(OrderJournal.DIRECTORY_PROPERTY, "build/order-journal"));
+      final FsyncPolicy policy = FsyncPolicy.valueOf(
+            System.getProperty(OrderJournal.FSYNC_PROPERTY, FsyncPolicy.GROUP_COMMIT.name())
+                  .trim().toUpperCase(Locale.ROOT));
+      final Duration flushInterval = Duration.ofMillis(Long.getLong(OrderJournal.FLUSH_INTERVAL_PROPERTY, 5L));
+      return new OrderJournal(directory, policy, flushInterval);
+   }
+
+   /**
+    * Appends the creation of an order, with its driver if it already has one.
+    * The caller should hold the order's monitor so that no change to the order
+    * can be journaled ahead of its creation.
+    *
+    * @param order the new order
+    * @return the sequence to pass to {@link #commit}
+    */
+   public long created(Order order) {
+      long sequence = this.append(OrderJournal.CREATED, order, out -> OrderCodec.write(order, out));
+      final Driver driver = order.getDriver();
+      if (driver != null) {
+         sequence = this.append(OrderJournal.DRIVER_ASSIGNED, order, out -> OrderCodec.writeDriver(driver, out));
+      }
+      return sequence;
+   }
+
+   /**
+    * Appends the removal of an order, e.g. once it is archived, so that
+    * recovery no longer restores it.
+    *
+    * @param order the removed order
+    * @return the sequence to pass to {@link #commit}
+    */
+   public long removed(Order order) {
+      return this.append(OrderJournal.REMOVED, order, out -> {
+      });
+   }
+
+   @Override
+   public void statusChanged(Order order, OrderStatus previous, OrderStatus current) {
+      this.commit(this.append(OrderJournal.STATUS_CHANGED, order, out -> out.put((byte) current.ordinal())));
+   }
+
+   @Override
+   public void driverAssigned(Order order, Driver driver) {
+      this.commit(this.append(OrderJournal.DRIVER_ASSIGNED, order, out -> OrderCodec.writeDriver(driver, out)));
+   }
+
+   @Override
+   public void estimatedDeliveryTimeChanged(Order order, LocalDateTime estimatedDeliveryTime) {
+      this.commit(this.append(OrderJournal.ETA_CHANGED, order,
+            out -> out.putLong(OrderCodec.toEpochMillis(estimatedDeliveryTime))));
+   }
+
+   /**
+    * Appends every current line of the order rather than the one that
+    * changed, so that replaying the event stays idempotent.
+    */
+   @Override
+   public void itemsChanged(Order order) {
+      this.commit(this.append(OrderJournal.ITEMS_CHANGED, order,
+            out -> OrderCodec.writeItems(order.getItems(), out)));
+   }
+
+   /**
+    * Makes every event up to {@code sequence} durable according to the
+    * journal's {@link FsyncPolicy}.
+    */
+   public void commit(long sequence) {
+      this.log.commit(sequence);
+   }
+
+   /**
+    * Rebuilds every order from the latest snapshot and the journal after it.
+    *
+    * @return the recovered orders, in no particular order
+    */
+   public Collection<Order> recover() {
+      final long started = System.nanoTime();
+      final Recovery recovery = this.readSnapshot();
+      final long[] replayed = new long[1];
+      this.log.replay(this.snapshotSequence, (sequence, event) -> {
+         recovery.apply(event);
+         replayed[0]++;
+      });
+      OrderJournal.logger.info(() -> String.format("Recovered %d orders from %s in %d ms, replaying %d events",
+            recovery.orders.size(), this.directory, (System.nanoTime() - started) / 1_000_000, replayed[0]));
+      return recovery.orders.values();
+   }
+
+   /**
+    * Atomically replaces the snapshot with the live orders and releases the
+    * journal segments it makes redundant. The orders may keep changing during
+    * the call; each is read under its own monitor.
+    *
+    * <p>The order set is fetched only after the snapshot's sequence is fixed.
+    * Callers must store an order before journaling its creation and journal
+    * its removal only after dropping it, so that every order created before
+    * that sequence, and none removed before it, is in the set.
+    *
+    * @param orders supplies every live order
+    */
+   public void snapshot(Supplier<? extends Collection<? extends Order>> orders) {
+      synchronized (this.snapshotLock) {
+         // Anything appended from here on is replayed over the snapshot, even if the snapshot already has it
+         final long sequence = this.log.getNextSequence();
+         final Collection<? extends Order> live = orders.get();
+         try {
+            ChecksummedFile.write(this.snapshotFile, out -> {
+               out.writeInt(OrderJournal.SNAPSHOT_MAGIC);
+               out.writeInt(OrderJournal.SNAPSHOT_VERSION);
+               out.writeLong(sequence);
+               out.writeInt(live.size());
+               for (Order order : live) {
+                  final Driver driver;
+                  synchronized (order) {
+                     OrderJournal.writeRecord(out, OrderJournal.encode(OrderJournal.CREATED, order,
+                           buffer -> OrderCodec.write(order, buffer)));
+                     driver = order.getDriver();
+                  }
+                  if (driver != null) {
+                     OrderJournal.writeRecord(out, OrderJournal.encode(OrderJournal.DRIVER_ASSIGNED, order,
+                           buffer -> OrderCodec.writeDriver(driver, buffer)));
+                  }
+               }
+            });
+         } catch (IOException e) {
+            throw new PersistenceException("Cannot write journal snapshot " + this.snapshotFile, e);
+         }
+         this.log.storeConsumerOffset(sequence);
+         this.log.flush();
+         this.snapshotSequence = sequence;
+      }
+   }
+
+   /**
+    * @return how many events were journaled since the last snapshot, which is
+    *         how many a restart would replay
+    */
+   public long getTailLength() {
+      return this.log.getNextSequence() - this.snapshotSequence;
+   }
+
+   @Override
+   public void close() {
+      this.log.close();
+   }
+
+   private Recovery readSnapshot() {
+      try (FileChannel channel = FileChannel.open(this.snapshotFile, StandardOpenOption.READ)) {
+         final MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+         final int bodyEnd = in.limit() - ChecksummedFile.TRAILER_BYTES;
+         if (bodyEnd < OrderJournal.SNAPSHOT_HEADER_BYTES || in.getInt() != OrderJournal.SNAPSHOT_MAGIC) {
+            throw new PersistenceException("Not an order journal snapshot: " + this.snapshotFile);
+         }
+         if (in.getInt() != OrderJournal.SNAPSHOT_VERSION) {
+            throw new PersistenceException("Unsupported journal snapshot version in " + this.snapshotFile);
+         }
+         if (!ChecksummedFile.isIntact(in)) {
+            throw new PersistenceException("Journal snapshot checksum mismatch in " + this.snapshotFile);
+         }
+
+         final long sequence = in.getLong();
+         final Recovery recovery = new Recovery(in.getInt());
+         while (in.position() < bodyEnd) {
+            final int length = in.getInt();
+            final int next = in.position() + length;
+            recovery.apply(in);
+            in.position(next);
+         }
+         this.snapshotSequence = sequence;
+         return recovery;
+      } catch (NoSuchFileException e) {
+         return new Recovery(0);
+      } catch (IOException e) {
+         throw new PersistenceException("Cannot read journal snapshot " + this.snapshotFile, e);
+      }
+   }
+
+   private long append(byte type, Order order, EventData data) {
+      return this.log.append(OrderJournal.encode(type, order, data));
+   }
+
+   private static ByteBuffer encode(byte type, Order order, EventData data) {
+      ByteBuffer scratch = OrderJournal.SCRATCH.get();
+      while (true) {
+         try {
+            scratch.clear();
+            scratch.put(type).putLong(order.getId());
+            data.write(scratch);
+            scratch.flip();
+            return scratch;
+         } catch (BufferOverflowException e) {
+            scratch = ByteBuffer.allocate(scratch.capacity() * 2);
+            OrderJournal.SCRATCH.set(scratch);
+         }
+      }
+   }
+
+   private static void writeRecord(DataOutputStream out, ByteBuffer event) throws IOException {
+      out.writeInt(event.remaining());
+      out.write(event.array(), event.arrayOffset() + event.position(), event.remaining());
+   }
+
+   /**
+    * Orders being rebuilt from events. Orders sharing a driver ID share one
+    * restored driver, and repeated strings are decoded to one shared instance,
+    * which keeps the recovered heap close to the size of the live one.
+    */
+   private static final class Recovery {
+      private final Map<Long, Order> orders;
+      private final Map<Long, Driver> drivers;
+      private final StringTable strings;
+
+      Recovery(int expectedOrders) {
+         this.orders = new HashMap<>(Math.max(16, (int) (expectedOrders / 0.75f) + 1));
+         this.drivers = new HashMap<>();
+         this.strings = new StringTable();
+      }
+
+      void apply(ByteBuffer event) {
+         final byte type = event.get();
+         final long orderId = event.getLong();
+         if (type == OrderJournal.CREATED) {
+            this.orders.put(orderId, OrderCodec.read(event, this.strings));
+            return;
+         }
+         if (type == OrderJournal.REMOVED) {
+            this.orders.remove(orderId);
+            return;
+         }
+
+         final Order order = this.orders.get(orderId);
+         if (order == null) {
+            throw new PersistenceException("Journal event for unknown order " + orderId);
+         }
+         switch (type) {
+            case OrderJournal.STATUS_CHANGED -> order.restoreStatus(OrderCodec.STATUSES[event.get()]);
+            case OrderJournal.DRIVER_ASSIGNED -> order.setDriver(OrderCodec.readDriver(event, this.drivers));
+            case OrderJournal.ETA_CHANGED -> order.setEstimatedDeliveryTime(OrderCodec.fromEpochMillis(event.getLong()));
+            case OrderJournal.ITEMS_CHANGED -> order.setItems(OrderCodec.readItems(event, this.strings));
+            default -> throw new PersistenceException("Unknown journal event type " + type);
+         }
+      }
+   }
+}
@@ -0,0 +1,102 @@
+package persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.function.ToLongFunction;
+
+import CustomException.PersistenceException;
+import model.Order;
+
+/**
+ * Point-in-time file of orders, each tagged with a caller-defined key such as
+ * the time it falls due.
+ *
+ * <p>The layout is {@code [magic][version][count]}, then {@code count} times
+ * {@code [key][length][order]}, then a CRC32C of everything before it, and
+ * the file is replaced atomically as a {@link ChecksummedFile}.
+ */
+public final class OrderSnapshot {
+   private static final int MAGIC = 0x4F534E50;
+   private static final int VERSION = 1;
+   private static final int HEADER_BYTES = 12;
+
+   /**
+    * Receives the entries of a snapshot during {@link #read}.
+    */
+   @FunctionalInterface
+   public interface EntryVisitor {
+      void visit(long key, Order order);
+   }
+
+   private OrderSnapshot() {
+   }
+
+   /**
+    * Atomically replaces the snapshot at {@code file}.
+    *
+    * @param file   the snapshot file
+    * @param orders the orders to store
+    * @param key    the key stored with each order
+    */
+   public static void write(Path file, Collection<? extends Order> orders, ToLongFunction<? super Order> key) {
+      final OrderCodec codec = new OrderCodec();
+      try {
+         ChecksummedFile.write(file, out -> {
+            out.writeInt(OrderSnapshot.MAGIC);
+            out.writeInt(OrderSnapshot.VERSION);
+            out.writeInt(orders.size());
+            for (Order order : orders) {
+               final ByteBuffer encoded = codec.encode(order);
+               out.writeLong(key.applyAsLong(order));
+               out.writeInt(encoded.remaining());
+               out.write(encoded.array(), encoded.arrayOffset() + encoded.position(), encoded.remaining());
+            }
+         });
+      } catch (IOException e) {
+         throw new PersistenceException("Cannot write snapshot " + file, e);
+      }
+   }
+
+   /**
+    * Reads a snapshot written by {@link #write}.
+    *
+    * @param file    the snapshot file
+    * @param visitor receives each stored order with its key, in stored order
+    * @return false if there is no snapshot at {@code file}
+    */
+   public static boolean read(Path file, EntryVisitor visitor) {
+      final byte[] bytes;
+      try {
+         bytes = Files.readAllBytes(file);
+      } catch (NoSuchFileException e) {
+         return false;
+      } catch (IOException e) {
+         throw new PersistenceException("Cannot read snapshot " + file, e);
+      }
+
+      final ByteBuffer in = ByteBuffer.wrap(bytes);
+      if (bytes.length < OrderSnapshot.HEADER_BYTES + ChecksummedFile.TRAILER_BYTES
+            || in.getInt() != OrderSnapshot.MAGIC) {
+         throw new PersistenceException("Not an order snapshot: " + file);
+      }
+      if (in.getInt() != OrderSnapshot.VERSION) {
+         throw new PersistenceException("Unsupported snapshot version in " + file);
+      }
+      if (!ChecksummedFile.isIntact(in)) {
+         throw new PersistenceException("Snapshot checksum mismatch in " + file);
+      }
+
+      final int count = in.getInt();
+      for (int i = 0; i < count; i++) {
+         final long key = in.getLong();
+         final int length = in.getInt();
+         visitor.visit(key, OrderCodec.read(in.slice(in.position(), length)));
+         in.position(in.position() + length);
+      }
+      return true;
+   }
+}
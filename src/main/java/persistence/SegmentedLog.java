@@ -0,0 +1,416 @@
+package persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import CustomException.PersistenceException;
+
+/**
+ * Append-only record log stored in memory-mapped segment files.
+ *
+ * <p>Each record is framed as {@code [length][crc32c][payload]} and is
+ * addressed by its sequence number, counted from the first record ever
+ * appended. A segment file is named after the sequence of its first record.
+ * On open, every segment is scanned and a torn record at the tail of a crash
+ * is discarded.
+ *
+ * <p>Appending only copies bytes into the mapped segment; {@link #commit}
+ * then applies the configured {@link FsyncPolicy}. A background flusher forces
+ * dirty segments every flush interval for the group-commit and async policies.
+ *
+ * <p>The log also keeps a durable consumer offset for readers that consume it
+ * in order, and deletes segments once every record in them is consumed.
+ */
+public class SegmentedLog implements Closeable {
+   public static final int DEFAULT_SEGMENT_BYTES = 64 * 1024 * 1024;
+
+   private static final Logger logger = Logger.getLogger(SegmentedLog.class.getName());
+   private static final int HEADER_BYTES = 8;
+   private static final String SEGMENT_SUFFIX = ".seg";
+   private static final String OFFSET_FILE = "consumer.offset";
+
+   /**
+    * Receives records during {@link #replay}.
+    */
+   @FunctionalInterface
+   public interface RecordVisitor {
+      void visit(long sequence, ByteBuffer payload);
+   }
+
+   private final Path directory;
+   private final int segmentBytes;
+   private final FsyncPolicy fsyncPolicy;
+   private final long flushIntervalMillis;
+   private final List<Segment> segments;
+   private final List<Segment> unflushed;
+   private final CRC32C checksum;
+   private final FileChannel offsetChannel;
+   private final MappedByteBuffer offsetBuffer;
+   private final Object flushLock;
+   private final Object durableMonitor;
+   private final Thread flusher;
+   private Segment active;
+   private long nextSequence;
+   private volatile long durableSequence;
+   private volatile boolean closed;
+
+   public SegmentedLog(Path directory, int segmentBytes, FsyncPolicy fsyncPolicy, Duration flushInterval) {
+      if (segmentBytes <= SegmentedLog.HEADER_BYTES) {
+         throw new IllegalArgumentException("Segment size must exceed the record header");
+      }
+      this.directory = directory;
+      this.segmentBytes = segmentBytes;
+      this.fsyncPolicy = fsyncPolicy;
+      this.flushIntervalMillis = Math.max(1, flushInterval.toMillis());
+      this.segments = new ArrayList<>();
+      this.unflushed = new ArrayList<>();
+      this.checksum = new CRC32C();
+      this.flushLock = new Object();
+      this.durableMonitor = new Object();
+
+      try {
+         Files.createDirectories(directory);
+         this.openSegments();
+         this.offsetChannel = FileChannel.open(directory.resolve(SegmentedLog.OFFSET_FILE),
+               StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+         this.offsetBuffer = this.offsetChannel.map(FileChannel.MapMode.READ_WRITE, 0, Long.BYTES);
+      } catch (IOException e) {
+         throw new PersistenceException("Cannot open log in " + directory, e);
+      }
+      this.durableSequence = this.nextSequence;
+
+      if (fsyncPolicy == FsyncPolicy.SYNC) {
+         this.flusher = null;
+      } else {
+         this.flusher = new Thread(this::runFlusher, "segmented-log-flusher-" + directory.getFileName());
+         this.flusher.setDaemon(true);
+         this.flusher.start();
+      }
+   }
+
+   /**
+    * Copies a record into the active segment, rolling to a new segment when it
+    * does not fit. The record is not durable until {@link #commit} returns.
+    *
+    * @param payload the record bytes, from its position to its limit
+    * @return the sequence number of the record
+    */
+   public synchronized long append(ByteBuffer payload) {
+      final int length = payload.remaining();
+      if (SegmentedLog.HEADER_BYTES + length > this.segmentBytes) {
+         throw new IllegalArgumentException("Record of " + length + " bytes does not fit in a segment");
+      }
+      if (this.active.writePosition + SegmentedLog.HEADER_BYTES + length > this.active.capacity()) {
+         this.roll();
+      }
+
+      final int position = this.active.writePosition;
+      final MappedByteBuffer buffer = this.active.buffer;
+      this.checksum.reset();
+      this.checksum.update(payload.duplicate());
+      buffer.putInt(position + 4, (int) this.checksum.getValue());
+      buffer.put(position + SegmentedLog.HEADER_BYTES, payload, payload.position(), length);
+      // Writing the length last means a crash mid-record leaves either no record or a bad checksum
+      buffer.putInt(position, length);
+
+      this.active.writePosition = position + SegmentedLog.HEADER_BYTES + length;
+      this.active.recordCount++;
+      return this.nextSequence++;
+   }
+
+   /**
+    * Makes a record durable according to the configured {@link FsyncPolicy}.
+    *
+    * @param sequence the sequence returned by {@link #append}
+    */
+   public void commit(long sequence) {
+      switch (this.fsyncPolicy) {
+         case SYNC -> this.flush();
+         case GROUP_COMMIT -> this.awaitDurable(sequence);
+         case ASYNC -> {
+            // the flusher will get to it
+         }
+      }
+   }
+
+   /**
+    * Forces every appended record and the consumer offset to disk.
+    */
+   public void flush() {
+      synchronized (this.flushLock) {
+         final List<Segment> dirty;
+         final long target;
+         synchronized (this) {
+            target = this.nextSequence;
+            dirty = new ArrayList<>(this.unflushed);
+            this.unflushed.clear();
+            dirty.add(this.active);
+         }
+
+         if (target > this.durableSequence) {
+            for (Segment segment : dirty) {
+               segment.buffer.force();
+            }
+         }
+         this.offsetBuffer.force();
+
+         synchronized (this.durableMonitor) {
+            this.durableSequence = Math.max(this.durableSequence, target);
+            this.durableMonitor.notifyAll();
+         }
+      }
+   }
+
+   /**
+    * Visits every record from {@code fromSequence} onwards, in order.
+    *
+    * @param fromSequence the first sequence to visit
+    * @param visitor      receives each record's sequence and a read-only view of its payload
+    */
+   public void replay(long fromSequence, RecordVisitor visitor) {
+      final List<Segment> snapshot;
+      synchronized (this) {
+         snapshot = new ArrayList<>(this.segments);
+      }
+
+      for (Segment segment : snapshot) {
+         if (segment.baseSequence + segment.recordCount <= fromSequence) {
+            continue;
+         }
+         final ByteBuffer view = segment.buffer.asReadOnlyBuffer();
+         int position = 0;
+         for (long sequence = segment.baseSequence; sequence < segment.baseSequence + segment.recordCount; sequence++) {
+            final int length = view.getInt(position);
+            if (sequence >= fromSequence) {
+               view.limit(position + SegmentedLog.HEADER_BYTES + length).position(position + SegmentedLog.HEADER_BYTES);
+               visitor.visit(sequence, view.slice());
+               view.clear();
+            }
+            position += SegmentedLog.HEADER_BYTES + length;
+         }
+      }
+   }
+
+   public long getConsumerOffset() {
+      return this.offsetBuffer.getLong(0);
+   }
+
+   /**
+    * Records how many records have been consumed, and releases segments that
+    * hold only consumed records. The offset is durable on return under
+    * {@link FsyncPolicy#SYNC} or when a segment is released, and on the next
+    * flush otherwise.
+    *
+    * @param offset the sequence of the next record to be consumed
+    */
+   public synchronized void storeConsumerOffset(long offset) {
+      this.offsetBuffer.putLong(0, offset);
+      boolean forced = false;
+      if (this.fsyncPolicy == FsyncPolicy.SYNC) {
+         this.offsetBuffer.force();
+         forced = true;
+      }
+      while (this.segments.size() > 1) {
+         final Segment oldest = this.segments.get(0);
+         if (oldest.baseSequence + oldest.recordCount > offset) {
+            break;
+         }
+         // A crash must never find an old offset pointing into a deleted segment
+         if (!forced) {
+            this.offsetBuffer.force();
+            forced = true;
+         }
+         this.segments.remove(0);
+         this.unflushed.remove(oldest);
+         oldest.delete();
+      }
+   }
+
+   public synchronized long getNextSequence() {
+      return this.nextSequence;
+   }
+
+   public long getDurableSequence() {
+      return this.durableSequence;
+   }
+
+   @Override
+   public void close() {
+      this.closed = true;
+      if (this.flusher != null) {
+         this.flusher.interrupt();
+         try {
+            this.flusher.join();
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+         }
+      }
+      this.flush();
+      synchronized (this) {
+         for (Segment segment : this.segments) {
+            segment.close();
+         }
+         try {
+            this.offsetChannel.close();
+         } catch (IOException e) {
+            SegmentedLog.logger.log(Level.WARNING, "Error closing consumer offset file", e);
+         }
+      }
+   }
+
+   private void awaitDurable(long sequence) {
+      synchronized (this.durableMonitor) {
+         while (this.durableSequence <= sequence && !this.closed) {
+            try {
+               this.durableMonitor.wait();
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+               throw new PersistenceException("Interrupted while waiting for record " + sequence + " to commit", e);
+            }
+         }
+      }
+   }
+
+   private void runFlusher() {
+      while (!this.closed) {
+         try {
+            Thread.sleep(this.flushIntervalMillis);
+         } catch (InterruptedException e) {
+            break;
+         }
+         try {
+            this.flush();
+         } catch (RuntimeException e) {
+            SegmentedLog.logger.log(Level.SEVERE, "Error flushing log in " + this.directory, e);
+         }
+      }
+   }
+
+   private void openSegments() throws IOException {
+      final List<Path> paths;
+      try (Stream<Path> files = Files.list(this.directory)) {
+         paths = files.filter(path -> path.getFileName().toString().endsWith(SegmentedLog.SEGMENT_SUFFIX))
+               .sorted()
+               .toList();
+      }
+
+      for (Path path : paths) {
+         final String name = path.getFileName().toString();
+         final long baseSequence = Long.parseLong(name.substring(0, name.length() - SegmentedLog.SEGMENT_SUFFIX.length()));
+         final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+         final Segment segment = new Segment(baseSequence, path, channel,
+               channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()));
+         this.scan(segment);
+         this.segments.add(segment);
+      }
+
+      if (this.segments.isEmpty()) {
+         this.active = this.createSegment(0);
+      } else {
+         this.active = this.segments.get(this.segments.size() - 1);
+      }
+      this.nextSequence = this.active.baseSequence + this.active.recordCount;
+   }
+
+   private void scan(Segment segment) {
+      final MappedByteBuffer buffer = segment.buffer;
+      final int capacity = segment.capacity();
+      int position = 0;
+      while (position + SegmentedLog.HEADER_BYTES <= capacity) {
+         final int length = buffer.getInt(position);
+         if (length <= 0 || position + SegmentedLog.HEADER_BYTES + length > capacity) {
+            break;
+         }
+         final ByteBuffer payload = buffer.duplicate();
+         payload.limit(position + SegmentedLog.HEADER_BYTES + length).position(position + SegmentedLog.HEADER_BYTES);
+         this.checksum.reset();
+         this.checksum.update(payload);
+         if ((int) this.checksum.getValue() != buffer.getInt(position + 4)) {
+            SegmentedLog.logger.warning(() -> "Discarding torn record at the tail of " + segment.path);
+            // Zero the remainder so stale bytes can never be mistaken for a record later
+            for (int i = position; i < capacity; i++) {
+               buffer.put(i, (byte) 0);
+            }
+            break;
+         }
+         position += SegmentedLog.HEADER_BYTES + length;
+         segment.recordCount++;
+      }
+      segment.writePosition = position;
+   }
+
+   private void roll() {
+      if (this.active.recordCount == 0) {
+         // An empty segment that is too small (e.g. left by an older configuration) is simply replaced
+         this.segments.remove(this.active);
+         this.active.delete();
+      } else {
+         this.unflushed.add(this.active);
+      }
+      this.active = this.createSegment(this.nextSequence);
+   }
+
+   private Segment createSegment(long baseSequence) {
+      final Path path = this.directory.resolve(String.format("%020d%s", baseSequence, SegmentedLog.SEGMENT_SUFFIX));
+      try {
+         final FileChannel channel = FileChannel.open(path,
+               StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+         final Segment segment = new Segment(baseSequence, path, channel,
+               channel.map(FileChannel.MapMode.READ_WRITE, 0, this.segmentBytes));
+         this.segments.add(segment);
+         return segment;
+      } catch (IOException e) {
+         throw new PersistenceException("Cannot create log segment " + path, e);
+      }
+   }
+
+   private static final class Segment {
+      private final long baseSequence;
+      private final Path path;
+      private final FileChannel channel;
+      private final MappedByteBuffer buffer;
+      private int writePosition;
+      private long recordCount;
+
+      private Segment(long baseSequence, Path path, FileChannel channel, MappedByteBuffer buffer) {
+         this.baseSequence = baseSequence;
+         this.path = path;
+         this.channel = channel;
+         this.buffer = buffer;
+      }
+
+      private int capacity() {
+         return this.buffer.capacity();
+      }
+
+      private void close() {
+         try {
+            this.channel.close();
+         } catch (IOException e) {
+            SegmentedLog.logger.log(Level.WARNING, "Error closing log segment " + this.path, e);
+         }
+      }
+
+      private void delete() {
+         this.close();
+         try {
+            Files.deleteIfExists(this.path);
+         } catch (IOException e) {
+            SegmentedLog.logger.log(Level.WARNING, "Error deleting consumed log segment " + this.path, e);
+         }
+      }
+   }
+}
@@ -0,0 +1,89 @@
+package persistence;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Canonical instances of the strings decoded during a bulk read, looked up
+ * by their UTF-8 bytes. A string seen before is returned without allocating,
+ * which keeps a recovery of millions of orders sharing a few thousand
+ * addresses and item names from producing a garbage string per field.
+ *
+ * <p>Open addressing with linear probing; not thread-safe.
+ */
+final class StringTable {
+   private static final int INITIAL_CAPACITY = 1024;
+
+   private byte[][] keys;
+   private String[] values;
+   private int size;
+   private byte[] scratch;
+
+   StringTable() {
+      this.keys = new byte[StringTable.INITIAL_CAPACITY][];
+      this.values = new String[StringTable.INITIAL_CAPACITY];
+      this.scratch = new byte[64];
+   }
+
+   /**
+    * Reads {@code length} UTF-8 bytes from the buffer's position.
+    *
+    * @return the canonical string with those bytes
+    */
+   String read(ByteBuffer in, int length) {
+      if (this.scratch.length < length) {
+         this.scratch = new byte[Math.max(length, this.scratch.length * 2)];
+      }
+      final byte[] bytes = this.scratch;
+      in.get(bytes, 0, length);
+
+      int hash = 1;
+      for (int i = 0; i < length; i++) {
+         hash = 31 * hash + bytes[i];
+      }
+      final int mask = this.keys.length - 1;
+      int slot = (hash ^ (hash >>> 16)) & mask;
+      while (true) {
+         final byte[] key = this.keys[slot];
+         if (key == null) {
+            break;
+         }
+         if (Arrays.equals(key, 0, key.length, bytes, 0, length)) {
+            return this.values[slot];
+         }
+         slot = (slot + 1) & mask;
+      }
+
+      final byte[] key = Arrays.copyOf(bytes, length);
+      final String value = new String(key, StandardCharsets.UTF_8);
+      this.keys[slot] = key;
+      this.values[slot] = value;
+      // Kept at most half full so probe runs stay short
+      if (++this.size * 2 > this.keys.length) {
+         this.grow();
+      }
+      return value;
+   }
+
+   private void grow() {
+      final byte[][] oldKeys = this.keys;
+      final String[] oldValues = this.values;
+      this.keys = new byte[oldKeys.length * 2][];
+      this.values = new String[oldKeys.length * 2];
+      final int mask = this.keys.length - 1;
+      for (int i = 0; i < oldKeys.length; i++) {
+         final byte[] key = oldKeys[i];
+         if (key == null) {
+            continue;
+         }
+         final int hash = Arrays.hashCode(key);
+         int slot = (hash ^ (hash >>> 16)) & mask;
+         while (this.keys[slot] != null) {
+            slot = (slot + 1) & mask;
+         }
+         this.keys[slot] = key;
+         this.values[slot] = oldValues[i];
+      }
+   }
+}
@@ -0,0 +1,266 @@
+package queue;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToIntFunction;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import model.Order;
+
+/**
+ * Admits orders into a queue under a limit that adapts to how long admitted
+ * orders wait before they are dequeued.
+ *
+ * <p>The limit follows AIMD. An on-time dequeue while the queue is at least
+ * half the limit deep grows the limit by {@code 1 / limit}, so one slot per
+ * limit's worth of on-time orders. A dequeue over the latency target cuts the
+ * limit by {@link #BACKOFF_RATIO}, at most once per smoothed wait so a single
+ * backlog is not punished once per order in it.
+ *
+ * <p>Orders over the limit are shed with a retry-after hint instead of an
+ * exception. The check against the queue depth is not atomic with the
+ * enqueue, so concurrent producers may overshoot the limit briefly; the
+ * queue's own capacity remains the hard bound.
+ *
+ * <p>For a {@link ShardedOrderQueue} the limit applies to each zone's shard
+ * rather than to the whole queue, since that is where the capacity is.
+ */
+public class AdmissionController implements MeterBinder {
+   public static final String LATENCY_TARGET_PROPERTY = "order.admission.latency.target.ms";
+   public static final String MIN_LIMIT_PROPERTY = "order.admission.limit.min";
+
+   static final double BACKOFF_RATIO = 0.9;
+   private static final double SMOOTHING = 0.2;
+   private static final Duration MIN_RETRY_AFTER = Duration.ofMillis(100);
+   private static final Duration MAX_RETRY_AFTER = Duration.ofMinutes(1);
+
+   private final QueueOperations<Order> queue;
+   private final ToIntFunction<Order> depth;
+   private final int minLimit;
+   private final int maxLimit;
+   private final long latencyTargetNanos;
+   private final LongAdder admitted;
+   private final LongAdder shed;
+   private volatile int limit;
+   private volatile long smoothedLatencyNanos;
+   // Guarded by this
+   private double estimatedLimit;
+   private long lastDecreaseNanos;
+
+   /**
+    * Creates a controller that starts fully open at {@code maxLimit}.
+    *
+    * @param queue         the queue to admit orders into
+    * @param minLimit      the limit never drops below this
+    * @param maxLimit      the limit never grows past this, normally the queue capacity
+    * @param latencyTarget the longest acceptable wait between enqueue and dequeue
+    */
+   public AdmissionController(QueueOperations<Order> queue, int minLimit, int maxLimit, Duration latencyTarget) {
+      this(queue, order -> queue.size(), minLimit, maxLimit, latencyTarget);
+   }
+
+   /**
+    * Creates a controller that starts fully open at {@code maxLimit} and
+    * compares the limit against the part of the queue an order goes into.
+    *
+    * @param queue         the queue to admit orders into
+    * @param depth         how many orders are already queued ahead of a given order
+    * @param minLimit      the limit never drops below this
+    * @param maxLimit      the limit never grows past this, normally the capacity behind {@code depth}
+    * @param latencyTarget the longest acceptable wait between enqueue and dequeue
+    */
+   public AdmissionController(QueueOperations<Order> queue, ToIntFunction<Order> depth, int minLimit, int maxLimit,
+         Duration latencyTarget) {
+      if (minLimit <= 0 || maxLimit < minLimit) {
+         throw new IllegalArgumentException("Admission limits must satisfy 0 < min <= max");
+      }
+      if (latencyTarget.isNegative() || latencyTarget.isZero()) {
+         throw new IllegalArgumentException("Latency target must be positive");
+      }
+      this.queue = queue;
+      this.depth = depth;
+      this.minLimit = minLimit;
+      this.maxLimit = maxLimit;
+      this.latencyTargetNanos = latencyTarget.toNanos();
+      this.admitted = new LongAdder();
+      this.shed = new LongAdder();
+      this.limit = maxLimit;
+      this.estimatedLimit = maxLimit;
+      // Far enough in the past that the first late dequeue may back off immediately
+      this.lastDecreaseNanos = System.nanoTime() - Long.MAX_VALUE / 2;
+   }
+
+   /**
+    * Creates a controller configured from the {@value #LATENCY_TARGET_PROPERTY}
+    * and {@value #MIN_LIMIT_PROPERTY} system properties, defaulting to a
+    * 30 second target and a floor of one order.
+    *
+    * @param queue    the queue to admit orders into
+    * @param maxLimit the largest limit, normally the queue capacity, or the
+    *                 shard capacity when {@code queue} is sharded
+    * @return the new controller
+    */
+   public static AdmissionController fromSystemProperties(QueueOperations<Order> queue, int maxLimit) {
+      final Duration target = Duration.ofMillis(Long.getLong(AdmissionController.LATENCY_TARGET_PROPERTY, 30_000L));
+      final int minLimit = Math.min(maxLimit, Integer.getInteger(AdmissionController.MIN_LIMIT_PROPERTY, 1));
+      return new AdmissionController(queue, AdmissionController.depthOf(queue), minLimit, maxLimit, target);
+   }
+
+   /**
+    * Measures depth per zone when {@code queue} is, or wraps, a sharded
+    * queue, and across the whole queue otherwise.
+    *
+    * @param queue the queue orders are admitted into
+    * @return how many orders are queued ahead of a given order
+    */
+   static ToIntFunction<Order> depthOf(QueueOperations<Order> queue) {
+      QueueOperations<Order> inner = queue;
+      while (inner instanceof InstrumentedOrderQueue instrumented) {
+         inner = instrumented.getDelegate();
+      }
+      if (inner instanceof ShardedOrderQueue sharded) {
+         return order -> sharded.size(sharded.zoneOf(order));
+      }
+      return order -> queue.size();
+   }
+
+   /**
+    * Enqueues the order if the queue is under the current limit.
+    *
+    * @param order the order to admit
+    * @return whether the order was admitted and, if not, when to retry
+    */
+   public AdmissionDecision tryAdmit(Order order) {
+      final int currentLimit = this.limit;
+      final int depth = this.depth.applyAsInt(order);
+      if (depth >= currentLimit) {
+         return this.shed(depth, currentLimit);
+      }
+
+      order.setEnqueuedAtNanos(System.nanoTime());
+      try {
+         this.queue.enqueue(order);
+      } catch (CustomException.QueueFullException e) {
+         // Other producers filled the queue between the depth check and the enqueue
+         return this.shed(depth + 1, currentLimit);
+      }
+      this.admitted.increment();
+      return AdmissionDecision.admit(currentLimit);
+   }
+
+   /**
+    * Feeds the wait of every order consumers take from {@code queue}, by any
+    * means, into the limit. {@code queue} must be the queue this controller
+    * admits into, or wrap it.
+    *
+    * @param queue the instrumented queue consumers dequeue from
+    */
+   public void listenTo(InstrumentedOrderQueue queue) {
+      queue.addDequeueListener(this::onDequeued);
+   }
+
+   /**
+    * Records the wait of an order that a consumer took from the queue. Called
+    * for every dequeue once the controller {@link #listenTo listens to} the
+    * queue.
+    *
+    * @param order the order that was dequeued
+    */
+   public void onDequeued(Order order) {
+      final long enqueuedAt = order.getEnqueuedAtNanos();
+      // Orders recovered from disk or enqueued around the controller carry no timestamp
+      if (enqueuedAt != 0) {
+         this.recordLatency(System.nanoTime() - enqueuedAt, this.depth.applyAsInt(order));
+      }
+   }
+
+   void recordLatency(long latencyNanos) {
+      this.recordLatency(latencyNanos, this.queue.size());
+   }
+
+   /**
+    * @param latencyNanos how long the order waited
+    * @param depth        how many orders are still queued where it was
+    */
+   synchronized void recordLatency(long latencyNanos, int depth) {
+      final long smoothed = this.smoothedLatencyNanos == 0
+            ? latencyNanos
+            : (long) (this.smoothedLatencyNanos + AdmissionController.SMOOTHING * (latencyNanos - this.smoothedLatencyNanos));
+      this.smoothedLatencyNanos = smoothed;
+
+      final long now = System.nanoTime();
+      if (latencyNanos > this.latencyTargetNanos) {
+         if (now - this.lastDecreaseNanos >= smoothed) {
+            this.estimatedLimit = Math.max(this.minLimit, this.estimatedLimit * AdmissionController.BACKOFF_RATIO);
+            this.lastDecreaseNanos = now;
+         }
+      } else if (depth * 2 >= this.limit) {
+         this.estimatedLimit = Math.min(this.maxLimit, this.estimatedLimit + 1.0 / this.estimatedLimit);
+      }
+      this.limit = (int) this.estimatedLimit;
+   }
+
+   private AdmissionDecision shed(int depth, int currentLimit) {
+      this.shed.increment();
+      // A full queue frees a slot roughly every wait / limit, and the caller is behind depth - limit others
+      final long wait = this.smoothedLatencyNanos == 0 ? this.latencyTargetNanos : this.smoothedLatencyNanos;
+      final long perSlot = wait / Math.max(1, currentLimit);
+      final long retryNanos = perSlot * (Math.max(0, depth - currentLimit) + 1L);
+      final long clamped = Math.max(AdmissionController.MIN_RETRY_AFTER.toNanos(),
+            Math.min(AdmissionController.MAX_RETRY_AFTER.toNanos(), retryNanos));
+      return AdmissionDecision.shed(currentLimit, Duration.ofNanos(clamped));
+   }
+
+   /**
+    * Registers the limit, its bounds, the latency target and smoothed wait,
+    * and the admitted/shed decision counts.
+    */
+   @Override
+   public void bindTo(MeterRegistry registry) {
+      Gauge.builder("order.admission.limit", this, AdmissionController::getLimit)
+            .description("Adaptive admission limit")
+            .tag("bound", "current")
+            .register(registry);
+      Gauge.builder("order.admission.limit", this, controller -> controller.minLimit)
+            .tag("bound", "min")
+            .register(registry);
+      Gauge.builder("order.admission.limit", this, controller -> controller.maxLimit)
+            .tag("bound", "max")
+            .register(registry);
+      Gauge.builder("order.admission.latency", this, controller -> controller.latencyTargetNanos / 1e9)
+            .description("Queue wait that triggers back-off")
+            .tag("kind", "target")
+            .baseUnit("seconds")
+            .register(registry);
+      Gauge.builder("order.admission.latency", this, controller -> controller.smoothedLatencyNanos / 1e9)
+            .description("Smoothed wait between enqueue and dequeue")
+            .tag("kind", "smoothed")
+            .baseUnit("seconds")
+            .register(registry);
+      FunctionCounter.builder("order.admission.decisions", this.admitted, LongAdder::sum)
+            .tag("outcome", "admitted")
+            .register(registry);
+      FunctionCounter.builder("order.admission.decisions", this.shed, LongAdder::sum)
+            .tag("outcome", "shed")
+            .register(registry);
+   }
+
+   public int getLimit() {
+      return this.limit;
+   }
+
+   public Duration getSmoothedLatency() {
+      return Duration.ofNanos(this.smoothedLatencyNanos);
+   }
+
+   public long getAdmittedCount() {
+      return this.admitted.sum();
+   }
+
+   public long getShedCount() {
+      return this.shed.sum();
+   }
+}
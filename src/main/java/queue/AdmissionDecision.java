@@ -0,0 +1,52 @@
+package queue;
+
+import java.time.Duration;
+
+/**
+ * The outcome of offering an order to an {@link AdmissionController}.
+ */
+public final class AdmissionDecision {
+   private final boolean admitted;
+   private final int limit;
+   private final Duration retryAfter;
+
+   private AdmissionDecision(boolean admitted, int limit, Duration retryAfter) {
+      this.admitted = admitted;
+      this.limit = limit;
+      this.retryAfter = retryAfter;
+   }
+
+   static AdmissionDecision admit(int limit) {
+      return new AdmissionDecision(true, limit, Duration.ZERO);
+   }
+
+   static AdmissionDecision shed(int limit, Duration retryAfter) {
+      return new AdmissionDecision(false, limit, retryAfter);
+   }
+
+   public boolean isAdmitted() {
+      return this.admitted;
+   }
+
+   /**
+    * @return the admission limit in force when the decision was made
+    */
+   public int getLimit() {
+      return this.limit;
+   }
+
+   /**
+    * @return how long a shed caller should wait before trying again, or zero
+    *         if the order was admitted
+    */
+   public Duration getRetryAfter() {
+      return this.retryAfter;
+   }
+
+   @Override
+   public String toString() {
+      return this.admitted
+            ? "admitted (limit " + this.limit + ")"
+            : "shed (limit " + this.limit + ", retry after " + this.retryAfter.toMillis() + " ms)";
+   }
+}
@@ -0,0 +1,206 @@
+package queue;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Parks consumers of a queue until a producer signals that items arrived.
+ *
+ * <p>Blocked {@link #take} callers park their thread; {@link #next} callers
+ * get a future that a producer completes directly. A waiter always re-checks
+ * the queue after registering, and producers signal only after publishing, so
+ * no wake-up can be lost in between. Producers must call {@link #signal}
+ * outside of any queue lock because futures complete on the signalling thread.
+ *
+ * <p>A producer claims a future before it dequeues on the future's behalf.
+ * Cancelling or failing a claimed future waits out the hand-off and then
+ * reports that the future already completed, so a dequeued item is always
+ * delivered and never has to go back into the queue.
+ */
+final class ConsumerWaiters<T> {
+   private final Supplier<Optional<T>> dequeue;
+   private final BooleanSupplier isEmpty;
+   private final ConcurrentLinkedQueue<Thread> parked;
+   private final ConcurrentLinkedDeque<Request<T>> requests;
+
+   ConsumerWaiters(QueueOperations<T> queue) {
+      this(queue::dequeue, queue::isEmpty);
+   }
+
+   /**
+    * Creates waiters for a view of a queue, such as the orders one consumer
+    * is entitled to.
+    *
+    * @param dequeue removes the next item of the view, if any
+    * @param isEmpty whether the view has nothing to dequeue
+    */
+   ConsumerWaiters(Supplier<Optional<T>> dequeue, BooleanSupplier isEmpty) {
+      this.dequeue = dequeue;
+      this.isEmpty = isEmpty;
+      this.parked = new ConcurrentLinkedQueue<>();
+      this.requests = new ConcurrentLinkedDeque<>();
+   }
+
+   Optional<T> take(long timeout, TimeUnit unit) throws InterruptedException {
+      final long deadline = System.nanoTime() + unit.toNanos(timeout);
+      final Thread current = Thread.currentThread();
+      while (true) {
+         if (Thread.interrupted()) {
+            throw new InterruptedException();
+         }
+         final Optional<T> item = this.dequeue.get();
+         if (item.isPresent()) {
+            return item;
+         }
+         final long remaining = deadline - System.nanoTime();
+         if (remaining <= 0) {
+            return Optional.empty();
+         }
+
+         this.parked.add(current);
+         try {
+            final Optional<T> raced = this.dequeue.get();
+            if (raced.isPresent()) {
+               return raced;
+            }
+            LockSupport.parkNanos(this, remaining);
+         } finally {
+            this.parked.remove(current);
+         }
+      }
+   }
+
+   CompletableFuture<T> next() {
+      final Request<T> request = new Request<>();
+      this.requests.addLast(request);
+      this.completeRequests();
+      return request;
+   }
+
+   /**
+    * Wakes waiters after {@code count} items were published.
+    *
+    * @return how many of the items went, or are on their way, to a waiter
+    */
+   int signal(int count) {
+      int served = this.completeRequests();
+      while (served < count) {
+         final Thread waiter = this.parked.poll();
+         if (waiter == null) {
+            break;
+         }
+         LockSupport.unpark(waiter);
+         served++;
+      }
+      return Math.min(served, count);
+   }
+
+   /**
+    * @return how many requests were completed
+    */
+   private int completeRequests() {
+      int completed = 0;
+      Request<T> request;
+      while ((request = this.requests.pollFirst()) != null) {
+         if (!request.claim()) {
+            // Cancelled, failed or timed out while waiting in line
+            continue;
+         }
+         final Optional<T> item;
+         try {
+            item = this.dequeue.get();
+         } catch (RuntimeException e) {
+            request.release();
+            this.requests.addFirst(request);
+            throw e;
+         }
+         if (item.isEmpty()) {
+            request.release();
+            this.requests.addFirst(request);
+            // A producer that published while we held the request saw no waiter, so look again
+            if (this.isEmpty.getAsBoolean()) {
+               return completed;
+            }
+            Thread.onSpinWait();
+            continue;
+         }
+         request.deliver(item.get());
+         completed++;
+      }
+      return completed;
+   }
+
+   /**
+    * A future handed out by {@link #next}, which only its producer can
+    * complete once claimed.
+    */
+   private static final class Request<T> extends CompletableFuture<T> {
+      private static final int WAITING = 0;
+      private static final int CLAIMED = 1;
+      private static final int DONE = 2;
+
+      private final AtomicInteger state = new AtomicInteger(Request.WAITING);
+
+      boolean claim() {
+         return this.state.compareAndSet(Request.WAITING, Request.CLAIMED);
+      }
+
+      void release() {
+         this.state.set(Request.WAITING);
+      }
+
+      void deliver(T item) {
+         this.state.set(Request.DONE);
+         super.complete(item);
+      }
+
+      @Override
+      public boolean complete(T value) {
+         return this.finish() && super.complete(value);
+      }
+
+      @Override
+      public boolean completeExceptionally(Throwable ex) {
+         // Also how orTimeout expires the request
+         return this.finish() && super.completeExceptionally(ex);
+      }
+
+      @Override
+      public boolean cancel(boolean mayInterruptIfRunning) {
+         return this.finish() && super.cancel(mayInterruptIfRunning);
+      }
+
+      @Override
+      public <U> CompletableFuture<U> newIncompleteFuture() {
+         // Dependent stages are ordinary futures
+         return new CompletableFuture<>();
+      }
+
+      /**
+       * Takes the request out of line for a completion other than a
+       * producer's, waiting out a hand-off in progress.
+       *
+       * @return false if a producer delivered, or someone else finished, it first
+       */
+      private boolean finish() {
+         while (true) {
+            final int current = this.state.get();
+            if (current == Request.DONE) {
+               return false;
+            }
+            if (current == Request.WAITING && this.state.compareAndSet(Request.WAITING, Request.DONE)) {
+               return true;
+            }
+            // The hand-off is a single dequeue away from settling either way
+            Thread.onSpinWait();
+         }
+      }
+   }
+}
@@ -0,0 +1,306 @@
+package queue;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import model.Order;
+import validation.OrderValidator;
+
+/**
+ * Order queue that hands out the order with the earliest promised delivery
+ * deadline first, instead of the oldest one.
+ *
+ * <p>Orders sit in a binary min-heap keyed by deadline, with ties broken by
+ * arrival so equal deadlines stay FIFO. The heap also tracks where each order
+ * lives, which makes {@link #cancel} and {@link #reprioritize} O(log n), so
+ * an order can only be waiting once and a second enqueue of its ID is
+ * rejected.
+ *
+ * <p>An order's deadline is its estimated delivery time; orders without one
+ * are promised {@link #DEFAULT_PROMISE_WINDOW} after they are enqueued.
+ */
+public class DeadlineOrderQueue implements QueueOperations<Order> {
+   public static final Duration DEFAULT_PROMISE_WINDOW = Duration.ofMinutes(45);
+
+   private final Order[] heap;
+   private final long[] deadlines;
+   private final long[] arrivals;
+   private final Map<Long, Integer> indexById;
+   private final int maxSize;
+   private final OrderValidator validator;
+   private final ConsumerWaiters<Order> waiters;
+   private int size;
+   private long nextArrival;
+
+   public DeadlineOrderQueue(int maxSize) {
+      if (maxSize <= 0) {
+         throw new IllegalArgumentException("Queue capacity must be positive");
+      }
+      this.maxSize = maxSize;
+      this.heap = new Order[maxSize];
+      this.deadlines = new long[maxSize];
+      this.arrivals = new long[maxSize];
+      this.indexById = new HashMap<>();
+      this.validator = new OrderValidator();
+      this.waiters = new ConsumerWaiters<>(this);
+   }
+
+   @Override
+   public void enqueue(Order order) throws CustomException.QueueFullException {
+      synchronized (this) {
+         try {
+            if (this.size >= this.maxSize) {
+               throw new CustomException.QueueFullException("Order queue is at maximum capacity");
+            }
+
+            this.validator.validateOrder(order);
+            this.checkNotQueued(order);
+            this.insert(order);
+         } catch (CustomException.QueueFullException e) {
+            System.err.println("Error in enqueue: " + e.getMessage());
+            throw e;
+         }
+      }
+      this.waiters.signal(1);
+   }
+
+   @Override
+   public synchronized Optional<Order> dequeue() {
+      return Optional.ofNullable(this.size == 0 ? null : this.removeAt(0));
+   }
+
+   @Override
+   public void enqueueAll(Collection<? extends Order> orders) throws CustomException.QueueFullException {
+      synchronized (this) {
+         try {
+            if (this.size + orders.size() > this.maxSize) {
+               throw new CustomException.QueueFullException(
+                     "Order queue cannot accept " + orders.size() + " more orders");
+            }
+         } catch (CustomException.QueueFullException e) {
+            System.err.println("Error in enqueueAll: " + e.getMessage());
+            throw e;
+         }
+
+         final Set<Long> batch = new HashSet<>();
+         for (Order order : orders) {
+            this.validator.validateOrder(order);
+            this.checkNotQueued(order);
+            if (!batch.add(order.getId())) {
+               throw new IllegalArgumentException("Order " + order.getId() + " appears twice in the batch");
+            }
+         }
+         for (Order order : orders) {
+            this.insert(order);
+         }
+      }
+      this.waiters.signal(orders.size());
+   }
+
+   @Override
+   public Optional<Order> take(long timeout, TimeUnit unit) throws InterruptedException {
+      return this.waiters.take(timeout, unit);
+   }
+
+   @Override
+   public CompletableFuture<Order> next() {
+      return this.waiters.next();
+   }
+
+   @Override
+   public synchronized int drainTo(Collection<? super Order> target, int maxItems) {
+      int drained = 0;
+      while (drained < maxItems && this.size > 0) {
+         target.add(this.removeAt(0));
+         drained++;
+      }
+      return drained;
+   }
+
+   @Override
+   public synchronized Optional<Order> peek() {
+      return Optional.ofNullable(this.size == 0 ? null : this.heap[0]);
+   }
+
+   @Override
+   public synchronized boolean isEmpty() {
+      return this.size == 0;
+   }
+
+   @Override
+   public synchronized int size() {
+      return this.size;
+   }
+
+   @Override
+   public synchronized void clear() {
+      for (int i = 0; i < this.size; i++) {
+         this.heap[i] = null;
+      }
+      this.size = 0;
+      this.indexById.clear();
+   }
+
+   /**
+    * Removes a waiting order from the queue.
+    *
+    * @param orderId the ID of the order to cancel
+    * @return true if the order was waiting and has been removed
+    */
+   public synchronized boolean cancel(Long orderId) {
+      final Integer index = this.indexById.get(orderId);
+      if (index == null) {
+         return false;
+      }
+      this.removeAt(index);
+      return true;
+   }
+
+   /**
+    * Moves a waiting order to the place its new deadline earns it, then
+    * records the deadline on the order. The order's listener, which may
+    * journal the change, runs after the queue lock is released; the heap is
+    * then re-keyed to whatever deadline the order ended up with, so that
+    * concurrent re-prioritizations cannot leave the two disagreeing.
+    *
+    * @param orderId  the ID of the order to re-prioritize
+    * @param deadline the new promised delivery time
+    * @return true if the order was waiting and has been moved
+    */
+   public boolean reprioritize(Long orderId, LocalDateTime deadline) {
+      final Order order;
+      synchronized (this) {
+         final Integer index = this.indexById.get(orderId);
+         if (index == null) {
+            return false;
+         }
+         order = this.heap[index];
+         this.rekey(index, DeadlineOrderQueue.toEpochMillis(deadline));
+      }
+      order.setEstimatedDeliveryTime(deadline);
+
+      // Another caller may have keyed the heap after this one but written its deadline before it
+      synchronized (this) {
+         final Integer index = this.indexById.get(orderId);
+         final LocalDateTime current = order.getEstimatedDeliveryTime();
+         if (index != null && this.heap[index] == order && current != null) {
+            this.rekey(index, DeadlineOrderQueue.toEpochMillis(current));
+         }
+      }
+      return true;
+   }
+
+   /**
+    * @throws IllegalArgumentException if an order with the same ID is waiting,
+    *                                  which would corrupt the heap's index
+    */
+   private void checkNotQueued(Order order) {
+      if (this.indexById.containsKey(order.getId())) {
+         throw new IllegalArgumentException("Order " + order.getId() + " is already queued");
+      }
+   }
+
+   private void insert(Order order) {
+      final LocalDateTime promised = order.getEstimatedDeliveryTime() != null
+            ? order.getEstimatedDeliveryTime()
+            : LocalDateTime.now().plus(DeadlineOrderQueue.DEFAULT_PROMISE_WINDOW);
+
+      final int index = this.size++;
+      this.heap[index] = order;
+      this.deadlines[index] = DeadlineOrderQueue.toEpochMillis(promised);
+      this.arrivals[index] = this.nextArrival++;
+      this.indexById.put(order.getId(), index);
+      this.siftUp(index);
+   }
+
+   private void rekey(int index, long key) {
+      final long previous = this.deadlines[index];
+      this.deadlines[index] = key;
+      if (key < previous) {
+         this.siftUp(index);
+      } else if (key > previous) {
+         this.siftDown(index);
+      }
+   }
+
+   private Order removeAt(int index) {
+      final Order removed = this.heap[index];
+      this.indexById.remove(removed.getId());
+
+      final int last = --this.size;
+      if (index != last) {
+         this.move(last, index);
+         this.heap[last] = null;
+         this.siftDown(index);
+         this.siftUp(index);
+      } else {
+         this.heap[last] = null;
+      }
+      return removed;
+   }
+
+   private void siftUp(int index) {
+      while (index > 0) {
+         final int parent = (index - 1) >>> 1;
+         if (!this.before(index, parent)) {
+            break;
+         }
+         this.swap(index, parent);
+         index = parent;
+      }
+   }
+
+   private void siftDown(int index) {
+      while (true) {
+         final int left = 2 * index + 1;
+         if (left >= this.size) {
+            break;
+         }
+         final int right = left + 1;
+         final int earliest = right < this.size && this.before(right, left) ? right : left;
+         if (!this.before(earliest, index)) {
+            break;
+         }
+         this.swap(index, earliest);
+         index = earliest;
+      }
+   }
+
+   private boolean before(int a, int b) {
+      if (this.deadlines[a] != this.deadlines[b]) {
+         return this.deadlines[a] < this.deadlines[b];
+      }
+      return this.arrivals[a] < this.arrivals[b];
+   }
+
+   private void swap(int a, int b) {
+      final Order order = this.heap[a];
+      final long deadline = this.deadlines[a];
+      final long arrival = this.arrivals[a];
+      this.move(b, a);
+      this.heap[b] = order;
+      this.deadlines[b] = deadline;
+      this.arrivals[b] = arrival;
+      this.indexById.put(order.getId(), b);
+   }
+
+   private void move(int from, int to) {
+      this.heap[to] = this.heap[from];
+      this.deadlines[to] = this.deadlines[from];
+      this.arrivals[to] = this.arrivals[from];
+      this.indexById.put(this.heap[to].getId(), to);
+   }
+
+   private static long toEpochMillis(LocalDateTime time) {
+      return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+   }
+}
@@ -0,0 +1,274 @@
+package queue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.RandomAccess;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import model.Order;
+import model.OrderStatus;
+
+/**
+ * Decorates an order queue with Micrometer metrics.
+ *
+ * <ul>
+ *    <li>{@code order.queue.wait}: enqueue-to-dequeue wait, with p50, p99 and
+ *    p99.9 and a percentile histogram for Prometheus</li>
+ *    <li>{@code order.queue.depth}: the live queue size</li>
+ *    <li>{@code order.queue.rejections}: rejected orders by {@code reason},
+ *    {@code full} or {@code invalid}</li>
+ *    <li>{@code order.queue.orders}: orders by {@code operation},
+ *    {@code enqueued} or {@code dequeued}, and {@code status}</li>
+ * </ul>
+ *
+ * <p>Every meter is registered up front, so recording only stamps the order
+ * and bumps existing meters and does not allocate.
+ *
+ * <p>Whichever way an order leaves the queue, it is also handed to the
+ * {@link #addDequeueListener dequeue listeners}, such as an
+ * {@link AdmissionController} learning how long orders wait. Orders reach
+ * the consumer before any of this is recorded, and a listener that throws
+ * is logged without affecting the consumer or the other listeners.
+ */
+public class InstrumentedOrderQueue implements QueueOperations<Order> {
+   private static final Logger logger = Logger.getLogger(InstrumentedOrderQueue.class.getName());
+   private static final ThreadLocal<List<Order>> DRAIN_BUFFER = ThreadLocal.withInitial(ArrayList::new);
+   @SuppressWarnings("unchecked")
+   private static final Consumer<? super Order>[] NO_LISTENERS = new Consumer[0];
+
+   private final QueueOperations<Order> delegate;
+   private final Timer waitTimer;
+   private final Counter rejectedFull;
+   private final Counter rejectedInvalid;
+   private final Map<OrderStatus, Counter> enqueuedByStatus;
+   private final Map<OrderStatus, Counter> dequeuedByStatus;
+   // Replaced on every addition, so a dequeue reads one snapshot without allocating
+   private volatile Consumer<? super Order>[] dequeueListeners;
+
+   /**
+    * Wraps a queue and registers its meters, tagged with the queue's class
+    * name, along with any meters of the queue's own.
+    *
+    * @param delegate the queue to instrument
+    * @param registry the registry to publish to
+    */
+   public InstrumentedOrderQueue(QueueOperations<Order> delegate, MeterRegistry registry) {
+      this.delegate = delegate;
+      final String queue = delegate.getClass().getSimpleName();
+
+      this.waitTimer = Timer.builder("order.queue.wait")
+            .description("Time orders wait between enqueue and dequeue")
+            .tag("queue", queue)
+            .publishPercentiles(0.5, 0.99, 0.999)
+            .publishPercentileHistogram()
+            .minimumExpectedValue(Duration.ofMillis(1))
+            .maximumExpectedValue(Duration.ofHours(2))
+            .register(registry);
+      Gauge.builder("order.queue.depth", delegate, QueueOperations::size)
+            .description("Orders waiting in the queue")
+            .tag("queue", queue)
+            .register(registry);
+      this.rejectedFull = InstrumentedOrderQueue.rejections(registry, queue, "full");
+      this.rejectedInvalid = InstrumentedOrderQueue.rejections(registry, queue, "invalid");
+      this.enqueuedByStatus = InstrumentedOrderQueue.throughput(registry, queue, "enqueued");
+      this.dequeuedByStatus = InstrumentedOrderQueue.throughput(registry, queue, "dequeued");
+      this.dequeueListeners = InstrumentedOrderQueue.NO_LISTENERS;
+      if (delegate instanceof MeterBinder binder) {
+         binder.bindTo(registry);
+      }
+   }
+
+   /**
+    * Registers a listener called with every order that leaves the queue,
+    * through {@link #dequeue}, {@link #drainTo}, {@link #take} or {@link #next},
+    * on the consumer's thread.
+    *
+    * @param listener the listener to add
+    */
+   public synchronized void addDequeueListener(Consumer<? super Order> listener) {
+      final Consumer<? super Order>[] listeners = Arrays.copyOf(this.dequeueListeners, this.dequeueListeners.length + 1);
+      listeners[listeners.length - 1] = listener;
+      this.dequeueListeners = listeners;
+   }
+
+   @Override
+   public void enqueue(Order order) {
+      if (order != null) {
+         order.setEnqueuedAtNanos(System.nanoTime());
+      }
+      try {
+         this.delegate.enqueue(order);
+      } catch (CustomException.QueueFullException e) {
+         this.rejectedFull.increment();
+         throw e;
+      } catch (CustomException.ValidationException e) {
+         this.rejectedInvalid.increment();
+         throw e;
+      }
+      this.enqueuedByStatus.get(order.getStatus()).increment();
+   }
+
+   @Override
+   public void enqueueAll(Collection<? extends Order> orders) {
+      final long now = System.nanoTime();
+      if (orders instanceof List<? extends Order> list && orders instanceof RandomAccess) {
+         for (int i = 0; i < list.size(); i++) {
+            InstrumentedOrderQueue.stamp(list.get(i), now);
+         }
+      } else {
+         for (Order order : orders) {
+            InstrumentedOrderQueue.stamp(order, now);
+         }
+      }
+      try {
+         this.delegate.enqueueAll(orders);
+      } catch (CustomException.QueueFullException e) {
+         this.rejectedFull.increment(orders.size());
+         throw e;
+      } catch (CustomException.ValidationException e) {
+         this.rejectedInvalid.increment(orders.size());
+         throw e;
+      }
+      if (orders instanceof List<? extends Order> list && orders instanceof RandomAccess) {
+         for (int i = 0; i < list.size(); i++) {
+            this.enqueuedByStatus.get(list.get(i).getStatus()).increment();
+         }
+      } else {
+         for (Order order : orders) {
+            this.enqueuedByStatus.get(order.getStatus()).increment();
+         }
+      }
+   }
+
+   @Override
+   public Optional<Order> dequeue() {
+      final Optional<Order> order = this.delegate.dequeue();
+      if (order.isPresent()) {
+         this.recordDequeue(order.get());
+      }
+      return order;
+   }
+
+   @Override
+   public int drainTo(Collection<? super Order> target, int maxItems) {
+      final List<Order> buffer = InstrumentedOrderQueue.DRAIN_BUFFER.get();
+      try {
+         final int drained = this.delegate.drainTo(buffer, maxItems);
+         // Handed over one by one, since addAll would copy the buffer into a fresh array
+         for (int i = 0; i < drained; i++) {
+            target.add(buffer.get(i));
+         }
+         for (int i = 0; i < drained; i++) {
+            this.recordDequeue(buffer.get(i));
+         }
+         return drained;
+      } finally {
+         buffer.clear();
+      }
+   }
+
+   @Override
+   public Optional<Order> take(long timeout, TimeUnit unit) throws InterruptedException {
+      final Optional<Order> order = this.delegate.take(timeout, unit);
+      if (order.isPresent()) {
+         this.recordDequeue(order.get());
+      }
+      return order;
+   }
+
+   @Override
+   public CompletableFuture<Order> next() {
+      // Hand back the delegate's own future so that cancelling it still withdraws the request
+      final CompletableFuture<Order> next = this.delegate.next();
+      next.thenAccept(this::recordDequeue);
+      return next;
+   }
+
+   @Override
+   public Optional<Order> peek() {
+      return this.delegate.peek();
+   }
+
+   @Override
+   public boolean isEmpty() {
+      return this.delegate.isEmpty();
+   }
+
+   @Override
+   public int size() {
+      return this.delegate.size();
+   }
+
+   @Override
+   public void clear() {
+      this.delegate.clear();
+   }
+
+   /**
+    * @return the wrapped queue
+    */
+   public QueueOperations<Order> getDelegate() {
+      return this.delegate;
+   }
+
+   private void recordDequeue(Order order) {
+      final long enqueuedAt = order.getEnqueuedAtNanos();
+      // Orders recovered from disk were never stamped in this process
+      if (enqueuedAt != 0) {
+         this.waitTimer.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+      }
+      this.dequeuedByStatus.get(order.getStatus()).increment();
+      final Consumer<? super Order>[] listeners = this.dequeueListeners;
+      for (int i = 0; i < listeners.length; i++) {
+         try {
+            listeners[i].accept(order);
+         } catch (RuntimeException e) {
+            // The order has already left the queue, so a broken listener must not lose it
+            InstrumentedOrderQueue.logger.log(Level.WARNING, e,
+                  () -> "Dequeue listener failed for order " + order.getId());
+         }
+      }
+   }
+
+   private static void stamp(Order order, long now) {
+      if (order != null) {
+         order.setEnqueuedAtNanos(now);
+      }
+   }
+
+   private static Counter rejections(MeterRegistry registry, String queue, String reason) {
+      return Counter.builder("order.queue.rejections")
+            .description("Orders the queue refused")
+            .tag("queue", queue)
+            .tag("reason", reason)
+            .register(registry);
+   }
+
+   private static Map<OrderStatus, Counter> throughput(MeterRegistry registry, String queue, String operation) {
+      final Map<OrderStatus, Counter> counters = new EnumMap<>(OrderStatus.class);
+      for (OrderStatus status : OrderStatus.values()) {
+         counters.put(status, Counter.builder("order.queue.orders")
+               .description("Orders passing through the queue")
+               .tag("queue", queue)
+               .tag("operation", operation)
+               .tag("status", status.name())
+               .register(registry));
+      }
+      return counters;
+   }
+}
@@ -1,47 +1,163 @@
 package queue;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
 
 import model.Order;
 import validation.OrderValidator;
 
 public class OrderQueue implements QueueOperations<Order> {
-   private final LinkedList<Order> queue;
+   // Waiting orders keyed by ticket, in arrival order, so a cancel can unlink one directly
+   private final LinkedHashMap<Long, Order> queue;
    private final int maxSize;
    private final OrderValidator validator;
+   private final ConsumerWaiters<Order> waiters;
+
+   // Every enqueued order draws a monotonically increasing ticket; an order's
+   // position is its distance from the ticket at the head of the queue, minus
+   // any cancelled tickets that still sit between the two.
+   private final Map<Long, Long> ticketsById;
+   private final NavigableSet<Long> cancelledTickets;
+   private long nextTicket;
+   private volatile long headTicket;
+   // Odd while a mutation is in flight, so lock-free readers can detect and retry torn reads
+   private volatile long version;
 
    public OrderQueue(int maxSize) {
-      this.queue = new LinkedList<>();
+      this.queue = new LinkedHashMap<>();
       this.maxSize = maxSize;
       this.validator = new OrderValidator();
+      this.waiters = new ConsumerWaiters<>(this);
+      this.ticketsById = new ConcurrentHashMap<>();
+      this.cancelledTickets = new ConcurrentSkipListSet<>();
    }
 
    @Override
-   public synchronized void enqueue(Order order) throws CustomException.QueueFullException {
-      try {
-         if (this.queue.size() >= this.maxSize) {
-            throw new CustomException.QueueFullException("Order queue is at maximum capacity");
-         }
+   public void enqueue(Order order) throws CustomException.QueueFullException {
+      synchronized (this) {
+         try {
+            if (this.queue.size() >= this.maxSize) {
+               throw new CustomException.QueueFullException("Order queue is at maximum capacity");
+            }
 
-         this.validator.validateOrder(order);
-         this.queue.add(order);
-      } catch (CustomException.QueueFullException e) {
-         System.err.println("Error in enqueue: " + e.getMessage());
-         throw e;
+            this.validator.validateOrder(order);
+            this.checkNotQueued(order);
+            this.beginWrite();
+            try {
+               this.add(order);
+            } finally {
+               this.endWrite();
+            }
+         } catch (CustomException.QueueFullException e) {
+            System.err.println("Error in enqueue: " + e.getMessage());
+            throw e;
+         }
       }
+      this.waiters.signal(1);
    }
 
    @Override
    public synchronized Optional<Order> dequeue() {
-      return Optional.ofNullable(this.queue.poll());
+      final Order order = this.poll();
+      if (order != null) {
+         this.beginWrite();
+         try {
+            this.ticketsById.remove(order.getId());
+            this.advanceHead();
+         } finally {
+            this.endWrite();
+         }
+      }
+      return Optional.ofNullable(order);
+   }
+
+   /**
+    * Validates and enqueues the orders under a single lock acquisition. The
+    * batch is rejected as a whole if any order is invalid or already queued,
+    * or it does not fit.
+    */
+   @Override
+   public void enqueueAll(Collection<? extends Order> orders) throws CustomException.QueueFullException {
+      synchronized (this) {
+         try {
+            if (this.queue.size() + orders.size() > this.maxSize) {
+               throw new CustomException.QueueFullException(
+                     "Order queue cannot accept " + orders.size() + " more orders");
+            }
+         } catch (CustomException.QueueFullException e) {
+            System.err.println("Error in enqueueAll: " + e.getMessage());
+            throw e;
+         }
+
+         final Set<Long> batch = new HashSet<>();
+         for (Order order : orders) {
+            this.validator.validateOrder(order);
+            this.checkNotQueued(order);
+            if (!batch.add(order.getId())) {
+               throw new IllegalArgumentException("Order " + order.getId() + " appears twice in the batch");
+            }
+         }
+
+         this.beginWrite();
+         try {
+            for (Order order : orders) {
+               this.add(order);
+            }
+         } finally {
+            this.endWrite();
+         }
+      }
+      this.waiters.signal(orders.size());
+   }
+
+   @Override
+   public Optional<Order> take(long timeout, TimeUnit unit) throws InterruptedException {
+      return this.waiters.take(timeout, unit);
+   }
+
+   @Override
+   public CompletableFuture<Order> next() {
+      return this.waiters.next();
+   }
+
+   @Override
+   public synchronized int drainTo(Collection<? super Order> target, int maxItems) {
+      int drained = 0;
+      this.beginWrite();
+      try {
+         while (drained < maxItems) {
+            final Order order = this.poll();
+            if (order == null) {
+               break;
+            }
+            this.ticketsById.remove(order.getId());
+            target.add(order);
+            drained++;
+         }
+         if (drained > 0) {
+            this.advanceHead();
+         }
+      } finally {
+         this.endWrite();
+      }
+      return drained;
    }
 
    @Override
-   public Optional<Order> peek() {
-      return Optional.ofNullable(this.queue.peek());
+   public synchronized Optional<Order> peek() {
+      return Optional.ofNullable(this.queue.isEmpty() ? null : this.queue.values().iterator().next());
    }
 
    @Override
@@ -55,22 +171,118 @@ public class OrderQueue implements QueueOperations<Order> {
    }
 
    @Override
-   public void clear() {
-      this.queue.clear();
+   public synchronized void clear() {
+      this.beginWrite();
+      try {
+         this.queue.clear();
+         this.ticketsById.clear();
+         this.cancelledTickets.clear();
+         this.headTicket = this.nextTicket;
+      } finally {
+         this.endWrite();
+      }
+   }
+
+   public synchronized List<Order> getPendingOrders() {
+      return new ArrayList<>(this.queue.values());
+   }
+
+   /**
+    * Removes a waiting order from the queue in constant time, by unlinking
+    * it under its ticket.
+    *
+    * @param orderId the ID of the order to cancel
+    * @return true if the order was waiting and has been removed
+    */
+   public synchronized boolean cancel(Long orderId) {
+      final Long ticket = this.ticketsById.get(orderId);
+      if (ticket == null) {
+         return false;
+      }
+
+      this.beginWrite();
+      try {
+         this.ticketsById.remove(orderId);
+         this.queue.remove(ticket);
+         if (ticket == this.headTicket) {
+            this.advanceHead();
+         } else {
+            this.cancelledTickets.add(ticket);
+         }
+      } finally {
+         this.endWrite();
+      }
+      return true;
    }
 
-   public List<Order> getPendingOrders() {
-      return new ArrayList<>(this.queue);
+   public int getPositionInQueue(Order order) {
+      return this.getPositionInQueue(order.getId());
    }
 
-   public synchronized int getPositionInQueue(Order order) {
-      int position = 1;
-      for (Order o : this.queue) {
-         if (o.getId().equals(order.getId())) {
-            return position;
+   /**
+    * Returns the 1-based position of an order without taking the queue lock.
+    *
+    * <p>The cost is constant apart from a walk over orders cancelled ahead of
+    * this one, which are rare and pruned as the head moves past them.
+    *
+    * @param orderId the ID of the order to locate
+    * @return the position of the order, or -1 if it is not waiting in the queue
+    */
+   public int getPositionInQueue(Long orderId) {
+      while (true) {
+         final long observed = this.version;
+         if ((observed & 1) != 0) {
+            Thread.onSpinWait();
+            continue;
+         }
+
+         final Long ticket = this.ticketsById.get(orderId);
+         final long head = this.headTicket;
+         // Counting a skip-list range walks it, so this is linear in the cancellations still ahead
+         final int cancelledAhead = ticket == null ? 0 : this.cancelledTickets.subSet(head, ticket).size();
+
+         if (this.version == observed) {
+            return ticket == null ? -1 : (int) (ticket - head - cancelledAhead + 1);
          }
-         position++;
       }
-      return -1; // Order not found in queue
+   }
+
+   /**
+    * @throws IllegalArgumentException if an order with the same ID is waiting,
+    *                                  which would overwrite its ticket
+    */
+   private void checkNotQueued(Order order) {
+      if (this.ticketsById.containsKey(order.getId())) {
+         throw new IllegalArgumentException("Order " + order.getId() + " is already queued");
+      }
+   }
+
+   private void add(Order order) {
+      final long ticket = this.nextTicket++;
+      this.queue.put(ticket, order);
+      this.ticketsById.put(order.getId(), ticket);
+   }
+
+   private Order poll() {
+      final Iterator<Order> iterator = this.queue.values().iterator();
+      if (!iterator.hasNext()) {
+         return null;
+      }
+      final Order order = iterator.next();
+      iterator.remove();
+      return order;
+   }
+
+   private void advanceHead() {
+      this.headTicket = this.queue.isEmpty() ? this.nextTicket : this.queue.keySet().iterator().next();
+      this.cancelledTickets.headSet(this.headTicket).clear();
+   }
+
+   private void beginWrite() {
+      this.version++;
+   }
+
+   private void endWrite() {
+      this.version++;
    }
 }
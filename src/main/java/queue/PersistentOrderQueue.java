@@ -0,0 +1,192 @@
+package queue;
+
+import java.io.Closeable;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import model.Order;
+import persistence.FsyncPolicy;
+import persistence.OrderCodec;
+import persistence.SegmentedLog;
+import validation.OrderValidator;
+
+/**
+ * FIFO order queue that survives a JVM restart.
+ *
+ * <p>Every enqueued order is appended to a memory-mapped {@link SegmentedLog}
+ * before it becomes visible to consumers, and every dequeue advances the log's
+ * consumer offset. On startup the queue replays the log from that offset, so
+ * exactly the orders that were waiting come back, in their original order.
+ *
+ * <p>Enqueue latency versus durability is governed by the log's
+ * {@link FsyncPolicy}; durability waits happen outside the queue lock, so
+ * concurrent producers share one fsync under group commit.
+ */
+public class PersistentOrderQueue implements QueueOperations<Order>, Closeable {
+   public static final String DIRECTORY_PROPERTY = "order.queue.dir";
+   public static final String FSYNC_PROPERTY = "order.queue.fsync";
+   public static final String FLUSH_INTERVAL_PROPERTY = "order.queue.flush.interval.ms";
+
+   private static final Logger logger = Logger.getLogger(PersistentOrderQueue.class.getName());
+
+   private final SegmentedLog log;
+   private final ArrayDeque<Order> pending;
+   private final int maxSize;
+   private final OrderValidator validator;
+   private final OrderCodec codec;
+   private final ConsumerWaiters<Order> waiters;
+   private long consumed;
+
+   public PersistentOrderQueue(int maxSize, Path directory, FsyncPolicy fsyncPolicy, Duration flushInterval) {
+      this.log = new SegmentedLog(directory, SegmentedLog.DEFAULT_SEGMENT_BYTES, fsyncPolicy, flushInterval);
+      this.pending = new ArrayDeque<>();
+      this.maxSize = maxSize;
+      this.validator = new OrderValidator();
+      this.codec = new OrderCodec();
+      this.waiters = new ConsumerWaiters<>(this);
+
+      this.consumed = this.log.getConsumerOffset();
+      this.log.replay(this.consumed, (sequence, payload) -> this.pending.add(OrderCodec.read(payload)));
+      if (!this.pending.isEmpty()) {
+         PersistentOrderQueue.logger.info(() -> String.format("Recovered %d queued orders from %s",
+               this.pending.size(), directory));
+      }
+   }
+
+   /**
+    * Creates a queue configured from the {@value #DIRECTORY_PROPERTY},
+    * {@value #FSYNC_PROPERTY} and {@value #FLUSH_INTERVAL_PROPERTY} system
+    * properties, defaulting to group commit every 5 ms under {@code build/order-queue}.
+    *
+    * @param maxSize the maximum number of orders the queue may hold
+    * @return the recovered queue
+    */
+   public static PersistentOrderQueue fromSystemProperties(int maxSize) {
+      final Path directory = Path.of(System.getProperty(PersistentOrderQueue.DIRECTORY_PROPERTY, "build/order-queue"));
+      final FsyncPolicy policy = FsyncPolicy.valueOf(
+            System.getProperty(PersistentOrderQueue.FSYNC_PROPERTY, FsyncPolicy.GROUP_COMMIT.name())
+                  .trim().toUpperCase(Locale.ROOT));
+      final Duration flushInterval = Duration.ofMillis(
+            Long.getLong(PersistentOrderQueue.FLUSH_INTERVAL_PROPERTY, 5L));
+      return new PersistentOrderQueue(maxSize, directory, policy, flushInterval);
+   }
+
+   @Override
+   public void enqueue(Order order) throws CustomException.QueueFullException {
+      final long sequence;
+      synchronized (this) {
+         try {
+            if (this.pending.size() >= this.maxSize) {
+               throw new CustomException.QueueFullException("Order queue is at maximum capacity");
+            }
+         } catch (CustomException.QueueFullException e) {
+            System.err.println("Error in enqueue: " + e.getMessage());
+            throw e;
+         }
+
+         this.validator.validateOrder(order);
+         sequence = this.log.append(this.codec.encode(order));
+         this.pending.add(order);
+      }
+      this.log.commit(sequence);
+      this.waiters.signal(1);
+   }
+
+   @Override
+   public void enqueueAll(Collection<? extends Order> orders) throws CustomException.QueueFullException {
+      long last = -1;
+      synchronized (this) {
+         try {
+            if (this.pending.size() + orders.size() > this.maxSize) {
+               throw new CustomException.QueueFullException(
+                     "Order queue cannot accept " + orders.size() + " more orders");
+            }
+         } catch (CustomException.QueueFullException e) {
+            System.err.println("Error in enqueueAll: " + e.getMessage());
+            throw e;
+         }
+
+         for (Order order : orders) {
+            this.validator.validateOrder(order);
+         }
+         for (Order order : orders) {
+            last = this.log.append(this.codec.encode(order));
+            this.pending.add(order);
+         }
+      }
+      if (last >= 0) {
+         this.log.commit(last);
+         this.waiters.signal(orders.size());
+      }
+   }
+
+   @Override
+   public synchronized Optional<Order> dequeue() {
+      final Order order = this.pending.poll();
+      if (order != null) {
+         this.log.storeConsumerOffset(++this.consumed);
+      }
+      return Optional.ofNullable(order);
+   }
+
+   @Override
+   public synchronized int drainTo(Collection<? super Order> target, int maxItems) {
+      int drained = 0;
+      while (drained < maxItems && !this.pending.isEmpty()) {
+         target.add(this.pending.poll());
+         drained++;
+      }
+      if (drained > 0) {
+         this.consumed += drained;
+         this.log.storeConsumerOffset(this.consumed);
+      }
+      return drained;
+   }
+
+   @Override
+   public Optional<Order> take(long timeout, TimeUnit unit) throws InterruptedException {
+      return this.waiters.take(timeout, unit);
+   }
+
+   @Override
+   public CompletableFuture<Order> next() {
+      return this.waiters.next();
+   }
+
+   @Override
+   public synchronized Optional<Order> peek() {
+      return Optional.ofNullable(this.pending.peek());
+   }
+
+   @Override
+   public synchronized boolean isEmpty() {
+      return this.pending.isEmpty();
+   }
+
+   @Override
+   public synchronized int size() {
+      return this.pending.size();
+   }
+
+   @Override
+   public synchronized void clear() {
+      this.consumed += this.pending.size();
+      this.pending.clear();
+      this.log.storeConsumerOffset(this.consumed);
+   }
+
+   /**
+    * Flushes outstanding records and releases the log files.
+    */
+   @Override
+   public void close() {
+      this.log.close();
+   }
+}
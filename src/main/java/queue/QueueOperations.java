@@ -1,6 +1,9 @@
 package queue;
 
+import java.util.Collection;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 public interface QueueOperations<T> {
    void enqueue(T item);
@@ -14,4 +17,58 @@ public interface QueueOperations<T> {
    int size();
 
    void clear();
-}
\ No newline at end of file
+
+   /**
+    * Removes the next item, parking the calling thread until one is enqueued
+    * or the timeout elapses.
+    *
+    * @param timeout how long to wait
+    * @param unit    the unit of the timeout
+    * @return the next item, or empty if none arrived in time
+    * @throws InterruptedException if the thread is interrupted while waiting
+    */
+   Optional<T> take(long timeout, TimeUnit unit) throws InterruptedException;
+
+   /**
+    * Returns a future that completes with the next item as soon as one is
+    * enqueued, without holding a thread while it waits. Cancelling the future
+    * withdraws the request.
+    *
+    * @return a future for the next item
+    */
+   CompletableFuture<T> next();
+
+   /**
+    * Enqueues every item in the collection. Implementations should accept
+    * either all of the items or none of them; this default falls back to
+    * one {@link #enqueue} per item and offers no such guarantee.
+    *
+    * @param items the items to enqueue, in order
+    */
+   default void enqueueAll(Collection<? extends T> items) {
+      for (T item : items) {
+         this.enqueue(item);
+      }
+   }
+
+   /**
+    * Removes up to {@code maxItems} items from the head of the queue and adds
+    * them to the target collection in queue order.
+    *
+    * @param target   the collection to receive the items
+    * @param maxItems the maximum number of items to remove
+    * @return the number of items moved into the target
+    */
+   default int drainTo(Collection<? super T> target, int maxItems) {
+      int drained = 0;
+      while (drained < maxItems) {
+         final Optional<T> item = this.dequeue();
+         if (item.isEmpty()) {
+            break;
+         }
+         target.add(item.get());
+         drained++;
+      }
+      return drained;
+   }
+}
@@ -0,0 +1,59 @@
+package queue;
+
+import java.util.Locale;
+import java.util.logging.Logger;
+
+import model.Order;
+
+/**
+ * The order queue implementations that can back an {@code OrderManager}.
+ *
+ * <p>The active type is read from the {@value #PROPERTY} system property so a
+ * deployment can switch implementations without a code change.
+ */
+public enum QueueType {
+   LINKED,
+   RING_BUFFER,
+   DEADLINE,
+   SHARDED,
+   PERSISTENT;
+
+   public static final String PROPERTY = "order.queue.type";
+
+   private static final Logger logger = Logger.getLogger(QueueType.class.getName());
+
+   /**
+    * Creates a queue of this type.
+    *
+    * @param capacity the maximum number of orders the queue may hold, or each
+    *                 zone may hold for {@link #SHARDED}
+    * @return a new, empty queue
+    */
+   public QueueOperations<Order> create(int capacity) {
+      return switch (this) {
+         case LINKED -> new OrderQueue(capacity);
+         case RING_BUFFER -> new RingBufferOrderQueue(capacity);
+         case DEADLINE -> new DeadlineOrderQueue(capacity);
+         case SHARDED -> new ShardedOrderQueue(capacity);
+         case PERSISTENT -> PersistentOrderQueue.fromSystemProperties(capacity);
+      };
+   }
+
+   /**
+    * Resolves the configured queue type, falling back to {@link #LINKED}.
+    *
+    * @return the queue type named by the {@value #PROPERTY} system property
+    */
+   public static QueueType fromSystemProperty() {
+      final String configured = System.getProperty(QueueType.PROPERTY);
+      if (configured == null || configured.isBlank()) {
+         return LINKED;
+      }
+      try {
+         return QueueType.valueOf(configured.trim().toUpperCase(Locale.ROOT));
+      } catch (IllegalArgumentException e) {
+         QueueType.logger.warning("Unknown order queue type '" + configured + "', using LINKED");
+         return LINKED;
+      }
+   }
+}
@@ -0,0 +1,256 @@
+package queue;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import model.Order;
+import validation.OrderValidator;
+
+/**
+ * Lock-free, array-backed multi-producer/multi-consumer order queue.
+ *
+ * <p>Each slot carries a sequence number that tells producers and consumers
+ * whether it is free for the current lap of the ring. Producers and consumers
+ * claim positions with a single CAS on the tail or head counter, so no thread
+ * ever blocks another and no node is allocated per order.
+ *
+ * <p>{@link #peek()}, {@link #size()} and {@link #isEmpty()} are snapshots and
+ * may be stale by the time the caller acts on them.
+ */
+public class RingBufferOrderQueue implements QueueOperations<Order> {
+   private final AtomicReferenceArray<Order> slots;
+   private final AtomicLongArray sequences;
+   private final int capacity;
+   private final AtomicLong head;
+   private final AtomicLong tail;
+   private final OrderValidator validator;
+   private final ConsumerWaiters<Order> waiters;
+
+   public RingBufferOrderQueue(int capacity) {
+      if (capacity <= 0) {
+         throw new IllegalArgumentException("Queue capacity must be positive");
+      }
+      this.capacity = capacity;
+      this.slots = new AtomicReferenceArray<>(capacity);
+      this.sequences = new AtomicLongArray(capacity);
+      for (int i = 0; i < capacity; i++) {
+         this.sequences.set(i, i);
+      }
+      this.head = new AtomicLong();
+      this.tail = new AtomicLong();
+      this.validator = new OrderValidator();
+      this.waiters = new ConsumerWaiters<>(this);
+   }
+
+   @Override
+   public void enqueue(Order order) throws CustomException.QueueFullException {
+      this.validator.validateOrder(order);
+      if (!this.offer(order)) {
+         throw new CustomException.QueueFullException("Order queue is at maximum capacity");
+      }
+      this.waiters.signal(1);
+   }
+
+   @Override
+   public Optional<Order> dequeue() {
+      return Optional.ofNullable(this.poll());
+   }
+
+   /**
+    * Validates the orders, then claims a contiguous run of slots with one CAS
+    * on the tail. The batch is rejected as a whole if the run is not free.
+    */
+   @Override
+   public void enqueueAll(Collection<? extends Order> orders) throws CustomException.QueueFullException {
+      for (Order order : orders) {
+         this.validator.validateOrder(order);
+      }
+      final Order[] batch = orders.toArray(new Order[0]);
+      if (batch.length == 0) {
+         return;
+      }
+
+      final long position = this.claimRun(batch.length);
+      if (position < 0) {
+         throw new CustomException.QueueFullException(
+               "Order queue cannot accept " + batch.length + " more orders");
+      }
+      for (int i = 0; i < batch.length; i++) {
+         final int index = this.index(position + i);
+         this.slots.lazySet(index, batch[i]);
+         this.sequences.set(index, position + i + 1);
+      }
+      this.waiters.signal(batch.length);
+   }
+
+   @Override
+   public Optional<Order> take(long timeout, TimeUnit unit) throws InterruptedException {
+      return this.waiters.take(timeout, unit);
+   }
+
+   @Override
+   public CompletableFuture<Order> next() {
+      return this.waiters.next();
+   }
+
+   /**
+    * Claims every published order at the head, up to {@code maxItems}, with
+    * one CAS on the head counter.
+    */
+   @Override
+   public int drainTo(Collection<? super Order> target, int maxItems) {
+      if (maxItems <= 0) {
+         return 0;
+      }
+
+      long position = this.head.get();
+      while (true) {
+         int available = 0;
+         boolean stale = false;
+         while (available < maxItems) {
+            final long difference = this.sequences.get(this.index(position + available))
+                  - (position + available + 1);
+            if (difference == 0) {
+               available++;
+            } else {
+               stale = difference > 0;
+               break;
+            }
+         }
+
+         if (stale && available == 0) {
+            position = this.head.get();
+            continue;
+         }
+         if (available == 0) {
+            return 0;
+         }
+         if (this.head.compareAndSet(position, position + available)) {
+            for (int i = 0; i < available; i++) {
+               final int index = this.index(position + i);
+               target.add(this.slots.get(index));
+               this.slots.lazySet(index, null);
+               this.sequences.set(index, position + i + this.capacity);
+            }
+            return available;
+         }
+         position = this.head.get();
+      }
+   }
+
+   @Override
+   public Optional<Order> peek() {
+      while (true) {
+         final long position = this.head.get();
+         final int index = this.index(position);
+         if (this.sequences.get(index) != position + 1) {
+            return Optional.empty();
+         }
+         final Order order = this.slots.get(index);
+         // The slot is only ours to read if no consumer took it while we looked
+         if (this.sequences.get(index) == position + 1 && order != null) {
+            return Optional.of(order);
+         }
+      }
+   }
+
+   @Override
+   public boolean isEmpty() {
+      return this.size() == 0;
+   }
+
+   @Override
+   public int size() {
+      final long consumed = this.head.get();
+      final long produced = this.tail.get();
+      return (int) Math.max(0, Math.min(this.capacity, produced - consumed));
+   }
+
+   @Override
+   public void clear() {
+      while (this.poll() != null) {
+         // drain
+      }
+   }
+
+   public int getCapacity() {
+      return this.capacity;
+   }
+
+   private boolean offer(Order order) {
+      long position = this.tail.get();
+      while (true) {
+         final int index = this.index(position);
+         final long difference = this.sequences.get(index) - position;
+         if (difference == 0) {
+            if (this.tail.compareAndSet(position, position + 1)) {
+               this.slots.lazySet(index, order);
+               this.sequences.set(index, position + 1);
+               return true;
+            }
+            position = this.tail.get();
+         } else if (difference < 0) {
+            return false;
+         } else {
+            position = this.tail.get();
+         }
+      }
+   }
+
+   // Returns the first position of a run of free slots now owned by the caller, or -1 if the run does not fit
+   private long claimRun(int length) {
+      if (length > this.capacity) {
+         return -1;
+      }
+
+      long position = this.tail.get();
+      while (true) {
+         boolean stale = false;
+         for (int i = 0; i < length; i++) {
+            final long difference = this.sequences.get(this.index(position + i)) - (position + i);
+            if (difference < 0) {
+               return -1;
+            }
+            if (difference > 0) {
+               stale = true;
+               break;
+            }
+         }
+
+         if (!stale && this.tail.compareAndSet(position, position + length)) {
+            return position;
+         }
+         position = this.tail.get();
+      }
+   }
+
+   private Order poll() {
+      long position = this.head.get();
+      while (true) {
+         final int index = this.index(position);
+         final long difference = this.sequences.get(index) - (position + 1);
+         if (difference == 0) {
+            if (this.head.compareAndSet(position, position + 1)) {
+               final Order order = this.slots.get(index);
+               this.slots.lazySet(index, null);
+               this.sequences.set(index, position + this.capacity);
+               return order;
+            }
+            position = this.head.get();
+         } else if (difference < 0) {
+            return null;
+         } else {
+            position = this.head.get();
+         }
+      }
+   }
+
+   private int index(long position) {
+      return (int) (position % this.capacity);
+   }
+}
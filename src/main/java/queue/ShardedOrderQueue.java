@@ -0,0 +1,345 @@
+package queue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import model.Order;
+
+/**
+ * Order queue partitioned into per-zone shards, where a zone is the leading
+ * digits of an order's postal code.
+ *
+ * <p>Each shard is an independent {@link RingBufferOrderQueue} with its own
+ * capacity, so a lunch rush downtown neither contends with nor fills up the
+ * queue for the suburbs. A dispatcher that owns a zone calls
+ * {@link #dequeue(String)}, or parks in {@link #take(String, long, TimeUnit)};
+ * when its own shard is empty it steals from the busiest other shard. A new
+ * order wakes the dispatchers of its own zone first, and only the orders they
+ * leave over wake zone-less consumers and then other zones' dispatchers.
+ *
+ * <p>Once {@link #bindTo bound} to a registry, every shard publishes
+ * {@code order.queue.shard.depth} and {@code order.queue.shard.steals}, by
+ * {@code side} {@code victim} or {@code thief}, tagged with its {@code zone},
+ * so shard capacities can be sized from real traffic.
+ */
+public class ShardedOrderQueue implements QueueOperations<Order>, MeterBinder {
+   public static final String UNZONED = "unzoned";
+   public static final int DEFAULT_PREFIX_LENGTH = 3;
+
+   private final Map<String, Shard> shards;
+   private final Map<String, Integer> zoneCapacities;
+   private final int defaultShardCapacity;
+   private final int prefixLength;
+   private final ConsumerWaiters<Order> waiters;
+   private final List<MeterRegistry> registries;
+
+   public ShardedOrderQueue(int defaultShardCapacity) {
+      this(defaultShardCapacity, Map.of(), ShardedOrderQueue.DEFAULT_PREFIX_LENGTH);
+   }
+
+   /**
+    * Creates a sharded queue.
+    *
+    * @param defaultShardCapacity the capacity of zones without an explicit one
+    * @param zoneCapacities       explicit capacities keyed by zone
+    * @param prefixLength         how many leading postal-code characters name a zone
+    */
+   public ShardedOrderQueue(int defaultShardCapacity, Map<String, Integer> zoneCapacities, int prefixLength) {
+      if (defaultShardCapacity <= 0 || prefixLength <= 0) {
+         throw new IllegalArgumentException("Shard capacity and zone prefix length must be positive");
+      }
+      this.shards = new ConcurrentHashMap<>();
+      this.zoneCapacities = new HashMap<>(zoneCapacities);
+      this.defaultShardCapacity = defaultShardCapacity;
+      this.prefixLength = prefixLength;
+      this.waiters = new ConsumerWaiters<>(this);
+      this.registries = new CopyOnWriteArrayList<>();
+   }
+
+   @Override
+   public void enqueue(Order order) throws CustomException.QueueFullException {
+      final Shard shard = this.shardFor(this.zoneOf(order));
+      shard.queue.enqueue(order);
+      this.signal(shard, 1);
+   }
+
+   /**
+    * Enqueues the orders zone by zone. Each zone's batch is accepted or
+    * rejected as a whole, but batches already accepted for other zones stay.
+    */
+   @Override
+   public void enqueueAll(Collection<? extends Order> orders) throws CustomException.QueueFullException {
+      final Map<String, List<Order>> byZone = new HashMap<>();
+      for (Order order : orders) {
+         byZone.computeIfAbsent(this.zoneOf(order), zone -> new ArrayList<>()).add(order);
+      }
+      final Map<Shard, Integer> accepted = new HashMap<>();
+      try {
+         for (Map.Entry<String, List<Order>> entry : byZone.entrySet()) {
+            final Shard shard = this.shardFor(entry.getKey());
+            shard.queue.enqueueAll(entry.getValue());
+            accepted.put(shard, entry.getValue().size());
+         }
+      } finally {
+         accepted.forEach(this::signal);
+      }
+   }
+
+   /**
+    * Dequeues from the busiest shard, for consumers that do not own a zone.
+    */
+   @Override
+   public Optional<Order> dequeue() {
+      final Shard busiest = this.busiestShard(null);
+      return busiest == null ? Optional.empty() : busiest.queue.dequeue();
+   }
+
+   @Override
+   public Optional<Order> take(long timeout, TimeUnit unit) throws InterruptedException {
+      return this.waiters.take(timeout, unit);
+   }
+
+   @Override
+   public CompletableFuture<Order> next() {
+      return this.waiters.next();
+   }
+
+   /**
+    * Waits for the next order for the dispatcher that owns {@code zone},
+    * stealing from the busiest other shard when the zone has nothing waiting.
+    *
+    * @param zone    the zone owned by the calling dispatcher
+    * @param timeout how long to wait
+    * @param unit    the unit of {@code timeout}
+    * @return the next order, or empty if none arrived in time
+    * @throws InterruptedException if interrupted while waiting
+    */
+   public Optional<Order> take(String zone, long timeout, TimeUnit unit) throws InterruptedException {
+      return this.shardFor(zone).waiters.take(timeout, unit);
+   }
+
+   /**
+    * Dequeues for the dispatcher that owns {@code zone}, stealing from the
+    * busiest other shard when the zone has nothing waiting.
+    *
+    * @param zone the zone owned by the calling dispatcher
+    * @return the next order for the dispatcher, or empty if every shard is empty
+    */
+   public Optional<Order> dequeue(String zone) {
+      final Shard home = this.shardFor(zone);
+      final Optional<Order> own = home.queue.dequeue();
+      if (own.isPresent()) {
+         return own;
+      }
+
+      final Shard victim = this.busiestShard(home);
+      if (victim == null) {
+         return Optional.empty();
+      }
+      final Optional<Order> stolen = victim.queue.dequeue();
+      if (stolen.isPresent()) {
+         victim.stolenFrom.increment();
+         home.stolenBy.increment();
+      }
+      return stolen;
+   }
+
+   @Override
+   public int drainTo(Collection<? super Order> target, int maxItems) {
+      int drained = 0;
+      Shard busiest;
+      while (drained < maxItems && (busiest = this.busiestShard(null)) != null) {
+         final int moved = busiest.queue.drainTo(target, maxItems - drained);
+         if (moved == 0) {
+            break;
+         }
+         drained += moved;
+      }
+      return drained;
+   }
+
+   @Override
+   public Optional<Order> peek() {
+      final Shard busiest = this.busiestShard(null);
+      return busiest == null ? Optional.empty() : busiest.queue.peek();
+   }
+
+   @Override
+   public boolean isEmpty() {
+      for (Shard shard : this.shards.values()) {
+         if (!shard.queue.isEmpty()) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   @Override
+   public int size() {
+      int size = 0;
+      for (Shard shard : this.shards.values()) {
+         size += shard.queue.size();
+      }
+      return size;
+   }
+
+   /**
+    * @param zone the zone to report on
+    * @return how many orders the zone's shard holds
+    */
+   public int size(String zone) {
+      final Shard shard = this.shards.get(zone);
+      return shard == null ? 0 : shard.queue.size();
+   }
+
+   @Override
+   public void clear() {
+      this.shards.values().forEach(shard -> shard.queue.clear());
+   }
+
+   /**
+    * Returns the zone an order is routed to.
+    *
+    * @param order the order to route
+    * @return the leading postal-code digits, or {@link #UNZONED}
+    */
+   public String zoneOf(Order order) {
+      final String postalCode = order == null ? null : order.getPostalCode();
+      if (postalCode == null || postalCode.length() < this.prefixLength) {
+         return ShardedOrderQueue.UNZONED;
+      }
+      return postalCode.substring(0, this.prefixLength);
+   }
+
+   public Map<String, Integer> getShardDepths() {
+      final Map<String, Integer> depths = new TreeMap<>();
+      this.shards.forEach((zone, shard) -> depths.put(zone, shard.queue.size()));
+      return depths;
+   }
+
+   /**
+    * @param zone the zone to report on
+    * @return how many of the zone's orders were dispatched by other zones
+    */
+   public long getStolenFromCount(String zone) {
+      final Shard shard = this.shards.get(zone);
+      return shard == null ? 0 : shard.stolenFrom.sum();
+   }
+
+   /**
+    * @param zone the zone to report on
+    * @return how many orders the zone's dispatcher took from other zones
+    */
+   public long getStolenByCount(String zone) {
+      final Shard shard = this.shards.get(zone);
+      return shard == null ? 0 : shard.stolenBy.sum();
+   }
+
+   public int getShardCapacity(String zone) {
+      return this.zoneCapacities.getOrDefault(zone, this.defaultShardCapacity);
+   }
+
+   /**
+    * Registers the meters of every shard, and of every shard created later.
+    */
+   @Override
+   public void bindTo(MeterRegistry registry) {
+      this.registries.add(registry);
+      this.shards.values().forEach(shard -> shard.bindTo(registry));
+   }
+
+   private Shard shardFor(String zone) {
+      final Shard existing = this.shards.get(zone);
+      if (existing != null) {
+         return existing;
+      }
+      final Shard created = new Shard(zone, this.getShardCapacity(zone));
+      final Shard raced = this.shards.putIfAbsent(zone, created);
+      if (raced != null) {
+         return raced;
+      }
+      // Registered by the creating thread, outside the map's bin lock
+      this.registries.forEach(created::bindTo);
+      return created;
+   }
+
+   /**
+    * Wakes consumers for orders just published to {@code shard}: its own
+    * dispatchers first, then consumers without a zone, then other zones'
+    * dispatchers, which would steal them.
+    */
+   private void signal(Shard shard, int count) {
+      int remaining = count - shard.waiters.signal(count);
+      if (remaining > 0) {
+         remaining -= this.waiters.signal(remaining);
+      }
+      for (Shard other : this.shards.values()) {
+         if (remaining <= 0) {
+            return;
+         }
+         if (other != shard) {
+            remaining -= other.waiters.signal(remaining);
+         }
+      }
+   }
+
+   private Shard busiestShard(Shard excluded) {
+      Shard busiest = null;
+      int deepest = 0;
+      for (Shard shard : this.shards.values()) {
+         final int depth = shard.queue.size();
+         if (shard != excluded && depth > deepest) {
+            busiest = shard;
+            deepest = depth;
+         }
+      }
+      return busiest;
+   }
+
+   private final class Shard {
+      private final String zone;
+      private final RingBufferOrderQueue queue;
+      private final LongAdder stolenFrom = new LongAdder();
+      private final LongAdder stolenBy = new LongAdder();
+      // The zone's own dispatchers, who may steal once the shard is empty
+      private final ConsumerWaiters<Order> waiters;
+
+      private Shard(String zone, int capacity) {
+         this.zone = zone;
+         this.queue = new RingBufferOrderQueue(capacity);
+         this.waiters = new ConsumerWaiters<>(() -> ShardedOrderQueue.this.dequeue(zone),
+               ShardedOrderQueue.this::isEmpty);
+      }
+
+      private void bindTo(MeterRegistry registry) {
+         Gauge.builder("order.queue.shard.depth", this.queue, QueueOperations::size)
+               .description("Orders waiting in a zone's shard")
+               .tag("zone", this.zone)
+               .register(registry);
+         FunctionCounter.builder("order.queue.shard.steals", this.stolenFrom, LongAdder::sum)
+               .description("Orders dispatched by a zone other than their own")
+               .tag("zone", this.zone)
+               .tag("side", "victim")
+               .register(registry);
+         FunctionCounter.builder("order.queue.shard.steals", this.stolenBy, LongAdder::sum)
+               .description("Orders dispatched by a zone other than their own")
+               .tag("zone", this.zone)
+               .tag("side", "thief")
+               .register(registry);
+      }
+   }
+}
@@ -0,0 +1,223 @@
+package scheduler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel for timeouts that lie hours or days ahead.
+ *
+ * <p>Each level has 64 slots; a slot on level {@code n} spans 64<sup>n</sup>
+ * ticks. A timeout is filed under the coarsest level whose range covers its
+ * distance from now and is moved to finer levels as the wheel turns, so every
+ * timeout is handled a bounded number of times regardless of how many are
+ * pending. Slots are circular lists of intrusive nodes, which makes both
+ * {@link #schedule} and {@link #cancel} constant time.
+ *
+ * <p>Ticks are aligned to the epoch and a timeout fires on the first tick at
+ * or after its deadline, never before it. The wheel is not thread-safe.
+ *
+ * @param <T> the type of value held by each timeout
+ */
+public class HierarchicalTimingWheel<T> {
+   private static final int SLOT_BITS = 6;
+   private static final int SLOTS = 1 << HierarchicalTimingWheel.SLOT_BITS;
+   private static final int SLOT_MASK = HierarchicalTimingWheel.SLOTS - 1;
+   // 2^36 ticks, which at one-second ticks is over two thousand years
+   private static final int LEVELS = 6;
+
+   /**
+    * A pending entry in the wheel, returned so that it can be cancelled.
+    */
+   public static final class Timeout<T> {
+      private final T value;
+      private final long deadlineMillis;
+      private final long deadlineTick;
+      private Timeout<T> prev;
+      private Timeout<T> next;
+
+      private Timeout(T value, long deadlineMillis, long deadlineTick) {
+         this.value = value;
+         this.deadlineMillis = deadlineMillis;
+         this.deadlineTick = deadlineTick;
+      }
+
+      public T getValue() {
+         return this.value;
+      }
+
+      public long getDeadlineMillis() {
+         return this.deadlineMillis;
+      }
+
+      /**
+       * @return whether the timeout is still waiting in a wheel
+       */
+      public boolean isPending() {
+         return this.next != null;
+      }
+   }
+
+   private final long tickMillis;
+   // The sentinel heading each slot's list, by level and slot
+   private final List<List<Timeout<T>>> wheels;
+   private final Timeout<T> overdue;
+   private long currentTick;
+   private int size;
+
+   /**
+    * Creates an empty wheel.
+    *
+    * @param tick      the resolution of the wheel
+    * @param nowMillis the current time in epoch milliseconds
+    */
+   public HierarchicalTimingWheel(Duration tick, long nowMillis) {
+      this.tickMillis = tick.toMillis();
+      if (this.tickMillis <= 0) {
+         throw new IllegalArgumentException("Tick must be at least one millisecond");
+      }
+      this.wheels = new ArrayList<>(HierarchicalTimingWheel.LEVELS);
+      for (int level = 0; level < HierarchicalTimingWheel.LEVELS; level++) {
+         final List<Timeout<T>> slots = new ArrayList<>(HierarchicalTimingWheel.SLOTS);
+         for (int slot = 0; slot < HierarchicalTimingWheel.SLOTS; slot++) {
+            slots.add(HierarchicalTimingWheel.sentinel());
+         }
+         this.wheels.add(slots);
+      }
+      this.overdue = HierarchicalTimingWheel.sentinel();
+      this.currentTick = Math.floorDiv(nowMillis, this.tickMillis);
+   }
+
+   /**
+    * Schedules a value to fire at the first tick at or after a deadline. A
+    * deadline that has already passed fires on the next {@link #advance}.
+    *
+    * @param value          the value to hand back when the timeout fires
+    * @param deadlineMillis the deadline in epoch milliseconds
+    * @return the timeout, for cancellation
+    */
+   public Timeout<T> schedule(T value, long deadlineMillis) {
+      final long deadlineTick = -Math.floorDiv(-deadlineMillis, this.tickMillis);
+      final Timeout<T> timeout = new Timeout<>(value, deadlineMillis, deadlineTick);
+      if (deadlineTick <= this.currentTick) {
+         HierarchicalTimingWheel.link(this.overdue, timeout);
+      } else {
+         this.file(timeout);
+      }
+      this.size++;
+      return timeout;
+   }
+
+   /**
+    * Removes a pending timeout from the wheel.
+    *
+    * @param timeout the timeout returned by {@link #schedule}
+    * @return true if the timeout was pending, false if it had fired or was already cancelled
+    */
+   public boolean cancel(Timeout<T> timeout) {
+      if (!timeout.isPending()) {
+         return false;
+      }
+      HierarchicalTimingWheel.unlink(timeout);
+      this.size--;
+      return true;
+   }
+
+   /**
+    * Turns the wheel up to the given time, handing every timeout that falls
+    * due to {@code expired} in deadline-tick order.
+    *
+    * @param nowMillis the current time in epoch milliseconds
+    * @param expired   receives the value of each timeout that fired
+    * @return the number of timeouts that fired
+    */
+   public int advance(long nowMillis, Consumer<? super T> expired) {
+      final long targetTick = Math.floorDiv(nowMillis, this.tickMillis);
+      int fired = this.expire(this.overdue, expired);
+      while (this.currentTick < targetTick) {
+         if (this.size == 0) {
+            // Nothing to cascade or fire, so skip the idle ticks outright
+            this.currentTick = targetTick;
+            break;
+         }
+         this.currentTick++;
+         this.cascade();
+         fired += this.expire(this.wheels.get(0).get((int) (this.currentTick & HierarchicalTimingWheel.SLOT_MASK)), expired);
+      }
+      return fired;
+   }
+
+   public int size() {
+      return this.size;
+   }
+
+   public long getTickMillis() {
+      return this.tickMillis;
+   }
+
+   private void cascade() {
+      for (int level = 1; level < HierarchicalTimingWheel.LEVELS; level++) {
+         final int shift = level * HierarchicalTimingWheel.SLOT_BITS;
+         if ((this.currentTick & ((1L << shift) - 1)) != 0) {
+            return;
+         }
+         final Timeout<T> head = this.wheels.get(level).get((int) ((this.currentTick >>> shift) & HierarchicalTimingWheel.SLOT_MASK));
+         Timeout<T> timeout = head.next;
+         while (timeout != head) {
+            final Timeout<T> following = timeout.next;
+            HierarchicalTimingWheel.unlink(timeout);
+            this.file(timeout);
+            timeout = following;
+         }
+      }
+   }
+
+   private int expire(Timeout<T> head, Consumer<? super T> expired) {
+      int fired = 0;
+      Timeout<T> timeout = head.next;
+      while (timeout != head) {
+         final Timeout<T> following = timeout.next;
+         HierarchicalTimingWheel.unlink(timeout);
+         this.size--;
+         fired++;
+         expired.accept(timeout.value);
+         timeout = following;
+      }
+      return fired;
+   }
+
+   private void file(Timeout<T> timeout) {
+      final long delta = timeout.deadlineTick - this.currentTick;
+      final int level = delta < HierarchicalTimingWheel.SLOTS
+            ? 0
+            : (63 - Long.numberOfLeadingZeros(delta)) / HierarchicalTimingWheel.SLOT_BITS;
+      if (level >= HierarchicalTimingWheel.LEVELS) {
+         throw new IllegalArgumentException("Deadline is too far in the future for this wheel");
+      }
+      final int slot = (int) ((timeout.deadlineTick >>> (level * HierarchicalTimingWheel.SLOT_BITS))
+            & HierarchicalTimingWheel.SLOT_MASK);
+      HierarchicalTimingWheel.link(this.wheels.get(level).get(slot), timeout);
+   }
+
+   private static <T> Timeout<T> sentinel() {
+      final Timeout<T> head = new Timeout<>(null, 0, 0);
+      head.prev = head;
+      head.next = head;
+      return head;
+   }
+
+   private static <T> void link(Timeout<T> head, Timeout<T> timeout) {
+      timeout.prev = head.prev;
+      timeout.next = head;
+      head.prev.next = timeout;
+      head.prev = timeout;
+   }
+
+   private static <T> void unlink(Timeout<T> timeout) {
+      timeout.prev.next = timeout.next;
+      timeout.next.prev = timeout.prev;
+      timeout.prev = null;
+      timeout.next = null;
+   }
+}
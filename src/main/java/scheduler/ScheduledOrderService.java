@@ -0,0 +1,297 @@
+package scheduler;
+
+import java.io.Closeable;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import CustomException.ValidationException;
+import model.Order;
+import persistence.OrderSnapshot;
+import queue.QueueOperations;
+import util.PeriodicTasks;
+import validation.OrderValidator;
+
+/**
+ * Holds pre-orders until their kitchen start time and then releases them into
+ * the live dispatch queue.
+ *
+ * <p>Pending orders sit in a {@link HierarchicalTimingWheel}, so scheduling
+ * and cancelling are constant time and each tick only touches the orders that
+ * fall due. Released orders skip admission control because they were already
+ * accepted; if the dispatch queue is full they are retried on the next tick.
+ *
+ * <p>The pending set is written to an {@link OrderSnapshot} every snapshot
+ * interval while it has changes and on {@link #close}, and is reloaded on
+ * construction. Orders whose start time passed while the service was down
+ * are released on the first tick.
+ */
+public class ScheduledOrderService implements Closeable {
+   public static final String SNAPSHOT_PROPERTY = "order.schedule.snapshot";
+   public static final String SNAPSHOT_INTERVAL_PROPERTY = "order.schedule.snapshot.interval.ms";
+   public static final Duration DEFAULT_TICK = Duration.ofSeconds(1);
+   public static final Duration DEFAULT_LEAD_TIME = Duration.ofMinutes(45);
+
+   private static final Logger logger = Logger.getLogger(ScheduledOrderService.class.getName());
+
+   private final QueueOperations<Order> dispatchQueue;
+   private final Path snapshotFile;
+   private final Clock clock;
+   private final HierarchicalTimingWheel<Order> wheel;
+   private final Map<Long, HierarchicalTimingWheel.Timeout<Order>> pending;
+   // Released orders the dispatch queue rejected as invalid, kept so that they are never lost
+   private final Map<Long, DeadLetter> deadLetters;
+   private final OrderValidator validator;
+   private final Object snapshotLock;
+   private ScheduledExecutorService ticker;
+   private boolean dirty;
+
+   /**
+    * Creates the service and reloads any pre-orders from {@code snapshotFile}.
+    * Orders are only released once {@link #start} is called or
+    * {@link #releaseDue} is driven by the caller.
+    *
+    * @param dispatchQueue the live queue that due orders are released into
+    * @param snapshotFile  where pending orders are persisted
+    * @param tick          the release resolution
+    * @param clock         the source of the current time
+    */
+   public ScheduledOrderService(QueueOperations<Order> dispatchQueue, Path snapshotFile, Duration tick, Clock clock) {
+      this.dispatchQueue = dispatchQueue;
+      this.snapshotFile = snapshotFile;
+      this.clock = clock;
+      this.wheel = new HierarchicalTimingWheel<>(tick, clock.millis());
+      this.pending = new HashMap<>();
+      this.deadLetters = new LinkedHashMap<>();
+      this.validator = new OrderValidator();
+      this.snapshotLock = new Object();
+
+      OrderSnapshot.read(snapshotFile, (startMillis, order) ->
+            this.pending.put(order.getId(), this.wheel.schedule(order, startMillis)));
+      if (!this.pending.isEmpty()) {
+         ScheduledOrderService.logger.info(() -> String.format("Recovered %d scheduled orders from %s",
+               this.pending.size(), snapshotFile));
+      }
+   }
+
+   /**
+    * Creates and starts a service that snapshots to the file named by the
+    * {@value #SNAPSHOT_PROPERTY} system property, which must be set, every
+    * {@value #SNAPSHOT_INTERVAL_PROPERTY} milliseconds, defaulting to 5 seconds.
+    *
+    * @param dispatchQueue the live queue that due orders are released into
+    * @return the running service
+    */
+   public static ScheduledOrderService fromSystemProperties(QueueOperations<Order> dispatchQueue) {
+      final String snapshotFile = System.getProperty(ScheduledOrderService.SNAPSHOT_PROPERTY);
+      if (snapshotFile == null) {
+         throw new IllegalStateException(ScheduledOrderService.SNAPSHOT_PROPERTY + " is not set");
+      }
+      final Path snapshot = Path.of(snapshotFile);
+      final Duration interval = Duration.ofMillis(
+            Long.getLong(ScheduledOrderService.SNAPSHOT_INTERVAL_PROPERTY, 5_000L));
+      final ScheduledOrderService service = new ScheduledOrderService(dispatchQueue, snapshot,
+            ScheduledOrderService.DEFAULT_TICK, Clock.systemDefaultZone());
+      service.start(interval);
+      return service;
+   }
+
+   /**
+    * Starts a daemon thread that releases due orders every tick and
+    * snapshots pending changes every {@code snapshotInterval}.
+    *
+    * @param snapshotInterval how often to persist changes
+    */
+   public synchronized void start(Duration snapshotInterval) {
+      if (this.ticker != null) {
+         return;
+      }
+      this.ticker = PeriodicTasks.newDaemonScheduler("scheduled-order-ticker");
+      final long tickMillis = this.wheel.getTickMillis();
+      this.ticker.scheduleAtFixedRate(PeriodicTasks.logFailures(this::releaseDue, ScheduledOrderService.logger,
+            "Releasing scheduled orders failed"), tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+      this.ticker.scheduleWithFixedDelay(PeriodicTasks.logFailures(this::snapshot, ScheduledOrderService.logger,
+            "Scheduled order snapshot failed"), snapshotInterval.toMillis(), snapshotInterval.toMillis(),
+            TimeUnit.MILLISECONDS);
+   }
+
+   /**
+    * Holds an order until its kitchen start time.
+    *
+    * @param order        the order to hold
+    * @param kitchenStart when the kitchen should start preparing it
+    * @throws IllegalArgumentException if the order is already scheduled
+    * @throws ValidationException      if the order could never be released into the queue
+    */
+   public synchronized void schedule(Order order, LocalDateTime kitchenStart) {
+      this.validator.validateOrder(order);
+      if (this.pending.containsKey(order.getId())) {
+         throw new IllegalArgumentException("Order " + order.getId() + " is already scheduled");
+      }
+      final long startMillis = kitchenStart.atZone(this.clock.getZone()).toInstant().toEpochMilli();
+      this.pending.put(order.getId(), this.wheel.schedule(order, startMillis));
+      this.dirty = true;
+   }
+
+   /**
+    * Holds an order for delivery at a requested time, starting it in the
+    * kitchen {@link #DEFAULT_LEAD_TIME} earlier.
+    *
+    * @param order     the order to hold
+    * @param deliverAt the delivery time the customer asked for
+    */
+   public void scheduleForDelivery(Order order, LocalDateTime deliverAt) {
+      this.validator.validateOrder(order);
+      order.setEstimatedDeliveryTime(deliverAt);
+      this.schedule(order, deliverAt.minus(ScheduledOrderService.DEFAULT_LEAD_TIME));
+   }
+
+   /**
+    * Withdraws a pre-order that has not been released yet.
+    *
+    * @param orderId the ID of the order to withdraw
+    * @return true if the order was pending and is now withdrawn
+    */
+   public synchronized boolean cancel(Long orderId) {
+      final HierarchicalTimingWheel.Timeout<Order> timeout = this.pending.remove(orderId);
+      if (timeout == null) {
+         if (this.deadLetters.remove(orderId) == null) {
+            return false;
+         }
+         this.dirty = true;
+         return true;
+      }
+      this.wheel.cancel(timeout);
+      this.dirty = true;
+      return true;
+   }
+
+   /**
+    * Releases every order whose kitchen start time has arrived into the
+    * dispatch queue. An order the queue cannot take is never dropped: it is
+    * retried on the next tick, or, if the queue rejects it as invalid, kept
+    * as a dead letter, and the remaining due orders are released regardless.
+    *
+    * @return the number of orders released
+    */
+   public int releaseDue() {
+      final List<Order> due = new ArrayList<>();
+      synchronized (this) {
+         this.wheel.advance(this.clock.millis(), due::add);
+         for (Order order : due) {
+            this.pending.remove(order.getId());
+         }
+         this.dirty |= !due.isEmpty();
+      }
+
+      int released = 0;
+      for (Order order : due) {
+         try {
+            this.dispatchQueue.enqueue(order);
+            released++;
+         } catch (CustomException.QueueFullException e) {
+            ScheduledOrderService.logger.warning("Dispatch queue full, retrying scheduled order " + order.getId());
+            this.retry(order);
+         } catch (ValidationException e) {
+            ScheduledOrderService.logger.log(Level.SEVERE, "Scheduled order " + order.getId()
+                  + " rejected by the dispatch queue, keeping it as a dead letter", e);
+            synchronized (this) {
+               this.deadLetters.put(order.getId(), new DeadLetter(order, this.clock.millis()));
+               this.dirty = true;
+            }
+         } catch (RuntimeException e) {
+            ScheduledOrderService.logger.log(Level.SEVERE, "Failed to release scheduled order " + order.getId()
+                  + ", retrying on the next tick", e);
+            this.retry(order);
+         }
+      }
+      return released;
+   }
+
+   /**
+    * @return the orders the dispatch queue rejected as invalid on release,
+    *         oldest first; they are kept in the snapshot until withdrawn
+    */
+   public synchronized List<Order> getDeadLetters() {
+      final List<Order> orders = new ArrayList<>(this.deadLetters.size());
+      for (DeadLetter deadLetter : this.deadLetters.values()) {
+         orders.add(deadLetter.order());
+      }
+      return orders;
+   }
+
+   private synchronized void retry(Order order) {
+      this.pending.put(order.getId(), this.wheel.schedule(order, this.clock.millis() + 1));
+      this.dirty = true;
+   }
+
+   /**
+    * Writes the pending orders to the snapshot file if they changed since the
+    * last snapshot.
+    */
+   public void snapshot() {
+      synchronized (this.snapshotLock) {
+         final List<Order> orders;
+         final Map<Long, Long> startTimes = new HashMap<>();
+         synchronized (this) {
+            if (!this.dirty) {
+               return;
+            }
+            orders = new ArrayList<>(this.pending.size());
+            for (HierarchicalTimingWheel.Timeout<Order> timeout : this.pending.values()) {
+               orders.add(timeout.getValue());
+               startTimes.put(timeout.getValue().getId(), timeout.getDeadlineMillis());
+            }
+            // Dead letters are released, and rejected, again after a restart rather than forgotten
+            for (DeadLetter deadLetter : this.deadLetters.values()) {
+               orders.add(deadLetter.order());
+               startTimes.put(deadLetter.order().getId(), deadLetter.startMillis());
+            }
+            this.dirty = false;
+         }
+         try {
+            OrderSnapshot.write(this.snapshotFile, orders, order -> startTimes.get(order.getId()));
+         } catch (RuntimeException e) {
+            synchronized (this) {
+               this.dirty = true;
+            }
+            throw e;
+         }
+      }
+   }
+
+   public synchronized boolean isScheduled(Long orderId) {
+      return this.pending.containsKey(orderId);
+   }
+
+   public synchronized int getPendingCount() {
+      return this.pending.size();
+   }
+
+   /**
+    * Stops the ticker and writes a final snapshot.
+    */
+   @Override
+   public void close() {
+      synchronized (this) {
+         if (this.ticker != null) {
+            this.ticker.shutdownNow();
+            this.ticker = null;
+         }
+      }
+      this.snapshot();
+   }
+
+   private record DeadLetter(Order order, long startMillis) {
+   }
+}
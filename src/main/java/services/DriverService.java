@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.Optional;
 
 import model.Driver;
+import model.Location;
 import model.Order;
 
 public interface DriverService {
@@ -23,12 +24,58 @@ public interface DriverService {
     Optional<Driver> findAvailableDriver();
 
     /**
-     * Assigns a driver to a specific order.
+     * Finds the available drivers nearest to a location, e.g. a pickup.
+     * Drivers without known coordinates are never returned.
+     *
+     * @param location Where the drivers are needed
+     * @param k        The most drivers to return
+     * @return Up to {@code k} available drivers, nearest first
+     */
+    List<Driver> findNearestAvailable(Location location, int k);
+
+    /**
+     * Reserves an available driver so that no other dispatcher can claim it,
+     * for a following {@link #assignDriverToOrder}.
+     *
+     * @return Optional containing the reserved driver, or empty if every
+     *         driver is busy or reserved
+     */
+    Optional<Driver> claimAvailableDriver();
+
+    /**
+     * Gives up a reservation from {@link #claimAvailableDriver()} that was
+     * not used for an assignment.
+     *
+     * @param driver The reserved driver
+     */
+    void releaseDriver(Driver driver);
+
+    /**
+     * Assigns a driver to a specific order. Any reservation on the driver is
+     * left alone, since it may belong to another dispatcher.
      *
      * @param driver The driver to assign
      * @param order  The order to be assigned
+     * @return true if the driver took the order; false if the driver was no
+     *         longer available or the order was already taken
+     */
+    boolean assignDriverToOrder(Driver driver, Order order);
+
+    /**
+     * Assigns a driver the caller reserved with {@link #claimAvailableDriver()}
+     * to a specific order, releasing the reservation if the assignment fails.
+     *
+     * @param driver The reserved driver
+     * @param order  The order to be assigned
+     * @return true if the driver took the order
      */
-    void assignDriverToOrder(Driver driver, Order order);
+    default boolean assignClaimedDriverToOrder(Driver driver, Order order) {
+        if (this.assignDriverToOrder(driver, order)) {
+            return true;
+        }
+        this.releaseDriver(driver);
+        return false;
+    }
 
     /**
      * Retrieves the driver assigned to a specific order.
@@ -1,43 +1,77 @@
 package services;
 
 import model.Driver;
+import model.Location;
 import model.Order;
 import model.OrderStatus;
 import rating.Rating;
+import util.SnapshotList;
 
-import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
 
 public class DriverServiceImpl implements DriverService {
-    private List<Driver> drivers = new ArrayList<>();
+    private final SnapshotList<Driver> drivers = new SnapshotList<>();
 
     @Override
     public List<Driver> getAllDrivers() {
-        return new ArrayList<>(this.drivers);
+        return this.drivers.get();
     }
 
     @Override
     public List<Driver> getAvailableDrivers() {
-        return this.drivers.stream()
+        return this.drivers.get().stream()
                 .filter(Driver::isAvailable)
                 .toList();
     }
 
+    @Override
+    public List<Driver> findNearestAvailable(Location location, int k) {
+        if (location == null || !location.hasCoordinates()) {
+            return List.of();
+        }
+        return this.drivers.get().stream()
+                .filter(Driver::isAvailable)
+                .filter(driver -> driver.getCurrentLocation() != null && driver.getCurrentLocation().hasCoordinates())
+                .sorted(Comparator.comparingDouble(driver -> location.distanceKmTo(driver.getCurrentLocation())))
+                .limit(Math.max(0, k))
+                .toList();
+    }
+
     @Override
     public Driver getDriverForOrder(Order order) {
-        return this.drivers.stream()
+        return this.drivers.get().stream()
                 .filter(Driver::isAvailable)
                 .findFirst()
                 .orElse(null);
     }
 
     @Override
-    public void assignDriverToOrder(Driver driver, Order order) {
+    public synchronized Optional<Driver> claimAvailableDriver() {
+        Optional<Driver> driver = this.drivers.get().stream()
+                .filter(Driver::isAvailable)
+                .findFirst();
+        driver.ifPresent(claimed -> claimed.setAvailable(false));
+        return driver;
+    }
+
+    @Override
+    public void releaseDriver(Driver driver) {
+        if (driver != null) {
+            driver.setAvailable(true);
+        }
+    }
+
+    @Override
+    public boolean assignDriverToOrder(Driver driver, Order order) {
         if (driver != null && order != null) {
             driver.setAvailable(false);
             order.setDriver(driver);
-            order.setStatus(OrderStatus.IN_PROGRESS);
+            order.transitionTo(OrderStatus.IN_PROGRESS);
+            return true;
         }
+        return false;
     }
 
     @Override
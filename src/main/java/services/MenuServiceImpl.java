@@ -2,7 +2,6 @@ package services;
 
 import model.*;
 
-import java.util.ArrayList;
 import java.util.List;
 
 public class MenuServiceImpl implements MenuService {
@@ -31,7 +30,7 @@ public class MenuServiceImpl implements MenuService {
 
     @Override
     public List<MenuItem> getMenu() {
-        return new ArrayList<>(this.menuItems);
+        return this.menuItems;
     }
 
     @Override
@@ -49,6 +48,6 @@ public class MenuServiceImpl implements MenuService {
 
     @Override
     public List<MenuItem> getAllMenuItems() {
-        return new ArrayList<>(this.menuItems);
+        return this.menuItems;
     }
 }
@@ -0,0 +1,122 @@
+package services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import model.Order;
+
+/**
+ * Pages through the orders matching an {@link OrderQuery}, oldest first.
+ *
+ * <p>Between pages the cursor holds only the ID of the last order it
+ * returned. Each page resumes the repository's ID-ordered scan just past it,
+ * so memory is bounded by the page size however many orders match, and a
+ * cursor can be resumed later, or elsewhere, from {@link #getPosition()}.
+ * Like {@link OrderRepository#stream()} the cursor is weakly consistent:
+ * orders saved or archived while it runs may or may not be returned, but no
+ * order is returned twice.
+ *
+ * <p>A cursor is not thread-safe.
+ */
+public class OrderCursor {
+    /** The position of a cursor that has not returned any order yet. */
+    public static final long START = -1;
+
+    private final OrderRepository repository;
+    private final OrderQuery query;
+    private final int pageSize;
+    private long position;
+    private boolean exhausted;
+
+    /**
+     * @param repository the repository to scan
+     * @param query      the orders to return
+     * @param pageSize   the most orders to return per page
+     * @param position   the ID of the last order already returned, or {@link #START}
+     */
+    public OrderCursor(final OrderRepository repository, final OrderQuery query, final int pageSize,
+            final long position) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        this.repository = repository;
+        this.query = query;
+        this.pageSize = pageSize;
+        this.position = position;
+    }
+
+    /**
+     * @return the next page of up to the page size orders in ascending ID
+     *         order, empty once the query is exhausted
+     */
+    public List<Order> nextPage() {
+        if (this.exhausted) {
+            return List.of();
+        }
+        final long from = Math.max(this.query.getFromId(), this.position + 1);
+        final Iterator<Order> scan = this.repository.scan(from, this.query.getToId());
+        final List<Order> page = new ArrayList<>(this.pageSize);
+        while (page.size() < this.pageSize && scan.hasNext()) {
+            final Order order = scan.next();
+            if (this.query.matches(order)) {
+                page.add(order);
+            }
+        }
+        if (!scan.hasNext()) {
+            this.exhausted = true;
+        }
+        if (!page.isEmpty()) {
+            this.position = page.get(page.size() - 1).getId();
+        }
+        return Collections.unmodifiableList(page);
+    }
+
+    /**
+     * @return whether {@link #nextPage()} may return more orders
+     */
+    public boolean hasMore() {
+        return !this.exhausted;
+    }
+
+    /**
+     * @return the ID of the last order returned, or {@link #START}; pass it
+     *         to a new cursor over the same query to carry on from here
+     */
+    public long getPosition() {
+        return this.position;
+    }
+
+    /**
+     * @return the remaining orders as a lazy stream that fetches one page at a time
+     */
+    public Stream<Order> stream() {
+        final Iterator<Order> orders = new Iterator<>() {
+            private Iterator<Order> page = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!this.page.hasNext() && OrderCursor.this.hasMore()) {
+                    this.page = OrderCursor.this.nextPage().iterator();
+                }
+                return this.page.hasNext();
+            }
+
+            @Override
+            public Order next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return this.page.next();
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(orders,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+}
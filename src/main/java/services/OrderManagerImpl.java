@@ -6,6 +6,7 @@ import java.util.Scanner;
 import managers.MenuManager;
 import model.MenuItem;
 import model.Order;
+import util.IdGenerator;
 import validation.ConsoleInputHandler;
 
 public class OrderManagerImpl implements OrderManager {
@@ -31,7 +32,7 @@ public class OrderManagerImpl implements OrderManager {
         // Create a new order with the provided details
         final OrderServiceImpl orderService = new OrderServiceImpl();
         final Order order = orderService.createNewOrder(
-                IdGenerator.generateId(),
+                IdGenerator.getDefault().generateId(),
                 email,
                 orderItems,
                 location,
@@ -0,0 +1,90 @@
+package services;
+
+import java.time.Instant;
+import java.util.Objects;
+
+import model.Order;
+import model.OrderStatus;
+import util.IdGenerator;
+
+/**
+ * Selects the orders created in a time range, optionally narrowed to a postal
+ * zone and a status. Order IDs are time-ordered, so the time range is a range
+ * of IDs that repositories can scan without looking at older or newer orders.
+ *
+ * <p>Instances are immutable; the {@code with} methods return a narrowed copy.
+ */
+public final class OrderQuery {
+    private final long fromId;
+    private final long toId;
+    private final String postalCodePrefix;
+    private final OrderStatus status;
+
+    private OrderQuery(final long fromId, final long toId, final String postalCodePrefix, final OrderStatus status) {
+        this.fromId = fromId;
+        this.toId = toId;
+        this.postalCodePrefix = postalCodePrefix;
+        this.status = status;
+    }
+
+    /**
+     * @param from the earliest creation time, inclusive
+     * @param to   the latest creation time, exclusive
+     * @return a query for the orders created from {@code from} up to {@code to}
+     */
+    public static OrderQuery createdBetween(final Instant from, final Instant to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Query range ends before it starts: " + from + " to " + to);
+        }
+        return new OrderQuery(IdGenerator.firstIdAt(from.toEpochMilli()), IdGenerator.firstIdAt(to.toEpochMilli()),
+                null, null);
+    }
+
+    /**
+     * @param prefix the start of the postal code, e.g. {@code "941"} for the 941xx zone
+     * @return a copy that also requires the delivery postal code to start with {@code prefix}
+     */
+    public OrderQuery withPostalCodePrefix(final String prefix) {
+        return new OrderQuery(this.fromId, this.toId, Objects.requireNonNull(prefix, "prefix"), this.status);
+    }
+
+    /**
+     * @return a copy that also requires the order to currently be in {@code status}
+     */
+    public OrderQuery withStatus(final OrderStatus status) {
+        return new OrderQuery(this.fromId, this.toId, this.postalCodePrefix, Objects.requireNonNull(status, "status"));
+    }
+
+    /**
+     * @return the smallest order ID in range
+     */
+    public long getFromId() {
+        return this.fromId;
+    }
+
+    /**
+     * @return the first order ID past the range
+     */
+    public long getToId() {
+        return this.toId;
+    }
+
+    /**
+     * @return whether the order satisfies the query's filters; the ID range is
+     *         left to the repository scan
+     */
+    public boolean matches(final Order order) {
+        if (this.status != null && order.getStatus() != this.status) {
+            return false;
+        }
+        return this.postalCodePrefix == null
+                || (order.getPostalCode() != null && order.getPostalCode().startsWith(this.postalCodePrefix));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("OrderQuery{from=%s, to=%s, postalCodePrefix=%s, status=%s}",
+                Instant.ofEpochMilli(IdGenerator.timestampOf(this.fromId)),
+                Instant.ofEpochMilli(IdGenerator.timestampOf(this.toId)), this.postalCodePrefix, this.status);
+    }
+}
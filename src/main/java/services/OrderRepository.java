@@ -0,0 +1,108 @@
+package services;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import model.Order;
+import model.OrderStatus;
+
+/**
+ * Stores orders by ID.
+ */
+public interface OrderRepository {
+    /**
+     * Looks up an order by ID.
+     *
+     * @param orderId the ID of the order
+     * @return the order, or empty if no order has that ID
+     */
+    Optional<Order> findById(Long orderId);
+
+    /**
+     * Stores an order, replacing any order with the same ID.
+     *
+     * @param order the order to store
+     * @return the stored order
+     */
+    Order save(Order order);
+
+    /**
+     * Stores a batch of orders, e.g. from a bulk import. Implementations may
+     * amortize per-save costs such as durable commits over the batch.
+     *
+     * @param orders the orders to store
+     */
+    default void saveAll(Collection<Order> orders) {
+        for (final Order order : orders) {
+            this.save(order);
+        }
+    }
+
+    /**
+     * Removes an order, unless a different instance has replaced it since.
+     *
+     * @param order the order to remove
+     * @return true if the order was stored and is now removed
+     */
+    boolean remove(Order order);
+
+    /**
+     * @return an unmodifiable snapshot of every order, sorted by ID
+     */
+    List<Order> findAll();
+
+    /**
+     * @param status the status to match
+     * @return the orders currently in that status, sorted by ID
+     */
+    List<Order> findByStatus(OrderStatus status);
+
+    /**
+     * @param customerId the customer whose orders to return
+     * @return the customer's orders, sorted by ID
+     */
+    List<Order> findByCustomerId(Long customerId);
+
+    /**
+     * Streams the stored orders in no particular order without copying them.
+     * The stream is weakly consistent: it never fails because of concurrent
+     * saves, and may or may not reflect them.
+     *
+     * @return a stream over the stored orders
+     */
+    Stream<Order> stream();
+
+    /**
+     * Iterates lazily, in ascending ID order, over the stored orders whose
+     * IDs fall in a range. IDs are time-ordered, so this is a creation-time
+     * range scan. Like {@link #stream()} the iterator is weakly consistent.
+     *
+     * <p>The default implementation sorts the matching orders up front;
+     * repositories with an ordered index should scan it instead.
+     *
+     * @param fromId the smallest ID to return
+     * @param toId   the first ID past the range
+     * @return the orders in range
+     */
+    default Iterator<Order> scan(long fromId, long toId) {
+        return this.stream()
+                .filter(order -> order.getId() >= fromId && order.getId() < toId)
+                .sorted(Comparator.comparing(Order::getId))
+                .iterator();
+    }
+
+    /**
+     * @param query    the orders to return
+     * @param pageSize the most orders to return per page
+     * @return a cursor over the matching orders, oldest first
+     */
+    default OrderCursor query(OrderQuery query, int pageSize) {
+        return new OrderCursor(this, query, pageSize, OrderCursor.START);
+    }
+
+    int count();
+}
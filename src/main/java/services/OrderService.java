@@ -4,15 +4,28 @@ import java.util.List;
 
 import model.MenuItem;
 import model.Order;
+import model.OrderStatus;
 
 public interface OrderService {
     Order getOrderById(Long orderId);
 
     Order createOrder(List<MenuItem> items);
 
+    void save(Order order);
+
     void displayOrderDetails(Order order);
 
     String getOrderStatus(Long orderId);
 
     List<Order> getAllOrders();
+
+    List<Order> getOrdersByStatus(OrderStatus status);
+
+    List<Order> getOrdersByCustomer(Long customerId);
+
+    /**
+     * @return a cursor over the orders matching {@code query}, oldest first,
+     *         {@code pageSize} at a time
+     */
+    OrderCursor findOrders(OrderQuery query, int pageSize);
 }
\ No newline at end of file
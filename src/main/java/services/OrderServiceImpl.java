@@ -1,31 +1,29 @@
 package services;
 
 import model.MenuItem;
+import model.Money;
 import model.OrderStatus;
 import model.Order;
 import queue.OrderQueue;
+import services.impl.InMemoryOrderRepository;
+import util.IdGenerator;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicLong;
 
 public class OrderServiceImpl implements OrderService {
-    private final Queue<Order> orderQueue = new LinkedList<>(); // Ensure FIFO processing
-    private IdGenerator idGenerator = new IdGenerator();
+    private final OrderRepository orderRepository;
+    private final IdGenerator idGenerator = IdGenerator.getDefault();
 
-    // Static inner class for generating unique order IDs
-    private static class IdGenerator {
-        private final AtomicLong counter = new AtomicLong(0);
+    public OrderServiceImpl() {
+        this(new InMemoryOrderRepository());
+    }
 
-        public Long generateId() {
-            return counter.incrementAndGet();
-        }
+    public OrderServiceImpl(OrderRepository orderRepository) {
+        this.orderRepository = orderRepository;
     }
 
     @Override
     public Order getOrderById(Long orderId) {
-        return this.orderQueue.stream()
-                .filter(order -> order.getId().equals(orderId))
-                .findFirst()
-                .orElse(null);
+        return this.orderRepository.findById(orderId).orElse(null);
     }
 
     @Override
@@ -40,15 +38,20 @@ public class OrderServiceImpl implements OrderService {
 
         Order order = new Order(
                 idGenerator.generateId(),
-                items,
+                null,
                 customerEmail,
+                items,
                 deliveryAddress,
                 postalCode);
-        order.setStatus(OrderStatus.PENDING); // Initialize status
-        orderQueue.add(order);
+        orderRepository.save(order);
         return order;
     }
 
+    @Override
+    public void save(Order order) {
+        orderRepository.save(order);
+    }
+
     @Override
     public void displayOrderDetails(Order order) {
         System.out.println("Order Details:");
@@ -60,19 +63,16 @@ public class OrderServiceImpl implements OrderService {
         System.out.println("Items:");
 
         Map<MenuItem, Integer> itemCounts = new HashMap<>();
-        double totalPrice = 0;
-
         for (MenuItem item : order.getItems()) {
-            itemCounts.put(item, itemCounts.getOrDefault(item, 0) + 1);
-            totalPrice += item.getPrice();
+            itemCounts.merge(item, 1, Integer::sum);
         }
 
-        itemCounts.forEach((item, count) -> System.out.printf("%s x%d - $%.2f\n",
+        itemCounts.forEach((item, count) -> System.out.printf("%s x%d - $%s\n",
                 item.getName(),
                 count,
-                item.getPrice() * count));
+                Money.format(item.getPriceCents() * count)));
 
-        System.out.printf("Total Price: $%.2f\n", totalPrice);
+        System.out.printf("Total Price: $%s\n", Money.format(order.getTotalCents()));
     }
 
     @Override
@@ -83,6 +83,21 @@ public class OrderServiceImpl implements OrderService {
 
     @Override
     public List<Order> getAllOrders() {
-        return new ArrayList<>(orderQueue); // Return a copy to preserve encapsulation
+        return orderRepository.findAll(); // Sorted by ID, which is creation order
+    }
+
+    @Override
+    public List<Order> getOrdersByStatus(OrderStatus status) {
+        return orderRepository.findByStatus(status);
+    }
+
+    @Override
+    public List<Order> getOrdersByCustomer(Long customerId) {
+        return orderRepository.findByCustomerId(customerId);
+    }
+
+    @Override
+    public OrderCursor findOrders(OrderQuery query, int pageSize) {
+        return orderRepository.query(query, pageSize);
     }
 }
\ No newline at end of file
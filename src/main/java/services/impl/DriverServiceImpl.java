@@ -5,48 +5,81 @@
 
 package services.impl;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import dispatch.DriverGrid;
+import dispatch.DriverSlotTable;
 import model.Driver;
+import model.DriverListener;
+import model.Location;
 import model.Order;
 import services.DriverService;
+import util.SnapshotList;
 
 public class DriverServiceImpl implements DriverService {
     private static final Logger logger = Logger.getLogger(DriverServiceImpl.class.getName());
-    private final List<Driver> drivers = new ArrayList<>();
+    // Drivers are looked up on every assignment but rarely added or removed
+    private final SnapshotList<Driver> drivers = new SnapshotList<>();
+    // Re-indexed by each driver's listener as it moves or changes availability
+    private final DriverGrid availableDrivers = new DriverGrid();
+    private final DriverSlotTable slots = new DriverSlotTable();
+    // Order ID to the driver carrying it, updated by the listener as drivers take and deliver orders
+    private final Map<Long, Driver> driversByOrder = new ConcurrentHashMap<>();
+    private final DriverListener indexer = new Indexer();
 
     @Override
     public List<Driver> getAvailableDrivers() {
-        return this.drivers.stream()
-                .filter(Driver::isAvailable)
-                .toList();
+        return this.slots.free();
     }
 
     @Override
     public Optional<Driver> findAvailableDriver() {
-        return this.drivers.stream()
-                .filter(Driver::isAvailable)
-                .findFirst();
+        return Optional.ofNullable(this.slots.peekAny());
     }
 
     @Override
-    public void assignDriverToOrder(final Driver driver, final Order order) {
+    public Optional<Driver> claimAvailableDriver() {
+        return Optional.ofNullable(this.slots.claimAny());
+    }
+
+    @Override
+    public void releaseDriver(final Driver driver) {
+        if (driver != null) {
+            this.slots.release(driver);
+        }
+    }
+
+    @Override
+    public List<Driver> findNearestAvailable(final Location location, final int k) {
+        if (location == null) {
+            DriverServiceImpl.logger.warning("Cannot find drivers near a null location");
+            return List.of();
+        }
+        return this.availableDrivers.findNearestAvailable(location, k);
+    }
+
+    @Override
+    public boolean assignDriverToOrder(final Driver driver, final Order order) {
         if (driver == null || order == null) {
             DriverServiceImpl.logger.warning("Cannot assign null driver or order");
-            return;
+            return false;
         }
 
         try {
-            driver.acceptOrder(order);
-            DriverServiceImpl.logger.info(() -> String.format("Driver %s assigned to order %d",
-                    driver.getName(), order.getId()));
+            if (driver.acceptOrder(order)) {
+                DriverServiceImpl.logger.info(() -> String.format("Driver %s assigned to order %d",
+                        driver.getName(), order.getId()));
+                return true;
+            }
         } catch (final Exception e) {
             DriverServiceImpl.logger.log(Level.SEVERE, "Error assigning driver to order", e);
         }
+        return false;
     }
 
     @Override
@@ -56,12 +89,7 @@ public class DriverServiceImpl implements DriverService {
             return null;
         }
 
-        return this.drivers.stream()
-                .filter(driver -> driver.getCurrentOrder()
-                        .map(currentOrder -> currentOrder.getId().equals(order.getId()))
-                        .orElse(false))
-                .findFirst()
-                .orElse(null);
+        return order.getId() == null ? null : this.driversByOrder.get(order.getId());
     }
 
     @Override
@@ -78,7 +106,7 @@ public class DriverServiceImpl implements DriverService {
 
     @Override
     public List<Driver> getAllDrivers() {
-        return new ArrayList<>(this.drivers);
+        return this.drivers.get();
     }
 
     // Additional utility methods
@@ -88,8 +116,15 @@ public class DriverServiceImpl implements DriverService {
             return;
         }
 
-        if (!this.drivers.contains(driver)) {
-            this.drivers.add(driver);
+        if (this.drivers.addIfAbsent(driver)) {
+            synchronized (driver) {
+                driver.setListener(this.indexer);
+                this.slots.register(driver);
+                this.availableDrivers.update(driver);
+                for (final Order order : driver.getCurrentOrders()) {
+                    this.driversByOrder.put(order.getId(), driver);
+                }
+            }
             DriverServiceImpl.logger.info(() -> String.format("Driver %s added to system", driver.getName()));
         }
     }
@@ -101,7 +136,35 @@ public class DriverServiceImpl implements DriverService {
         }
 
         if (this.drivers.remove(driver)) {
+            synchronized (driver) {
+                if (driver.getListener() == this.indexer) {
+                    driver.setListener(null);
+                }
+                this.slots.unregister(driver);
+                this.availableDrivers.remove(driver);
+                for (final Order order : driver.getCurrentOrders()) {
+                    this.driversByOrder.remove(order.getId(), driver);
+                }
+            }
             DriverServiceImpl.logger.info(() -> String.format("Driver %s removed from system", driver.getName()));
         }
     }
+
+    private final class Indexer implements DriverListener {
+        @Override
+        public void driverChanged(final Driver driver) {
+            DriverServiceImpl.this.slots.update(driver);
+            DriverServiceImpl.this.availableDrivers.update(driver);
+        }
+
+        @Override
+        public void orderAccepted(final Driver driver, final Order order) {
+            DriverServiceImpl.this.driversByOrder.put(order.getId(), driver);
+        }
+
+        @Override
+        public void orderDelivered(final Driver driver, final Order order) {
+            DriverServiceImpl.this.driversByOrder.remove(order.getId(), driver);
+        }
+    }
 }
@@ -0,0 +1,303 @@
+package services.impl;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import model.Driver;
+import model.Order;
+import model.OrderStatus;
+import model.OrderStatusListener;
+import services.OrderRepository;
+
+/**
+ * Order repository backed by a concurrent hash index on the order ID, so
+ * lookups and saves take constant time however many orders are stored.
+ *
+ * <p>Secondary indexes by status and by customer make the filtered queries
+ * cost time proportional to their result. The repository registers itself as
+ * each stored order's {@link OrderStatusListener}, so every status change
+ * moves the order between status sets under the order's own lock. Changes are
+ * then forwarded to an optional listener of the caller's, such as a journal.
+ *
+ * <p>A concurrent skip list over the same orders keeps them in ID order,
+ * which is creation order, so {@link #scan} walks a time range lazily
+ * without touching orders outside it.
+ *
+ * <p>{@link #findAll} sorts the orders once per change to the set of stored
+ * orders and hands every caller the same immutable snapshot until the next one.
+ */
+public class InMemoryOrderRepository implements OrderRepository {
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final Comparator<Order> BY_ID = Comparator.comparing(Order::getId);
+
+    private final Map<Long, Order> ordersById;
+    // Saves update this inside the ID index's per-key compute, so a racing save
+    // of another instance with the same ID cannot leave the two indexes disagreeing
+    private final ConcurrentNavigableMap<Long, Order> ordersInIdOrder;
+    private final Map<OrderStatus, Set<Order>> ordersByStatus;
+    private final Map<Long, Set<Order>> ordersByCustomer;
+    private final OrderStatusListener statusIndexer;
+    // Bumped after every save or removal; findAll reuses its snapshot while this is unchanged
+    private final AtomicLong version;
+    private volatile Snapshot allOrders;
+
+    public InMemoryOrderRepository() {
+        this(InMemoryOrderRepository.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param expectedOrders how many orders to size the index for up front
+     */
+    public InMemoryOrderRepository(final int expectedOrders) {
+        this(expectedOrders, null);
+    }
+
+    /**
+     * @param expectedOrders how many orders to size the index for up front
+     * @param changeListener told about every change to a stored order once it
+     *                       is re-indexed, or null
+     */
+    public InMemoryOrderRepository(final int expectedOrders, final OrderStatusListener changeListener) {
+        this(expectedOrders, null, changeListener);
+    }
+
+    /**
+     * Creates a repository holding the given orders, e.g. ones recovered from
+     * storage, with the ID and status indexes sized for them up front so that
+     * loading millions of orders does not keep rehashing them.
+     *
+     * @param orders         the orders to store
+     * @param changeListener told about every later change to a stored order, or null
+     */
+    public InMemoryOrderRepository(final Collection<Order> orders, final OrderStatusListener changeListener) {
+        this(orders.size(), InMemoryOrderRepository.countByStatus(orders), changeListener);
+        for (final Order order : orders) {
+            this.save(order);
+        }
+    }
+
+    private InMemoryOrderRepository(final int expectedOrders, final int[] expectedByStatus,
+            final OrderStatusListener changeListener) {
+        this.ordersById = new ConcurrentHashMap<>(expectedOrders);
+        this.ordersInIdOrder = new ConcurrentSkipListMap<>();
+        this.ordersByStatus = new EnumMap<>(OrderStatus.class);
+        for (final OrderStatus status : OrderStatus.values()) {
+            this.ordersByStatus.put(status, expectedByStatus == null ? ConcurrentHashMap.newKeySet()
+                    : ConcurrentHashMap.newKeySet(Math.max(16, expectedByStatus[status.ordinal()])));
+        }
+        this.ordersByCustomer = new ConcurrentHashMap<>();
+        this.statusIndexer = new Indexer(changeListener);
+        this.version = new AtomicLong();
+    }
+
+    @Override
+    public Optional<Order> findById(final Long orderId) {
+        return orderId == null ? Optional.empty() : Optional.ofNullable(this.ordersById.get(orderId));
+    }
+
+    @Override
+    public Order save(final Order order) {
+        if (order == null || order.getId() == null) {
+            throw new IllegalArgumentException("Order and order ID must not be null");
+        }
+
+        final Order previous;
+        synchronized (order) {
+            previous = this.put(order);
+            if (previous == order) {
+                return order;
+            }
+            this.version.incrementAndGet();
+            order.setStatusListener(this.statusIndexer);
+            this.statusSet(order.getStatus()).ifPresent(orders -> orders.add(order));
+            if (order.getCustomerId() != null) {
+                this.ordersByCustomer.compute(order.getCustomerId(), (id, orders) -> {
+                    final Set<Order> customerOrders = orders != null ? orders : ConcurrentHashMap.newKeySet();
+                    customerOrders.add(order);
+                    return customerOrders;
+                });
+            }
+        }
+
+        // A different instance with the same ID was replaced; drop it from the secondary indexes
+        if (previous != null) {
+            synchronized (previous) {
+                this.unindex(previous);
+            }
+        }
+        return order;
+    }
+
+    @Override
+    public boolean remove(final Order order) {
+        synchronized (order) {
+            if (order.getId() == null || !this.ordersById.remove(order.getId(), order)) {
+                return false;
+            }
+            // A no-op if a different instance has been saved under the ID since
+            this.ordersInIdOrder.remove(order.getId(), order);
+            this.version.incrementAndGet();
+            this.unindex(order);
+            return true;
+        }
+    }
+
+    @Override
+    public List<Order> findAll() {
+        // Reading the version first means the snapshot built below reflects at least that version
+        final long current = this.version.get();
+        final Snapshot cached = this.allOrders;
+        if (cached != null && cached.version() == current) {
+            return cached.orders();
+        }
+        final List<Order> orders = Collections.unmodifiableList(
+                InMemoryOrderRepository.sortedById(this.ordersById.values()));
+        this.allOrders = new Snapshot(current, orders);
+        return orders;
+    }
+
+    @Override
+    public List<Order> findByStatus(final OrderStatus status) {
+        final List<Order> orders = new ArrayList<>();
+        for (final Order order : this.ordersByStatus.get(status)) {
+            // An order is added to its new status set just before it leaves the old one
+            if (order.getStatus() == status) {
+                orders.add(order);
+            }
+        }
+        orders.sort(InMemoryOrderRepository.BY_ID);
+        return orders;
+    }
+
+    @Override
+    public List<Order> findByCustomerId(final Long customerId) {
+        if (customerId == null) {
+            return List.of();
+        }
+        return InMemoryOrderRepository.sortedById(this.ordersByCustomer.getOrDefault(customerId, Set.of()));
+    }
+
+    @Override
+    public Stream<Order> stream() {
+        return this.ordersById.values().stream();
+    }
+
+    @Override
+    public Iterator<Order> scan(final long fromId, final long toId) {
+        if (fromId >= toId) {
+            return Collections.emptyIterator();
+        }
+        return this.ordersInIdOrder.subMap(fromId, toId).values().iterator();
+    }
+
+    @Override
+    public int count() {
+        return this.ordersById.size();
+    }
+
+    /**
+     * Stores the order in both ID indexes at once.
+     *
+     * @return the order previously stored under its ID, or null
+     */
+    private Order put(final Order order) {
+        final Order[] previous = new Order[1];
+        this.ordersById.compute(order.getId(), (id, stored) -> {
+            previous[0] = stored;
+            if (stored != order) {
+                this.ordersInIdOrder.put(id, order);
+            }
+            return order;
+        });
+        return previous[0];
+    }
+
+    private void unindex(final Order order) {
+        if (order.getStatusListener() == this.statusIndexer) {
+            order.setStatusListener(null);
+        }
+        this.statusSet(order.getStatus()).ifPresent(orders -> orders.remove(order));
+        if (order.getCustomerId() != null) {
+            // Dropping emptied sets keeps the customer index from growing with every customer ever seen
+            this.ordersByCustomer.computeIfPresent(order.getCustomerId(), (id, orders) -> {
+                orders.remove(order);
+                return orders.isEmpty() ? null : orders;
+            });
+        }
+    }
+
+    private Optional<Set<Order>> statusSet(final OrderStatus status) {
+        return status == null ? Optional.empty() : Optional.of(this.ordersByStatus.get(status));
+    }
+
+    private static int[] countByStatus(final Collection<Order> orders) {
+        final int[] counts = new int[OrderStatus.values().length];
+        for (final Order order : orders) {
+            if (order.getStatus() != null) {
+                counts[order.getStatus().ordinal()]++;
+            }
+        }
+        return counts;
+    }
+
+    private static List<Order> sortedById(final Collection<Order> source) {
+        final List<Order> orders = new ArrayList<>(source);
+        orders.sort(InMemoryOrderRepository.BY_ID);
+        return orders;
+    }
+
+    private record Snapshot(long version, List<Order> orders) {
+    }
+
+    private final class Indexer implements OrderStatusListener {
+        private final OrderStatusListener changeListener;
+
+        Indexer(final OrderStatusListener changeListener) {
+            this.changeListener = changeListener;
+        }
+
+        @Override
+        public void statusChanged(final Order order, final OrderStatus previous, final OrderStatus current) {
+            InMemoryOrderRepository.this.statusSet(current).ifPresent(orders -> orders.add(order));
+            InMemoryOrderRepository.this.statusSet(previous).ifPresent(orders -> orders.remove(order));
+            if (this.changeListener != null) {
+                this.changeListener.statusChanged(order, previous, current);
+            }
+        }
+
+        @Override
+        public void driverAssigned(final Order order, final Driver driver) {
+            if (this.changeListener != null) {
+                this.changeListener.driverAssigned(order, driver);
+            }
+        }
+
+        @Override
+        public void estimatedDeliveryTimeChanged(final Order order, final LocalDateTime estimatedDeliveryTime) {
+            if (this.changeListener != null) {
+                this.changeListener.estimatedDeliveryTimeChanged(order, estimatedDeliveryTime);
+            }
+        }
+
+        @Override
+        public void itemsChanged(final Order order) {
+            if (this.changeListener != null) {
+                this.changeListener.itemsChanged(order);
+            }
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package services.impl;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import model.Order;
+import model.OrderStatus;
+import persistence.OrderJournal;
+import services.OrderRepository;
+import util.PeriodicTasks;
+
+/**
+ * Order repository whose contents survive a restart.
+ *
+ * <p>Orders live in an {@link InMemoryOrderRepository}, which reports every
+ * status, driver, ETA and order line change of a stored order to an {@link OrderJournal};
+ * saving and removing orders journal their creation and removal. On
+ * construction the repository is rebuilt from the journal's latest snapshot
+ * plus the events after it.
+ * Snapshots are taken periodically once {@link #start} is called and on
+ * {@link #close}, which bounds both the journal on disk and the replay at
+ * startup.
+ */
+public class JournaledOrderRepository implements OrderRepository, Closeable {
+    public static final String SNAPSHOT_INTERVAL_PROPERTY = "order.journal.snapshot.interval.ms";
+
+    private static final Logger logger = Logger.getLogger(JournaledOrderRepository.class.getName());
+
+    private final OrderJournal journal;
+    private final InMemoryOrderRepository orders;
+    private ScheduledExecutorService snapshotter;
+
+    /**
+     * Recovers the orders in {@code journal} and journals every change from
+     * then on. The repository takes ownership of the journal.
+     *
+     * @param journal the journal to recover from and append to
+     */
+    public JournaledOrderRepository(final OrderJournal journal) {
+        this.journal = journal;
+        this.orders = new InMemoryOrderRepository(journal.recover(), journal);
+    }
+
+    /**
+     * Creates and starts a repository over {@link OrderJournal#fromSystemProperties()},
+     * snapshotting every {@value #SNAPSHOT_INTERVAL_PROPERTY} milliseconds,
+     * defaulting to once a minute.
+     *
+     * @return the recovered repository
+     */
+    public static JournaledOrderRepository fromSystemProperties() {
+        final JournaledOrderRepository repository = new JournaledOrderRepository(OrderJournal.fromSystemProperties());
+        repository.start(Duration.ofMillis(Long.getLong(JournaledOrderRepository.SNAPSHOT_INTERVAL_PROPERTY, 60_000L)));
+        return repository;
+    }
+
+    /**
+     * Starts a daemon thread that snapshots the repository every
+     * {@code snapshotInterval} while the journal has new events.
+     *
+     * @param snapshotInterval how often to compact the journal
+     */
+    public synchronized void start(final Duration snapshotInterval) {
+        if (this.snapshotter != null) {
+            return;
+        }
+        this.snapshotter = PeriodicTasks.newDaemonScheduler("order-journal-snapshotter");
+        this.snapshotter.scheduleWithFixedDelay(
+                PeriodicTasks.logFailures(this::snapshot, JournaledOrderRepository.logger, "Order journal snapshot failed"),
+                snapshotInterval.toMillis(), snapshotInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Optional<Order> findById(final Long orderId) {
+        return this.orders.findById(orderId);
+    }
+
+    @Override
+    public Order save(final Order order) {
+        final long sequence = this.journalAndSave(order);
+        if (sequence >= 0) {
+            this.journal.commit(sequence);
+        }
+        return order;
+    }
+
+    /**
+     * Journals every order of the batch and then commits once, so a bulk
+     * import waits for one durable write rather than one per order.
+     */
+    @Override
+    public void saveAll(final Collection<Order> orders) {
+        long sequence = -1;
+        for (final Order order : orders) {
+            sequence = Math.max(sequence, this.journalAndSave(order));
+        }
+        if (sequence >= 0) {
+            this.journal.commit(sequence);
+        }
+    }
+
+    /**
+     * @return the sequence to commit, or -1 if the order was already stored
+     */
+    private long journalAndSave(final Order order) {
+        if (order == null || order.getId() == null) {
+            throw new IllegalArgumentException("Order and order ID must not be null");
+        }
+
+        // Holding the order's monitor keeps its status changes from being journaled ahead of its creation
+        synchronized (order) {
+            if (this.orders.findById(order.getId()).orElse(null) == order) {
+                return -1;
+            }
+            // Stored before it is journaled, so a snapshot covering the creation event always sees the order
+            this.orders.save(order);
+            try {
+                return this.journal.created(order);
+            } catch (final RuntimeException e) {
+                this.orders.remove(order);
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public boolean remove(final Order order) {
+        final long sequence;
+        synchronized (order) {
+            if (!this.orders.remove(order)) {
+                return false;
+            }
+            sequence = this.journal.removed(order);
+        }
+        this.journal.commit(sequence);
+        return true;
+    }
+
+    @Override
+    public List<Order> findAll() {
+        return this.orders.findAll();
+    }
+
+    @Override
+    public List<Order> findByStatus(final OrderStatus status) {
+        return this.orders.findByStatus(status);
+    }
+
+    @Override
+    public List<Order> findByCustomerId(final Long customerId) {
+        return this.orders.findByCustomerId(customerId);
+    }
+
+    @Override
+    public Stream<Order> stream() {
+        return this.orders.stream();
+    }
+
+    @Override
+    public Iterator<Order> scan(final long fromId, final long toId) {
+        return this.orders.scan(fromId, toId);
+    }
+
+    @Override
+    public int count() {
+        return this.orders.count();
+    }
+
+    /**
+     * Compacts the journal into a snapshot of the current orders, unless
+     * nothing was journaled since the last one.
+     */
+    public void snapshot() {
+        if (this.journal.getTailLength() > 0) {
+            this.journal.snapshot(() -> this.orders.stream().toList());
+        }
+    }
+
+    /**
+     * Stops periodic snapshots, writes a final one and closes the journal.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (this.snapshotter != null) {
+                this.snapshotter.shutdownNow();
+                this.snapshotter = null;
+            }
+        }
+        this.snapshot();
+        this.journal.close();
+    }
+}
@@ -3,22 +3,17 @@ package services.impl;
 import model.*;
 import services.MenuService;
 
-import java.util.ArrayList;
 import java.util.List;
 
 public class MenuServiceImpl implements MenuService {
     private final List<MenuItem> menu;
 
     public MenuServiceImpl() {
-        this.menu = new ArrayList<>();
-        this.initializeMenu();
-    }
-
-    private void initializeMenu() {
-        this.menu.add(new Hamburger(0L, "Hamburger", "A simple hamburger", 5.99, Size.MEDIUM, 1));
-        this.menu.add(new Hamburger(0L, "Cheeseburger", "A cheeseburger with cheese", 6.49, Size.MEDIUM, 1));
-        this.menu.add(new Fries(0L, "Fries", "A simple fries", 2.99, Size.MEDIUM, 1));
-        this.menu.add(new Drink(0L, "Soft Drink", "A soft drink", 1.99, Size.MEDIUM, 1));
+        this.menu = List.of(
+                new Hamburger(0L, "Hamburger", "A simple hamburger", 5.99, Size.MEDIUM, 1),
+                new Hamburger(0L, "Cheeseburger", "A cheeseburger with cheese", 6.49, Size.MEDIUM, 1),
+                new Fries(0L, "Fries", "A simple fries", 2.99, Size.MEDIUM, 1),
+                new Drink(0L, "Soft Drink", "A soft drink", 1.99, Size.MEDIUM, 1));
     }
 
     @Override
@@ -33,9 +28,12 @@ public class MenuServiceImpl implements MenuService {
         }
     }
 
+    /**
+     * @return the menu; immutable, so every caller shares the same list
+     */
     @Override
     public List<MenuItem> getMenu() {
-        return new ArrayList<>(this.menu);
+        return this.menu;
     }
 
     @Override
@@ -53,6 +51,6 @@ public class MenuServiceImpl implements MenuService {
 
     @Override
     public List<MenuItem> getAllMenuItems() {
-        return new ArrayList<>(this.menu);
+        return this.menu;
     }
 }
\ No newline at end of file
@@ -1,23 +1,32 @@
 package services.impl;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import model.MenuItem;
+import model.Money;
 import model.Order;
+import model.OrderStatus;
+import services.OrderCursor;
+import services.OrderQuery;
+import services.OrderRepository;
 import services.OrderService;
 
 public class OrderServiceImpl implements OrderService {
-    private final List<Order> orders = new ArrayList<>();
+    private final OrderRepository orderRepository;
+
+    public OrderServiceImpl() {
+        this(new InMemoryOrderRepository());
+    }
+
+    public OrderServiceImpl(final OrderRepository orderRepository) {
+        this.orderRepository = orderRepository;
+    }
 
     @Override
     public Order getOrderById(final Long orderId) {
-        return this.orders.stream()
-                .filter(order -> order.getId().equals(orderId))
-                .findFirst()
-                .orElse(null);
+        return this.orderRepository.findById(orderId).orElse(null);
     }
 
     @Override
@@ -27,10 +36,15 @@ public class OrderServiceImpl implements OrderService {
         }
 
         final Order newOrder = new Order(0L, "New Order", items, null, null);
-        this.orders.add(newOrder);
+        this.orderRepository.save(newOrder);
         return newOrder;
     }
 
+    @Override
+    public void save(final Order order) {
+        this.orderRepository.save(order);
+    }
+
     @Override
     public void displayOrderDetails(final Order order) {
         System.out.println("Order Details:");
@@ -38,17 +52,14 @@ public class OrderServiceImpl implements OrderService {
         System.out.println("Items:");
 
         final Map<MenuItem, Integer> itemCounts = new HashMap<>();
-        double totalPrice = 0;
-
         for (final MenuItem item : order.getItems()) {
-            itemCounts.put(item, itemCounts.getOrDefault(item, 0) + 1);
-            totalPrice += item.getPrice();
+            itemCounts.merge(item, 1, Integer::sum);
         }
 
-        itemCounts.forEach(
-                (item, count) -> System.out.printf("%s x%d - $%.2f\n", item.getName(), count, item.getPrice() * count));
+        itemCounts.forEach((item, count) -> System.out.printf("%s x%d - $%s\n", item.getName(), count,
+                Money.format(item.getPriceCents() * count)));
 
-        System.out.printf("Total Price: $%.2f\n", totalPrice);
+        System.out.printf("Total Price: $%s\n", Money.format(order.getTotalCents()));
     }
 
     @Override
@@ -59,7 +70,21 @@ public class OrderServiceImpl implements OrderService {
 
     @Override
     public List<Order> getAllOrders() {
-        // Return the list of orders directly
-        return new ArrayList<>(this.orders);
+        return this.orderRepository.findAll();
+    }
+
+    @Override
+    public List<Order> getOrdersByStatus(final OrderStatus status) {
+        return this.orderRepository.findByStatus(status);
+    }
+
+    @Override
+    public List<Order> getOrdersByCustomer(final Long customerId) {
+        return this.orderRepository.findByCustomerId(customerId);
+    }
+
+    @Override
+    public OrderCursor findOrders(final OrderQuery query, final int pageSize) {
+        return this.orderRepository.query(query, pageSize);
     }
 }
\ No newline at end of file
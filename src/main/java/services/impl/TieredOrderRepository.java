@@ -0,0 +1,198 @@
+package services.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import model.Order;
+import model.OrderStatus;
+import persistence.OrderArchive;
+import services.OrderRepository;
+import util.MergedIterator;
+import util.PeriodicTasks;
+
+/**
+ * Keeps in-flight orders in a live repository and moves finished ones to an
+ * {@link OrderArchive}, so the heap holds only orders still in progress.
+ *
+ * <p>{@link #archiveCompleted} writes every delivered and cancelled order to
+ * a new archive segment and only then removes it from the live repository.
+ * {@link #findById} and {@link #scan}, and so time-range queries, cover both
+ * tiers, with a live order shadowing any archived copy of itself; every other
+ * query covers the live orders only. Archived orders are returned as
+ * read-only copies.
+ */
+public class TieredOrderRepository implements OrderRepository, Closeable {
+    public static final String ARCHIVE_INTERVAL_PROPERTY = "order.archive.interval.ms";
+
+    private static final Logger logger = Logger.getLogger(TieredOrderRepository.class.getName());
+    private static final OrderStatus[] TERMINAL_STATUSES = {OrderStatus.DELIVERED, OrderStatus.CANCELLED};
+
+    private final OrderRepository live;
+    private final OrderArchive archive;
+    private ScheduledExecutorService archiver;
+
+    /**
+     * @param live    holds the in-flight orders
+     * @param archive receives the finished orders
+     */
+    public TieredOrderRepository(final OrderRepository live, final OrderArchive archive) {
+        this.live = live;
+        this.archive = archive;
+    }
+
+    /**
+     * Creates and starts a repository over {@link OrderArchive#fromSystemProperties()}
+     * that archives every {@value #ARCHIVE_INTERVAL_PROPERTY} milliseconds,
+     * defaulting to once a minute.
+     *
+     * @param live holds the in-flight orders
+     * @return the running repository
+     */
+    public static TieredOrderRepository fromSystemProperties(final OrderRepository live) {
+        final TieredOrderRepository repository = new TieredOrderRepository(live, OrderArchive.fromSystemProperties());
+        repository.start(Duration.ofMillis(Long.getLong(TieredOrderRepository.ARCHIVE_INTERVAL_PROPERTY, 60_000L)));
+        return repository;
+    }
+
+    /**
+     * Starts a daemon thread that archives completed orders every {@code interval}.
+     *
+     * @param interval how often to move completed orders out of the live repository
+     */
+    public synchronized void start(final Duration interval) {
+        if (this.archiver != null) {
+            return;
+        }
+        this.archiver = PeriodicTasks.newDaemonScheduler("order-archiver");
+        this.archiver.scheduleWithFixedDelay(
+                PeriodicTasks.logFailures(this::archiveCompleted, TieredOrderRepository.logger, "Order archiving failed"),
+                interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Moves every delivered and cancelled order from the live repository to
+     * the archive. An order whose status changes while it is being archived
+     * stays live, where it shadows its archived copy.
+     *
+     * @return how many orders left the live repository
+     */
+    public synchronized int archiveCompleted() {
+        final List<Order> completed = new ArrayList<>();
+        final List<OrderStatus> statuses = new ArrayList<>();
+        for (final OrderStatus status : TieredOrderRepository.TERMINAL_STATUSES) {
+            for (final Order order : this.live.findByStatus(status)) {
+                completed.add(order);
+                statuses.add(status);
+            }
+        }
+        if (completed.isEmpty()) {
+            return 0;
+        }
+
+        this.archive.archive(completed);
+        int archived = 0;
+        for (int i = 0; i < completed.size(); i++) {
+            final Order order = completed.get(i);
+            synchronized (order) {
+                if (order.getStatus() == statuses.get(i) && this.live.remove(order)) {
+                    archived++;
+                }
+            }
+        }
+        final int count = archived;
+        TieredOrderRepository.logger.info(() -> String.format("Archived %d completed orders", count));
+        return archived;
+    }
+
+    @Override
+    public Optional<Order> findById(final Long orderId) {
+        if (orderId == null) {
+            return Optional.empty();
+        }
+        final Optional<Order> order = this.live.findById(orderId);
+        return order.isPresent() ? order : this.archive.find(orderId);
+    }
+
+    @Override
+    public Order save(final Order order) {
+        return this.live.save(order);
+    }
+
+    @Override
+    public void saveAll(final Collection<Order> orders) {
+        this.live.saveAll(orders);
+    }
+
+    @Override
+    public boolean remove(final Order order) {
+        return this.live.remove(order);
+    }
+
+    @Override
+    public List<Order> findAll() {
+        return this.live.findAll();
+    }
+
+    @Override
+    public List<Order> findByStatus(final OrderStatus status) {
+        return this.live.findByStatus(status);
+    }
+
+    @Override
+    public List<Order> findByCustomerId(final Long customerId) {
+        return this.live.findByCustomerId(customerId);
+    }
+
+    @Override
+    public Stream<Order> stream() {
+        return this.live.stream();
+    }
+
+    @Override
+    public Iterator<Order> scan(final long fromId, final long toId) {
+        return new MergedIterator<Order>(List.of(this.live.scan(fromId, toId), this.archive.scan(fromId, toId)),
+                Order::getId);
+    }
+
+    @Override
+    public int count() {
+        return this.live.count();
+    }
+
+    public OrderArchive getArchive() {
+        return this.archive;
+    }
+
+    /**
+     * Stops archiving and closes the archive, and the live repository too if
+     * it is closeable.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (this.archiver != null) {
+                this.archiver.shutdownNow();
+                this.archiver = null;
+            }
+        }
+        this.archive.close();
+        if (this.live instanceof Closeable closeable) {
+            try {
+                closeable.close();
+            } catch (final IOException e) {
+                TieredOrderRepository.logger.log(Level.WARNING, "Error closing the live order repository", e);
+            }
+        }
+    }
+}
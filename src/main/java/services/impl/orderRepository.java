@@ -1,14 +0,0 @@
-package services.impl;
-
-import model.Order;
-
-import java.util.List;
-
-public class orderRepository {
-
-    public static List<Order> findAll() {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException("Unimplemented method 'findAll'");
-    }
-
-}
@@ -3,23 +3,28 @@ package tracker;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
 
 import model.Driver;
 import model.Order;
 import model.OrderStatus;
+import services.OrderRepository;
+import services.impl.InMemoryOrderRepository;
 
+/**
+ * Tracks the status and delivery estimate of orders. Both are kept on the
+ * orders in the repository, so a journaled repository persists them.
+ */
 public class OrderTracker implements OrderSubject {
-   private final Map<Long, OrderStatus> orderStatuses;
-   private final Map<Long, LocalDateTime> estimatedDeliveryTimes;
+   private final OrderRepository orders;
    private final List<OrderObserver> observers;
-   private final Map<Long, Order> orders = new ConcurrentHashMap<>();
 
    public OrderTracker() {
-      this.orderStatuses = new ConcurrentHashMap<>();
-      this.estimatedDeliveryTimes = new ConcurrentHashMap<>();
+      this(new InMemoryOrderRepository());
+   }
+
+   public OrderTracker(final OrderRepository orders) {
+      this.orders = orders;
       this.observers = new ArrayList<>();
    }
 
@@ -35,17 +40,23 @@ public class OrderTracker implements OrderSubject {
 
    @Override
    public void notifyObservers(final Order order) {
-      OrderStatus status = this.orderStatuses.get(order.getId());
+      OrderStatus status = order.getStatus();
       for (final OrderObserver observer : this.observers) {
          observer.update(order, status); // Notify with both Order and OrderStatus
       }
    }
 
+   /**
+    * @throws IllegalArgumentException if the repository has no order with that ID
+    * @throws IllegalStateException    if the order's status may not move to {@code newStatus}
+    */
    public void updateOrderStatus(final Long orderId, final OrderStatus newStatus, final Driver assignedDriver) {
       this.validateOrderUpdateRequest(orderId, newStatus);
-      this.updateStatusInDatabase(orderId, newStatus);
-      this.updateDeliveryEstimates(orderId, assignedDriver);
-      this.notifyObserversAboutOrderUpdate(orderId); // Notify observers after update
+      final Order order = this.findOrderById(orderId)
+            .orElseThrow(() -> new IllegalArgumentException("Unknown order " + orderId));
+      this.updateStatusInDatabase(order, newStatus);
+      this.updateDeliveryEstimates(order, assignedDriver);
+      this.notifyObservers(order); // Notify observers after update
    }
 
    private void validateOrderUpdateRequest(final Long orderId, final OrderStatus newStatus) {
@@ -56,29 +67,31 @@ public class OrderTracker implements OrderSubject {
       return status == OrderStatus.OUT_FOR_DELIVERY;
    }
 
-   private void updateStatusInDatabase(final Long orderId, final OrderStatus newStatus) {
-      this.orderStatuses.put(orderId, newStatus);
+   private void updateStatusInDatabase(final Order order, final OrderStatus newStatus) {
+      // Callers that already moved the order, e.g. through compareAndTransition, only want the update published
+      if (order.getStatus() != newStatus && !order.transitionTo(newStatus)) {
+         throw new IllegalStateException("Order " + order.getId() + " cannot move from " + order.getStatus()
+               + " to " + newStatus);
+      }
    }
 
-   private void updateDeliveryEstimates(final Long orderId, final Driver driver) {
-      final LocalDateTime estimatedTime = this.calculateEstimatedDeliveryTime(driver);
-      this.estimatedDeliveryTimes.put(orderId, estimatedTime);
+   private void updateDeliveryEstimates(final Order order, final Driver driver) {
+      if (driver != null) {
+         order.setDriver(driver);
+      }
+      order.setEstimatedDeliveryTime(this.calculateEstimatedDeliveryTime(driver));
    }
 
    public Optional<OrderStatus> getOrderStatus(final Long orderId) {
-      return Optional.ofNullable(this.orderStatuses.get(orderId));
+      return this.findOrderById(orderId).map(Order::getStatus);
    }
 
    public Optional<LocalDateTime> getEstimatedDeliveryTime(final Long orderId) {
-      return Optional.ofNullable(this.estimatedDeliveryTimes.get(orderId));
+      return this.findOrderById(orderId).map(Order::getEstimatedDeliveryTime);
    }
 
    private Optional<Order> findOrderById(final Long orderId) {
-      return Optional.ofNullable(this.orders.get(orderId));
-   }
-
-   private void notifyObserversAboutOrderUpdate(final Long orderId) {
-      this.findOrderById(orderId).ifPresent(this::notifyObservers);
+      return this.orders.findById(orderId);
    }
 
    private LocalDateTime calculateEstimatedDeliveryTime(final Driver driver) {
@@ -1,11 +1,164 @@
 package util;
 
+import java.util.NoSuchElementException;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
 
+/**
+ * Generates unique, time-ordered 64-bit IDs in the Snowflake layout: a zero
+ * sign bit, 41 bits of milliseconds since {@link #EPOCH_MILLIS}, 10 bits of
+ * node ID and a 12-bit sequence.
+ *
+ * <p>The generator is lock-free. The timestamp and sequence of the last issued
+ * ID share one {@link AtomicLong} that is advanced by CAS. When a
+ * millisecond's sequence runs out, or the clock steps backwards, the generator
+ * keeps counting on from the last issued value rather than waiting or reusing
+ * one, so IDs stay unique and increasing and simply run ahead of the wall
+ * clock until it catches up.
+ *
+ * <p>Every JVM must run with its own node ID, set through the
+ * {@value #NODE_PROPERTY} system property. IDs remain unique across a
+ * restart as long as the clock at restart is past the last ID issued.
+ */
 public class IdGenerator {
-    private static final AtomicLong counter = new AtomicLong(0);
+    public static final String NODE_PROPERTY = "order.id.node";
+    /** 2024-01-01T00:00:00Z; 41 bits of milliseconds from here last until 2093. */
+    public static final long EPOCH_MILLIS = 1_704_067_200_000L;
+
+    private static final int SEQUENCE_BITS = 12;
+    private static final int NODE_BITS = 10;
+    private static final int TIMESTAMP_SHIFT = IdGenerator.SEQUENCE_BITS + IdGenerator.NODE_BITS;
+    private static final long SEQUENCE_MASK = (1L << IdGenerator.SEQUENCE_BITS) - 1;
+
+    public static final int MAX_NODE_ID = (1 << IdGenerator.NODE_BITS) - 1;
+
+    private static final IdGenerator DEFAULT = new IdGenerator(Integer.getInteger(IdGenerator.NODE_PROPERTY, 0));
+
+    private final long nodeBits;
+    private final LongSupplier clock;
+    // The last issued ID without its node bits: (timestamp << SEQUENCE_BITS) | sequence
+    private final AtomicLong last;
+
+    public IdGenerator(final int nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    /**
+     * @param nodeId the ID of this node, unique among the JVMs issuing IDs
+     * @param clock  the source of epoch milliseconds
+     */
+    public IdGenerator(final int nodeId, final LongSupplier clock) {
+        if (nodeId < 0 || nodeId > IdGenerator.MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node ID must be between 0 and " + IdGenerator.MAX_NODE_ID);
+        }
+        this.nodeBits = (long) nodeId << IdGenerator.SEQUENCE_BITS;
+        this.clock = clock;
+        this.last = new AtomicLong();
+    }
+
+    /**
+     * @return the process-wide generator for the node named by {@value #NODE_PROPERTY}
+     */
+    public static IdGenerator getDefault() {
+        return IdGenerator.DEFAULT;
+    }
+
+    public long nextId() {
+        return this.toId(this.claim(1));
+    }
 
     public Long generateId() {
-        return IdGenerator.counter.incrementAndGet();
+        return this.nextId();
+    }
+
+    /**
+     * Reserves a run of consecutive IDs with a single CAS, for a thread that
+     * needs many IDs at once, such as a bulk import.
+     *
+     * @param count how many IDs to reserve
+     * @return the reserved IDs, to be consumed by one thread
+     */
+    public IdBlock reserve(final int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Block size must be positive");
+        }
+        return new IdBlock(this, this.claim(count), count);
+    }
+
+    /**
+     * @return the epoch milliseconds encoded in an ID
+     */
+    public static long timestampOf(final long id) {
+        return (id >>> IdGenerator.TIMESTAMP_SHIFT) + IdGenerator.EPOCH_MILLIS;
+    }
+
+    /**
+     * @return the smallest ID that {@link #timestampOf} maps to
+     *         {@code epochMillis} or later, so the IDs issued from one instant
+     *         up to another are {@code [firstIdAt(from), firstIdAt(to))}
+     */
+    public static long firstIdAt(final long epochMillis) {
+        final long millis = epochMillis - IdGenerator.EPOCH_MILLIS;
+        if (millis <= 0) {
+            return 0;
+        }
+        // Past the 41-bit timestamp range no ID can be that late
+        return millis >= 1L << (Long.SIZE - 1 - IdGenerator.TIMESTAMP_SHIFT)
+                ? Long.MAX_VALUE
+                : millis << IdGenerator.TIMESTAMP_SHIFT;
+    }
+
+    /**
+     * @return the node ID encoded in an ID
+     */
+    public static int nodeOf(final long id) {
+        return (int) ((id >>> IdGenerator.SEQUENCE_BITS) & IdGenerator.MAX_NODE_ID);
+    }
+
+    private long claim(final int count) {
+        while (true) {
+            final long previous = this.last.get();
+            final long now = (this.clock.getAsLong() - IdGenerator.EPOCH_MILLIS) << IdGenerator.SEQUENCE_BITS;
+            final long first = Math.max(now, previous + 1);
+            if (this.last.compareAndSet(previous, first + count - 1)) {
+                return first;
+            }
+        }
+    }
+
+    private long toId(final long stamp) {
+        return ((stamp >>> IdGenerator.SEQUENCE_BITS) << IdGenerator.TIMESTAMP_SHIFT)
+                | this.nodeBits
+                | (stamp & IdGenerator.SEQUENCE_MASK);
+    }
+
+    /**
+     * A run of IDs reserved by {@link #reserve}. Not thread-safe.
+     */
+    public static final class IdBlock {
+        private final IdGenerator generator;
+        private final long end;
+        private long next;
+
+        private IdBlock(final IdGenerator generator, final long first, final int count) {
+            this.generator = generator;
+            this.next = first;
+            this.end = first + count;
+        }
+
+        public boolean hasNext() {
+            return this.next < this.end;
+        }
+
+        public int remaining() {
+            return (int) (this.end - this.next);
+        }
+
+        public long nextId() {
+            if (this.next >= this.end) {
+                throw new NoSuchElementException("ID block is exhausted");
+            }
+            return this.generator.toId(this.next++);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,68 @@
+package util;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.function.ToLongFunction;
+
+/**
+ * Merges iterators that each return elements in ascending key order into one
+ * ascending iterator, pulling from each source only as far as needed.
+ *
+ * <p>When several sources hold an element with the same key only the one
+ * from the earliest source in the list is returned, so listing sources from
+ * newest to oldest lets a newer copy of an element shadow older ones.
+ *
+ * @param <T> the element type
+ */
+public class MergedIterator<T> implements Iterator<T> {
+    private static final Comparator<Head<?>> ORDER =
+            Comparator.<Head<?>>comparingLong(Head::key).thenComparingInt(Head::source);
+
+    private final ToLongFunction<? super T> key;
+    private final PriorityQueue<Head<T>> heads;
+
+    /**
+     * @param sources the sources, each ascending by key, in order of precedence
+     * @param key     extracts the key elements are ordered by
+     */
+    public MergedIterator(final List<? extends Iterator<? extends T>> sources, final ToLongFunction<? super T> key) {
+        this.key = key;
+        this.heads = new PriorityQueue<>(Math.max(1, sources.size()), MergedIterator.ORDER);
+        for (int source = 0; source < sources.size(); source++) {
+            this.advance(sources.get(source), source);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !this.heads.isEmpty();
+    }
+
+    @Override
+    public T next() {
+        final Head<T> head = this.heads.poll();
+        if (head == null) {
+            throw new NoSuchElementException();
+        }
+        this.advance(head.rest(), head.source());
+        // Drop the shadowed copies from later sources
+        while (!this.heads.isEmpty() && this.heads.peek().key() == head.key()) {
+            final Head<T> shadowed = this.heads.poll();
+            this.advance(shadowed.rest(), shadowed.source());
+        }
+        return head.element();
+    }
+
+    private void advance(final Iterator<? extends T> source, final int index) {
+        if (source.hasNext()) {
+            final T element = source.next();
+            this.heads.add(new Head<>(element, this.key.applyAsLong(element), index, source));
+        }
+    }
+
+    private record Head<T>(T element, long key, int source, Iterator<? extends T> rest) {
+    }
+}
@@ -0,0 +1,49 @@
+package util;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Background threads for the periodic work of optional services, such as
+ * snapshots, archiving and batch dispatch.
+ */
+public final class PeriodicTasks {
+
+    private PeriodicTasks() {
+    }
+
+    /**
+     * @param threadName the name of the scheduler's thread
+     * @return a single-threaded scheduler whose daemon thread does not keep
+     *         the JVM alive
+     */
+    public static ScheduledExecutorService newDaemonScheduler(final String threadName) {
+        return Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Wraps a periodic task so that a failed run is logged with its stack
+     * trace, where an exception escaping the task would silently cancel every
+     * later run.
+     *
+     * @param task    the task to run
+     * @param logger  where failures are logged
+     * @param failure what failed, e.g. {@code "Order archiving failed"}
+     * @return the guarded task
+     */
+    public static Runnable logFailures(final Runnable task, final Logger logger, final String failure) {
+        return () -> {
+            try {
+                task.run();
+            } catch (final RuntimeException e) {
+                logger.log(Level.SEVERE, failure, e);
+            }
+        };
+    }
+}
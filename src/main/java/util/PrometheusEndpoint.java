@@ -0,0 +1,95 @@
+package util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+
+/**
+ * Publishes Micrometer's global registry in the Prometheus text format.
+ *
+ * <p>The application runs as a console program without a Spring context, so
+ * the actuator on the classpath never serves {@code /actuator/prometheus}.
+ * Instead, a {@link PrometheusMeterRegistry} joins the global registry, and
+ * when the {@value #PORT_PROPERTY} system property is set, a small HTTP
+ * server answers scrapes on that port at {@value #PATH}.
+ */
+public final class PrometheusEndpoint {
+    public static final String PORT_PROPERTY = "order.metrics.prometheus.port";
+    public static final String PATH = "/actuator/prometheus";
+
+    private static final Logger logger = Logger.getLogger(PrometheusEndpoint.class.getName());
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static PrometheusMeterRegistry registry;
+    private static HttpServer server;
+
+    private PrometheusEndpoint() {
+    }
+
+    /**
+     * Adds a Prometheus registry to the global registry, once, and starts
+     * serving it if {@value #PORT_PROPERTY} names a port. Meters registered
+     * with the global registry before or after this call are both published.
+     *
+     * @return the Prometheus registry
+     */
+    public static synchronized PrometheusMeterRegistry fromSystemProperties() {
+        if (PrometheusEndpoint.registry == null) {
+            PrometheusEndpoint.registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+            Metrics.addRegistry(PrometheusEndpoint.registry);
+        }
+        final Integer port = Integer.getInteger(PrometheusEndpoint.PORT_PROPERTY);
+        if (port != null && PrometheusEndpoint.server == null) {
+            PrometheusEndpoint.server = PrometheusEndpoint.serve(PrometheusEndpoint.registry, port);
+        }
+        return PrometheusEndpoint.registry;
+    }
+
+    private static HttpServer serve(final PrometheusMeterRegistry registry, final int port) {
+        try {
+            final HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+            server.createContext(PrometheusEndpoint.PATH, exchange -> PrometheusEndpoint.scrape(registry, exchange));
+            server.setExecutor(Executors.newSingleThreadExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "prometheus-endpoint");
+                thread.setDaemon(true);
+                return thread;
+            }));
+            // The server's dispatcher thread takes its daemon flag from the thread that starts it, so it is
+            // started from a daemon thread and serving metrics never keeps the console from exiting
+            final Thread starter = new Thread(server::start, "prometheus-endpoint-start");
+            starter.setDaemon(true);
+            starter.start();
+            starter.join();
+            PrometheusEndpoint.logger.info(() -> "Serving Prometheus metrics on port " + port + PrometheusEndpoint.PATH);
+            return server;
+        } catch (final IOException e) {
+            PrometheusEndpoint.logger.log(Level.WARNING, "Could not serve Prometheus metrics on port " + port, e);
+            return null;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private static void scrape(final PrometheusMeterRegistry registry, final HttpExchange exchange) throws IOException {
+        try (exchange) {
+            final byte[] body = registry.scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", PrometheusEndpoint.CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+}
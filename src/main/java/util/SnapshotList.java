@@ -0,0 +1,98 @@
+package util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Copy-on-write list that hands every reader the same immutable snapshot.
+ *
+ * <p>{@link #get()} is a single volatile read and allocates nothing, so
+ * getters that used to return a defensive copy can return the snapshot
+ * directly. Writers serialize on the list, build the next version from the
+ * current one and publish it with one volatile write; a reader holding an
+ * older snapshot keeps seeing it unchanged. This suits lists that are read far
+ * more often than they are written, such as order lines and menus.
+ *
+ * @param <E> the element type; null elements are allowed
+ */
+public class SnapshotList<E> {
+    private volatile List<E> snapshot;
+
+    public SnapshotList() {
+        this.snapshot = Collections.emptyList();
+    }
+
+    /**
+     * @param elements the initial elements, copied
+     */
+    public SnapshotList(final Collection<? extends E> elements) {
+        this.snapshot = SnapshotList.freeze(elements.toArray());
+    }
+
+    /**
+     * @return the current elements as an unmodifiable list that never changes
+     */
+    public List<E> get() {
+        return this.snapshot;
+    }
+
+    public synchronized void add(final E element) {
+        final List<E> current = this.snapshot;
+        final Object[] next = current.toArray(new Object[current.size() + 1]);
+        next[current.size()] = element;
+        this.snapshot = SnapshotList.freeze(next);
+    }
+
+    /**
+     * Appends an element unless the list already contains an equal one.
+     *
+     * @return whether the element was added
+     */
+    public synchronized boolean addIfAbsent(final E element) {
+        if (this.snapshot.contains(element)) {
+            return false;
+        }
+        this.add(element);
+        return true;
+    }
+
+    /**
+     * Removes the first element equal to {@code element}.
+     *
+     * @return whether the list contained the element
+     */
+    public synchronized boolean remove(final Object element) {
+        final List<E> current = this.snapshot;
+        final int index = current.indexOf(element);
+        if (index < 0) {
+            return false;
+        }
+        final Object[] next = new Object[current.size() - 1];
+        for (int i = 0, j = 0; i < current.size(); i++) {
+            if (i != index) {
+                next[j++] = current.get(i);
+            }
+        }
+        this.snapshot = SnapshotList.freeze(next);
+        return true;
+    }
+
+    /**
+     * Replaces every element.
+     *
+     * @param elements the new elements, copied
+     */
+    public synchronized void set(final Collection<? extends E> elements) {
+        this.snapshot = SnapshotList.freeze(elements.toArray());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> List<E> freeze(final Object[] elements) {
+        // Wraps the private array rather than copying it again as List.of would
+        return elements.length == 0
+                ? Collections.emptyList()
+                : Collections.unmodifiableList((List<E>) Arrays.asList(elements));
+    }
+}
@@ -47,8 +47,8 @@ public abstract class AbstractOrderValidator extends AbstractValidator<Order> {
     /**
      * Validates the total amount of the order.
      *
-     * @param totalAmount the total amount to validate
+     * @param totalCents the total amount to validate, in cents
      * @return true if the total amount is valid, false otherwise
      */
-    public abstract boolean validateTotalAmount(double totalAmount);
+    public abstract boolean validateTotalAmount(long totalCents);
 }
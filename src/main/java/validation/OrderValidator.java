@@ -8,7 +8,7 @@ import model.Order;
  */
 public class OrderValidator {
    private static final int MAX_ITEMS_PER_ORDER = 20;
-   private static final double MAX_ORDER_AMOUNT = 500.0;
+   private static final long MAX_ORDER_AMOUNT_CENTS = 50_000;
 
    /**
     * Validates the given order.
@@ -24,7 +24,7 @@ public class OrderValidator {
       try {
          ValidationUtils.validateCustomerId(order.getCustomerId());
          ValidationUtils.validateItems(order.getItems(), MAX_ITEMS_PER_ORDER);
-         ValidationUtils.validateAmount(order.getTotalAmount(), MAX_ORDER_AMOUNT);
+         ValidationUtils.validateAmount(order.getTotalCents(), MAX_ORDER_AMOUNT_CENTS);
       } catch (ValidationException e) {
          throw new ValidationException("Order validation failed: " + e.getMessage());
       }
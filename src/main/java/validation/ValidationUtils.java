@@ -1,6 +1,8 @@
 package validation;
 
 import CustomException.ValidationException;
+import model.Money;
+import model.Order;
 import payment.Payment;
 
 import java.util.List;
@@ -13,13 +15,13 @@ import java.util.List;
  * {@code
  * Long customerId = 123L;
  * List<String> items = List.of("item1", "item2");
- * double amount = 50.0;
- * double maxAmount = 100.0;
- * Payment payment = new Payment(1L, "CREDIT_CARD", amount);
+ * long amountCents = 5_000;
+ * long maxAmountCents = 10_000;
+ * Payment payment = new Payment(1L, "CREDIT_CARD", amountCents);
  *
  * ValidationUtils.validateCustomerId(customerId);
  * ValidationUtils.validateItems(items, 5);
- * ValidationUtils.validateAmount(amount, maxAmount);
+ * ValidationUtils.validateAmount(amountCents, maxAmountCents);
  * ValidationUtils.validatePayment(payment);
  * }
  * </pre>
@@ -67,17 +69,17 @@ public class ValidationUtils {
    /**
     * Validates the amount.
     *
-    * @param amount the amount to validate
-    * @param maxAmount the maximum amount allowed
+    * @param amountCents the amount to validate, in cents
+    * @param maxAmountCents the maximum amount allowed, in cents
     * @throws ValidationException if the amount is less than or equal to zero or exceeds the maximum limit
     */
-   public static void validateAmount(double amount, double maxAmount) {
+   public static void validateAmount(long amountCents, long maxAmountCents) {
       try {
-         if (amount <= 0) {
+         if (amountCents <= 0) {
             throw new ValidationException("Amount must be greater than zero");
          }
-         if (amount > maxAmount) {
-            throw new ValidationException("Amount exceeds maximum limit of " + maxAmount);
+         if (amountCents > maxAmountCents) {
+            throw new ValidationException("Amount exceeds maximum limit of " + Money.format(maxAmountCents));
          }
       } catch (ValidationException e) {
          System.err.println("Error in validateAmount: " + e.getMessage());
@@ -101,4 +103,24 @@ public class ValidationUtils {
          throw e;
       }
    }
+
+   /**
+    * Validates that a payment is processed and pays exactly the order's total.
+    *
+    * @param payment the payment to validate
+    * @param order the order it pays for
+    * @throws ValidationException if the payment is not processed or its amount differs from the order total
+    */
+   public static void validatePayment(Payment payment, Order order) {
+      validatePayment(payment);
+      try {
+         if (payment != null && payment.getAmountCents() != order.getTotalCents()) {
+            throw new ValidationException("Payment of " + Money.format(payment.getAmountCents())
+                  + " does not match order total of " + Money.format(order.getTotalCents()));
+         }
+      } catch (ValidationException e) {
+         System.err.println("Error in validatePayment: " + e.getMessage());
+         throw e;
+      }
+   }
 }
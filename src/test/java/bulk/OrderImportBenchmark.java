@@ -0,0 +1,73 @@
+package bulk;
+
+import model.ConcreteMenuItem;
+import model.MenuItem;
+import model.Order;
+import model.OrderStatus;
+import model.Size;
+import services.impl.InMemoryOrderRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Measures bulk export and import throughput in orders per minute for each
+ * format, through temporary files. Run with
+ * {@code ./gradlew benchmark -PbenchmarkClass=bulk.OrderImportBenchmark};
+ * pass the number of orders as a program argument.
+ */
+public class OrderImportBenchmark {
+    private static final int DEFAULT_ORDERS = 1_000_000;
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws IOException {
+        int orders = args.length > 0 ? Integer.parseInt(args[0].replace("_", "")) : DEFAULT_ORDERS;
+        List<MenuItem> items = List.of(
+                new ConcreteMenuItem(1L, "Fries", "Crispy golden fries", 2.99, Size.LARGE, 2),
+                new ConcreteMenuItem(2L, "Soda", "Cold, fizzy", 1.50, Size.SMALL, 1));
+
+        System.out.printf("%8s %6s %16s %16s %10s%n", "format", "round", "export/min", "import/min", "MB");
+        for (OrderFormat format : OrderFormat.values()) {
+            Path file = Files.createTempFile("orders", "." + format.name().toLowerCase());
+            try {
+                // The first round warms up the JIT and is not printed
+                for (int round = 0; round <= ROUNDS; round++) {
+                    long began = System.nanoTime();
+                    OrderExporter.exportTo(file, generate(orders, items));
+                    double exportPerMinute = perMinute(orders, System.nanoTime() - began);
+
+                    InMemoryOrderRepository repository = new InMemoryOrderRepository(orders);
+                    began = System.nanoTime();
+                    ImportResult result = new OrderImporter(repository).importFrom(file);
+                    double importPerMinute = perMinute(result.getImported(), System.nanoTime() - began);
+                    if (result.getImported() != orders) {
+                        throw new IllegalStateException("Imported " + result);
+                    }
+                    if (round > 0) {
+                        System.out.printf("%8s %6d %,16.0f %,16.0f %10.1f%n", format, round, exportPerMinute,
+                                importPerMinute, Files.size(file) / 1e6);
+                    }
+                }
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private static Stream<Order> generate(int orders, List<MenuItem> items) {
+        return LongStream.rangeClosed(1, orders).mapToObj(id -> {
+            Order order = new Order(id, id % 50_000 + 1, "customer" + id % 50_000 + "@example.com", items,
+                    id + " Main St", "94107");
+            order.restoreStatus(OrderStatus.CONFIRMED);
+            return order;
+        });
+    }
+
+    private static double perMinute(long orders, long nanos) {
+        return orders * 60e9 / nanos;
+    }
+}
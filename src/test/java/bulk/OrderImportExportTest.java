@@ -0,0 +1,144 @@
+package bulk;
+
+import model.ConcreteMenuItem;
+import model.Drink;
+import model.MenuItem;
+import model.Order;
+import model.OrderStatus;
+import model.Size;
+import org.junit.jupiter.api.Test;
+import services.OrderRepository;
+import services.impl.InMemoryOrderRepository;
+import validation.OrderValidator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderImportExportTest {
+    private static final LocalDateTime ETA = LocalDateTime.of(2024, 5, 1, 18, 30);
+
+    @Test
+    void exportThenImport_Ndjson_RestoresEveryField() throws IOException {
+        assertRoundTrip(OrderFormat.NDJSON);
+    }
+
+    @Test
+    void exportThenImport_Csv_RestoresEveryField() throws IOException {
+        assertRoundTrip(OrderFormat.CSV);
+    }
+
+    @Test
+    void importFrom_Ndjson_SkipsMalformedAndInvalidRecords() throws IOException {
+        String input = """
+                {"id":1,"customerId":7,"items":[{"name":"Fries","unitPriceCents":299}],"extra":{"nested":[1,2.5,true]}}
+                {"id":2,"customerId":7,"items":[{"name":"Fries","unitPriceCents":
+                {"id":3,"customerId":0,"items":[{"name":"Fries","unitPriceCents":299}]}
+
+                {"customerId":8,"status":"CONFIRMED","items":[{"name":"Caf\\u00e9 \\"latte\\"","unitPriceCents":450,"quantity":2}]}
+                """;
+        InMemoryOrderRepository repository = new InMemoryOrderRepository();
+
+        ImportResult result = importString(repository, input, OrderFormat.NDJSON, 1);
+
+        assertEquals(2, result.getImported());
+        assertEquals(2, result.getRejected());
+        assertEquals(299, repository.findById(1L).orElseThrow().getTotalCents());
+        Order generated = repository.findByCustomerId(8L).get(0);
+        assertNotNull(generated.getId());
+        assertEquals(OrderStatus.CONFIRMED, generated.getStatus());
+        assertEquals("Caf\u00e9 \"latte\"", generated.getItems().get(0).getName());
+        assertEquals(900, generated.getTotalCents());
+    }
+
+    @Test
+    void importFrom_Csv_GroupsRowsByOrderAndSkipsWholeOrderOnBadRow() throws IOException {
+        String input = "itemUnitPriceCents,orderId,customerId,customerEmail,deliveryAddress,postalCode,status,"
+                + "estimatedDeliveryTime,itemId,itemName,itemDescription,itemSize,itemQuantity\r\n"
+                + "299,1,7,,\"1 Main St, Apt \"\"B\"\"\",94107,PENDING,,1,Fries,,LARGE,2\r\n"
+                + "150,1,7,,\"1 Main St, Apt \"\"B\"\"\",94107,PENDING,,2,Soda,\"Cold\nand fizzy\",,1\r\n"
+                + "100,2,7,,,,PENDING,,1,Fries,,,1\r\n"
+                + "abc,2,7,,,,PENDING,,2,Soda,,,1\r\n"
+                + "100,3,9,,,,DELIVERED,2024-05-01T18:30,1,Fries,,,1\r\n";
+        InMemoryOrderRepository repository = new InMemoryOrderRepository();
+
+        ImportResult result = importString(repository, input, OrderFormat.CSV, 4);
+
+        assertEquals(2, result.getImported());
+        assertEquals(1, result.getRejected());
+        Order first = repository.findById(1L).orElseThrow();
+        assertEquals("1 Main St, Apt \"B\"", first.getDeliveryAddress());
+        assertEquals(748, first.getTotalCents());
+        assertEquals("Cold\nand fizzy", ((ConcreteMenuItem) first.getItems().get(1)).getDescription());
+        assertTrue(repository.findById(2L).isEmpty());
+        assertEquals(ETA, repository.findById(3L).orElseThrow().getEstimatedDeliveryTime());
+    }
+
+    @Test
+    void importFrom_ManyChunks_StoresEveryOrder() throws IOException {
+        StringBuilder input = new StringBuilder();
+        for (int id = 1; id <= 10_000; id++) {
+            input.append("{\"id\":").append(id).append(",\"customerId\":").append(id % 50 + 1)
+                    .append(",\"items\":[{\"name\":\"Fries\",\"unitPriceCents\":299}]}\n");
+        }
+        InMemoryOrderRepository repository = new InMemoryOrderRepository();
+
+        ImportResult result = new OrderImporter(repository, new OrderValidator(), 64, 4)
+                .importFrom(new BufferedReader(new StringReader(input.toString())), OrderFormat.NDJSON);
+
+        assertEquals(10_000, result.getImported());
+        assertEquals(10_000, repository.count());
+    }
+
+    @Test
+    void importFrom_CsvWithoutRequiredColumn_Throws() {
+        assertThrows(CustomException.ValidationException.class, () -> importString(new InMemoryOrderRepository(),
+                "orderId,customerId\r\n1,7\r\n", OrderFormat.CSV, 1));
+    }
+
+    private static void assertRoundTrip(OrderFormat format) throws IOException {
+        Order order = new Order(1L, 7L, "a@example.com", List.of(
+                new ConcreteMenuItem(3L, "Pizza", "Thin, \"crispy\"\ncrust", 12.50, Size.LARGE, 2),
+                new Drink(4L, "Soda", "Cold", 1.99, Size.SMALL, 3)), "1 Main St", "94107");
+        order.restoreStatus(OrderStatus.IN_PROGRESS);
+        order.setEstimatedDeliveryTime(ETA);
+        StringWriter out = new StringWriter();
+
+        assertEquals(2, OrderExporter.export(Stream.of(order, new Order(2L, 8L, null,
+                List.of(new ConcreteMenuItem(null, "Fries", null, 2.99, null, 1)), null, null)), out, format));
+        InMemoryOrderRepository repository = new InMemoryOrderRepository();
+        ImportResult result = importString(repository, out.toString(), format, 1);
+
+        assertEquals(2, result.getImported());
+        Order restored = repository.findById(1L).orElseThrow();
+        assertEquals(7L, restored.getCustomerId());
+        assertEquals("a@example.com", restored.getCustomerEmail());
+        assertEquals("1 Main St", restored.getDeliveryAddress());
+        assertEquals("94107", restored.getPostalCode());
+        assertEquals(OrderStatus.IN_PROGRESS, restored.getStatus());
+        assertEquals(ETA, restored.getEstimatedDeliveryTime());
+        assertEquals(order.getTotalCents(), restored.getTotalCents());
+        ConcreteMenuItem pizza = (ConcreteMenuItem) restored.getItems().get(0);
+        assertEquals("Thin, \"crispy\"\ncrust", pizza.getDescription());
+        assertEquals(Size.LARGE, pizza.getSize());
+        assertEquals(2, pizza.getQuantity());
+        assertEquals(1250, pizza.getUnitPriceCents());
+        MenuItem soda = restored.getItems().get(1);
+        assertEquals(597, soda.getPriceCents());
+        Order sparse = repository.findById(2L).orElseThrow();
+        assertNull(sparse.getCustomerEmail());
+        assertNull(sparse.getItems().get(0).getId());
+    }
+
+    private static ImportResult importString(OrderRepository repository, String input, OrderFormat format,
+            int batchSize) throws IOException {
+        return new OrderImporter(repository, new OrderValidator(), batchSize, 2)
+                .importFrom(new BufferedReader(new StringReader(input)), format);
+    }
+}
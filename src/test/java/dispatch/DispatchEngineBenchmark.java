@@ -0,0 +1,82 @@
+package dispatch;
+
+import model.Driver;
+import model.Location;
+import services.impl.DriverServiceImpl;
+import services.impl.OrderServiceImpl;
+
+import java.time.Duration;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static model.TestOrders.anOrder;
+
+/**
+ * Measures batch dispatch rounds of as many waiting orders as idle drivers
+ * spread over a city, and the optimal solve of the same problem with every
+ * driver a candidate for every order. Run with
+ * {@code ./gradlew benchmark -PbenchmarkClass=dispatch.DispatchEngineBenchmark};
+ * pass the number of orders and drivers and the candidates per order as
+ * program arguments.
+ */
+public class DispatchEngineBenchmark {
+    private static final int DEFAULT_SIZE = 2_000;
+    private static final int ROUNDS = 5;
+    // A 30 km square around San Francisco
+    private static final double SOUTH = 37.60;
+    private static final double WEST = -122.55;
+    private static final double SPAN_DEGREES = 0.27;
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0].replace("_", "")) : DEFAULT_SIZE;
+        int candidates = args.length > 1 ? Integer.parseInt(args[1]) : DispatchEngine.DEFAULT_CANDIDATES;
+        // Every assignment is logged otherwise
+        Logger.getLogger("").setLevel(Level.WARNING);
+        Logger.getLogger("").getHandlers()[0].setLevel(Level.WARNING);
+        Random random = new Random(7);
+
+        System.out.printf("%8s %12s %12s %12s%n", "round", "ms/round", "assigned", "ms/dense");
+        // The first round warms up the JIT and is not printed
+        for (int round = 0; round <= ROUNDS; round++) {
+            OrderServiceImpl orders = new OrderServiceImpl();
+            DriverServiceImpl drivers = new DriverServiceImpl();
+            Location[] pickups = new Location[size];
+            Location[] driverLocations = new Location[size];
+            for (int i = 0; i < size; i++) {
+                Driver driver = new Driver((long) i + 1, "Driver " + i, "Scooter", "P-" + i);
+                driverLocations[i] = randomLocation(random);
+                driver.setCurrentLocation(driverLocations[i]);
+                drivers.addDriver(driver);
+                pickups[i] = randomLocation(random);
+                orders.save(anOrder().withPickupLocation(pickups[i]).build());
+            }
+            DispatchEngine engine = new DispatchEngine(orders, drivers, TravelTimeEstimator.CITY, candidates,
+                    Duration.ofSeconds(60));
+
+            long began = System.nanoTime();
+            int assigned = engine.dispatch();
+            long roundNanos = System.nanoTime() - began;
+
+            AssignmentProblem dense = new AssignmentProblem();
+            for (Location pickup : pickups) {
+                dense.addRow(DispatchEngine.DEFAULT_UNASSIGNED_SECONDS);
+                for (int column = 0; column < size; column++) {
+                    dense.addEdge(column, TravelTimeEstimator.CITY.secondsBetween(driverLocations[column], pickup));
+                }
+            }
+            began = System.nanoTime();
+            dense.solve(Duration.ofSeconds(60));
+            long denseNanos = System.nanoTime() - began;
+
+            if (round > 0) {
+                System.out.printf("%8d %12.1f %12d %12.1f%n", round, roundNanos / 1e6, assigned, denseNanos / 1e6);
+            }
+        }
+    }
+
+    private static Location randomLocation(Random random) {
+        return new Location(null, null, SOUTH + random.nextDouble() * SPAN_DEGREES,
+                WEST + random.nextDouble() * SPAN_DEGREES);
+    }
+}
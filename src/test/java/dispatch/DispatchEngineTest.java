@@ -0,0 +1,155 @@
+package dispatch;
+
+import model.Driver;
+import model.Location;
+import model.Order;
+import model.OrderStatus;
+import org.junit.jupiter.api.Test;
+import services.impl.DriverServiceImpl;
+import services.impl.OrderServiceImpl;
+
+import java.time.Duration;
+import java.util.Random;
+
+import static model.TestOrders.anOrder;
+import static org.junit.jupiter.api.Assertions.*;
+
+class DispatchEngineTest {
+
+    @Test
+    void solve_MatchesBruteForceOptimumOnRandomSparseProblems() {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            int rows = 1 + random.nextInt(6);
+            int columns = 1 + random.nextInt(6);
+            double[][] cost = new double[rows][columns];
+            double[] unassigned = new double[rows];
+            AssignmentProblem problem = new AssignmentProblem();
+            for (int row = 0; row < rows; row++) {
+                unassigned[row] = 20 + random.nextInt(80);
+                problem.addRow(unassigned[row]);
+                for (int column = 0; column < columns; column++) {
+                    // A third of the pairs are not candidates at all
+                    cost[row][column] = random.nextInt(3) == 0 ? Double.MAX_VALUE : random.nextInt(100);
+                    if (cost[row][column] != Double.MAX_VALUE) {
+                        problem.addEdge(column, cost[row][column]);
+                    }
+                }
+            }
+
+            AssignmentProblem.Solution solution = problem.solve(Duration.ofSeconds(10));
+
+            assertTrue(solution.isOptimal());
+            assertEquals(best(cost, unassigned, 0, new boolean[columns]), solution.getCost(), 1e-9);
+            boolean[] used = new boolean[columns];
+            double total = 0;
+            for (int row = 0; row < rows; row++) {
+                int column = solution.columnOf(row);
+                if (column == AssignmentProblem.UNASSIGNED) {
+                    total += unassigned[row];
+                } else {
+                    assertFalse(used[column]);
+                    used[column] = true;
+                    total += cost[row][column];
+                }
+            }
+            assertEquals(solution.getCost(), total, 1e-9);
+        }
+    }
+
+    @Test
+    void solve_NoBudget_FallsBackToGreedy() {
+        AssignmentProblem problem = new AssignmentProblem();
+        problem.addRow(1000);
+        problem.addEdge(0, 1);
+        problem.addEdge(1, 2);
+        problem.addRow(1000);
+        problem.addEdge(0, 2);
+        problem.addEdge(1, 100);
+
+        AssignmentProblem.Solution optimal = problem.solve(Duration.ofSeconds(10));
+        AssignmentProblem.Solution greedy = problem.solve(Duration.ZERO);
+
+        assertEquals(1, optimal.columnOf(0));
+        assertEquals(0, optimal.columnOf(1));
+        assertEquals(4, optimal.getCost());
+        assertFalse(greedy.isOptimal());
+        assertEquals(0, greedy.columnOf(0));
+        assertEquals(101, greedy.getCost());
+    }
+
+    @Test
+    void dispatch_AssignsDriversToMinimiseTotalTravelTime() {
+        OrderServiceImpl orders = new OrderServiceImpl();
+        DriverServiceImpl drivers = new DriverServiceImpl();
+        // A greedy dispatcher gives the older order its nearest driver, sending the other one the long way
+        Driver middle = newDriver(1L, 37.7800, -122.4100);
+        Driver east = newDriver(2L, 37.7800, -122.4070);
+        drivers.addDriver(middle);
+        drivers.addDriver(east);
+        Order older = waitingOrder(orders, 37.7800, -122.4090);
+        Order newer = waitingOrder(orders, 37.7800, -122.4120);
+        Order unreachable = waitingOrder(orders, -33.8688, 151.2093);
+        Order noPickup = anOrder().build();
+        orders.save(noPickup);
+
+        DispatchEngine engine = new DispatchEngine(orders, drivers, TravelTimeEstimator.CITY,
+                DispatchEngine.DEFAULT_CANDIDATES, Duration.ofSeconds(5));
+
+        assertEquals(2, engine.dispatch());
+        assertSame(east, older.getDriver());
+        assertSame(middle, newer.getDriver());
+        assertEquals(OrderStatus.IN_PROGRESS, older.getStatus());
+        assertNull(unreachable.getDriver());
+        assertEquals(OrderStatus.PENDING, noPickup.getStatus());
+        assertEquals(0, engine.dispatch());
+    }
+
+    @Test
+    void dispatch_PoolsOrderIntoBusyDriverWhenNoneIsIdle() {
+        OrderServiceImpl orders = new OrderServiceImpl();
+        DriverServiceImpl drivers = new DriverServiceImpl();
+        Driver busy = newDriver(1L, 37.7800, -122.4100);
+        busy.setCapacity(2);
+        drivers.addDriver(busy);
+        Order carried = waitingOrder(orders, 37.7800, -122.4100);
+        carried.setDeliveryLocation(new Location("1 Main St", "94107", 37.7800, -122.4000));
+        assertTrue(drivers.assignDriverToOrder(busy, carried));
+        Order waiting = waitingOrder(orders, 37.7801, -122.4100);
+        waiting.setDeliveryLocation(new Location("2 Main St", "94107", 37.7800, -122.3990));
+
+        DispatchEngine engine = new DispatchEngine(orders, drivers, TravelTimeEstimator.CITY,
+                DispatchEngine.DEFAULT_CANDIDATES, Duration.ofSeconds(5));
+
+        assertEquals(1, engine.dispatch());
+        assertSame(busy, waiting.getDriver());
+        assertEquals(4, busy.getRoute().size());
+    }
+
+    private static double best(double[][] cost, double[] unassigned, int row, boolean[] used) {
+        if (row == cost.length) {
+            return 0;
+        }
+        double best = unassigned[row] + best(cost, unassigned, row + 1, used);
+        for (int column = 0; column < used.length; column++) {
+            if (!used[column] && cost[row][column] != Double.MAX_VALUE) {
+                used[column] = true;
+                best = Math.min(best, cost[row][column] + best(cost, unassigned, row + 1, used));
+                used[column] = false;
+            }
+        }
+        return best;
+    }
+
+    private static Driver newDriver(long id, double latitude, double longitude) {
+        Driver driver = new Driver(id, "Driver " + id, "Scooter", "P-" + id);
+        driver.setCurrentLocation(new Location(null, null, latitude, longitude));
+        return driver;
+    }
+
+    private static Order waitingOrder(OrderServiceImpl orders, double latitude, double longitude) {
+        Order order = anOrder().withPickupLocation(new Location("Kitchen", "94107", latitude, longitude)).build();
+        orders.save(order);
+        return order;
+    }
+}
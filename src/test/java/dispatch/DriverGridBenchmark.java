@@ -0,0 +1,73 @@
+package dispatch;
+
+import model.Driver;
+import model.Location;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures nearest-driver lookups against a grid of drivers spread over a
+ * city while a share of them move between lookups. Run with
+ * {@code ./gradlew benchmark -PbenchmarkClass=dispatch.DriverGridBenchmark};
+ * pass the number of drivers as a program argument.
+ */
+public class DriverGridBenchmark {
+    private static final int DEFAULT_DRIVERS = 50_000;
+    private static final int LOOKUPS = 200_000;
+    private static final int NEAREST = 5;
+    private static final int ROUNDS = 5;
+    // A 30 km square around San Francisco
+    private static final double SOUTH = 37.60;
+    private static final double WEST = -122.55;
+    private static final double SPAN_DEGREES = 0.27;
+
+    // Keeps the JIT from discarding lookups whose results are otherwise unused
+    private static volatile long sink;
+
+    public static void main(String[] args) {
+        int driverCount = args.length > 0 ? Integer.parseInt(args[0].replace("_", "")) : DEFAULT_DRIVERS;
+        Random random = new Random(7);
+        DriverGrid grid = new DriverGrid();
+        List<Driver> drivers = new ArrayList<>(driverCount);
+        for (long id = 1; id <= driverCount; id++) {
+            Driver driver = new Driver(id, "Driver " + id, "Scooter", "P-" + id);
+            driver.setListener(grid::update);
+            driver.setCurrentLocation(randomLocation(random));
+            drivers.add(driver);
+        }
+        Location[] pickups = new Location[1024];
+        for (int i = 0; i < pickups.length; i++) {
+            pickups[i] = randomLocation(random);
+        }
+
+        System.out.printf("%8s %14s %14s%n", "round", "us/lookup", "us/move");
+        // The first round warms up the JIT and is not printed
+        for (int round = 0; round <= ROUNDS; round++) {
+            long moveNanos = 0;
+            long lookupNanos = 0;
+            for (int i = 0; i < LOOKUPS; i++) {
+                if (i % 4 == 0) {
+                    Driver driver = drivers.get(random.nextInt(drivers.size()));
+                    Location next = randomLocation(random);
+                    long began = System.nanoTime();
+                    driver.setCurrentLocation(next);
+                    moveNanos += System.nanoTime() - began;
+                }
+                long began = System.nanoTime();
+                sink += grid.findNearestAvailable(pickups[i & (pickups.length - 1)], NEAREST).size();
+                lookupNanos += System.nanoTime() - began;
+            }
+            if (round > 0) {
+                System.out.printf("%8d %14.2f %14.2f%n", round, lookupNanos / 1e3 / LOOKUPS,
+                        moveNanos / 1e3 / (LOOKUPS / 4));
+            }
+        }
+    }
+
+    private static Location randomLocation(Random random) {
+        return new Location(null, null, SOUTH + random.nextDouble() * SPAN_DEGREES,
+                WEST + random.nextDouble() * SPAN_DEGREES);
+    }
+}
@@ -0,0 +1,77 @@
+package dispatch;
+
+import model.Driver;
+import model.Location;
+import org.junit.jupiter.api.Test;
+import services.impl.DriverServiceImpl;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DriverGridTest {
+    private static final Location PICKUP = new Location("1 Market St", "94105", 37.7936, -122.3958);
+
+    @Test
+    void findNearestAvailable_MatchesBruteForceOverRandomDrivers() {
+        Random random = new Random(42);
+        DriverGrid grid = new DriverGrid(0.5);
+        List<Driver> drivers = new ArrayList<>();
+        for (long id = 1; id <= 2_000; id++) {
+            Driver driver = newDriver(id, 37.70 + random.nextDouble() * 0.15, -122.50 + random.nextDouble() * 0.15);
+            driver.setAvailable(random.nextInt(4) != 0);
+            grid.update(driver);
+            drivers.add(driver);
+        }
+
+        List<Driver> expected = drivers.stream()
+                .filter(Driver::isAvailable)
+                .sorted(Comparator.comparingDouble(driver -> PICKUP.distanceKmTo(driver.getCurrentLocation())))
+                .limit(10)
+                .toList();
+
+        assertEquals(expected, grid.findNearestAvailable(PICKUP, 10));
+    }
+
+    @Test
+    void findNearestAvailable_FollowsMovesAndAvailabilityThroughService() {
+        DriverServiceImpl service = new DriverServiceImpl();
+        Driver near = newDriver(1L, 37.7940, -122.3960);
+        Driver far = newDriver(2L, 37.8044, -122.2712);
+        Driver unplaced = new Driver(3L, "Driver 3", "Bike", "P-3");
+        service.addDriver(near);
+        service.addDriver(far);
+        service.addDriver(unplaced);
+
+        assertEquals(List.of(near, far), service.findNearestAvailable(PICKUP, 5));
+
+        near.setAvailable(false);
+        assertEquals(List.of(far), service.findNearestAvailable(PICKUP, 5));
+
+        far.setCurrentLocation(new Location(null, null, 37.7936, -122.3957));
+        near.setAvailable(true);
+        assertEquals(List.of(far, near), service.findNearestAvailable(PICKUP, 5));
+
+        service.removeDriver(far);
+        far.setCurrentLocation(new Location(null, null, 37.7936, -122.3958));
+        assertEquals(List.of(near), service.findNearestAvailable(PICKUP, 5));
+    }
+
+    @Test
+    void findNearestAvailable_StopsAtMaxDistance() {
+        DriverGrid grid = new DriverGrid();
+        grid.update(newDriver(1L, 34.0522, -118.2437));
+
+        assertTrue(grid.findNearestAvailable(PICKUP, 1).isEmpty());
+        assertEquals(1, grid.findNearestAvailable(PICKUP, 1, 1_000).size());
+    }
+
+    private static Driver newDriver(long id, double latitude, double longitude) {
+        Driver driver = new Driver(id, "Driver " + id, "Scooter", "P-" + id);
+        driver.setCurrentLocation(new Location(null, null, latitude, longitude));
+        return driver;
+    }
+}
@@ -0,0 +1,127 @@
+package dispatch;
+
+import model.Driver;
+import model.Location;
+import model.Order;
+import org.junit.jupiter.api.Test;
+import services.impl.DriverServiceImpl;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static model.TestOrders.anOrder;
+import static org.junit.jupiter.api.Assertions.*;
+
+class DriverSlotTableTest {
+
+    @Test
+    void claimAny_ReservesEachFreeDriverOnceAcrossWords() {
+        DriverSlotTable table = new DriverSlotTable(256);
+        for (long id = 1; id <= 130; id++) {
+            table.register(newDriver(id));
+        }
+
+        Set<Driver> claimed = new HashSet<>();
+        Driver driver;
+        while ((driver = table.claimAny()) != null) {
+            assertTrue(claimed.add(driver));
+        }
+
+        assertEquals(130, claimed.size());
+        assertNull(table.peekAny());
+        Driver released = claimed.iterator().next();
+        table.release(released);
+        assertEquals(List.of(released), table.free());
+        assertSame(released, table.claimAny());
+    }
+
+    @Test
+    void update_BusyDriverIsNotClaimableUntilAvailableAgain() {
+        DriverSlotTable table = new DriverSlotTable(64);
+        Driver driver = newDriver(1L);
+        driver.setListener(table::update);
+        table.register(driver);
+
+        assertTrue(table.claim(driver));
+        assertFalse(table.claim(driver));
+        // Moving while reserved must not free the driver
+        driver.setCurrentLocation(new Location(null, null, 37.79, -122.39));
+        assertNull(table.claimAny());
+
+        driver.setAvailable(false);
+        table.release(driver);
+        assertNull(table.claimAny());
+
+        driver.setAvailable(true);
+        assertSame(driver, table.claimAny());
+        assertTrue(table.unregister(driver));
+        assertNull(table.peekAny());
+    }
+
+    @Test
+    void concurrentDispatchers_NeverAssignOneDriverTwice() throws InterruptedException {
+        DriverServiceImpl service = new DriverServiceImpl();
+        for (long id = 1; id <= 16; id++) {
+            service.addDriver(newDriver(id));
+        }
+        Map<Driver, Order> busy = new ConcurrentHashMap<>();
+        AtomicInteger assignments = new AtomicInteger();
+        AtomicInteger violations = new AtomicInteger();
+        int dispatchers = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(dispatchers);
+        for (int thread = 0; thread < dispatchers; thread++) {
+            boolean byHand = thread % 4 == 0;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < 500; i++) {
+                    // Some dispatchers pick from the free list by hand instead of claiming
+                    Driver driver = byHand
+                            ? service.getAvailableDrivers().stream().findFirst().orElse(null)
+                            : service.claimAvailableDriver().orElse(null);
+                    if (driver == null) {
+                        Thread.yield();
+                        continue;
+                    }
+                    Order order = anOrder().build();
+                    boolean assigned = byHand
+                            ? service.assignDriverToOrder(driver, order)
+                            : service.assignClaimedDriverToOrder(driver, order);
+                    if (!assigned) {
+                        continue;
+                    }
+                    if (busy.putIfAbsent(driver, order) != null || driver.getCurrentOrder().orElse(null) != order) {
+                        violations.incrementAndGet();
+                    }
+                    assignments.incrementAndGet();
+                    busy.remove(driver, order);
+                    driver.completeDelivery(order);
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+
+        assertEquals(0, violations.get());
+        assertTrue(assignments.get() > 0);
+        assertEquals(16, service.getAvailableDrivers().size());
+    }
+
+    private static Driver newDriver(long id) {
+        return new Driver(id, "Driver " + id, "Scooter", "P-" + id);
+    }
+}
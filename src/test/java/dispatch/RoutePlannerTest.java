@@ -0,0 +1,106 @@
+package dispatch;
+
+import model.Driver;
+import model.Location;
+import model.Order;
+import model.OrderStatus;
+import model.Stop;
+import org.junit.jupiter.api.Test;
+import services.impl.DriverServiceImpl;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static model.TestOrders.anOrder;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoutePlannerTest {
+    private static final Instant NOW = Instant.parse("2024-05-01T12:00:00Z");
+    private static final Location RESTAURANT = new Location("Kitchen", "94107", 37.7800, -122.4100);
+
+    private final RoutePlanner planner = new RoutePlanner(TravelTimeEstimator.CITY, RoutePlanner.DEFAULT_STOP_TIME,
+            Clock.fixed(NOW, ZoneOffset.UTC));
+
+    @Test
+    void plan_CollectsBothOrdersBeforeDeliveringEither() {
+        Driver driver = newDriver(3);
+        Order first = orderTo(-122.4000);
+        assertTrue(driver.acceptOrder(first));
+        Order second = orderTo(-122.3990);
+
+        RoutePlanner.Plan plan = planner.plan(driver, second);
+
+        assertEquals(List.of(Stop.Kind.PICKUP, Stop.Kind.PICKUP, Stop.Kind.DROPOFF, Stop.Kind.DROPOFF),
+                plan.getRoute().stream().map(Stop::getKind).toList());
+        assertSame(first, plan.getRoute().get(2).getOrder());
+        assertSame(second, plan.getRoute().get(3).getOrder());
+        assertTrue(plan.getAddedDelaySeconds() > 0);
+        assertSame(driver, planner.pool(second, List.of(driver)));
+        assertEquals(List.of(first, second), driver.getCurrentOrders());
+        assertEquals(OrderStatus.IN_PROGRESS, second.getStatus());
+        assertSame(driver, second.getDriver());
+    }
+
+    @Test
+    void plan_KeepsPromisesAndCapacity() {
+        Driver driver = newDriver(3);
+        Order first = orderTo(-122.4000);
+        // Just over the direct delivery time, so collecting another order first breaks the promise
+        first.setEstimatedDeliveryTime(LocalDateTime.ofInstant(NOW.plusSeconds(300), ZoneOffset.UTC));
+        assertTrue(driver.acceptOrder(first));
+        Order second = orderTo(-122.3990);
+
+        assertEquals(List.of(first, first, second, second),
+                planner.plan(driver, second).getRoute().stream().map(Stop::getOrder).toList());
+        second.setEstimatedDeliveryTime(LocalDateTime.ofInstant(NOW.plusSeconds(600), ZoneOffset.UTC));
+        assertNull(planner.plan(driver, second));
+
+        Driver single = newDriver(1);
+        Order carried = orderTo(-122.4000);
+        assertTrue(single.acceptOrder(carried));
+        Order next = orderTo(-122.3990);
+        assertEquals(List.of(carried, carried, next, next),
+                planner.plan(single, next).getRoute().stream().map(Stop::getOrder).toList());
+    }
+
+    @Test
+    void poolOrder_RejectsStalePlanAndTracksEveryOrder() {
+        DriverServiceImpl service = new DriverServiceImpl();
+        Driver driver = newDriver(3);
+        service.addDriver(driver);
+        Order first = orderTo(-122.4000);
+        assertTrue(service.assignDriverToOrder(driver, first));
+        Order second = orderTo(-122.3990);
+        RoutePlanner.Plan plan = planner.plan(driver, second);
+
+        assertTrue(driver.completePickup(first));
+        assertFalse(driver.poolOrder(second, plan.getRoute()));
+        assertEquals(OrderStatus.PENDING, second.getStatus());
+
+        assertSame(driver, planner.pool(second, List.of(driver)));
+        assertSame(driver, service.getDriverForOrder(second));
+        driver.completeDelivery(first);
+        assertFalse(driver.isAvailable());
+        assertNull(service.getDriverForOrder(first));
+        assertTrue(driver.completePickup(second));
+        driver.completeDelivery(second);
+        assertTrue(driver.isAvailable());
+        assertTrue(driver.getRoute().isEmpty());
+        assertNull(service.getDriverForOrder(second));
+    }
+
+    private static Driver newDriver(int capacity) {
+        Driver driver = new Driver(1L, "Driver 1", "Scooter", "P-1");
+        driver.setCapacity(capacity);
+        driver.setCurrentLocation(RESTAURANT);
+        return driver;
+    }
+
+    private static Order orderTo(double deliveryLongitude) {
+        return anOrder().withPickupLocation(RESTAURANT)
+                .withDeliveryLocation(new Location("1 Main St", "94107", 37.7800, deliveryLongitude)).build();
+    }
+}
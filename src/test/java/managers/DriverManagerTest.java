@@ -82,7 +82,7 @@ class DriverManagerTest {
         // Arrange
         // Create an empty order to avoid null pointer exceptions
         Order order = new Order(new ArrayList<>());
-        order.setStatus(OrderStatus.SUBMITTED);
+        order.restoreStatus(OrderStatus.SUBMITTED);
         Driver driver = new Driver(1L, "John", "Car", "ABC123");
         when(orderManager.getPendingOrders()).thenReturn(Arrays.asList(order));
         when(driverService.getAvailableDrivers()).thenReturn(Arrays.asList(driver));
@@ -74,7 +74,7 @@ class OrderManagerTest {
         // Arrange
         Long orderId = 1L;
         Order mockOrder = new Order();
-        mockOrder.setStatus(OrderStatus.IN_PROGRESS);
+        mockOrder.restoreStatus(OrderStatus.IN_PROGRESS);
         when(orderIdHandler.handleInput(any(), any())).thenReturn(orderId);
         when(orderService.getOrderById(orderId)).thenReturn(mockOrder);
 
@@ -103,12 +103,10 @@ class OrderManagerTest {
     void getPendingOrders_ReturnsOnlySubmittedOrders() {
         // Arrange
         Order submittedOrder = new Order();
-        submittedOrder.setStatus(OrderStatus.SUBMITTED);
-        Order deliveredOrder = new Order();
-        deliveredOrder.setStatus(OrderStatus.DELIVERED);
-        
-        when(orderService.getAllOrders())
-            .thenReturn(Arrays.asList(submittedOrder, deliveredOrder));
+        submittedOrder.restoreStatus(OrderStatus.SUBMITTED);
+
+        when(orderService.getOrdersByStatus(OrderStatus.SUBMITTED))
+            .thenReturn(Arrays.asList(submittedOrder));
 
         // Act
         List<Order> pendingOrders = orderManager.getPendingOrders();
@@ -116,6 +114,7 @@ class OrderManagerTest {
         // Assert
         assertEquals(1, pendingOrders.size());
         assertEquals(OrderStatus.SUBMITTED, pendingOrders.get(0).getStatus());
+        verify(orderService, never()).getAllOrders();
     }
 
     private void setField(Object target, String fieldName, Object value) {
@@ -0,0 +1,170 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static model.TestOrders.anOrder;
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderTest {
+
+    @Test
+    void getTotalCents_SumsLinePricesTimesQuantity() {
+        Order order = anOrder().withItems(List.of(item("Fries", 2.99, 3), item("Soda", 1.50, 1))).build();
+
+        assertEquals(1047, order.getTotalCents());
+        assertEquals(10.47, order.getTotalAmount(), 0.0);
+    }
+
+    @Test
+    void getTotalCents_ManyTenCentLines_DoesNotDrift() {
+        List<MenuItem> items = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            items.add(item("Mint", 0.10, 1));
+        }
+
+        assertEquals(10_000, anOrder().withItems(items).build().getTotalCents());
+    }
+
+    @Test
+    void addItemAndRemoveItem_KeepTotalInStep() {
+        MenuItem soda = item("Soda", 1.50, 2);
+        Order order = anOrder().withItems(List.of(item("Fries", 2.99, 1))).build();
+
+        order.addItem(soda);
+        assertEquals(599, order.getTotalCents());
+        assertTrue(order.removeItem(soda));
+        assertEquals(299, order.getTotalCents());
+        assertFalse(order.removeItem(soda));
+        assertEquals(299, order.getTotalCents());
+        assertEquals(1, order.getItems().size());
+    }
+
+    @Test
+    void setItems_ReplacesLinesAndTotal() {
+        Order order = anOrder().withItems(List.of(item("Fries", 2.99, 1))).build();
+
+        order.setItems(List.of(item("Pizza", 12.00, 2)));
+
+        assertEquals(2_400, order.getTotalCents());
+        assertEquals("Pizza", order.getItems().get(0).getName());
+    }
+
+    @Test
+    void itemChanges_NotifyListener() {
+        Order order = anOrder().withItems(List.of()).build();
+        List<Long> totals = new ArrayList<>();
+        order.setStatusListener(new OrderStatusListener() {
+            @Override
+            public void statusChanged(Order changed, OrderStatus previous, OrderStatus current) {
+            }
+
+            @Override
+            public void itemsChanged(Order changed) {
+                totals.add(changed.getTotalCents());
+            }
+        });
+
+        MenuItem fries = item("Fries", 2.99, 1);
+        order.addItem(fries);
+        order.removeItem(fries);
+
+        assertEquals(List.of(299L, 0L), totals);
+    }
+
+    @Test
+    void compareAndTransition_FromExpectedStatus_MovesAndBumpsVersion() {
+        Order order = anOrder().build();
+
+        assertTrue(order.compareAndTransition(OrderStatus.PENDING, OrderStatus.CONFIRMED));
+        assertFalse(order.compareAndTransition(OrderStatus.PENDING, OrderStatus.CONFIRMED));
+
+        assertEquals(OrderStatus.CONFIRMED, order.getStatus());
+        assertEquals(1, order.getStatusVersion());
+    }
+
+    @Test
+    void compareAndTransition_IllegalTransition_Throws() {
+        Order order = anOrder().build();
+        order.restoreStatus(OrderStatus.DELIVERED);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> order.compareAndTransition(OrderStatus.DELIVERED, OrderStatus.IN_PROGRESS));
+        assertFalse(order.transitionTo(OrderStatus.CANCELLED));
+        assertTrue(OrderStatus.DELIVERED.isTerminal());
+        assertEquals(OrderStatus.DELIVERED, order.getStatus());
+    }
+
+    @Test
+    void transitionTo_RacingDispatchers_ExactlyOneWinsAndListenerSeesEachChangeOnce() throws InterruptedException {
+        for (int round = 0; round < 200; round++) {
+            Order order = anOrder().build();
+            List<OrderStatus> reported = Collections.synchronizedList(new ArrayList<>());
+            order.setStatusListener((changed, previous, current) -> reported.add(current));
+            AtomicInteger winners = new AtomicInteger();
+            CountDownLatch start = new CountDownLatch(1);
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            for (int thread = 0; thread < 4; thread++) {
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    if (order.transitionTo(OrderStatus.IN_PROGRESS)) {
+                        winners.incrementAndGet();
+                    }
+                });
+            }
+            start.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+            assertEquals(1, winners.get());
+            assertEquals(List.of(OrderStatus.IN_PROGRESS), reported);
+            assertEquals(1, order.getStatusVersion());
+        }
+    }
+
+    @Test
+    void setStatusListener_AttachedMidRace_MissesNoTransition() throws InterruptedException {
+        Order order = anOrder().build();
+        List<OrderStatus> reported = Collections.synchronizedList(new ArrayList<>());
+        Thread driver = new Thread(() -> {
+            order.transitionTo(OrderStatus.CONFIRMED);
+            order.transitionTo(OrderStatus.IN_PROGRESS);
+            order.transitionTo(OrderStatus.DELIVERED);
+        });
+        driver.start();
+        OrderStatus attachedAt;
+        synchronized (order) {
+            order.setStatusListener((changed, previous, current) -> reported.add(current));
+            attachedAt = order.getStatus();
+        }
+        driver.join();
+
+        List<OrderStatus> path = List.of(OrderStatus.PENDING, OrderStatus.CONFIRMED, OrderStatus.IN_PROGRESS,
+                OrderStatus.DELIVERED);
+        assertEquals(path.subList(path.indexOf(attachedAt) + 1, path.size()), reported);
+    }
+
+    @Test
+    void moneyFormat_PadsCentsAndKeepsSign() {
+        assertEquals("10.05", Money.format(1_005));
+        assertEquals("0.00", Money.format(0));
+        assertEquals("-0.40", Money.format(-40));
+        assertEquals(299, Money.ofDollars(2.99));
+    }
+
+    private static MenuItem item(String name, double price, int quantity) {
+        return new ConcreteMenuItem(1L, name, null, price, Size.MEDIUM, quantity);
+    }
+}
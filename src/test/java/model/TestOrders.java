@@ -0,0 +1,95 @@
+package model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Builds orders for tests. Unless a test says otherwise, an order is one
+ * large portion of fries for customer 100, delivered to 1 Main St, 94107,
+ * with an ID from the default generator.
+ */
+public final class TestOrders {
+    private TestOrders() {
+    }
+
+    public static Builder anOrder() {
+        return new Builder();
+    }
+
+    public static MenuItem fries(final int quantity) {
+        return new ConcreteMenuItem(1L, "Fries", "Crispy golden fries", 2.99, Size.LARGE, quantity);
+    }
+
+    public static final class Builder {
+        private boolean generatedId = true;
+        private Long orderId;
+        private Long customerId = 100L;
+        private String customerEmail = "customer@example.com";
+        private List<MenuItem> items = List.of(TestOrders.fries(1));
+        private String postalCode = "94107";
+        private LocalDateTime estimatedDeliveryTime;
+        private Location pickupLocation;
+        private Location deliveryLocation;
+
+        private Builder() {
+        }
+
+        public Builder withId(final Long orderId) {
+            this.generatedId = false;
+            this.orderId = orderId;
+            return this;
+        }
+
+        public Builder withCustomerId(final Long customerId) {
+            this.customerId = customerId;
+            return this;
+        }
+
+        public Builder withCustomerEmail(final String customerEmail) {
+            this.customerEmail = customerEmail;
+            return this;
+        }
+
+        public Builder withItems(final List<MenuItem> items) {
+            this.items = items;
+            return this;
+        }
+
+        public Builder withPostalCode(final String postalCode) {
+            this.postalCode = postalCode;
+            return this;
+        }
+
+        public Builder withEstimatedDeliveryTime(final LocalDateTime estimatedDeliveryTime) {
+            this.estimatedDeliveryTime = estimatedDeliveryTime;
+            return this;
+        }
+
+        public Builder withPickupLocation(final Location pickupLocation) {
+            this.pickupLocation = pickupLocation;
+            return this;
+        }
+
+        public Builder withDeliveryLocation(final Location deliveryLocation) {
+            this.deliveryLocation = deliveryLocation;
+            return this;
+        }
+
+        public Order build() {
+            final Order order = this.generatedId
+                    ? new Order(this.customerId, this.customerEmail, this.items, "1 Main St", this.postalCode)
+                    : new Order(this.orderId, this.customerId, this.customerEmail, this.items, "1 Main St",
+                            this.postalCode);
+            if (this.estimatedDeliveryTime != null) {
+                order.setEstimatedDeliveryTime(this.estimatedDeliveryTime);
+            }
+            if (this.pickupLocation != null) {
+                order.setPickupLocation(this.pickupLocation);
+            }
+            if (this.deliveryLocation != null) {
+                order.setDeliveryLocation(this.deliveryLocation);
+            }
+            return order;
+        }
+    }
+}
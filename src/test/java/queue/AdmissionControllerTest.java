@@ -0,0 +1,151 @@
+package queue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import model.Order;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static model.TestOrders.anOrder;
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControllerTest {
+    private static final long LATE = TimeUnit.SECONDS.toNanos(1);
+    private static final long ON_TIME = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private OrderQueue queue;
+    private AdmissionController controller;
+
+    @BeforeEach
+    void setUp() {
+        queue = new OrderQueue(10);
+        controller = new AdmissionController(queue, 2, 10, Duration.ofMillis(100));
+    }
+
+    @Test
+    void tryAdmit_UnderLimit_EnqueuesOrder() {
+        Order order = anOrder().build();
+
+        AdmissionDecision decision = controller.tryAdmit(order);
+
+        assertTrue(decision.isAdmitted());
+        assertEquals(1, queue.size());
+        assertTrue(order.getEnqueuedAtNanos() != 0);
+        assertEquals(1, controller.getAdmittedCount());
+    }
+
+    @Test
+    void tryAdmit_AtLimit_ShedsWithRetryHintInsteadOfThrowing() {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(controller.tryAdmit(anOrder().build()).isAdmitted());
+        }
+
+        AdmissionDecision decision = controller.tryAdmit(anOrder().build());
+
+        assertFalse(decision.isAdmitted());
+        assertEquals(10, decision.getLimit());
+        assertTrue(decision.getRetryAfter().compareTo(Duration.ZERO) > 0);
+        assertEquals(10, queue.size());
+        assertEquals(1, controller.getShedCount());
+    }
+
+    @Test
+    void tryAdmit_ShardedQueue_LimitsEachZoneSeparately() {
+        ShardedOrderQueue sharded = new ShardedOrderQueue(10);
+        InstrumentedOrderQueue instrumented = new InstrumentedOrderQueue(sharded, new SimpleMeterRegistry());
+        controller = AdmissionController.fromSystemProperties(instrumented, 10);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(controller.tryAdmit(anOrder().withPostalCode("94107").build()).isAdmitted());
+        }
+
+        assertFalse(controller.tryAdmit(anOrder().withPostalCode("94107").build()).isAdmitted());
+        // A full zone leaves the rest of the city open
+        for (int i = 0; i < 10; i++) {
+            assertTrue(controller.tryAdmit(anOrder().withPostalCode("10001").build()).isAdmitted());
+        }
+        assertEquals(20, sharded.size());
+    }
+
+    @Test
+    void recordLatency_OverTarget_BacksOffOncePerWindow() {
+        controller.recordLatency(LATE);
+        assertEquals(9, controller.getLimit());
+
+        // The same backlog draining should not keep cutting the limit
+        controller.recordLatency(LATE);
+        assertEquals(9, controller.getLimit());
+    }
+
+    @Test
+    void recordLatency_OnTimeUnderLoad_GrowsBackToMaximum() {
+        controller.recordLatency(LATE);
+        for (int i = 0; i < 5; i++) {
+            controller.tryAdmit(anOrder().build());
+        }
+
+        for (int i = 0; i < 100; i++) {
+            controller.recordLatency(ON_TIME);
+        }
+
+        assertEquals(10, controller.getLimit());
+    }
+
+    @Test
+    void recordLatency_OnTimeWhileIdle_KeepsLimit() {
+        controller.recordLatency(LATE);
+
+        for (int i = 0; i < 100; i++) {
+            controller.recordLatency(ON_TIME);
+        }
+
+        assertEquals(9, controller.getLimit());
+    }
+
+    @Test
+    void tryAdmit_AfterBackOff_ShedsBelowQueueCapacity() {
+        controller.recordLatency(LATE);
+        for (int i = 0; i < 9; i++) {
+            controller.tryAdmit(anOrder().build());
+        }
+
+        AdmissionDecision decision = controller.tryAdmit(anOrder().build());
+
+        assertFalse(decision.isAdmitted());
+        assertEquals(9, queue.size());
+    }
+
+    @Test
+    void onDequeued_AdmittedOrder_RecordsWait() {
+        Order order = anOrder().build();
+        controller.tryAdmit(order);
+
+        controller.onDequeued(queue.dequeue().orElseThrow());
+        assertTrue(controller.getSmoothedLatency().toNanos() > 0);
+        assertEquals(10, controller.getLimit());
+    }
+
+    @Test
+    void listenTo_LateDequeuesFromInstrumentedQueue_LowerLimit() throws InterruptedException {
+        InstrumentedOrderQueue instrumented = new InstrumentedOrderQueue(queue, new SimpleMeterRegistry());
+        controller = new AdmissionController(instrumented, 2, 10, Duration.ofMillis(100));
+        controller.listenTo(instrumented);
+        for (int i = 0; i < 3; i++) {
+            Order order = anOrder().build();
+            controller.tryAdmit(order);
+            // As though the kitchen left it waiting for a second
+            order.setEnqueuedAtNanos(System.nanoTime() - LATE);
+        }
+
+        instrumented.dequeue();
+        assertEquals(9, controller.getLimit());
+
+        // Consumers that take or drain are heard too, though one backlog only backs off once
+        instrumented.take(1, TimeUnit.SECONDS);
+        instrumented.drainTo(new ArrayList<>(), 1);
+        assertEquals(9, controller.getLimit());
+        assertTrue(controller.getSmoothedLatency().toNanos() >= LATE);
+    }
+}
@@ -0,0 +1,168 @@
+package queue;
+
+import model.Order;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static model.TestOrders.anOrder;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsumerWaitersTest {
+    private RingBufferOrderQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        queue = new RingBufferOrderQueue(8);
+    }
+
+    @Test
+    void take_EmptyQueue_TimesOut() throws InterruptedException {
+        long start = System.nanoTime();
+
+        assertEquals(Optional.empty(), queue.take(20, TimeUnit.MILLISECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20));
+    }
+
+    @Test
+    void take_ParkedConsumer_WakesOnEnqueue() throws Exception {
+        AtomicReference<Optional<Order>> taken = new AtomicReference<>();
+        CountDownLatch started = new CountDownLatch(1);
+        Thread consumer = new Thread(() -> {
+            started.countDown();
+            try {
+                taken.set(queue.take(10, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        consumer.start();
+        started.await();
+
+        Order order = anOrder().build();
+        queue.enqueue(order);
+        consumer.join(TimeUnit.SECONDS.toMillis(5));
+
+        assertFalse(consumer.isAlive());
+        assertSame(order, taken.get().orElseThrow());
+    }
+
+    @Test
+    void take_InterruptedConsumer_ThrowsInterruptedException() {
+        Thread.currentThread().interrupt();
+
+        assertThrows(InterruptedException.class, () -> queue.take(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void next_OrderWaiting_CompletesImmediately() {
+        Order order = anOrder().build();
+        queue.enqueue(order);
+
+        CompletableFuture<Order> next = queue.next();
+
+        assertTrue(next.isDone());
+        assertSame(order, next.join());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void next_EmptyQueue_CompletesOnEnqueueInArrivalOrder() {
+        CompletableFuture<Order> first = queue.next();
+        CompletableFuture<Order> second = queue.next();
+        assertFalse(first.isDone());
+
+        Order a = anOrder().build();
+        Order b = anOrder().build();
+        queue.enqueueAll(List.of(a, b));
+
+        assertSame(a, first.join());
+        assertSame(b, second.join());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void next_CancelledFuture_LeavesOrderQueued() {
+        CompletableFuture<Order> next = queue.next();
+        next.cancel(false);
+
+        Order order = anOrder().build();
+        queue.enqueue(order);
+
+        assertEquals(1, queue.size());
+        assertSame(order, queue.dequeue().orElseThrow());
+    }
+
+    @Test
+    void next_CancelledDuringHandOff_DeliversOrderInsteadOfDroppingIt() throws Exception {
+        CountDownLatch handingOff = new CountDownLatch(1);
+        CountDownLatch cancelling = new CountDownLatch(1);
+        AtomicReference<Boolean> stall = new AtomicReference<>(false);
+        // Holds a single order, so a producer arriving during the hand-off leaves no room to put it back
+        OrderQueue full = new OrderQueue(1) {
+            @Override
+            public synchronized Optional<Order> dequeue() {
+                if (stall.get()) {
+                    handingOff.countDown();
+                    try {
+                        cancelling.await();
+                        Thread.sleep(50);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.dequeue();
+            }
+        };
+        CompletableFuture<Order> next = full.next();
+        stall.set(true);
+
+        Order order = anOrder().build();
+        Thread producer = new Thread(() -> full.enqueue(order));
+        producer.start();
+        handingOff.await();
+        AtomicReference<Boolean> cancelled = new AtomicReference<>();
+        Thread consumer = new Thread(() -> {
+            cancelling.countDown();
+            cancelled.set(next.cancel(false));
+        });
+        consumer.start();
+        producer.join(TimeUnit.SECONDS.toMillis(5));
+        consumer.join(TimeUnit.SECONDS.toMillis(5));
+
+        assertFalse(cancelled.get());
+        assertSame(order, next.join());
+        assertTrue(full.isEmpty());
+    }
+
+    @Test
+    void next_TimedOutFuture_LeavesOrderQueued() {
+        CompletableFuture<Order> next = queue.next();
+        next.completeExceptionally(new TimeoutException());
+
+        Order order = anOrder().build();
+        queue.enqueue(order);
+
+        assertTrue(next.isCompletedExceptionally());
+        assertSame(order, queue.dequeue().orElseThrow());
+    }
+
+    @Test
+    void next_LockingQueue_CompletesOnEnqueue() {
+        OrderQueue locking = new OrderQueue(8);
+        CompletableFuture<Order> next = locking.next();
+
+        Order order = anOrder().build();
+        locking.enqueue(order);
+
+        assertSame(order, next.join());
+        assertEquals(-1, locking.getPositionInQueue(order));
+    }
+}
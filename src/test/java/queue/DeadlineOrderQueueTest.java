@@ -0,0 +1,145 @@
+package queue;
+
+import model.Order;
+import model.OrderStatus;
+import model.OrderStatusListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static model.TestOrders.anOrder;
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeadlineOrderQueueTest {
+    private DeadlineOrderQueue queue;
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        queue = new DeadlineOrderQueue(10);
+        now = LocalDateTime.now();
+    }
+
+    @Test
+    void dequeue_ReturnsEarliestDeadlineFirst() {
+        Order catering = anOrder().withEstimatedDeliveryTime(now.plusMinutes(90)).build();
+        Order quick = anOrder().withEstimatedDeliveryTime(now.plusMinutes(20)).build();
+        Order regular = anOrder().withEstimatedDeliveryTime(now.plusMinutes(40)).build();
+        queue.enqueue(catering);
+        queue.enqueue(quick);
+        queue.enqueue(regular);
+
+        assertSame(quick, queue.peek().orElseThrow());
+        assertSame(quick, queue.dequeue().orElseThrow());
+        assertSame(regular, queue.dequeue().orElseThrow());
+        assertSame(catering, queue.dequeue().orElseThrow());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void dequeue_EqualDeadlines_StayFifo() {
+        LocalDateTime deadline = now.plusMinutes(30);
+        Order first = anOrder().withEstimatedDeliveryTime(deadline).build();
+        Order second = anOrder().withEstimatedDeliveryTime(deadline).build();
+        queue.enqueueAll(List.of(first, second));
+
+        List<Order> drained = new ArrayList<>();
+        queue.drainTo(drained, 10);
+        assertEquals(List.of(first, second), drained);
+    }
+
+    @Test
+    void cancel_RemovesOrderAndKeepsHeapOrder() {
+        Order a = anOrder().withEstimatedDeliveryTime(now.plusMinutes(10)).build();
+        Order b = anOrder().withEstimatedDeliveryTime(now.plusMinutes(20)).build();
+        Order c = anOrder().withEstimatedDeliveryTime(now.plusMinutes(30)).build();
+        queue.enqueueAll(List.of(c, b, a));
+
+        assertTrue(queue.cancel(a.getId()));
+        assertFalse(queue.cancel(a.getId()));
+        assertSame(b, queue.dequeue().orElseThrow());
+        assertSame(c, queue.dequeue().orElseThrow());
+    }
+
+    @Test
+    void reprioritize_MovesOrderToNewDeadline() {
+        Order a = anOrder().withEstimatedDeliveryTime(now.plusMinutes(10)).build();
+        Order b = anOrder().withEstimatedDeliveryTime(now.plusMinutes(20)).build();
+        queue.enqueueAll(List.of(a, b));
+
+        assertTrue(queue.reprioritize(b.getId(), now.plusMinutes(5)));
+        assertSame(b, queue.dequeue().orElseThrow());
+        assertEquals(now.plusMinutes(5), b.getEstimatedDeliveryTime());
+    }
+
+    @Test
+    void reprioritize_NotifiesListenerOutsideQueueLock() {
+        Order order = anOrder().withEstimatedDeliveryTime(now.plusMinutes(10)).build();
+        queue.enqueue(order);
+        List<Boolean> heldLock = new ArrayList<>();
+        order.setStatusListener(new OrderStatusListener() {
+            @Override
+            public void statusChanged(Order changed, OrderStatus previous, OrderStatus current) {
+            }
+
+            @Override
+            public void estimatedDeliveryTimeChanged(Order changed, LocalDateTime estimatedDeliveryTime) {
+                heldLock.add(Thread.holdsLock(queue));
+            }
+        });
+
+        assertTrue(queue.reprioritize(order.getId(), now.plusMinutes(5)));
+        assertEquals(List.of(false), heldLock);
+    }
+
+    @Test
+    void reprioritize_RacingCallers_HeapFollowsTheDeadlineTheOrderKeeps() throws InterruptedException {
+        for (int round = 0; round < 20; round++) {
+            queue.clear();
+            Order pivot = anOrder().withEstimatedDeliveryTime(now.plusMinutes(30)).build();
+            Order order = anOrder().withEstimatedDeliveryTime(now.plusMinutes(20)).build();
+            queue.enqueueAll(List.of(pivot, order));
+            Thread earlier = new Thread(() -> queue.reprioritize(order.getId(), now.plusMinutes(10)));
+            Thread later = new Thread(() -> queue.reprioritize(order.getId(), now.plusMinutes(50)));
+
+            // Both callers re-key the heap, then queue up on the order to write their deadline in either order
+            synchronized (order) {
+                earlier.start();
+                awaitBlocked(earlier);
+                later.start();
+                awaitBlocked(later);
+            }
+            earlier.join();
+            later.join();
+
+            Order first = order.getEstimatedDeliveryTime().isBefore(now.plusMinutes(30)) ? order : pivot;
+            assertSame(first, queue.dequeue().orElseThrow());
+        }
+    }
+
+    @Test
+    void enqueue_DuplicateId_IsRejectedAndHeapStaysIntact() {
+        Order a = anOrder().withId(1L).withEstimatedDeliveryTime(now.plusMinutes(10)).build();
+        Order b = anOrder().withId(2L).withEstimatedDeliveryTime(now.plusMinutes(20)).build();
+        queue.enqueueAll(List.of(a, b));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> queue.enqueue(anOrder().withId(1L).withEstimatedDeliveryTime(now.plusMinutes(30)).build()));
+        Order c = anOrder().withId(3L).build();
+        assertThrows(IllegalArgumentException.class, () -> queue.enqueueAll(List.of(c, c)));
+
+        assertEquals(2, queue.size());
+        assertTrue(queue.cancel(1L));
+        assertSame(b, queue.dequeue().orElseThrow());
+        assertTrue(queue.isEmpty());
+    }
+
+    private static void awaitBlocked(Thread thread) throws InterruptedException {
+        while (thread.getState() != Thread.State.BLOCKED) {
+            Thread.sleep(1);
+        }
+    }
+}
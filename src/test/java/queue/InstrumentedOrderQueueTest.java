@@ -0,0 +1,125 @@
+package queue;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import model.Order;
+import model.OrderStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static model.TestOrders.anOrder;
+import static org.junit.jupiter.api.Assertions.*;
+
+class InstrumentedOrderQueueTest {
+    private MeterRegistry registry;
+    private InstrumentedOrderQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        queue = new InstrumentedOrderQueue(new OrderQueue(2), registry);
+    }
+
+    @Test
+    void dequeue_RecordsWaitAndThroughputByStatus() {
+        Order order = anOrder().build();
+        order.restoreStatus(OrderStatus.SUBMITTED);
+        queue.enqueue(order);
+
+        assertSame(order, queue.dequeue().orElseThrow());
+
+        assertEquals(1, registry.get("order.queue.wait").timer().count());
+        assertEquals(1.0, throughput("enqueued", OrderStatus.SUBMITTED), 0.0);
+        assertEquals(1.0, throughput("dequeued", OrderStatus.SUBMITTED), 0.0);
+        assertEquals(0.0, throughput("dequeued", OrderStatus.PENDING), 0.0);
+    }
+
+    @Test
+    void depthGauge_TracksQueueSize() {
+        queue.enqueue(anOrder().build());
+        queue.enqueue(anOrder().build());
+
+        assertEquals(2.0, registry.get("order.queue.depth").gauge().value(), 0.0);
+        queue.dequeue();
+        assertEquals(1.0, registry.get("order.queue.depth").gauge().value(), 0.0);
+    }
+
+    @Test
+    void enqueue_FullQueue_CountsRejection() {
+        queue.enqueue(anOrder().build());
+        queue.enqueue(anOrder().build());
+
+        assertThrows(CustomException.QueueFullException.class, () -> queue.enqueue(anOrder().build()));
+        assertThrows(CustomException.QueueFullException.class,
+                () -> queue.enqueueAll(List.of(anOrder().build(), anOrder().build())));
+
+        assertEquals(3.0, rejections("full"), 0.0);
+        assertEquals(0.0, rejections("invalid"), 0.0);
+    }
+
+    @Test
+    void enqueue_InvalidOrder_CountsRejection() {
+        Order invalid = anOrder().withCustomerId(null).build();
+
+        assertThrows(CustomException.ValidationException.class, () -> queue.enqueue(invalid));
+        assertEquals(1.0, rejections("invalid"), 0.0);
+    }
+
+    @Test
+    void drainTo_RecordsEveryDrainedOrder() {
+        queue.enqueueAll(List.of(anOrder().build(), anOrder().build()));
+        List<Order> target = new ArrayList<>();
+
+        assertEquals(2, queue.drainTo(target, 5));
+
+        assertEquals(2, target.size());
+        assertEquals(2, registry.get("order.queue.wait").timer().count());
+    }
+
+    @Test
+    void dequeueAndDrainTo_ThrowingListener_StillHandOverOrders() {
+        List<Order> heard = new ArrayList<>();
+        queue.addDequeueListener(order -> {
+            throw new IllegalStateException("listener failed");
+        });
+        queue.addDequeueListener(heard::add);
+        Order first = anOrder().build();
+        Order second = anOrder().build();
+        queue.enqueueAll(List.of(first, second));
+
+        assertSame(first, queue.dequeue().orElseThrow());
+        queue.enqueue(anOrder().build());
+        List<Order> target = new ArrayList<>();
+        assertEquals(2, queue.drainTo(target, 5));
+
+        assertSame(second, target.get(0));
+        assertEquals(2, target.size());
+        assertEquals(3, heard.size());
+        assertEquals(3, registry.get("order.queue.wait").timer().count());
+    }
+
+    @Test
+    void takeAndNext_RecordWait() throws InterruptedException {
+        CompletableFuture<Order> next = queue.next();
+        queue.enqueue(anOrder().build());
+        queue.enqueue(anOrder().build());
+
+        assertTrue(next.isDone());
+        assertTrue(queue.take(1, TimeUnit.SECONDS).isPresent());
+        assertEquals(2, registry.get("order.queue.wait").timer().count());
+    }
+
+    private double throughput(String operation, OrderStatus status) {
+        return registry.get("order.queue.orders").tag("operation", operation).tag("status", status.name())
+                .counter().count();
+    }
+
+    private double rejections(String reason) {
+        return registry.get("order.queue.rejections").tag("reason", reason).counter().count();
+    }
+}
@@ -0,0 +1,213 @@
+package queue;
+
+import model.Order;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static model.TestOrders.anOrder;
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderQueueTest {
+    private OrderQueue queue;
+    private List<Order> orders;
+
+    @BeforeEach
+    void setUp() {
+        queue = new OrderQueue(10);
+        orders = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Order order = anOrder().build();
+            orders.add(order);
+            queue.enqueue(order);
+        }
+    }
+
+    @Test
+    void getPositionInQueue_TracksDequeues() {
+        assertEquals(1, queue.getPositionInQueue(orders.get(0)));
+        assertEquals(5, queue.getPositionInQueue(orders.get(4)));
+
+        queue.dequeue();
+        queue.dequeue();
+
+        assertEquals(-1, queue.getPositionInQueue(orders.get(0)));
+        assertEquals(1, queue.getPositionInQueue(orders.get(2)));
+        assertEquals(3, queue.getPositionInQueue(orders.get(4)));
+    }
+
+    @Test
+    void getPositionInQueue_SkipsCancelledOrders() {
+        assertTrue(queue.cancel(orders.get(1).getId()));
+        assertTrue(queue.cancel(orders.get(3).getId()));
+
+        assertEquals(1, queue.getPositionInQueue(orders.get(0)));
+        assertEquals(2, queue.getPositionInQueue(orders.get(2)));
+        assertEquals(3, queue.getPositionInQueue(orders.get(4)));
+
+        assertTrue(queue.cancel(orders.get(0).getId()));
+
+        assertEquals(1, queue.getPositionInQueue(orders.get(2)));
+        assertEquals(2, queue.getPositionInQueue(orders.get(4)));
+        assertEquals(2, queue.size());
+    }
+
+    @Test
+    void cancel_KeepsRemainingOrdersInArrivalOrder() {
+        assertTrue(queue.cancel(orders.get(2).getId()));
+        assertTrue(queue.cancel(orders.get(0).getId()));
+
+        assertSame(orders.get(1), queue.peek().orElseThrow());
+        assertEquals(List.of(orders.get(1), orders.get(3), orders.get(4)), queue.getPendingOrders());
+        assertSame(orders.get(1), queue.dequeue().orElseThrow());
+        assertEquals(1, queue.getPositionInQueue(orders.get(3)));
+    }
+
+    @Test
+    void cancel_UnknownOrder_ReturnsFalse() {
+        queue.dequeue();
+
+        assertFalse(queue.cancel(orders.get(0).getId()));
+        assertFalse(queue.cancel(-1L));
+    }
+
+    @Test
+    void drainTo_RemovesBatchAndKeepsPositions() {
+        List<Order> drained = new ArrayList<>();
+
+        assertEquals(3, queue.drainTo(drained, 3));
+        assertEquals(orders.subList(0, 3), drained);
+        assertEquals(1, queue.getPositionInQueue(orders.get(3)));
+    }
+
+    @Test
+    void enqueueAll_ExceedsCapacity_RejectsWholeBatch() {
+        List<Order> batch = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            batch.add(orders.get(0));
+        }
+
+        assertThrows(CustomException.QueueFullException.class, () -> queue.enqueueAll(batch));
+        assertEquals(5, queue.size());
+    }
+
+    @Test
+    void enqueue_AlreadyQueuedOrder_IsRejected() {
+        Order duplicate = anOrder().withId(orders.get(2).getId()).build();
+
+        assertThrows(IllegalArgumentException.class, () -> queue.enqueue(duplicate));
+        assertThrows(IllegalArgumentException.class,
+                () -> queue.enqueueAll(List.of(anOrder().build(), duplicate)));
+
+        assertEquals(5, queue.size());
+        assertEquals(3, queue.getPositionInQueue(orders.get(2)));
+        assertTrue(queue.cancel(orders.get(2).getId()));
+        assertEquals(4, queue.getPositionInQueue(orders.get(4)));
+    }
+
+    @Test
+    void enqueueAll_SameOrderTwice_RejectsWholeBatch() {
+        Order order = anOrder().build();
+
+        assertThrows(IllegalArgumentException.class, () -> queue.enqueueAll(List.of(order, order)));
+        assertEquals(5, queue.size());
+        assertEquals(-1, queue.getPositionInQueue(order));
+    }
+
+    @Test
+    void getPositionInQueue_WhileOrdersComeAndGo_NeverOutOfRangeOrStale() throws InterruptedException {
+        int capacity = 32;
+        int total = 20_000;
+        long firstId = 1_000_000L;
+        OrderQueue racing = new OrderQueue(capacity);
+        AtomicBoolean running = new AtomicBoolean(true);
+        Queue<String> failures = new ConcurrentLinkedQueue<>();
+
+        Thread producer = new Thread(() -> {
+            for (long id = firstId; id < firstId + total; id++) {
+                Order order = anOrder().withId(id).build();
+                while (true) {
+                    try {
+                        racing.enqueue(order);
+                        break;
+                    } catch (CustomException.QueueFullException e) {
+                        Thread.yield();
+                    }
+                }
+            }
+        });
+        Thread consumer = new Thread(() -> {
+            while (running.get() || !racing.isEmpty()) {
+                racing.dequeue();
+                Thread.yield();
+            }
+        });
+        Thread canceller = new Thread(() -> {
+            while (running.get()) {
+                racing.cancel(firstId + ThreadLocalRandom.current().nextLong(total));
+            }
+        });
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 2; r++) {
+            readers.add(new Thread(() -> {
+                // An order only ever moves forward, and once gone it stays gone
+                int[] lastSeen = new int[total];
+                Arrays.fill(lastSeen, Integer.MAX_VALUE);
+                while (running.get()) {
+                    int index = ThreadLocalRandom.current().nextInt(total);
+                    int position = racing.getPositionInQueue(firstId + index);
+                    if (position == -1) {
+                        if (lastSeen[index] != Integer.MAX_VALUE) {
+                            lastSeen[index] = -1;
+                        }
+                    } else if (position < 1 || position > capacity) {
+                        failures.add("position " + position + " out of range");
+                    } else if (lastSeen[index] == -1 || position > lastSeen[index]) {
+                        failures.add("order " + index + " moved back from " + lastSeen[index] + " to " + position);
+                    } else {
+                        lastSeen[index] = position;
+                    }
+                }
+            }));
+        }
+
+        readers.forEach(Thread::start);
+        consumer.start();
+        canceller.start();
+        producer.start();
+        producer.join();
+        running.set(false);
+        consumer.join();
+        canceller.join();
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertTrue(failures.isEmpty(), failures::peek);
+        assertTrue(racing.isEmpty());
+        assertEquals(-1, racing.getPositionInQueue(firstId));
+        // Quiescent again, positions follow arrival order exactly
+        Order first = anOrder().build();
+        Order second = anOrder().build();
+        racing.enqueueAll(List.of(first, second));
+        assertEquals(1, racing.getPositionInQueue(first));
+        assertEquals(2, racing.getPositionInQueue(second));
+    }
+
+    @Test
+    void clear_ResetsPositions() {
+        queue.clear();
+        Order order = anOrder().build();
+        queue.enqueue(order);
+
+        assertEquals(-1, queue.getPositionInQueue(orders.get(0)));
+        assertEquals(1, queue.getPositionInQueue(order));
+    }
+}
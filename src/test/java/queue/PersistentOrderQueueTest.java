@@ -0,0 +1,91 @@
+package queue;
+
+import model.Order;
+import model.OrderStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import persistence.FsyncPolicy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static model.TestOrders.anOrder;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentOrderQueueTest {
+    private Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("order-queue");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Test
+    void restart_RecoversOrdersThatWereNotDequeued() {
+        Order first = anOrder().build();
+        Order second = anOrder().build();
+        Order third = anOrder().build();
+        second.restoreStatus(OrderStatus.SUBMITTED);
+        second.setEstimatedDeliveryTime(LocalDateTime.of(2024, 5, 1, 18, 0));
+
+        try (PersistentOrderQueue queue = open()) {
+            queue.enqueueAll(List.of(first, second, third));
+            assertEquals(first.getId(), queue.dequeue().orElseThrow().getId());
+        }
+
+        try (PersistentOrderQueue recovered = open()) {
+            assertEquals(2, recovered.size());
+            Order restored = recovered.dequeue().orElseThrow();
+            assertEquals(second.getId(), restored.getId());
+            assertEquals(second.getCustomerId(), restored.getCustomerId());
+            assertEquals(second.getPostalCode(), restored.getPostalCode());
+            assertEquals(OrderStatus.SUBMITTED, restored.getStatus());
+            assertEquals(second.getEstimatedDeliveryTime(), restored.getEstimatedDeliveryTime());
+            assertEquals(second.getTotalCents(), restored.getTotalCents());
+            assertEquals("Fries", restored.getItems().get(0).getName());
+        }
+
+        try (PersistentOrderQueue recovered = open()) {
+            List<Order> drained = new ArrayList<>();
+            recovered.drainTo(drained, 10);
+            assertEquals(1, drained.size());
+            assertEquals(third.getId(), drained.get(0).getId());
+        }
+
+        try (PersistentOrderQueue recovered = open()) {
+            assertTrue(recovered.isEmpty());
+        }
+    }
+
+    @Test
+    void enqueue_SyncPolicy_IsDurableOnReturn() {
+        try (PersistentOrderQueue queue = new PersistentOrderQueue(10, directory, FsyncPolicy.SYNC, Duration.ofSeconds(1))) {
+            queue.enqueue(anOrder().build());
+        }
+
+        try (PersistentOrderQueue recovered = open()) {
+            assertEquals(1, recovered.size());
+        }
+    }
+
+    private PersistentOrderQueue open() {
+        return new PersistentOrderQueue(10, directory, FsyncPolicy.GROUP_COMMIT, Duration.ofMillis(1));
+    }
+}
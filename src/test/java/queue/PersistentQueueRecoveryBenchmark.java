@@ -0,0 +1,62 @@
+package queue;
+
+import model.ConcreteMenuItem;
+import model.MenuItem;
+import model.Order;
+import model.Size;
+import persistence.FsyncPolicy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Measures how long {@link PersistentOrderQueue} takes to rebuild itself from
+ * one million logged orders. Run with
+ * {@code ./gradlew benchmark -PbenchmarkClass=queue.PersistentQueueRecoveryBenchmark}.
+ */
+public class PersistentQueueRecoveryBenchmark {
+    private static final int ORDERS = 1_000_000;
+    private static final int BATCH = 1_000;
+
+    public static void main(String[] args) throws IOException {
+        Path directory = Files.createTempDirectory("order-queue-recovery");
+        try {
+            List<MenuItem> items = List.of(
+                    new ConcreteMenuItem(1L, "Hamburger", "Beef patty with lettuce and tomato", 5.99, Size.MEDIUM, 1),
+                    new ConcreteMenuItem(2L, "Fries", "Crispy golden fries", 2.99, Size.LARGE, 1));
+
+            long began = System.nanoTime();
+            try (PersistentOrderQueue queue = new PersistentOrderQueue(ORDERS, directory, FsyncPolicy.ASYNC,
+                    Duration.ofMillis(50))) {
+                List<Order> batch = new ArrayList<>(BATCH);
+                for (long id = 1; id <= ORDERS; id++) {
+                    batch.add(new Order(id, id % 5_000 + 1, "customer@example.com", items, "1 Main St", "94107"));
+                    if (batch.size() == BATCH) {
+                        queue.enqueueAll(batch);
+                        batch.clear();
+                    }
+                }
+            }
+            System.out.printf("Wrote %,d orders in %,d ms%n", ORDERS, (System.nanoTime() - began) / 1_000_000);
+
+            began = System.nanoTime();
+            try (PersistentOrderQueue recovered = new PersistentOrderQueue(ORDERS, directory, FsyncPolicy.ASYNC,
+                    Duration.ofMillis(50))) {
+                System.out.printf("Recovered %,d orders in %,d ms%n", recovered.size(),
+                        (System.nanoTime() - began) / 1_000_000);
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+}
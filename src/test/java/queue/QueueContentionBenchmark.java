@@ -0,0 +1,63 @@
+package queue;
+
+import model.Order;
+
+import java.util.concurrent.CountDownLatch;
+
+import static model.TestOrders.anOrder;
+
+/**
+ * Compares enqueue/dequeue throughput of the queue implementations under
+ * contention. Run with {@code ./gradlew benchmark}.
+ */
+public class QueueContentionBenchmark {
+    private static final int[] THREAD_COUNTS = { 1, 2, 4, 8, 16, 32, 64 };
+    private static final int OPERATIONS_PER_THREAD = 200_000;
+    private static final int CAPACITY = 1024;
+
+    public static void main(String[] args) throws InterruptedException {
+        Order order = anOrder().build();
+        System.out.printf("%-12s %8s %16s%n", "queue", "threads", "ops/sec");
+        for (QueueType type : new QueueType[] { QueueType.LINKED, QueueType.RING_BUFFER }) {
+            // Warm-up round so the JIT has compiled both paths before measuring
+            run(type, 4, order);
+            for (int threads : THREAD_COUNTS) {
+                double opsPerSecond = run(type, threads, order);
+                System.out.printf("%-12s %8d %,16.0f%n", type, threads, opsPerSecond);
+            }
+        }
+    }
+
+    private static double run(QueueType type, int threads, Order order)
+            throws InterruptedException {
+        QueueOperations<Order> queue = type.create(CAPACITY);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                // Each thread enqueues then dequeues, so occupancy never exceeds the thread count
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    queue.enqueue(order);
+                    while (queue.dequeue().isEmpty()) {
+                        Thread.onSpinWait();
+                    }
+                }
+                done.countDown();
+            });
+            worker.setDaemon(true);
+            worker.start();
+        }
+
+        long began = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - began;
+        return (2.0 * threads * OPERATIONS_PER_THREAD) / (elapsed / 1_000_000_000.0);
+    }
+}
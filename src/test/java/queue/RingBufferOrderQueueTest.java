@@ -0,0 +1,129 @@
+package queue;
+
+import model.Order;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static model.TestOrders.anOrder;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RingBufferOrderQueueTest {
+    private RingBufferOrderQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        queue = new RingBufferOrderQueue(4);
+    }
+
+    @Test
+    void enqueueDequeue_PreservesFifoOrder() {
+        Order first = anOrder().build();
+        Order second = anOrder().build();
+        queue.enqueue(first);
+        queue.enqueue(second);
+
+        assertEquals(2, queue.size());
+        assertSame(first, queue.peek().orElseThrow());
+        assertSame(first, queue.dequeue().orElseThrow());
+        assertSame(second, queue.dequeue().orElseThrow());
+        assertEquals(Optional.empty(), queue.dequeue());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void enqueue_FullQueue_ThrowsQueueFullException() {
+        for (int i = 0; i < 4; i++) {
+            queue.enqueue(anOrder().build());
+        }
+
+        assertThrows(CustomException.QueueFullException.class, () -> queue.enqueue(anOrder().build()));
+    }
+
+    @Test
+    void enqueue_WrapsAroundAfterDequeue() {
+        for (int lap = 0; lap < 10; lap++) {
+            for (long i = 1; i <= 4; i++) {
+                queue.enqueue(anOrder().withCustomerId(i).build());
+            }
+            for (long i = 1; i <= 4; i++) {
+                assertEquals(i, queue.dequeue().orElseThrow().getCustomerId());
+            }
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void enqueueAll_DrainTo_MoveBatchesInOrder() {
+        List<Order> batch = List.of(anOrder().build(), anOrder().build(), anOrder().build());
+        queue.enqueueAll(batch);
+
+        List<Order> drained = new ArrayList<>();
+        assertEquals(2, queue.drainTo(drained, 2));
+        assertEquals(1, queue.drainTo(drained, 10));
+        assertEquals(0, queue.drainTo(drained, 10));
+        assertEquals(batch, drained);
+    }
+
+    @Test
+    void enqueueAll_BatchDoesNotFit_RejectsWholeBatch() {
+        queue.enqueue(anOrder().build());
+        queue.enqueue(anOrder().build());
+
+        assertThrows(CustomException.QueueFullException.class,
+                () -> queue.enqueueAll(List.of(anOrder().build(), anOrder().build(), anOrder().build())));
+        assertEquals(2, queue.size());
+    }
+
+    @Test
+    void concurrentProducersAndConsumers_NoLostOrDuplicatedOrders() throws InterruptedException {
+        RingBufferOrderQueue shared = new RingBufferOrderQueue(64);
+        int producers = 4;
+        int perProducer = 5_000;
+        Set<Order> seen = ConcurrentHashMap.newKeySet();
+        AtomicInteger consumed = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(producers * 2);
+        ExecutorService executor = Executors.newFixedThreadPool(producers * 2);
+
+        for (int p = 0; p < producers; p++) {
+            executor.execute(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    Order order = anOrder().build();
+                    while (true) {
+                        try {
+                            shared.enqueue(order);
+                            break;
+                        } catch (CustomException.QueueFullException e) {
+                            Thread.onSpinWait();
+                        }
+                    }
+                }
+                done.countDown();
+            });
+            executor.execute(() -> {
+                while (consumed.get() < producers * perProducer) {
+                    shared.dequeue().ifPresent(order -> {
+                        assertTrue(seen.add(order));
+                        consumed.incrementAndGet();
+                    });
+                }
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        executor.shutdownNow();
+        assertEquals(producers * perProducer, seen.size());
+        assertTrue(shared.isEmpty());
+    }
+}
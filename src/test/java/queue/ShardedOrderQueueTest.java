@@ -0,0 +1,113 @@
+package queue;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import model.Order;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static model.TestOrders.anOrder;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedOrderQueueTest {
+    private ShardedOrderQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        queue = new ShardedOrderQueue(2, Map.of("941", 3), ShardedOrderQueue.DEFAULT_PREFIX_LENGTH);
+    }
+
+    @Test
+    void enqueue_RoutesByPostalCodePrefix() {
+        queue.enqueue(anOrder().withPostalCode("94107").build());
+        queue.enqueue(anOrder().withPostalCode("94110").build());
+        queue.enqueue(anOrder().withPostalCode("10001").build());
+        queue.enqueue(anOrder().withPostalCode(null).build());
+
+        assertEquals(Map.of("941", 2, "100", 1, ShardedOrderQueue.UNZONED, 1), queue.getShardDepths());
+        assertEquals(4, queue.size());
+    }
+
+    @Test
+    void enqueue_ShardsHaveIndependentCapacities() {
+        queue.enqueue(anOrder().withPostalCode("10001").build());
+        queue.enqueue(anOrder().withPostalCode("10002").build());
+
+        assertThrows(CustomException.QueueFullException.class, () -> queue.enqueue(anOrder().withPostalCode("10003").build()));
+        queue.enqueue(anOrder().withPostalCode("94107").build());
+        queue.enqueue(anOrder().withPostalCode("94107").build());
+        queue.enqueue(anOrder().withPostalCode("94107").build());
+    }
+
+    @Test
+    void dequeue_EmptyHomeZone_StealsFromBusiestShard() {
+        Order downtown = anOrder().withPostalCode("94107").build();
+        queue.enqueue(downtown);
+        queue.enqueue(anOrder().withPostalCode("94110").build());
+        queue.enqueue(anOrder().withPostalCode("10001").build());
+
+        assertSame(downtown, queue.dequeue("606").orElseThrow());
+        assertEquals(1, queue.getStolenFromCount("941"));
+        assertEquals(1, queue.getStolenByCount("606"));
+
+        assertEquals("100", queue.zoneOf(queue.dequeue("100").orElseThrow()));
+        assertEquals(0, queue.getStolenByCount("100"));
+    }
+
+    @Test
+    void take_ZoneDispatcher_WakesForItsOwnZoneAndStealsWhenIdle() throws Exception {
+        AtomicReference<Optional<Order>> taken = new AtomicReference<>();
+        CountDownLatch started = new CountDownLatch(1);
+        Thread dispatcher = new Thread(() -> {
+            started.countDown();
+            try {
+                taken.set(queue.take("941", 10, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        dispatcher.start();
+        started.await();
+
+        Order downtown = anOrder().withPostalCode("94107").build();
+        queue.enqueue(downtown);
+        dispatcher.join(TimeUnit.SECONDS.toMillis(5));
+
+        assertSame(downtown, taken.get().orElseThrow());
+        queue.enqueue(anOrder().withPostalCode("10001").build());
+        assertEquals("100", queue.zoneOf(queue.take("941", 1, TimeUnit.SECONDS).orElseThrow()));
+        assertEquals(1, queue.getStolenByCount("941"));
+    }
+
+    @Test
+    void bindTo_RegistersMetersPerZoneIncludingLaterZones() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        queue.enqueue(anOrder().withPostalCode("94107").build());
+        queue.enqueue(anOrder().withPostalCode("94110").build());
+        new InstrumentedOrderQueue(queue, registry);
+        queue.enqueue(anOrder().withPostalCode("10001").build());
+        queue.dequeue("606");
+
+        assertEquals(1.0, registry.get("order.queue.shard.depth").tag("zone", "100").gauge().value());
+        assertEquals(1.0, registry.get("order.queue.shard.steals").tag("zone", "606").tag("side", "thief")
+                .functionCounter().count());
+        assertEquals(1.0, registry.get("order.queue.shard.steals").tag("zone", "941").tag("side", "victim")
+                .functionCounter().count());
+    }
+
+    @Test
+    void drainTo_EmptiesEveryShard() {
+        queue.enqueueAll(List.of(anOrder().withPostalCode("94107").build(), anOrder().withPostalCode("10001").build(), anOrder().withPostalCode("60601").build()));
+
+        assertEquals(3, queue.drainTo(new ArrayList<>(), 10));
+        assertTrue(queue.isEmpty());
+    }
+}
@@ -0,0 +1,99 @@
+package scheduler;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HierarchicalTimingWheelTest {
+    private static final long TICK = 1_000L;
+
+    private HierarchicalTimingWheel<String> wheel;
+    private List<String> fired;
+
+    @BeforeEach
+    void setUp() {
+        wheel = new HierarchicalTimingWheel<>(Duration.ofMillis(TICK), 0L);
+        fired = new ArrayList<>();
+    }
+
+    @Test
+    void advance_FiresOnFirstTickAtOrAfterDeadline() {
+        wheel.schedule("order", 2_500L);
+
+        assertEquals(0, wheel.advance(2_999L, fired::add));
+        assertEquals(1, wheel.advance(3_000L, fired::add));
+        assertEquals(List.of("order"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void advance_DeadlineAlreadyPassed_FiresOnNextAdvance() {
+        wheel.advance(10_000L, fired::add);
+        wheel.schedule("late", 4_000L);
+
+        assertEquals(1, wheel.advance(10_000L, fired::add));
+        assertEquals(List.of("late"), fired);
+    }
+
+    @Test
+    void cancel_PendingTimeout_NeverFires() {
+        HierarchicalTimingWheel.Timeout<String> cancelled = wheel.schedule("cancelled", 90_000L);
+        wheel.schedule("kept", 90_000L);
+
+        assertTrue(wheel.cancel(cancelled));
+        assertFalse(wheel.cancel(cancelled));
+        assertFalse(cancelled.isPending());
+
+        wheel.advance(100_000L, fired::add);
+        assertEquals(List.of("kept"), fired);
+    }
+
+    @Test
+    void advance_DeadlinesAcrossLevels_FireInOrderAndNeverEarly() {
+        Random random = new Random(42);
+        Map<String, Long> deadlines = new HashMap<>();
+        long horizon = Duration.ofDays(3).toMillis();
+        for (int i = 0; i < 10_000; i++) {
+            long deadline = 1 + (long) (random.nextDouble() * horizon);
+            deadlines.put("order-" + i, deadline);
+            wheel.schedule("order-" + i, deadline);
+        }
+
+        long previous = 0;
+        for (long now = TICK; now <= horizon + TICK; now += TICK) {
+            final long at = now;
+            List<String> due = new ArrayList<>();
+            wheel.advance(now, due::add);
+            for (String value : due) {
+                long deadline = deadlines.get(value);
+                assertTrue(deadline <= at, value + " fired early");
+                assertTrue(at - deadline < TICK, value + " fired late");
+                assertTrue(deadline >= previous - TICK);
+            }
+            if (!due.isEmpty()) {
+                previous = at;
+            }
+            fired.addAll(due);
+        }
+
+        assertEquals(10_000, fired.size());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void advance_LongIdleGap_SkipsAhead() {
+        wheel.advance(Duration.ofDays(365).toMillis(), fired::add);
+        long now = Duration.ofDays(365).toMillis();
+        wheel.schedule("next", now + TICK);
+
+        assertEquals(1, wheel.advance(now + TICK, fired::add));
+    }
+}
@@ -0,0 +1,238 @@
+package scheduler;
+
+import CustomException.PersistenceException;
+import CustomException.ValidationException;
+import model.Order;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import queue.OrderQueue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static model.TestOrders.anOrder;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScheduledOrderServiceTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    private Path directory;
+    private MutableClock clock;
+    private OrderQueue dispatchQueue;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("scheduled-orders");
+        clock = new MutableClock(NOW.toInstant(ZoneOffset.UTC).toEpochMilli());
+        dispatchQueue = new OrderQueue(10);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Test
+    void releaseDue_HoldsOrderUntilKitchenStart() {
+        ScheduledOrderService service = open();
+        Order order = anOrder().withId(1L).build();
+        service.schedule(order, NOW.plusHours(6));
+
+        clock.advance(Duration.ofHours(6).minusSeconds(1));
+        assertEquals(0, service.releaseDue());
+        assertTrue(dispatchQueue.isEmpty());
+
+        clock.advance(Duration.ofSeconds(1));
+        assertEquals(1, service.releaseDue());
+        assertSame(order, dispatchQueue.dequeue().orElseThrow());
+        assertFalse(service.isScheduled(1L));
+    }
+
+    @Test
+    void scheduleForDelivery_StartsKitchenLeadTimeEarlier() {
+        ScheduledOrderService service = open();
+        Order order = anOrder().withId(1L).build();
+        LocalDateTime deliverAt = NOW.withHour(18);
+        service.scheduleForDelivery(order, deliverAt);
+
+        assertEquals(deliverAt, order.getEstimatedDeliveryTime());
+        clock.advance(Duration.between(NOW, deliverAt.minus(ScheduledOrderService.DEFAULT_LEAD_TIME)));
+        assertEquals(1, service.releaseDue());
+    }
+
+    @Test
+    void cancel_PendingOrder_IsNeverReleased() {
+        ScheduledOrderService service = open();
+        service.schedule(anOrder().withId(1L).build(), NOW.plusMinutes(5));
+
+        assertTrue(service.cancel(1L));
+        assertFalse(service.cancel(1L));
+
+        clock.advance(Duration.ofHours(1));
+        assertEquals(0, service.releaseDue());
+        assertTrue(dispatchQueue.isEmpty());
+    }
+
+    @Test
+    void schedule_DuplicateOrder_Throws() {
+        ScheduledOrderService service = open();
+        service.schedule(anOrder().withId(1L).build(), NOW.plusMinutes(5));
+
+        assertThrows(IllegalArgumentException.class, () -> service.schedule(anOrder().withId(1L).build(), NOW.plusMinutes(10)));
+    }
+
+    @Test
+    void restart_RestoresPendingOrdersFromSnapshot() {
+        ScheduledOrderService service = open();
+        service.schedule(anOrder().withId(1L).build(), NOW.plusHours(1));
+        service.schedule(anOrder().withId(2L).build(), NOW.plusDays(2));
+        service.schedule(anOrder().withId(3L).build(), NOW.plusHours(3));
+        service.cancel(3L);
+        service.close();
+
+        ScheduledOrderService restarted = open();
+        assertEquals(2, restarted.getPendingCount());
+
+        clock.advance(Duration.ofHours(1));
+        assertEquals(1, restarted.releaseDue());
+        assertEquals(1L, dispatchQueue.dequeue().orElseThrow().getId());
+        assertTrue(restarted.isScheduled(2L));
+    }
+
+    @Test
+    void restart_AfterStartTimePassed_ReleasesOnFirstTick() {
+        ScheduledOrderService service = open();
+        service.schedule(anOrder().withId(1L).build(), NOW.plusMinutes(30));
+        service.close();
+
+        clock.advance(Duration.ofHours(2));
+        ScheduledOrderService restarted = open();
+        assertEquals(1, restarted.releaseDue());
+    }
+
+    @Test
+    void releaseDue_DispatchQueueFull_RetriesOnNextTick() {
+        dispatchQueue = new OrderQueue(1);
+        ScheduledOrderService service = open();
+        dispatchQueue.enqueue(anOrder().withId(9L).build());
+        service.schedule(anOrder().withId(1L).build(), NOW.plusMinutes(1));
+
+        clock.advance(Duration.ofMinutes(1));
+        assertEquals(0, service.releaseDue());
+        assertTrue(service.isScheduled(1L));
+
+        dispatchQueue.dequeue();
+        clock.advance(Duration.ofSeconds(1));
+        assertEquals(1, service.releaseDue());
+    }
+
+    @Test
+    void schedule_InvalidOrder_ThrowsAndIsNotScheduled() {
+        ScheduledOrderService service = open();
+        Order order = anOrder().withId(1L).withItems(List.of()).build();
+
+        assertThrows(ValidationException.class, () -> service.schedule(order, NOW.plusMinutes(5)));
+        assertThrows(ValidationException.class, () -> service.scheduleForDelivery(order, NOW.plusHours(2)));
+        assertFalse(service.isScheduled(1L));
+        assertNull(order.getEstimatedDeliveryTime());
+    }
+
+    @Test
+    void releaseDue_OrderRejectedAsInvalid_KeepsItAsDeadLetterAndReleasesTheRest() {
+        ScheduledOrderService service = open();
+        Order invalid = anOrder().withId(1L).build();
+        service.schedule(invalid, NOW.plusMinutes(1));
+        service.schedule(anOrder().withId(2L).build(), NOW.plusMinutes(1));
+        invalid.setItems(List.of());
+
+        clock.advance(Duration.ofMinutes(1));
+        assertEquals(1, service.releaseDue());
+        assertEquals(2L, dispatchQueue.dequeue().orElseThrow().getId());
+        assertEquals(List.of(invalid), service.getDeadLetters());
+        service.close();
+
+        // The dead letter survives a restart instead of being dropped from the snapshot
+        ScheduledOrderService restarted = open();
+        assertEquals(1, restarted.getPendingCount());
+    }
+
+    @Test
+    void releaseDue_DispatchQueueFails_RetriesEveryOrderOnNextTick() {
+        dispatchQueue = new OrderQueue(10) {
+            private boolean failed;
+
+            @Override
+            public void enqueue(Order order) {
+                if (!failed) {
+                    failed = true;
+                    throw new PersistenceException("Disk full");
+                }
+                super.enqueue(order);
+            }
+        };
+        ScheduledOrderService service = open();
+        service.schedule(anOrder().withId(1L).build(), NOW.plusMinutes(1));
+        service.schedule(anOrder().withId(2L).build(), NOW.plusMinutes(1));
+
+        clock.advance(Duration.ofMinutes(1));
+        assertEquals(1, service.releaseDue());
+        assertEquals(1, service.getPendingCount());
+
+        clock.advance(Duration.ofSeconds(1));
+        assertEquals(1, service.releaseDue());
+        assertEquals(2, dispatchQueue.size());
+        assertEquals(0, service.getPendingCount());
+    }
+
+    private ScheduledOrderService open() {
+        return new ScheduledOrderService(dispatchQueue, directory.resolve("scheduled.snapshot"),
+                Duration.ofSeconds(1), clock);
+    }
+
+    private static final class MutableClock extends Clock {
+        private long millis;
+
+        MutableClock(long millis) {
+            this.millis = millis;
+        }
+
+        void advance(Duration duration) {
+            millis += duration.toMillis();
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package services;
+
+import model.Driver;
+import model.Order;
+import model.OrderStatus;
+import org.junit.jupiter.api.Test;
+import services.impl.DriverServiceImpl;
+
+import static model.TestOrders.anOrder;
+import static org.junit.jupiter.api.Assertions.*;
+
+class DriverServiceTest {
+
+    @Test
+    void getDriverForOrder_FollowsAssignDeliveryAndRemoval() {
+        DriverServiceImpl service = new DriverServiceImpl();
+        Driver first = new Driver(1L, "Driver 1", "Scooter", "P-1");
+        Driver second = new Driver(2L, "Driver 2", "Bike", "P-2");
+        service.addDriver(first);
+        service.addDriver(second);
+        Order delivered = anOrder().build();
+        Order kept = anOrder().build();
+
+        assertTrue(service.assignDriverToOrder(first, delivered));
+        assertTrue(service.assignDriverToOrder(second, kept));
+        assertSame(first, service.getDriverForOrder(delivered));
+        assertSame(second, service.getDriverForOrder(kept));
+
+        first.completeDelivery(delivered);
+        assertNull(service.getDriverForOrder(delivered));
+        // A driver added while already carrying an order is indexed too
+        service.removeDriver(second);
+        assertNull(service.getDriverForOrder(kept));
+        service.addDriver(second);
+        assertSame(second, service.getDriverForOrder(kept));
+        assertNull(service.getDriverForOrder(anOrder().build()));
+    }
+
+    @Test
+    void assignDriverToOrder_Fails_LeavesAnotherDispatchersClaim() {
+        DriverServiceImpl service = new DriverServiceImpl();
+        Driver driver = new Driver(1L, "Driver 1", "Scooter", "P-1");
+        service.addDriver(driver);
+        Order taken = anOrder().build();
+        taken.transitionTo(OrderStatus.IN_PROGRESS);
+        assertSame(driver, service.claimAvailableDriver().orElseThrow());
+
+        assertFalse(service.assignDriverToOrder(driver, taken));
+        assertTrue(service.claimAvailableDriver().isEmpty());
+
+        assertFalse(service.assignClaimedDriverToOrder(driver, taken));
+        assertSame(driver, service.claimAvailableDriver().orElseThrow());
+    }
+}
@@ -0,0 +1,103 @@
+package services;
+
+import model.ConcreteMenuItem;
+import model.Driver;
+import model.MenuItem;
+import model.Order;
+import model.OrderStatus;
+import model.Size;
+import persistence.FsyncPolicy;
+import persistence.OrderJournal;
+import services.impl.JournaledOrderRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Measures how long a {@link JournaledOrderRepository} takes to recover a
+ * day of orders from its snapshot and journal tail. Run with
+ * {@code ./gradlew benchmark -PbenchmarkClass=services.JournalRecoveryBenchmark -PbenchmarkHeap=8g};
+ * pass a smaller order count as the first program argument on a constrained
+ * machine.
+ *
+ * <p>Each order is created, confirmed, assigned a driver and an ETA, and
+ * delivered, for six journal events. The snapshot is taken after 90% of the
+ * day, so recovery replays the events of the last 10% on top of it.
+ */
+public class JournalRecoveryBenchmark {
+    private static final int DEFAULT_ORDERS = 5_000_000;
+    private static final double SNAPSHOT_AT = 0.9;
+    private static final int DRIVERS = 2_000;
+
+    public static void main(String[] args) throws IOException {
+        int orders = args.length > 0 ? Integer.parseInt(args[0].replace("_", "")) : DEFAULT_ORDERS;
+        Path directory = Files.createTempDirectory("journal-benchmark");
+        try {
+            run(directory, orders);
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+
+    private static void run(Path directory, int orders) {
+        List<MenuItem> items = List.of(new ConcreteMenuItem(1L, "Fries", "Crispy golden fries", 2.99, Size.LARGE, 1));
+        Driver[] drivers = new Driver[DRIVERS];
+        for (int i = 0; i < DRIVERS; i++) {
+            drivers[i] = new Driver((long) i + 1, "Driver " + i, "Scooter", "PLATE-" + i);
+        }
+        LocalDateTime opening = LocalDateTime.of(2024, 5, 1, 10, 0);
+        int snapshotAt = (int) (orders * SNAPSHOT_AT);
+
+        OrderJournal journal = open(directory);
+        JournaledOrderRepository repository = new JournaledOrderRepository(journal);
+        long began = System.nanoTime();
+        long snapshotNanos = 0;
+        for (long id = 1; id <= orders; id++) {
+            Order order = repository.save(new Order(id, id % 100_000 + 1, "customer@example.com", items,
+                    "1 Main St", "94107"));
+            order.restoreStatus(OrderStatus.CONFIRMED);
+            order.setDriver(drivers[(int) (id % DRIVERS)]);
+            order.setEstimatedDeliveryTime(opening.plusSeconds(id / 100));
+            order.restoreStatus(OrderStatus.OUT_FOR_DELIVERY);
+            order.restoreStatus(OrderStatus.DELIVERED);
+            if (id == snapshotAt) {
+                long snapshotBegan = System.nanoTime();
+                repository.snapshot();
+                snapshotNanos = System.nanoTime() - snapshotBegan;
+            }
+        }
+        long tail = journal.getTailLength();
+        System.out.printf("journaled %,d orders in %,d ms; snapshot of %,d orders took %,d ms%n",
+                orders, (System.nanoTime() - began) / 1_000_000, snapshotAt, snapshotNanos / 1_000_000);
+
+        // Simulate a crash: no final snapshot, and the old store is garbage
+        journal.close();
+        repository = null;
+        System.gc();
+
+        journal = open(directory);
+        began = System.nanoTime();
+        JournaledOrderRepository recovered = new JournaledOrderRepository(journal);
+        long recoveryMillis = (System.nanoTime() - began) / 1_000_000;
+        System.out.printf("recovered %,d orders replaying %,d tail events in %,d ms%n",
+                recovered.count(), tail, recoveryMillis);
+        if (recovered.findByStatus(OrderStatus.DELIVERED).size() != orders) {
+            throw new IllegalStateException("Recovered store does not match the journaled day");
+        }
+        journal.close();
+    }
+
+    private static OrderJournal open(Path directory) {
+        return new OrderJournal(directory, FsyncPolicy.ASYNC, Duration.ofMillis(5));
+    }
+}
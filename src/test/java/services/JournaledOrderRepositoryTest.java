@@ -0,0 +1,220 @@
+package services;
+
+import CustomException.PersistenceException;
+import model.ConcreteMenuItem;
+import model.Driver;
+import model.MenuItem;
+import model.Order;
+import model.OrderStatus;
+import model.Size;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import persistence.FsyncPolicy;
+import persistence.OrderJournal;
+import services.impl.JournaledOrderRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static model.TestOrders.anOrder;
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournaledOrderRepositoryTest {
+    private Path directory;
+    private OrderJournal journal;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("order-journal");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        journal.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Test
+    void restart_ReplaysLifecycleChangesFromJournal() {
+        JournaledOrderRepository repository = open();
+        Driver driver = new Driver(7L, "Dana", "Scooter", "AB-123");
+        LocalDateTime eta = LocalDateTime.of(2024, 5, 1, 18, 30);
+        Order order = repository.save(anOrder().withId(1L).build());
+        order.restoreStatus(OrderStatus.IN_PROGRESS);
+        order.setDriver(driver);
+        order.setEstimatedDeliveryTime(eta);
+        repository.save(anOrder().withId(2L).build());
+        crash();
+
+        JournaledOrderRepository restarted = open();
+
+        Order recovered = restarted.findById(1L).orElseThrow();
+        assertNotSame(order, recovered);
+        assertEquals(OrderStatus.IN_PROGRESS, recovered.getStatus());
+        assertEquals(7L, recovered.getDriver().getId());
+        assertEquals("AB-123", recovered.getDriver().getLicensePlate());
+        assertEquals(eta, recovered.getEstimatedDeliveryTime());
+        assertEquals(2, restarted.count());
+        assertEquals(List.of(recovered), restarted.findByStatus(OrderStatus.IN_PROGRESS));
+        assertEquals(2, restarted.findByCustomerId(100L).size());
+    }
+
+    @Test
+    void snapshot_CompactsJournalAndRestartReplaysOnlyTail() {
+        JournaledOrderRepository repository = open();
+        Order order = repository.save(anOrder().withId(1L).build());
+        order.restoreStatus(OrderStatus.CONFIRMED);
+        order.restoreStatus(OrderStatus.IN_PROGRESS);
+        assertEquals(3, journal.getTailLength());
+
+        repository.snapshot();
+        assertEquals(0, journal.getTailLength());
+
+        order.restoreStatus(OrderStatus.DELIVERED);
+        repository.save(anOrder().withId(2L).withCustomerId(200L).build());
+        crash();
+
+        JournaledOrderRepository restarted = open();
+        assertEquals(2, journal.getTailLength());
+        assertEquals(OrderStatus.DELIVERED, restarted.findById(1L).orElseThrow().getStatus());
+        assertTrue(restarted.findById(2L).isPresent());
+    }
+
+    @Test
+    void recoveredOrders_KeepJournaling() {
+        open().save(anOrder().withId(1L).build());
+        crash();
+
+        JournaledOrderRepository restarted = open();
+        restarted.findById(1L).orElseThrow().restoreStatus(OrderStatus.CANCELLED);
+        crash();
+
+        assertEquals(OrderStatus.CANCELLED, open().findById(1L).orElseThrow().getStatus());
+    }
+
+    @Test
+    void restart_RemovedOrderStaysRemoved() {
+        JournaledOrderRepository repository = open();
+        Order order = repository.save(anOrder().withId(1L).build());
+        repository.save(anOrder().withId(2L).build());
+        repository.snapshot();
+        assertTrue(repository.remove(order));
+        crash();
+
+        JournaledOrderRepository restarted = open();
+        assertTrue(restarted.findById(1L).isEmpty());
+        assertEquals(1, restarted.count());
+    }
+
+    @Test
+    void restart_ReplaysOrderLineChangesOverSnapshot() {
+        JournaledOrderRepository repository = open();
+        Order order = repository.save(anOrder().withId(1L).build());
+        MenuItem drink = new ConcreteMenuItem(2L, "Soda", "Cold", 1.50, Size.SMALL, 2);
+        order.addItem(drink);
+        repository.snapshot();
+        order.removeItem(order.getItems().get(0));
+        crash();
+
+        Order recovered = open().findById(1L).orElseThrow();
+        assertEquals(1, recovered.getItems().size());
+        assertEquals("Soda", recovered.getItems().get(0).getName());
+        assertEquals(300, recovered.getTotalCents());
+    }
+
+    @Test
+    void snapshot_RacingSavesAndRemoves_RestartRecoversExactlyTheLiveOrders() throws InterruptedException {
+        JournaledOrderRepository repository = open();
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread snapshotter = new Thread(() -> {
+            while (running.get()) {
+                repository.snapshot();
+            }
+        });
+        snapshotter.start();
+        List<Thread> writers = new ArrayList<>();
+        for (int writer = 0; writer < 4; writer++) {
+            long base = writer * 100_000L;
+            writers.add(new Thread(() -> {
+                for (long id = 1; id <= 2_000; id++) {
+                    Order order = repository.save(anOrder().withId(base + id).build());
+                    // Every other order is archived straight away
+                    if (id % 2 == 0) {
+                        repository.remove(order);
+                    }
+                }
+            }));
+        }
+        writers.forEach(Thread::start);
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        running.set(false);
+        snapshotter.join();
+        Set<Long> live = repository.stream().map(Order::getId).collect(Collectors.toSet());
+        crash();
+
+        JournaledOrderRepository restarted = open();
+        assertEquals(4_000, live.size());
+        assertEquals(live, restarted.stream().map(Order::getId).collect(Collectors.toSet()));
+    }
+
+    @Test
+    void save_SameInstanceTwice_JournalsOnce() {
+        JournaledOrderRepository repository = open();
+        Order order = anOrder().withId(1L).build();
+
+        repository.save(order);
+        repository.save(order);
+
+        assertEquals(1, journal.getTailLength());
+    }
+
+    @Test
+    void close_WritesSnapshotSoRestartReplaysNothing() {
+        JournaledOrderRepository repository = open();
+        repository.save(anOrder().withId(1L).build()).setDriver(new Driver(7L, "Dana", "Scooter", "AB-123"));
+        repository.close();
+
+        JournaledOrderRepository restarted = open();
+        assertEquals(0, journal.getTailLength());
+        assertEquals(7L, restarted.findById(1L).orElseThrow().getDriver().getId());
+    }
+
+    @Test
+    void open_CorruptSnapshot_Throws() throws IOException {
+        JournaledOrderRepository repository = open();
+        repository.save(anOrder().withId(1L).build());
+        repository.close();
+        Files.write(directory.resolve("orders.snapshot"), new byte[] {1, 2, 3}, StandardOpenOption.APPEND);
+
+        journal = new OrderJournal(directory, FsyncPolicy.ASYNC, Duration.ofMillis(5));
+        assertThrows(PersistenceException.class, () -> new JournaledOrderRepository(journal));
+    }
+
+    private JournaledOrderRepository open() {
+        journal = new OrderJournal(directory, FsyncPolicy.ASYNC, Duration.ofMillis(5));
+        return new JournaledOrderRepository(journal);
+    }
+
+    /** Closes the journal without the final snapshot a clean shutdown would write. */
+    private void crash() {
+        journal.close();
+    }
+}
@@ -0,0 +1,79 @@
+package services;
+
+import model.Driver;
+import model.MenuItem;
+import model.Order;
+import services.impl.DriverServiceImpl;
+import services.impl.InMemoryOrderRepository;
+import services.impl.MenuServiceImpl;
+import validation.OrderValidator;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * Measures the bytes allocated per order on the placement path: reading the
+ * menu, creating the order, validating it, storing it and then reading its
+ * lines and the driver list the way the confirmation, notification and
+ * assignment steps do. Run with
+ * {@code ./gradlew benchmark -PbenchmarkClass=services.OrderPlacementAllocationBenchmark};
+ * pass the number of orders as a program argument.
+ *
+ * <p>Allocation is read from the current thread's allocation counter, which
+ * needs a HotSpot-based JVM.
+ */
+public class OrderPlacementAllocationBenchmark {
+    private static final int DEFAULT_ORDERS = 1_000_000;
+    private static final int DRIVERS = 50;
+    private static final int ROUNDS = 5;
+    // How many times the steps after validation read the order's lines
+    private static final int LINE_READS = 3;
+
+    // Keeps the JIT from discarding reads whose results are otherwise unused
+    private static volatile long sink;
+
+    public static void main(String[] args) {
+        int orders = args.length > 0 ? Integer.parseInt(args[0].replace("_", "")) : DEFAULT_ORDERS;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        MenuService menuService = new MenuServiceImpl();
+        DriverServiceImpl driverService = new DriverServiceImpl();
+        for (long id = 1; id <= DRIVERS; id++) {
+            driverService.addDriver(new Driver(id, "Driver " + id, "Scooter", "AB-" + id));
+        }
+        OrderValidator validator = new OrderValidator();
+
+        System.out.printf("%8s %14s %14s%n", "round", "bytes/order", "ns/order");
+        // The first round warms up the JIT and is not counted
+        for (int round = 0; round <= ROUNDS; round++) {
+            OrderRepository repository = new InMemoryOrderRepository(orders);
+            long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+            long began = System.nanoTime();
+            sink += place(orders, menuService, driverService, validator, repository);
+            long elapsed = System.nanoTime() - began;
+            long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+            if (round > 0) {
+                System.out.printf("%8d %14.1f %14.1f%n", round, (double) allocated / orders, (double) elapsed / orders);
+            }
+        }
+    }
+
+    private static long place(int orders, MenuService menuService, DriverService driverService,
+            OrderValidator validator, OrderRepository repository) {
+        long sum = 0;
+        for (int i = 0; i < orders; i++) {
+            List<MenuItem> menu = menuService.getMenu();
+            List<MenuItem> items = List.of(menu.get(i % menu.size()), menu.get((i + 1) % menu.size()));
+            Order order = new Order(i % 5_000 + 1L, "customer@example.com", items, "1 Main St", "94107");
+            validator.validateOrder(order);
+            repository.save(order);
+            for (int read = 0; read < LINE_READS; read++) {
+                sum += order.getItems().size();
+            }
+            List<Driver> drivers = driverService.getAllDrivers();
+            sum += drivers.get(i % drivers.size()).getId();
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,108 @@
+package services;
+
+import model.Order;
+import model.OrderStatus;
+import org.junit.jupiter.api.Test;
+import persistence.OrderArchive;
+import services.impl.InMemoryOrderRepository;
+import services.impl.TieredOrderRepository;
+import util.IdGenerator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static model.TestOrders.anOrder;
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderQueryTest {
+    private static final Instant NOON = Instant.parse("2024-05-01T12:00:00Z");
+
+    private final AtomicLong clock = new AtomicLong();
+    private final IdGenerator ids = new IdGenerator(1, clock::get);
+
+    @Test
+    void query_PagesThroughTimeRangeAndZoneInCreationOrder() {
+        InMemoryOrderRepository repository = new InMemoryOrderRepository();
+        List<Long> expected = new ArrayList<>();
+        for (int minute = -5; minute < 20; minute++) {
+            Order order = repository.save(newOrder(minute, minute % 2 == 0 ? "94107" : "10001"));
+            if (minute >= 0 && minute < 15 && minute % 2 == 0) {
+                expected.add(order.getId());
+            }
+        }
+        OrderQuery query = OrderQuery.createdBetween(NOON, NOON.plusSeconds(15 * 60)).withPostalCodePrefix("941");
+
+        OrderCursor cursor = repository.query(query, 3);
+        List<Long> returned = new ArrayList<>();
+        List<Order> page = cursor.nextPage();
+        assertEquals(3, page.size());
+        page.forEach(order -> returned.add(order.getId()));
+        // A new cursor resumes from where the first one stopped
+        new OrderCursor(repository, query, 3, cursor.getPosition()).stream()
+                .forEach(order -> returned.add(order.getId()));
+
+        assertEquals(expected, returned);
+    }
+
+    @Test
+    void query_StatusFilterAndEmptyRange_ReturnNothingExtra() {
+        InMemoryOrderRepository repository = new InMemoryOrderRepository();
+        repository.save(newOrder(1, "94107")).restoreStatus(OrderStatus.DELIVERED);
+        Order confirmed = repository.save(newOrder(2, "94107"));
+        confirmed.restoreStatus(OrderStatus.CONFIRMED);
+
+        assertEquals(List.of(confirmed), repository.query(OrderQuery.createdBetween(NOON, NOON.plusSeconds(3600))
+                .withStatus(OrderStatus.CONFIRMED), 10).stream().toList());
+        OrderCursor empty = repository.query(OrderQuery.createdBetween(NOON, NOON), 10);
+        assertTrue(empty.nextPage().isEmpty());
+        assertFalse(empty.hasMore());
+    }
+
+    @Test
+    void query_TieredRepository_CoversLiveAndArchivedOrdersOnce() throws IOException {
+        Path directory = Files.createTempDirectory("order-archive");
+        try (TieredOrderRepository repository = new TieredOrderRepository(new InMemoryOrderRepository(),
+                new OrderArchive(directory, 4))) {
+            List<Long> all = new ArrayList<>();
+            for (int minute = 0; minute < 6; minute++) {
+                Order order = repository.save(newOrder(minute, "94107"));
+                all.add(order.getId());
+                if (minute % 2 == 0) {
+                    order.restoreStatus(OrderStatus.DELIVERED);
+                }
+            }
+            assertEquals(3, repository.archiveCompleted());
+            // Archived again later in a newer segment, and still live after a status change
+            Order reopened = repository.save(newOrder(6, "94107"));
+            all.add(reopened.getId());
+            reopened.restoreStatus(OrderStatus.CANCELLED);
+            repository.getArchive().archive(List.of(reopened));
+            reopened.restoreStatus(OrderStatus.PENDING);
+
+            List<Order> found = repository.query(OrderQuery.createdBetween(NOON, NOON.plusSeconds(3600)), 2)
+                    .stream().toList();
+
+            assertEquals(all, found.stream().map(Order::getId).toList());
+            assertSame(reopened, found.get(found.size() - 1));
+            assertEquals(OrderStatus.DELIVERED, found.get(0).getStatus());
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+
+    private Order newOrder(int minute, String postalCode) {
+        clock.set(NOON.plusSeconds(minute * 60L).toEpochMilli());
+        return anOrder().withId(ids.nextId()).withPostalCode(postalCode).build();
+    }
+}
@@ -0,0 +1,91 @@
+package services;
+
+import model.ConcreteMenuItem;
+import model.MenuItem;
+import model.Order;
+import model.Size;
+import services.impl.InMemoryOrderRepository;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Measures {@link InMemoryOrderRepository#findById} latency as the repository
+ * grows from ten thousand to ten million orders. Run with
+ * {@code ./gradlew benchmark -PbenchmarkClass=services.OrderRepositoryBenchmark};
+ * pass smaller sizes as program arguments on a constrained machine.
+ *
+ * <p>For comparison, sizes up to {@value #MAX_SCAN_SIZE} also time the linear
+ * list scan that the order services used before.
+ */
+public class OrderRepositoryBenchmark {
+    private static final int[] DEFAULT_SIZES = {10_000, 100_000, 1_000_000, 10_000_000};
+    private static final int LOOKUPS = 1_000_000;
+    private static final int ROUNDS = 5;
+    private static final int MAX_SCAN_SIZE = 100_000;
+    private static final int SCAN_LOOKUPS = 2_000;
+
+    // Keeps the JIT from discarding lookups whose results are otherwise unused
+    private static volatile long sink;
+
+    public static void main(String[] args) {
+        int[] sizes = DEFAULT_SIZES;
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i].replace("_", ""));
+            }
+        }
+
+        List<MenuItem> items = List.of(new ConcreteMenuItem(1L, "Fries", "Crispy golden fries", 2.99, Size.LARGE, 1));
+        System.out.printf("%12s %14s %14s %14s%n", "orders", "mean ns/op", "best ns/op", "scan ns/op");
+        for (int size : sizes) {
+            OrderRepository repository = new InMemoryOrderRepository(size);
+            for (long id = 1; id <= size; id++) {
+                repository.save(new Order(id, id % 5_000 + 1, "customer@example.com", items, "1 Main St", "94107"));
+            }
+
+            SplittableRandom random = new SplittableRandom(size);
+            Long[] keys = new Long[LOOKUPS];
+            for (int i = 0; i < LOOKUPS; i++) {
+                keys[i] = random.nextLong(size) + 1;
+            }
+
+            // The first round warms up the JIT and is not counted
+            sink = lookUp(repository, keys);
+            long total = 0;
+            long best = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                long began = System.nanoTime();
+                sink += lookUp(repository, keys);
+                long elapsed = System.nanoTime() - began;
+                total += elapsed;
+                best = Math.min(best, elapsed);
+            }
+            String scan = size <= MAX_SCAN_SIZE ? String.format("%14.1f", scanLookUp(repository, keys)) : "";
+            System.out.printf("%,12d %14.1f %14.1f %s%n", size,
+                    (double) total / ROUNDS / LOOKUPS, (double) best / LOOKUPS, scan);
+        }
+    }
+
+    private static double scanLookUp(OrderRepository repository, Long[] keys) {
+        List<Order> orders = repository.findAll();
+        long sum = 0;
+        long began = System.nanoTime();
+        for (int i = 0; i < SCAN_LOOKUPS; i++) {
+            Long key = keys[i];
+            sum += orders.stream().filter(order -> order.getId().equals(key)).findFirst().orElseThrow().getCustomerId();
+        }
+        double perLookup = (double) (System.nanoTime() - began) / SCAN_LOOKUPS;
+        sink += sum;
+        return perLookup;
+    }
+
+    private static long lookUp(OrderRepository repository, Long[] keys) {
+        long sum = 0;
+        for (Long key : keys) {
+            sum += repository.findById(key).orElseThrow().getCustomerId();
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,194 @@
+package services;
+
+import model.Order;
+import model.OrderStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import services.impl.InMemoryOrderRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static model.TestOrders.anOrder;
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderRepositoryTest {
+    private OrderRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryOrderRepository();
+    }
+
+    @Test
+    void findById_SavedOrder_ReturnsIt() {
+        Order order = anOrder().withId(42L).build();
+        repository.save(order);
+
+        assertSame(order, repository.findById(42L).orElseThrow());
+        assertTrue(repository.findById(7L).isEmpty());
+        assertTrue(repository.findById(null).isEmpty());
+    }
+
+    @Test
+    void save_SameId_ReplacesOrder() {
+        repository.save(anOrder().withId(1L).build());
+        Order updated = anOrder().withId(1L).build();
+        updated.restoreStatus(OrderStatus.CONFIRMED);
+
+        repository.save(updated);
+
+        assertEquals(1, repository.count());
+        assertEquals(OrderStatus.CONFIRMED, repository.findById(1L).orElseThrow().getStatus());
+    }
+
+    @Test
+    void findAll_ReturnsOrdersSortedById() {
+        repository.save(anOrder().withId(3L).build());
+        repository.save(anOrder().withId(1L).build());
+        repository.save(anOrder().withId(2L).build());
+
+        List<Order> orders = repository.findAll();
+
+        assertEquals(List.of(1L, 2L, 3L), orders.stream().map(Order::getId).toList());
+    }
+
+    @Test
+    void findAll_SharesSnapshotUntilOrdersAreSavedOrRemoved() {
+        Order first = repository.save(anOrder().withId(1L).build());
+        List<Order> snapshot = repository.findAll();
+
+        first.restoreStatus(OrderStatus.DELIVERED);
+        assertSame(snapshot, repository.findAll());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.add(first));
+
+        repository.save(anOrder().withId(2L).build());
+        assertEquals(1, snapshot.size());
+        assertEquals(2, repository.findAll().size());
+        repository.remove(first);
+        assertEquals(List.of(2L), repository.findAll().stream().map(Order::getId).toList());
+    }
+
+    @Test
+    void stream_VisitsEveryOrder() {
+        for (long id = 1; id <= 100; id++) {
+            repository.save(anOrder().withId(id).build());
+        }
+
+        assertEquals(5050L, repository.stream().mapToLong(Order::getId).sum());
+    }
+
+    @Test
+    void findByStatus_FollowsStatusTransitions() {
+        Order first = anOrder().withId(1L).build();
+        Order second = anOrder().withId(2L).build();
+        repository.save(first);
+        repository.save(second);
+
+        first.restoreStatus(OrderStatus.SUBMITTED);
+
+        assertEquals(List.of(second), repository.findByStatus(OrderStatus.PENDING));
+        assertEquals(List.of(first), repository.findByStatus(OrderStatus.SUBMITTED));
+
+        first.restoreStatus(OrderStatus.DELIVERED);
+        second.restoreStatus(OrderStatus.SUBMITTED);
+
+        assertTrue(repository.findByStatus(OrderStatus.PENDING).isEmpty());
+        assertEquals(List.of(second), repository.findByStatus(OrderStatus.SUBMITTED));
+        assertEquals(List.of(first), repository.findByStatus(OrderStatus.DELIVERED));
+    }
+
+    @Test
+    void findByCustomerId_ReturnsOnlyThatCustomersOrders() {
+        repository.save(anOrder().withId(3L).withCustomerId(7L).build());
+        repository.save(anOrder().withId(1L).withCustomerId(7L).build());
+        repository.save(anOrder().withId(2L).withCustomerId(8L).build());
+
+        assertEquals(List.of(1L, 3L), repository.findByCustomerId(7L).stream().map(Order::getId).toList());
+        assertTrue(repository.findByCustomerId(9L).isEmpty());
+    }
+
+    @Test
+    void save_ReplacedInstance_LeavesSecondaryIndexes() {
+        Order original = anOrder().withId(1L).withCustomerId(7L).build();
+        repository.save(original);
+        Order replacement = anOrder().withId(1L).withCustomerId(8L).build();
+        replacement.restoreStatus(OrderStatus.CONFIRMED);
+
+        repository.save(replacement);
+        original.restoreStatus(OrderStatus.CANCELLED);
+
+        assertTrue(repository.findByStatus(OrderStatus.PENDING).isEmpty());
+        assertTrue(repository.findByStatus(OrderStatus.CANCELLED).isEmpty());
+        assertEquals(List.of(replacement), repository.findByStatus(OrderStatus.CONFIRMED));
+        assertTrue(repository.findByCustomerId(7L).isEmpty());
+        assertEquals(List.of(replacement), repository.findByCustomerId(8L));
+    }
+
+    @Test
+    void remove_StoredOrder_LeavesEveryIndex() {
+        Order original = anOrder().withId(1L).withCustomerId(7L).build();
+        repository.save(original);
+        Order replacement = anOrder().withId(1L).withCustomerId(7L).build();
+        repository.save(replacement);
+
+        assertFalse(repository.remove(original));
+        assertTrue(repository.remove(replacement));
+
+        assertTrue(repository.findById(1L).isEmpty());
+        assertTrue(repository.findByStatus(OrderStatus.PENDING).isEmpty());
+        assertTrue(repository.findByCustomerId(7L).isEmpty());
+        replacement.restoreStatus(OrderStatus.CONFIRMED);
+        assertTrue(repository.findByStatus(OrderStatus.CONFIRMED).isEmpty());
+    }
+
+    @Test
+    void findByStatus_ConcurrentTransitions_IndexesEveryOrderOnce() throws InterruptedException {
+        List<Order> orders = new ArrayList<>();
+        for (long id = 1; id <= 1_000; id++) {
+            Order order = anOrder().withId(id).build();
+            repository.save(order);
+            orders.add(order);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (OrderStatus status : List.of(OrderStatus.SUBMITTED, OrderStatus.CONFIRMED, OrderStatus.IN_PROGRESS,
+                OrderStatus.DELIVERED)) {
+            executor.execute(() -> orders.forEach(order -> order.restoreStatus(status)));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        int indexed = 0;
+        for (OrderStatus status : OrderStatus.values()) {
+            indexed += repository.findByStatus(status).size();
+        }
+        assertEquals(1_000, indexed);
+    }
+
+    @Test
+    void save_NullId_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> repository.save(anOrder().withId(null).build()));
+    }
+
+    @Test
+    void save_ConcurrentWriters_KeepsEveryOrder() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int writer = 0; writer < 4; writer++) {
+            final long base = writer * 10_000L;
+            executor.execute(() -> {
+                for (long id = 1; id <= 10_000; id++) {
+                    repository.save(anOrder().withId(base + id).build());
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(40_000, repository.count());
+        assertTrue(repository.findById(40_000L).isPresent());
+    }
+}
@@ -0,0 +1,143 @@
+package services;
+
+import CustomException.PersistenceException;
+import model.Driver;
+import model.Order;
+import model.OrderStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import persistence.OrderArchive;
+import services.impl.InMemoryOrderRepository;
+import services.impl.TieredOrderRepository;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static model.TestOrders.anOrder;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TieredOrderRepositoryTest {
+    private Path directory;
+    private InMemoryOrderRepository live;
+    private TieredOrderRepository repository;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("order-archive");
+        live = new InMemoryOrderRepository();
+        repository = new TieredOrderRepository(live, new OrderArchive(directory, 4));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        repository.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Test
+    void archiveCompleted_MovesOnlyTerminalOrdersOutOfLiveRepository() {
+        repository.save(anOrder().withId(1L).build()).restoreStatus(OrderStatus.DELIVERED);
+        repository.save(anOrder().withId(2L).build()).restoreStatus(OrderStatus.IN_PROGRESS);
+        repository.save(anOrder().withId(3L).build()).restoreStatus(OrderStatus.CANCELLED);
+
+        assertEquals(2, repository.archiveCompleted());
+
+        assertEquals(1, live.count());
+        assertTrue(live.findById(2L).isPresent());
+        assertEquals(List.of(), repository.findByStatus(OrderStatus.DELIVERED));
+        assertEquals(List.of(live.findById(2L).orElseThrow()), live.findByCustomerId(100L));
+        assertEquals(1, repository.getArchive().getSegmentCount());
+    }
+
+    @Test
+    void findById_ArchivedOrder_ReadsItBackWithStatusDriverAndEta() {
+        LocalDateTime eta = LocalDateTime.of(2024, 5, 1, 18, 30);
+        Order order = repository.save(anOrder().withId(1L).build());
+        order.setDriver(new Driver(7L, "Dana", "Scooter", "AB-123"));
+        order.setEstimatedDeliveryTime(eta);
+        order.restoreStatus(OrderStatus.DELIVERED);
+        repository.archiveCompleted();
+
+        Order archived = repository.findById(1L).orElseThrow();
+
+        assertNotSame(order, archived);
+        assertEquals(OrderStatus.DELIVERED, archived.getStatus());
+        assertEquals(eta, archived.getEstimatedDeliveryTime());
+        assertEquals("AB-123", archived.getDriver().getLicensePlate());
+        assertEquals(order.getItems().get(0).getName(), archived.getItems().get(0).getName());
+        assertEquals(order.getTotalCents(), archived.getTotalCents());
+    }
+
+    @Test
+    void findById_ManyBlocksAndSegments_FindsEveryOrder() {
+        for (long id = 1; id <= 5_000; id++) {
+            repository.save(anOrder().withId(id).build()).restoreStatus(OrderStatus.DELIVERED);
+            if (id % 2_000 == 0) {
+                repository.archiveCompleted();
+            }
+        }
+        repository.archiveCompleted();
+
+        assertEquals(0, live.count());
+        assertEquals(3, repository.getArchive().getSegmentCount());
+        for (long id = 1; id <= 5_000; id += 7) {
+            assertEquals(id, repository.findById(id).orElseThrow().getId());
+        }
+        assertTrue(repository.findById(5_001L).isEmpty());
+        assertTrue(repository.findById(0L).isEmpty());
+    }
+
+    @Test
+    void reopen_FindsOrdersArchivedBefore() {
+        repository.save(anOrder().withId(1L).build()).restoreStatus(OrderStatus.DELIVERED);
+        repository.archiveCompleted();
+        repository.close();
+
+        repository = new TieredOrderRepository(new InMemoryOrderRepository(), new OrderArchive(directory, 4));
+        repository.save(anOrder().withId(2L).build()).restoreStatus(OrderStatus.CANCELLED);
+        repository.archiveCompleted();
+
+        assertEquals(2, repository.getArchive().getSegmentCount());
+        assertEquals(OrderStatus.DELIVERED, repository.findById(1L).orElseThrow().getStatus());
+        assertEquals(OrderStatus.CANCELLED, repository.findById(2L).orElseThrow().getStatus());
+    }
+
+    @Test
+    void findById_LiveOrderShadowsArchivedCopy() {
+        Order order = repository.save(anOrder().withId(1L).build());
+        order.restoreStatus(OrderStatus.CANCELLED);
+        repository.archiveCompleted();
+        Order reopened = repository.save(anOrder().withId(1L).build());
+        reopened.restoreStatus(OrderStatus.PENDING);
+
+        assertSame(reopened, repository.findById(1L).orElseThrow());
+    }
+
+    @Test
+    void findById_CorruptBlock_Throws() throws IOException {
+        repository.save(anOrder().withId(1L).build()).restoreStatus(OrderStatus.DELIVERED);
+        repository.archiveCompleted();
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 0}), 12);
+        }
+
+        assertThrows(PersistenceException.class, () -> repository.findById(1L));
+    }
+}
@@ -0,0 +1,113 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdGeneratorTest {
+    private static final long NOW = IdGenerator.EPOCH_MILLIS + 1_000_000L;
+
+    @Test
+    void nextId_EncodesTimestampAndNode() {
+        IdGenerator generator = new IdGenerator(513, () -> NOW);
+
+        long id = generator.nextId();
+
+        assertEquals(NOW, IdGenerator.timestampOf(id));
+        assertEquals(513, IdGenerator.nodeOf(id));
+        assertTrue(id > 0);
+    }
+
+    @Test
+    void nextId_SameMillisecond_StaysUniqueAndIncreasing() {
+        IdGenerator generator = new IdGenerator(1, () -> NOW);
+
+        long previous = generator.nextId();
+        for (int i = 0; i < 10_000; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            previous = id;
+        }
+    }
+
+    @Test
+    void nextId_ClockStepsBack_KeepsIncreasing() {
+        AtomicLong clock = new AtomicLong(NOW);
+        IdGenerator generator = new IdGenerator(1, clock::get);
+        long before = generator.nextId();
+
+        clock.set(NOW - 60_000L);
+        long after = generator.nextId();
+
+        assertTrue(after > before);
+        assertEquals(NOW, IdGenerator.timestampOf(after));
+    }
+
+    @Test
+    void nextId_DifferentNodes_NeverCollide() {
+        IdGenerator first = new IdGenerator(1, () -> NOW);
+        IdGenerator second = new IdGenerator(2, () -> NOW);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+        for (int i = 0; i < 5_000; i++) {
+            assertTrue(ids.add(first.nextId()));
+            assertTrue(ids.add(second.nextId()));
+        }
+    }
+
+    @Test
+    void reserve_BlockIsDisjointFromOtherIds() {
+        IdGenerator generator = new IdGenerator(1, () -> NOW);
+        IdGenerator.IdBlock block = generator.reserve(100);
+        long next = generator.nextId();
+
+        assertEquals(100, block.remaining());
+        long last = 0;
+        while (block.hasNext()) {
+            last = block.nextId();
+            assertNotEquals(next, last);
+        }
+        assertTrue(last < next);
+    }
+
+    @Test
+    void nextId_ConcurrentCallersAndBlocks_AreAllUnique() throws InterruptedException {
+        IdGenerator generator = new IdGenerator(7);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int thread = 0; thread < 4; thread++) {
+            final boolean useBlocks = thread % 2 == 0;
+            executor.execute(() -> {
+                for (int i = 0; i < 50; i++) {
+                    if (useBlocks) {
+                        IdGenerator.IdBlock block = generator.reserve(1_000);
+                        while (block.hasNext()) {
+                            ids.add(block.nextId());
+                        }
+                    } else {
+                        for (int j = 0; j < 1_000; j++) {
+                            ids.add(generator.nextId());
+                        }
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(200_000, ids.size());
+    }
+
+    @Test
+    void constructor_NodeOutOfRange_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> new IdGenerator(IdGenerator.MAX_NODE_ID + 1));
+        assertThrows(IllegalArgumentException.class, () -> new IdGenerator(-1));
+    }
+}
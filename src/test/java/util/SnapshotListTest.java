@@ -0,0 +1,69 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotListTest {
+
+    @Test
+    void get_WithoutWrites_ReturnsSameUnmodifiableInstance() {
+        SnapshotList<String> list = new SnapshotList<>(List.of("a", "b"));
+
+        List<String> snapshot = list.get();
+
+        assertSame(snapshot, list.get());
+        assertEquals(List.of("a", "b"), snapshot);
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.add("c"));
+    }
+
+    @Test
+    void writes_PublishNewVersionAndLeaveOldSnapshotUnchanged() {
+        SnapshotList<String> list = new SnapshotList<>();
+        list.add("a");
+        list.add("b");
+        List<String> before = list.get();
+
+        assertTrue(list.remove("a"));
+        assertFalse(list.remove("z"));
+        list.add("c");
+
+        assertEquals(List.of("a", "b"), before);
+        assertEquals(List.of("b", "c"), list.get());
+        list.set(List.of("x"));
+        assertEquals(List.of("x"), list.get());
+    }
+
+    @Test
+    void addIfAbsent_SkipsEqualElement() {
+        SnapshotList<String> list = new SnapshotList<>();
+
+        assertTrue(list.addIfAbsent("a"));
+        assertFalse(list.addIfAbsent("a"));
+
+        assertEquals(List.of("a"), list.get());
+    }
+
+    @Test
+    void concurrentAdds_AreAllPublished() throws InterruptedException {
+        SnapshotList<Integer> list = new SnapshotList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int thread = 0; thread < 4; thread++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 500; i++) {
+                    list.add(i);
+                    assertFalse(list.get().isEmpty());
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(2_000, list.get().size());
+    }
+}